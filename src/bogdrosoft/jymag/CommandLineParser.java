@@ -20,14 +20,28 @@
 
 package bogdrosoft.jymag;
 
+import bogdrosoft.jymag.comm.AsyncDataTransporter;
 import bogdrosoft.jymag.comm.DataTransporter;
+import bogdrosoft.jymag.comm.MessageWatcher;
+import bogdrosoft.jymag.comm.SessionPool;
 import bogdrosoft.jymag.comm.TransferParameters;
 import bogdrosoft.jymag.comm.TransferUtils;
-import bogdrosoft.jymag.gui.MainWindow;
 import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * CommandLineParser - utility methods connected to parsing the command line.
@@ -121,6 +135,10 @@ public class CommandLineParser
 		MSGS.getString("set_the_parity_mode")+
 		"\n--port <filename>\t- "+	// NOI18N
 		MSGS.getString("set_the_default_port")+
+		"\n\t\t\t  " +	// NOI18N
+		MSGS.getString("port_list_help")+
+		"\n\t\t\t  " +	// NOI18N
+		MSGS.getString("port_list_dirs")+
 		"\n--scan\t\t\t- "+	// NOI18N
 		MSGS.getString("scan_available_ports")+
 		"\n--send-cmd-file <file>\t- "+	// NOI18N
@@ -134,6 +152,8 @@ public class CommandLineParser
 		MSGS.getString("set_the_port_speed")+
 		"\n--stopbits <1,1.5,2>\t- "+	// NOI18N
 		MSGS.getString("set_stop_bits")+
+		"\n--sync <animations,events,photos,ringtones,todo,vcards> <dir>\n\t\t\t- "+	// NOI18N
+		MSGS.getString("sync_dir")+
 		"\n--upload <filename>\t- "+	// NOI18N
 		MSGS.getString("upload_file")+
 		"\n--update-alarm \"DD/MM/YY,HH:MM:SS\",N,\"days\"\t- "+	// NOI18N
@@ -146,13 +166,35 @@ public class CommandLineParser
 		MSGS.getString("ZERO_MEANS_ALL")+
 		"\n--version, -v\t\t- "+	// NOI18N
 		MSGS.getString("display_version")+
+		"\n--watch-sms\t\t- "+	// NOI18N
+		MSGS.getString("watch_sms")+
 		"\n" +	// NOI18N
 		"\n" +	// NOI18N
-		MSGS.getString("exit_zero_code");
+		MSGS.getString("exit_zero_code")+
+		"\n" +	// NOI18N
+		MSGS.getString("exit_code_ports");
 	private static final String VER_WORD = MSGS.getString("Version");
+	private static final String ERR_STRING = MSGS.getString("Error");
 	//private static final String getListStr = b.getString("Getting_list_of_");
 	//private static final String getFileStr = b.getString("Getting_file");
 
+	/**
+	 * An action from the command line, performed on each selected port.
+	 */
+	interface PortAction
+	{
+		/**
+		 * Performs the action on one port.
+		 * @param tp The port parameters to use.
+		 * @param dir The directory for the files of this port.
+		 * @param prefix The text to put before each displayed line.
+		 * @return 0 on success.
+		 * @throws java.lang.Exception in case of error.
+		 */
+		int run (TransferParameters tp, String dir, String prefix)
+			throws Exception;
+	}
+
 	// non-instantiable
 	private CommandLineParser () {}
 
@@ -326,6 +368,8 @@ public class CommandLineParser
 			height = cfg.getHeight();
 			fontSize = cfg.getFontSizeValue();
 			selectedTab = cfg.getSelectedTab();
+			SessionPool.setMaxIdleTime (cfg.getSessionIdle () * 1000L);
+			TransferUtils.setScanProbeTimeout (cfg.getScanTimeout ());
 		}
 		catch (Exception ex)
 		{
@@ -334,24 +378,216 @@ public class CommandLineParser
 	}
 
 	private static TransferParameters getTransferParameters (Object sync)
+	{
+		return getTransferParameters (portName, sync);
+	}
+
+	private static TransferParameters getTransferParameters (
+		String port, Object sync)
 	{
 		return new TransferParameters (
-			portName, speed, dBits, sBits,
+			port, speed, dBits, sBits,
 			parity, flow, sync);
 	}
 
 	/**
-	 * Gets all the elements of the given type from the phone to the directory specified
-	 *	on the command line or to the current directory.
-	 * @param type The type of the elements to get.
+	 * Performs the given action on the port selected on the command line.
+	 * If a list of ports or a pattern was given, the action is performed
+	 * on all the selected ports at the same time.
+	 * @param action The action to perform.
+	 * @param sync The synchronization object.
+	 * @return the result of the action for a single port and the number
+	 *	of ports for which the action has failed for a list of ports.
+	 * @throws java.lang.Exception in case of error.
+	 */
+	private static int runOnPorts (PortAction action, Object sync)
+		throws Exception
+	{
+		return runOnPorts (action, false, null, sync);
+	}
+
+	/**
+	 * Performs the given action on the port selected on the command line.
+	 * If a list of ports or a pattern was given, the action is performed
+	 * on all the selected ports at the same time.
+	 * @param action The action to perform.
+	 * @param needsDir If TRUE and there's a list of ports, each port gets
+	 *	its own directory for the files, named after the phone's IMEI,
+	 *	in the given directory.
+	 * @param dirName The directory for the files or null for
+	 *	the current directory.
 	 * @param sync The synchronization object.
+	 * @return the result of the action for a single port and the number
+	 *	of ports for which the action has failed for a list of ports.
+	 * @throws java.lang.Exception in case of error.
+	 */
+	static int runOnPorts (final PortAction action,
+		final boolean needsDir, final String dirName, final Object sync)
+		throws Exception
+	{
+		if ( ! TransferUtils.isPortList (portName) )
+		{
+			return action.run (getTransferParameters (portName, sync),
+				dirName, Utils.EMPTY_STR);
+		}
+		Vector<String> names = TransferUtils.getPortNames (portName);
+		if ( names.isEmpty () )
+		{
+			return -1;
+		}
+		ExecutorService exec = Executors.newFixedThreadPool (names.size (),
+			new ThreadFactory ()
+		{
+			@Override
+			public Thread newThread (Runnable r)
+			{
+				Thread t = new Thread (r, "CommandLineParser.runOnPorts");	// NOI18N
+				t.setDaemon (true);
+				return t;
+			}
+		});
+		CompletionService<Integer> cs = new ExecutorCompletionService<Integer> (exec);
+		Map<Future<Integer>, String> ports = new HashMap<Future<Integer>, String> (names.size ());
+		try
+		{
+			for ( int i = 0; i < names.size (); i++ )
+			{
+				final String port = names.get (i);
+				ports.put (cs.submit (new Callable<Integer> ()
+				{
+					@Override
+					public Integer call () throws Exception
+					{
+						TransferParameters tp = getTransferParameters (port, sync);
+						String dir = dirName;
+						if ( needsDir )
+						{
+							dir = getDeviceDir (tp, port, dirName);
+						}
+						return action.run (tp, dir, port + Utils.COLON + Utils.SPACE);
+					}
+
+					@Override
+					public String toString ()
+					{
+						return "CommandLineParser.runOnPorts.Callable[" + port + "]";	// NOI18N
+					}
+				}), port);
+			}
+			// report the failures as soon as they happen - some actions,
+			// like watching for messages, never finish
+			int failed = 0;
+			for ( int i = 0; i < names.size (); i++ )
+			{
+				Future<Integer> result = cs.take ();
+				String port = ports.get (result);
+				int res;
+				try
+				{
+					res = result.get ().intValue ();
+				}
+				catch (ExecutionException ex)
+				{
+					Utils.handleException (ex.getCause (),
+						"cmdline.runOnPorts(" + port + ")");	// NOI18N
+					res = -1;
+				}
+				if ( res != 0 )
+				{
+					System.out.println (port + Utils.COLON
+						+ Utils.SPACE + ERR_STRING + Utils.SPACE + res);
+					failed++;
+				}
+			}
+			return failed;
+		}
+		finally
+		{
+			exec.shutdownNow ();
+		}
+	}
+
+	/**
+	 * Gets the directory for the files of the phone on the given port,
+	 *	named after the phone's IMEI or after the port, if the IMEI
+	 *	can't be read. The directory is created if needed.
+	 * @param tp The port parameters to use.
+	 * @param port The name of the port.
+	 * @param dirName The directory to put the phone's directory in or
+	 *	null for the current directory.
+	 * @return the path of the phone's directory.
+	 */
+	static String getDeviceDir (TransferParameters tp, String port,
+		String dirName)
+	{
+		String id = null;
+		try
+		{
+			id = new AsyncDataTransporter (tp).getIMEI ().get ();
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "cmdline.getDeviceDir(" + port + ")");	// NOI18N
+		}
+		if ( id == null || id.trim ().isEmpty () )
+		{
+			id = new File (port).getName ();
+		}
+		File dir = new File ((dirName != null)? dirName : Utils.DOT,
+			id.trim ().replaceAll ("[^a-zA-Z0-9_-]", "_"));	// NOI18N
+		if ( ! dir.isDirectory () && ! dir.mkdirs () )
+		{
+			Utils.handleException (new IOException (dir.getPath ()),
+				"cmdline.getDeviceDir: mkdirs");	// NOI18N
+		}
+		return dir.getPath ();
+	}
+
+	/**
+	 * Gets all the elements of the given type from the phone to the given directory.
+	 * @param type The type of the elements to get.
+	 * @param tp The port parameters to use.
+	 * @param dir The directory for the files.
 	 * @return 0 on success.
 	 */
-	private static int getElementsOfType (String type, Object sync)
+	private static int getElementsOfType (String type, TransferParameters tp,
+		String dir)
 	{
 		return TransferUtils.downloadFiles (
-			type, getTransferParameters (sync), null, null,
-			false, true, true, destDirName, deleteAfterDownload);
+			type, tp, null, null,
+			false, true, true, dir, deleteAfterDownload);
+	}
+
+	/**
+	 * Gets all the elements of the given types from the phones to the directory specified
+	 *	on the command line or to the current directory.
+	 * @param sync The synchronization object.
+	 * @param types The types of the elements to get.
+	 * @return 0 on success.
+	 */
+	private static int getElementsOfType (Object sync, final String... types)
+	{
+		try
+		{
+			return runOnPorts (new PortAction ()
+			{
+				@Override
+				public int run (TransferParameters tp, String dir, String prefix)
+				{
+					int res = 0;
+					for ( int i = 0; i < types.length; i++ )
+					{
+						res += getElementsOfType (types[i], tp, dir);
+					}
+					return res;
+				}
+			}, true, destDirName, sync);
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "cmdline.getElementsOfType");	// NOI18N
+			return -1;
+		}
 	}
 
 	/**
@@ -362,7 +598,7 @@ public class CommandLineParser
 	 */
 	private static int getAllPics (Object sync)
 	{
-		return getElementsOfType ("PICTURES", sync);	// NOI18N
+		return getElementsOfType (sync, "PICTURES");	// NOI18N
 	}
 
 	/**
@@ -373,7 +609,7 @@ public class CommandLineParser
 	 */
 	private static int getAllRings (Object sync)
 	{
-		return getElementsOfType ("RINGTONES", sync);	// NOI18N
+		return getElementsOfType (sync, "RINGTONES");	// NOI18N
 	}
 
 	/**
@@ -384,7 +620,7 @@ public class CommandLineParser
 	 */
 	private static int getAllTODOs (Object sync)
 	{
-		return getElementsOfType ("VTODO", sync);	// NOI18N
+		return getElementsOfType (sync, "VTODO");	// NOI18N
 	}
 
 	/**
@@ -395,7 +631,7 @@ public class CommandLineParser
 	 */
 	private static int getAllEvents (Object sync)
 	{
-		return getElementsOfType ("VEVENT", sync);	// NOI18N
+		return getElementsOfType (sync, "VEVENT");	// NOI18N
 	}
 
 	/**
@@ -406,7 +642,7 @@ public class CommandLineParser
 	 */
 	private static int getAllVcards (Object sync)
 	{
-		return getElementsOfType ("VCARDS", sync);	// NOI18N
+		return getElementsOfType (sync, "VCARDS");	// NOI18N
 	}
 
 	/**
@@ -417,7 +653,133 @@ public class CommandLineParser
 	 */
 	private static int getAllAnimations (Object sync)
 	{
-		return getElementsOfType ("ANIMATIONS", sync);	// NOI18N
+		return getElementsOfType (sync, "ANIMATIONS");	// NOI18N
+	}
+
+	/**
+	 * Gets all the elements from the phone to the directory specified
+	 *	on the command line or to the current directory.
+	 * @param sync The synchronization object.
+	 * @return 0 on success.
+	 */
+	private static int getAll (Object sync)
+	{
+		return getElementsOfType (sync, "PICTURES", "RINGTONES",	// NOI18N
+			"VTODO", "VEVENT", "VCARDS", "ANIMATIONS");		// NOI18N
+	}
+
+	/**
+	 * Displays the lists of all the elements in the phone.
+	 * @param tp The port parameters to use.
+	 * @param prefix The text to put before each displayed line.
+	 * @return 0 on success.
+	 */
+	private static int listElements (TransferParameters tp, String prefix)
+	{
+		Vector<PhoneElement> total = new Vector<PhoneElement> ();
+		Vector<PhoneElement> vmsg = new Vector<PhoneElement> ();
+		int res = TransferUtils.downloadList ("PICTURES",	// NOI18N
+			tp, null, null,
+			false, true, true, vmsg);
+		total.addAll (vmsg);
+		res += TransferUtils.downloadList ("RINGTONES",		// NOI18N
+			tp, null, null,
+			false, true, true, vmsg);
+		total.addAll (vmsg);
+		res += TransferUtils.downloadList ("VTODO",		// NOI18N
+			tp, null, null,
+			false, true, true, vmsg);
+		total.addAll (vmsg);
+		res += TransferUtils.downloadList ("VEVENT",		// NOI18N
+			tp, null, null,
+			false, true, true, vmsg);
+		total.addAll (vmsg);
+		res += TransferUtils.downloadList ("VCARDS",		// NOI18N
+			tp, null, null,
+			false, true, true, vmsg);
+		total.addAll (vmsg);
+		res += TransferUtils.downloadList ("ANIMATIONS",	// NOI18N
+			tp, null, null,
+			false, true, true, vmsg);
+		total.addAll (vmsg);
+		for ( int j = 0; j < total.size (); j++ )
+		{
+			if ( total.get (j) == null )
+			{
+				continue;
+			}
+			System.out.println (prefix + total.get (j));
+		}
+		return res;
+	}
+
+	/**
+	 * Gets the phone's type of the elements for the given command-line
+	 *	name, the same as in the "--download-all-*" options.
+	 * @param name The command-line name of the type, like "photos".
+	 * @return the phone's type of the elements or null if unknown.
+	 */
+	static String getSyncType (String name)
+	{
+		if ( "photos".equals (name) )	// NOI18N
+		{
+			return "PICTURES";	// NOI18N
+		}
+		else if ( "ringtones".equals (name) )	// NOI18N
+		{
+			return "RINGTONES";	// NOI18N
+		}
+		else if ( "todo".equals (name) )	// NOI18N
+		{
+			return "VTODO";	// NOI18N
+		}
+		else if ( "events".equals (name) )	// NOI18N
+		{
+			return "VEVENT";	// NOI18N
+		}
+		else if ( "vcards".equals (name) )	// NOI18N
+		{
+			return "VCARDS";	// NOI18N
+		}
+		else if ( "animations".equals (name) )	// NOI18N
+		{
+			return "ANIMATIONS";	// NOI18N
+		}
+		return null;
+	}
+
+	/**
+	 * Displays the new SMS messages as they arrive, until the program
+	 * is stopped.
+	 * @param tp The port parameters to use.
+	 * @param prefix The text to put before each displayed message.
+	 * @return a non-zero value if the watching couldn't be started.
+	 * @throws java.lang.Exception in case of error.
+	 */
+	private static int watchMessages (TransferParameters tp,
+		final String prefix) throws Exception
+	{
+		if ( tp.getId () == null )
+		{
+			return -1;
+		}
+		MessageWatcher watcher = new MessageWatcher (tp,
+			new MessageWatcher.Listener ()
+		{
+			@Override
+			public void messageReceived (PhoneMessage msg)
+			{
+				System.out.println (prefix + msg);
+			}
+		});
+		int res = watcher.start ().get ().intValue ();
+		if ( res != 0 )
+		{
+			return res;
+		}
+		// the messages are displayed by the watcher's threads
+		new CountDownLatch (1).await ();
+		return 0;
 	}
 
 	/**
@@ -471,7 +833,7 @@ public class CommandLineParser
 			else if ( "--version".equals (currentArg)	// NOI18N
 				|| "-v".equals (currentArg) )	// NOI18N
 			{
-				System.out.println ("JYMAG " + VER_WORD + " " + MainWindow.JYMAG_VERSION);	// NOI18N
+				System.out.println ("JYMAG " + VER_WORD + " " + Starter.JYMAG_VERSION);	// NOI18N
 				Starter.closeProgram (0);
 			}
 			else if ( "--port".equals (currentArg) )	// NOI18N
@@ -616,10 +978,16 @@ public class CommandLineParser
 				{
 					try
 					{
-						int res = TransferUtils.uploadAlarm (
-							PhoneAlarm.parseReponse (args[i+1]),
-							getTransferParameters (sync),
-							null, null, false, true, true);
+						final PhoneAlarm alarm = PhoneAlarm.parseReponse (args[i+1]);
+						int res = runOnPorts (new PortAction ()
+						{
+							@Override
+							public int run (TransferParameters tp, String dir, String prefix)
+							{
+								return TransferUtils.uploadAlarm (alarm,
+									tp, null, null, false, true, true);
+							}
+						}, sync);
 						Starter.closeProgram (res);
 					}
 					catch ( Exception ex )
@@ -636,13 +1004,19 @@ public class CommandLineParser
 				{
 					try
 					{
-						int res = TransferUtils.deleteAlarm (
-							Integer.parseInt (args[i+1]),
-							getTransferParameters (sync),
-							null, null, false, true, true);
+						final int alarmNo = Integer.parseInt (args[i+1]);
+						int res = runOnPorts (new PortAction ()
+						{
+							@Override
+							public int run (TransferParameters tp, String dir, String prefix)
+							{
+								return TransferUtils.deleteAlarm (alarmNo,
+									tp, null, null, false, true, true);
+							}
+						}, sync);
 						Starter.closeProgram (res);
 					}
-					catch ( NumberFormatException ex )
+					catch ( Exception ex )
 					{
 						Utils.handleException (ex,
 							"cmdline.staticDelete(" + args[i+1] + ")");	// NOI18N
@@ -654,18 +1028,25 @@ public class CommandLineParser
 			{
 				try
 				{
-					Vector<PhoneAlarm> vmsg = new Vector<PhoneAlarm> ();
-					int res = TransferUtils.downloadAlarmList (
-						getTransferParameters (sync),
-						null, null, false, true, true, null, vmsg);
-					for ( int j = 0; j < vmsg.size (); j++ )
+					int res = runOnPorts (new PortAction ()
 					{
-						if ( vmsg.get (j) == null )
+						@Override
+						public int run (TransferParameters tp, String dir, String prefix)
 						{
-							continue;
+							Vector<PhoneAlarm> vmsg = new Vector<PhoneAlarm> ();
+							int ret = TransferUtils.downloadAlarmList (
+								tp, null, null, false, true, true, vmsg);
+							for ( int j = 0; j < vmsg.size (); j++ )
+							{
+								if ( vmsg.get (j) == null )
+								{
+									continue;
+								}
+								System.out.println (prefix + vmsg.get (j));
+							}
+							return ret;
 						}
-						System.out.println (vmsg.get (j));
-					}
+					}, sync);
 					Starter.closeProgram (res);
 				}
 				catch ( Exception ex )
@@ -678,41 +1059,14 @@ public class CommandLineParser
 			{
 				try
 				{
-					TransferParameters tp = getTransferParameters (sync);
-					Vector<PhoneElement> total = new Vector<PhoneElement> ();
-					Vector<PhoneElement> vmsg = new Vector<PhoneElement> ();
-					int res = TransferUtils.downloadList ("PICTURES",	// NOI18N
-						tp, null, null,
-						false, true, true, null, vmsg);
-					total.addAll (vmsg);
-					res += TransferUtils.downloadList ("RINGTONES",		// NOI18N
-						tp, null, null,
-						false, true, true, null, vmsg);
-					total.addAll (vmsg);
-					res += TransferUtils.downloadList ("VTODO",		// NOI18N
-						tp, null, null,
-						false, true, true, null, vmsg);
-					total.addAll (vmsg);
-					res += TransferUtils.downloadList ("VEVENT",		// NOI18N
-						tp, null, null,
-						false, true, true, null, vmsg);
-					total.addAll (vmsg);
-					res += TransferUtils.downloadList ("VCARDS",		// NOI18N
-						tp, null, null,
-						false, true, true, null, vmsg);
-					total.addAll (vmsg);
-					res += TransferUtils.downloadList ("ANIMATIONS",	// NOI18N
-						tp, null, null,
-						false, true, true, null, vmsg);
-					total.addAll (vmsg);
-					for ( int j = 0; j < total.size (); j++ )
-					{
-						if ( total.get (j) == null )
+					int res = runOnPorts (new PortAction ()
+					{
+						@Override
+						public int run (TransferParameters tp, String dir, String prefix)
 						{
-							continue;
+							return listElements (tp, prefix);
 						}
-						System.out.println (total.get (j));
-					}
+					}, sync);
 					Starter.closeProgram (res);
 				}
 				catch ( Exception ex )
@@ -728,10 +1082,16 @@ public class CommandLineParser
 					try
 					{
 						// only the ID is important
-						PhoneElement pe = new PhoneElement(args[i+1], "", "");
-						int res = TransferUtils.deleteFile (pe,
-							getTransferParameters (sync),
-							null, null, false, true, true);
+						final PhoneElement pe = new PhoneElement(args[i+1], "", "");
+						int res = runOnPorts (new PortAction ()
+						{
+							@Override
+							public int run (TransferParameters tp, String dir, String prefix)
+							{
+								return TransferUtils.deleteFile (pe,
+									tp, null, null, false, true, true);
+							}
+						}, sync);
 						Starter.closeProgram (res);
 					}
 					catch ( Exception ex )
@@ -746,18 +1106,26 @@ public class CommandLineParser
 			{
 				try
 				{
-					Vector<PhoneMessage> vmsg = new Vector<PhoneMessage> ();
-					int res = TransferUtils.downloadMessageList (
-						getTransferParameters (sync), null, null,
-						false, true, true, null, vmsg);
-					for ( int j = 0; j < vmsg.size (); j++ )
+					int res = runOnPorts (new PortAction ()
 					{
-						if ( vmsg.get (j) == null )
+						@Override
+						public int run (TransferParameters tp, String dir, String prefix)
 						{
-							continue;
+							Vector<PhoneMessage> vmsg = new Vector<PhoneMessage> ();
+							int ret = TransferUtils.downloadMessageList (
+								tp, null, null,
+								false, true, true, vmsg);
+							for ( int j = 0; j < vmsg.size (); j++ )
+							{
+								if ( vmsg.get (j) == null )
+								{
+									continue;
+								}
+								System.out.println (prefix + vmsg.get (j));
+							}
+							return ret;
 						}
-						System.out.println (vmsg.get (j));
-					}
+					}, sync);
 					Starter.closeProgram (res);
 				}
 				catch ( Exception ex )
@@ -766,6 +1134,26 @@ public class CommandLineParser
 						"cmdline.downloadMessageList()");	// NOI18N
 				}
 			}
+			else if ( "--watch-sms".equals (currentArg) )	// NOI18N
+			{
+				try
+				{
+					Starter.closeProgram (runOnPorts (new PortAction ()
+					{
+						@Override
+						public int run (TransferParameters tp, String dir, String prefix)
+							throws Exception
+						{
+							return watchMessages (tp, prefix);
+						}
+					}, sync));
+				}
+				catch ( Exception ex )
+				{
+					Utils.handleException (ex,
+						"cmdline.watchMessages()");	// NOI18N
+				}
+			}
 			else if ( "--send-sms".equals (currentArg) )	// NOI18N
 			{
 				// we need 2 more elements: the recipient's number and the message body
@@ -773,12 +1161,18 @@ public class CommandLineParser
 				{
 					try
 					{
-						PhoneMessage pmsg = new PhoneMessage ();
+						final PhoneMessage pmsg = new PhoneMessage ();
 						pmsg.setRecipientNum (args[i+1]);
 						pmsg.setMessage (args[i+2]);
-						int res = TransferUtils.sendMessage (pmsg,
-							getTransferParameters (sync),
-							null, null, false, true, true);
+						int res = runOnPorts (new PortAction ()
+						{
+							@Override
+							public int run (TransferParameters tp, String dir, String prefix)
+							{
+								return TransferUtils.sendMessage (pmsg,
+									tp, null, null, false, true, true);
+							}
+						}, sync);
 						Starter.closeProgram (res);
 					}
 					catch ( Exception ex )
@@ -796,11 +1190,17 @@ public class CommandLineParser
 				{
 					try
 					{
-						PhoneMessage pmsg = new PhoneMessage ();
+						final PhoneMessage pmsg = new PhoneMessage ();
 						pmsg.setID (args[i+1]);
-						int res = TransferUtils.deleteMessage (pmsg,
-							getTransferParameters (sync),
-							null, null, false, true, true);
+						int res = runOnPorts (new PortAction ()
+						{
+							@Override
+							public int run (TransferParameters tp, String dir, String prefix)
+							{
+								return TransferUtils.deleteMessage (pmsg,
+									tp, null, null, false, true, true);
+							}
+						}, sync);
 						Starter.closeProgram (res);
 					}
 					catch ( Exception ex )
@@ -817,10 +1217,16 @@ public class CommandLineParser
 				{
 					try
 					{
-						int res = TransferUtils.uploadFile (
-							new File (args[i+1]),
-							getTransferParameters (sync),
-							null, null, false, true, true);
+						final File f = new File (args[i+1]);
+						int res = runOnPorts (new PortAction ()
+						{
+							@Override
+							public int run (TransferParameters tp, String dir, String prefix)
+							{
+								return TransferUtils.uploadFile (f,
+									tp, null, null, false, true, true);
+							}
+						}, sync);
 						Starter.closeProgram (res);
 					}
 					catch ( Exception ex )
@@ -857,14 +1263,38 @@ public class CommandLineParser
 			}
 			else if ( "--download-all".equals (currentArg) )	// NOI18N
 			{
-				Starter.closeProgram (
-					getAllPics (sync)
-					+ getAllRings (sync)
-					+ getAllTODOs (sync)
-					+ getAllEvents (sync)
-					+ getAllVcards (sync)
-					+ getAllAnimations (sync)
-					);
+				Starter.closeProgram (getAll (sync));
+			}
+			else if ( "--sync".equals (currentArg) )	// NOI18N
+			{
+				// we need 2 more elements: the type and the directory
+				if ( i < args.length-2 )
+				{
+					try
+					{
+						final String type = getSyncType (
+							args[i+1].toLowerCase (Locale.ENGLISH));
+						final String syncDir = args[i+2];
+						int res = runOnPorts (new PortAction ()
+						{
+							@Override
+							public int run (TransferParameters tp, String dir, String prefix)
+							{
+								return TransferUtils.syncDirectory (type,
+									tp, null, null, false, true, true,
+									new File (dir));
+							}
+						}, true, syncDir, sync);
+						Starter.closeProgram (res);
+					}
+					catch ( Exception ex )
+					{
+						Utils.handleException (ex,
+							"cmdline.syncDirectory(" + args[i+1] + ","	// NOI18N
+							+ args[i+2] + ")");				// NOI18N
+					}
+					i+=2;
+				}
 			}
 			else if ( "--download-dir".equals (currentArg) )	// NOI18N
 			{
@@ -923,42 +1353,31 @@ public class CommandLineParser
 					readConfig (new File (args[i+1]));
 				}
 			}
-			else if ( "--dial-voice".equals (currentArg) )	// NOI18N
+			else if ( "--dial-voice".equals (currentArg)	// NOI18N
+				|| "--dial-data".equals (currentArg) )	// NOI18N
 			{
 				if ( i < args.length-1 )
 				{
 					try
 					{
-						int res = TransferUtils.dialNumber (args[i+1],
-							true, DataTransporter.DIAL_MODE.AUTO,
-							getTransferParameters (sync), null, null,
-							false, true, true);
-						Starter.closeProgram (res);
-					}
-					catch ( Exception ex )
-					{
-						Utils.handleException (ex,
-							"cmdline.staticDialVoice(" + args[i+1] + ")");	// NOI18N
-					}
-					i++;
-				}
-			}
-			else if ( "--dial-data".equals (currentArg) )	// NOI18N
-			{
-				if ( i < args.length-1 )
-				{
-					try
-					{
-						int res = TransferUtils.dialNumber (args[i+1],
-							false, DataTransporter.DIAL_MODE.AUTO,
-							getTransferParameters (sync), null, null,
-							false, true, true);
+						final String number = args[i+1];
+						final boolean isVoice = "--dial-voice".equals (currentArg);	// NOI18N
+						int res = runOnPorts (new PortAction ()
+						{
+							@Override
+							public int run (TransferParameters tp, String dir, String prefix)
+							{
+								return TransferUtils.dialNumber (number,
+									isVoice, DataTransporter.DIAL_MODE.AUTO,
+									tp, null, null, false, true, true);
+							}
+						}, sync);
 						Starter.closeProgram (res);
 					}
 					catch ( Exception ex )
 					{
 						Utils.handleException (ex,
-							"cmdline.staticDialData(" + args[i+1] + ")");	// NOI18N
+							"cmdline.staticDial(" + args[i+1] + ")");	// NOI18N
 					}
 					i++;
 				}
@@ -967,9 +1386,15 @@ public class CommandLineParser
 			{
 				try
 				{
-					int res = TransferUtils.hangup (
-						getTransferParameters (sync), null, null,
-						false, true, true);
+					int res = runOnPorts (new PortAction ()
+					{
+						@Override
+						public int run (TransferParameters tp, String dir, String prefix)
+						{
+							return TransferUtils.hangup (
+								tp, null, null, false, true, true);
+						}
+					}, sync);
 					Starter.closeProgram (res);
 				}
 				catch ( Exception ex )
@@ -984,10 +1409,16 @@ public class CommandLineParser
 				{
 					try
 					{
-						int res = TransferUtils.sendFileAsCommands (
-							new File (args[i+1]),
-							getTransferParameters (sync), null, null,
-							false, true, true);
+						final File f = new File (args[i+1]);
+						int res = runOnPorts (new PortAction ()
+						{
+							@Override
+							public int run (TransferParameters tp, String dir, String prefix)
+							{
+								return TransferUtils.sendFileAsCommands (f,
+									tp, null, null, false, true, true);
+							}
+						}, sync);
 						Starter.closeProgram (res);
 					}
 					catch ( Exception ex )
@@ -62,6 +62,10 @@ public class ConfigFile
 			("font_size\\s*=\\s*(\\d+)", Pattern.CASE_INSENSITIVE);		// NOI18N
 	private static final Pattern SELECTED_TAB_PATTERN = Pattern.compile
 			("tab\\s*=\\s*(\\d+)", Pattern.CASE_INSENSITIVE);		// NOI18N
+	private static final Pattern SESSION_IDLE_PATTERN = Pattern.compile
+			("session_idle\\s*=\\s*(\\d+)", Pattern.CASE_INSENSITIVE);	// NOI18N
+	private static final Pattern SCAN_TIMEOUT_PATTERN = Pattern.compile
+			("scan_timeout\\s*=\\s*(\\d+)", Pattern.CASE_INSENSITIVE);	// NOI18N
 	private static final Pattern COMMENT_PATTERN = Pattern.compile
 			("^#.*");		// NOI18N
 
@@ -82,6 +86,9 @@ public class ConfigFile
 	private boolean isMax;
 	private int fontSize;
 	private int selectedTab;
+	// other parameters:
+	private int sessionIdle;
+	private int scanTimeout;
 
 	/**
 	 * Creates a new instance of ConfigFile.
@@ -116,6 +123,8 @@ public class ConfigFile
 		isMax = true;
 		fontSize = 12;
 		selectedTab = 0;
+		sessionIdle = 30;
+		scanTimeout = 2000;
 
 		BufferedReader br = null;
 		try
@@ -154,6 +163,8 @@ public class ConfigFile
 				Matcher isMaxM = IS_MAXIMIZED_PATTERN.matcher (line);
 				Matcher fontSizeM = FONT_SIZE_PATTERN.matcher (line);
 				Matcher selectedTabM = SELECTED_TAB_PATTERN.matcher (line);
+				Matcher sessionIdleM = SESSION_IDLE_PATTERN.matcher (line);
+				Matcher scanTimeoutM = SCAN_TIMEOUT_PATTERN.matcher (line);
 				Matcher commentM = COMMENT_PATTERN.matcher (line);
 
 				if ( commentM.matches () )
@@ -219,6 +230,14 @@ public class ConfigFile
 				{
 					selectedTab = readIntUsingMatcher (selectedTabM, 1, "tab");	// NOI18N
 				}
+				else if ( sessionIdleM.matches () )
+				{
+					sessionIdle = readIntUsingMatcher (sessionIdleM, 1, "session_idle");	// NOI18N
+				}
+				else if ( scanTimeoutM.matches () )
+				{
+					scanTimeout = readIntUsingMatcher (scanTimeoutM, 1, "scan_timeout");	// NOI18N
+				}
 			} while (true);
 		}
 		catch (IOException ex)
@@ -278,6 +297,14 @@ public class ConfigFile
 		{
 			selectedTab = 0;
 		}
+		if ( sessionIdle < 0 )
+		{
+			sessionIdle = 30;
+		}
+		if ( scanTimeout <= 0 )
+		{
+			scanTimeout = 2000;
+		}
 	}
 
 	/**
@@ -323,6 +350,14 @@ public class ConfigFile
 			w.newLine ();
 			w.write ("tab = " + selectedTab);	// NOI18N
 			w.newLine ();
+			w.write ("# How long an unused port stays open, in seconds, 0=close after each operation.");	// NOI18N
+			w.newLine ();
+			w.write ("session_idle = " + sessionIdle);	// NOI18N
+			w.newLine ();
+			w.write ("# How long to wait for a reply from each port when scanning, in milliseconds.");	// NOI18N
+			w.newLine ();
+			w.write ("scan_timeout = " + scanTimeout);	// NOI18N
+			w.newLine ();
 		}
 		catch (IOException t)
 		{
@@ -463,6 +498,24 @@ public class ConfigFile
 		selectedTab = v;
 	}
 
+	/**
+	 * Sets the maximum idle time of an open port.
+	 * @param v the new value, in seconds.
+	 */
+	public void setSessionIdle (int v)
+	{
+		sessionIdle = v;
+	}
+
+	/**
+	 * Sets the maximum time to wait for a reply from a port when scanning.
+	 * @param v the new value, in milliseconds.
+	 */
+	public void setScanTimeout (int v)
+	{
+		scanTimeout = v;
+	}
+
 	// ================ getters:
 
 
@@ -583,6 +636,24 @@ public class ConfigFile
 		return selectedTab;
 	}
 
+	/**
+	 * Gets the maximum idle time of an open port.
+	 * @return the maximum idle time, in seconds.
+	 */
+	public int getSessionIdle ()
+	{
+		return sessionIdle;
+	}
+
+	/**
+	 * Gets the maximum time to wait for a reply from a port when scanning.
+	 * @return the maximum time, in milliseconds.
+	 */
+	public int getScanTimeout ()
+	{
+		return scanTimeout;
+	}
+
 	private int readIntUsingMatcher(Matcher m, int group, String field)
 	{
 		try
@@ -0,0 +1,510 @@
+/*
+ * FileFormat.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The registry of the known file formats. Each entry joins together
+ * the phone's name of the format (with the file extension to use for
+ * downloaded elements), the file extensions and the ID used for
+ * uploading and the signatures (file headers) used to find the start
+ * of a downloaded object.
+ * The order of the entries is the order in which the signatures
+ * are checked - the first format with a matching signature wins.
+ * @author Bogdan Drozdowski
+ */
+public enum FileFormat
+{
+	// JPG/EXIF/MJPG
+	/** JPEG pictures. */
+	JPEG (new String[] {"JPEG"}, "jpg", 104,	// NOI18N
+		new String[] {"jpg", "jpeg", "jpe", "jif"},	// NOI18N
+		new Category[] {Category.PHOTO}, 0,
+		new byte[] {
+			(byte) 0xff, (byte) 0xd8/*, (byte) 0xff*/
+		}),
+	// MTh
+	/** MIDI sounds. */
+	MIDI (new String[] {"MIDI"}, "mid", 2,	// NOI18N
+		new String[] {"mid", "midi"},	// NOI18N
+		new Category[] {Category.RINGTONE}, 0,
+		new byte[] {
+			(byte) 0x4d, (byte) 0x54, (byte) 0x68
+		}),
+	// AMR and AMR-WB (AWB) #!AMR = 23 21 41 4D  52
+	/** AMR sounds. */
+	AMR (null, null, 14,
+		new String[] {"amr"},	// NOI18N
+		new Category[] {Category.RINGTONE}, 0,
+		new byte[] {
+			(byte) 0x23, (byte) 0x21, (byte) 0x41, (byte) 0x4D,
+			(byte) 0x52
+		}),
+	// WAV = RIFF = 52 49 46 46
+	/** WAV sounds. */
+	WAV (null, null, 1,
+		new String[] {"wav"},	// NOI18N
+		new Category[] {Category.RINGTONE}, 0,
+		new byte[] {
+			(byte) 0x52, (byte) 0x49, (byte) 0x46, (byte) 0x46
+		}),
+	// GIF = 47 49 46
+	/** GIF pictures and animations. */
+	GIF (new String[] {"FGIF"}, "gif", 105,	// NOI18N
+		new String[] {"gif"},	// NOI18N
+		new Category[] {Category.PHOTO, Category.ANIMATION}, 0,
+		new byte[] {
+			(byte) 0x47, (byte) 0x49, (byte) 0x46
+		}),
+	/** PNG pictures. */
+	PNG (null, null, 103,
+		new String[] {"png"},	// NOI18N
+		new Category[] {Category.PHOTO}, 0,
+		new byte[] {
+			(byte) 0x89, (byte) 0x50, (byte) 0x4E, (byte) 0x47
+		}),
+	//// "BEGIN:VCALENDAR"
+	/** Calendar events and to-do tasks. */
+	VCALENDAR (new String[] {"VCAL"}, "ics", 221,	// NOI18N
+		new String[] {"ics", "ical", "ifb", "icalendar", "vcs"},	// NOI18N
+		new Category[] {Category.TODO, Category.EVENT}, 0,
+		new byte[] {
+			(byte) 0x42, (byte) 0x45, (byte) 0x47, (byte) 0x49,
+			(byte) 0x4E, (byte) 0x3A, (byte) 0x56, (byte) 0x43,
+			(byte) 0x41, (byte) 0x4C, (byte) 0x45, (byte) 0x4E,
+			(byte) 0x44, (byte) 0x41, (byte) 0x52
+		}),
+	//// "BEGIN:vCard"
+	/** Addressbook entries. */
+	VCARD (new String[] {"VCRD"}, "vcf", 220,	// NOI18N
+		new String[] {"vcf", "vcard", "vcrd"},	// NOI18N
+		new Category[] {Category.ADDRESS_BOOK}, 0,
+		new byte[] {
+			(byte) 0x42, (byte) 0x45, (byte) 0x47, (byte) 0x49,
+			(byte) 0x4E, (byte) 0x3A, (byte) 0x76, (byte) 0x43,
+			(byte) 0x61, (byte) 0x72, (byte) 0x64
+		}),
+	// MNG: 8A 4D 4E 47
+	/** MNG animations. */
+	MNG (null, null, 202,
+		new String[] {"mng"},	// NOI18N
+		new Category[] {Category.ANIMATION}, 0,
+		new byte[] {
+			(byte) 0x8A, (byte) 0x4D, (byte) 0x4E, (byte) 0x47
+		}),
+	// AIFF: "FORM" or "AIFF"
+	/** AIFF sounds. */
+	AIFF (new String[] {"AIFF"}, "aif", 0, null, null, 0,	// NOI18N
+		new byte[] {
+			(byte) 0x46, (byte) 0x4F, (byte) 0x52, (byte) 0x4D
+		},
+		new byte[] {
+			(byte) 0x41, (byte) 0x49, (byte) 0x46, (byte) 0x46
+		}),
+	// IMY (IMELODY): "BEGIN:IMELODY"
+	/** iMelody sounds. */
+	IMELODY (null, null, 4,
+		new String[] {"imy"},	// NOI18N
+		new Category[] {Category.RINGTONE}, 0,
+		new byte[] {
+			(byte) 0x42, (byte) 0x45, (byte) 0x47, (byte) 0x49,
+			(byte) 0x4E, (byte) 0x3A, (byte) 0x49, (byte) 0x4D,
+			(byte) 0x45, (byte) 0x4C, (byte) 0x4F, (byte) 0x44,
+			(byte) 0x59
+		}),
+	// AAC: "\0 \0 \0 . ftyp" - start with 4 bytes before "ftyp"
+	/** MPEG-4 videos (and other files in the MPEG-4 container). */
+	MPEG (new String[] {"MPEG"}, "mpg", 232,	// NOI18N
+		new String[] {"mp4", "mpeg", "mpg"},	// NOI18N
+		new Category[] {Category.ANIMATION}, -4,
+		new byte[] {
+			//(byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x14,
+			(byte) 0x66, (byte) 0x74, (byte) 0x79, (byte) 0x70
+		}),
+	/** GZIP archives. */
+	GZIP (null, null, 0, null, null, 0,
+		new byte[] {
+			(byte) 0x1f, (byte) 0x8b
+		}),
+	/** ZIP archives. */
+	ZIP (null, null, 0, null, null, 0,
+		new byte[] {
+			(byte) 0x50, (byte) 0x4b
+		}),
+	// MPEG-audio:
+	/** MP3 sounds. */
+	MP3 (null, null, 3,
+		new String[] {"mp3"},	// NOI18N
+		new Category[] {Category.RINGTONE}, 0,
+		new byte[] {
+			(byte) 0xFF, (byte) 0xFA
+		},
+		new byte[] {
+			(byte) 0xFF, (byte) 0xFB
+		},
+		new byte[] {
+			(byte) 0xFF, (byte) 0xFC
+		}),
+	/** WMV1/2 videos. */
+	WMV (null, null, 0, null, null, 0,
+		new byte[] {
+			(byte) 0x30, (byte) 0x26, (byte) 0xB2, (byte) 0x75
+			/* after these four, there are: 8E 66 CF 11  A6 D9 00 AA  00 62 CE 6C */
+		}),
+	// "<?xml" or "<!DOCTYPE"
+	/** XML documents. */
+	XML (null, null, 0, null, null, 0,
+		new byte[] {
+			(byte) 0x3C, (byte) 0x3F, (byte) 0x78, (byte) 0x6D, (byte) 0x6C
+		},
+		new byte[] {
+			(byte) 0x3C, (byte) 0x21, (byte) 0x44, (byte) 0x4F,
+			(byte) 0x43, (byte) 0x54, (byte) 0x59, (byte) 0x50,
+			(byte) 0x45
+		}),
+	/** SVG pictures. */
+	SVG (null, null, 0, null, null, 0,
+		new byte[] {
+			(byte) 0x3C, (byte) 0x73, (byte) 0x76, (byte) 0x67
+		}),
+	/** WMF pictures. */
+	WMF (null, null, 0, null, null, 0,
+		new byte[] {
+			(byte) 0xD7, (byte) 0xCD, (byte) 0xC6, (byte) 0x9A,
+			(byte) 0x00, (byte) 0x00
+		}),
+	// PS/EPS: %!PS
+	/** PostScript pictures. */
+	POSTSCRIPT (null, null, 108,
+		new String[] {"ai", "eps", "ps"},	// NOI18N
+		new Category[] {Category.PHOTO}, 0,
+		new byte[] {
+			(byte) 0x25, (byte) 0x21, (byte) 0x50, (byte) 0x53
+		}),
+	// TIFF: "II"
+	/** TIFF pictures. */
+	TIFF (new String[] {"TIFF"}, "tif", 106,	// NOI18N
+		new String[] {"tif", "tiff"},	// NOI18N
+		new Category[] {Category.PHOTO}, 0,
+		new byte[] {
+			(byte) 0x49, (byte) 0x49
+		}),
+	// midlets: "MIDlet"
+	/** Java application descriptors. */
+	JAD (null, null, 1002,
+		new String[] {"jad"},	// NOI18N
+		new Category[] {Category.JAVA}, 0,
+		new byte[] {
+			(byte) 0x4D, (byte) 0x49, (byte) 0x44, (byte) 0x6C,
+			(byte) 0x65, (byte) 0x74
+		}),
+	// text CGM: "BEGMF", character CGM: =="0x3020" big-endian,
+	// binary CGM: & 0xFFE0 = "0x0020" big-endian
+	/** CGM pictures. Must be checked before BMP, as CGM can start with "BM". */
+	CGM (null, null, 0, null, null, 0,
+		new byte[] {
+			(byte) 0x42, (byte) 0x45, (byte) 0x47, (byte) 0x4D, (byte) 0x46
+		},
+		new byte[] {
+			(byte) 0x30, (byte) 0x20
+		},
+		new byte[] {
+			(byte) 0x00, (byte) 0x29
+		},
+		new byte[] {
+			(byte) 0x00, (byte) 0x28
+		}),
+	// PMB: "[BitmapInfo2]"
+	/** PMB pictures. */
+	PMB (null, null, 0, null, null, 0,
+		new byte[] {
+			(byte) 0x5B, (byte) 0x42, (byte) 0x69, (byte) 0x74,
+			(byte) 0x6D, (byte) 0x61, (byte) 0x70, (byte) 0x49,
+			(byte) 0x6E, (byte) 0x66, (byte) 0x6F, (byte) 0x32,
+			(byte) 0x5D
+		}),
+	// BM  = 42 4D
+	/** BMP pictures. */
+	BMP (null, null, 102,
+		new String[] {"bmp"},	// NOI18N
+		new Category[] {Category.PHOTO}, 0,
+		new byte[] {
+			(byte) 0x42, (byte) 0x4D
+		}),
+	// WBMP: 0, 0
+	// the 2-bytes-zero header dosen't work well. Instead, let's look for '$'
+	// and skip 3 bytes after it.
+	// 3GP has a header of 3 zeros, so let's catch it with "generic type" - WBMP
+	// DIB is a bitmap with no header, so let's catch it with "generic type" - WBMP
+	/** WBMP pictures. Always keep this signature last, as this is the generic case. */
+	WBMP (new String[] {"WBMP"}, "wbm", 101,	// NOI18N
+		new String[] {"wbmp"},	// NOI18N
+		new Category[] {Category.PHOTO}, 4,
+		new byte[] { (byte) 0x24 }),
+
+	// formats without a known signature:
+	/** ASG1 sounds. */
+	ASG1 (new String[] {"ASG1"}, "as1", 5,	// NOI18N
+		new String[] {"asg1"},	// NOI18N
+		new Category[] {Category.RINGTONE}, 0),
+	/** ASG2 sounds. */
+	ASG2 (new String[] {"ASG2"}, "as2", 6,	// NOI18N
+		new String[] {"asg2"},	// NOI18N
+		new Category[] {Category.RINGTONE}, 0),
+	/** MFI sounds. */
+	MFI (null, null, 15,
+		new String[] {"mfi"},	// NOI18N
+		new Category[] {Category.RINGTONE}, 0),
+	/** AAC sounds. */
+	AAC (null, null, 17,
+		new String[] {"aac", "m4a"},	// NOI18N
+		new Category[] {Category.RINGTONE}, 0),
+	/** AMR-WB sounds. */
+	AWB (null, null, 18,
+		new String[] {"awb"},	// NOI18N
+		new Category[] {Category.RINGTONE}, 0),
+	/** PICT pictures. */
+	PICT (new String[] {"PICT"}, "pct", 107,	// NOI18N
+		new String[] {"pct", "pict"},	// NOI18N
+		new Category[] {Category.PHOTO}, 0),
+	/** EMS pictures. */
+	EMS_GR (new String[] {"EMS_GR"}, "emg", 109,	// NOI18N
+		new String[] {"ems_gr"},	// NOI18N
+		new Category[] {Category.PHOTO}, 0),
+	/** Compressed SVG pictures. */
+	SVGZ (new String[] {"SVGZ"}, "svz", 0, null, null, 0),	// NOI18N
+	/** SG1 animations. */
+	SG1 (null, null, 203,
+		new String[] {"sg1"},	// NOI18N
+		new Category[] {Category.ANIMATION}, 0),
+	/** SG2 animations. */
+	SG2 (null, null, 204,
+		new String[] {"sg2"},	// NOI18N
+		new Category[] {Category.ANIMATION}, 0),
+	/** EMS animations. */
+	EMS_AN (new String[] {"EMS_AN"}, "ema", 205,	// NOI18N
+		new String[] {"ems_an"},	// NOI18N
+		new Category[] {Category.ANIMATION}, 0),
+	/** SSA animations. */
+	SSA (null, null, 206,
+		new String[] {"ssa"},	// NOI18N
+		new Category[] {Category.ANIMATION}, 0),
+	/** Motion-JPEG videos. */
+	MJPEG (new String[] {"MJPG"}, "mjp", 207,	// NOI18N
+		new String[] {"mjpg", "mjpeg"},	// NOI18N
+		new Category[] {Category.ANIMATION}, 0),
+	/** AVI videos. */
+	AVI (null, null, 231,
+		new String[] {"avi"},	// NOI18N
+		new Category[] {Category.ANIMATION}, 0),
+	/** 3GP videos. */
+	THREE_GP (new String[] {"3GP2", "3GPP"}, "3gp", 233,	// NOI18N
+		new String[] {"3gp", "3gpp", "3g2"},	// NOI18N
+		new Category[] {Category.ANIMATION}, 0),
+	/** Java archives. */
+	JAR (null, null, 1001,
+		new String[] {"jar"},	// NOI18N
+		new Category[] {Category.JAVA}, 0),
+	/** Java application manifests. */
+	JAM (null, null, 1003,
+		new String[] {"jam"},	// NOI18N
+		new Category[] {Category.JAVA}, 0);
+
+	/**
+	 * The categories of elements that files can be uploaded as.
+	 */
+	public enum Category
+	{
+		/** Ringtones and other sounds. */
+		RINGTONE,
+		/** Pictures. */
+		PHOTO,
+		/** Addressbook entries. */
+		ADDRESS_BOOK,
+		/** To-do tasks. */
+		TODO,
+		/** Calendar events. */
+		EVENT,
+		/** Animations and videos. */
+		ANIMATION,
+		/** Java applications. */
+		JAVA
+	}
+
+	/** The file extensions for the phone's names of the formats. */
+	private static final Map<String, String> PHONE_TYPE_EXTS;
+
+	static
+	{
+		Map<String, String> tempMap = new HashMap<String, String> (32);
+		FileFormat[] values = values ();
+		for ( int i = 0; i < values.length; i++ )
+		{
+			for ( int j = 0; j < values[i].phoneTypes.length; j++ )
+			{
+				tempMap.put (values[i].phoneTypes[j], values[i].ext);
+			}
+		}
+		PHONE_TYPE_EXTS = Collections.unmodifiableMap (tempMap);
+	}
+
+	private final String[] phoneTypes;
+	private final String ext;
+	private final int uploadId;
+	private final String[] uploadExts;
+	private final Category[] categories;
+	private final int dataOffset;
+	private final byte[][] signatures;
+
+	/**
+	 * Creates a new FileFormat.
+	 * @param phoneNames The names of this format, as listed by the phone.
+	 * @param extension The file extension for downloaded elements with
+	 *	one of the given names.
+	 * @param id The format ID used for uploading, 0 if the format can't
+	 *	be uploaded.
+	 * @param extensions The file extensions which can be uploaded with
+	 *	the given ID.
+	 * @param cats The categories of elements the files can be uploaded as.
+	 * @param offset The distance from the signature to the start of the
+	 *	object's data.
+	 * @param sigs The signatures (file headers) of this format, in the
+	 *	order in which they should be checked.
+	 */
+	private FileFormat (String[] phoneNames, String extension, int id,
+		String[] extensions, Category[] cats, int offset, byte[]... sigs)
+	{
+		phoneTypes = (phoneNames != null)? phoneNames : new String[0];
+		ext = extension;
+		uploadId = id;
+		uploadExts = (extensions != null)? extensions : new String[0];
+		categories = (cats != null)? cats : new Category[0];
+		dataOffset = offset;
+		signatures = sigs;
+	}
+
+	/**
+	 * Gets the ID of this format, used for uploading.
+	 * @return the ID of this format, 0 if the format can't be uploaded.
+	 */
+	public int getUploadID ()
+	{
+		return uploadId;
+	}
+
+	/**
+	 * Gets the number of signatures of this format.
+	 * @return the number of signatures of this format.
+	 */
+	public int getSignatureCount ()
+	{
+		return signatures.length;
+	}
+
+	/**
+	 * Gets a copy of the given signature of this format.
+	 * @param index The index of the signature to get, in the order
+	 *	of checking.
+	 * @return the signature (file header) bytes.
+	 */
+	public byte[] getSignature (int index)
+	{
+		return signatures[index].clone ();
+	}
+
+	/**
+	 * Gets the distance from the signature to the start of the object's data.
+	 * @return the distance from the signature to the start of the
+	 *	object's data, can be negative.
+	 */
+	public int getDataOffset ()
+	{
+		return dataOffset;
+	}
+
+	/**
+	 * Tells if files of this format can be uploaded as elements
+	 * of the given category.
+	 * @param c The category to check.
+	 * @return TRUE if files of this format can be uploaded as elements
+	 *	of the given category.
+	 */
+	public boolean isInCategory (Category c)
+	{
+		for ( int i = 0; i < categories.length; i++ )
+		{
+			if ( categories[i] == c )
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates a Map of the file extensions which can be uploaded as
+	 * elements of the given category to the IDs of their formats.
+	 * @param c The category to get the extensions for, or null for all.
+	 * @return an unmodifiable Map of file extensions to format IDs.
+	 */
+	public static Map<String, Integer> getUploadIDs (Category c)
+	{
+		Map<String, Integer> res = new HashMap<String, Integer> (32);
+		FileFormat[] values = values ();
+		for ( int i = 0; i < values.length; i++ )
+		{
+			if ( c == null && values[i].categories.length > 0
+				|| c != null && values[i].isInCategory (c) )
+			{
+				for ( int j = 0; j < values[i].uploadExts.length; j++ )
+				{
+					res.put (values[i].uploadExts[j],
+						values[i].uploadId);
+				}
+			}
+		}
+		return Collections.unmodifiableMap (res);
+	}
+
+	/**
+	 * Returns the file extension suitable for elements of the given type.
+	 * @param phoneType The element type (format), as listed by the
+	 *	phone, like FGIF, JPEG, MIDI.
+	 * @return A file extension suitable for elements of the given type.
+	 */
+	public static String getExtension (String phoneType)
+	{
+		if ( phoneType == null )
+		{
+			return Utils.EMPTY_STR;
+		}
+		String res = PHONE_TYPE_EXTS.get (phoneType);
+		if ( res != null )
+		{
+			return res;
+		}
+		return phoneType.toLowerCase (Locale.ENGLISH);
+	}
+}
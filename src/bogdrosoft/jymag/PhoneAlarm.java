@@ -18,10 +18,15 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+
 package bogdrosoft.jymag;
 
-import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -29,10 +34,12 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * This class represents an alarm in the phone.
+ * This class represents an alarm in the phone. The objects are immutable,
+ * so they can be shared between threads without locking. Use a
+ * {@link Builder} to make a changed copy of an alarm.
  * @author Bogdan Drozdowski
  */
-public class PhoneAlarm
+public final class PhoneAlarm
 {
 	// alarm recurrences could also show up here
 	private static final Pattern DATETIME_PATTERN
@@ -48,6 +55,11 @@ public class PhoneAlarm
 
 	private static final String SLASH = "/";			// NOI18N
 
+	private static final DateTimeFormatter DATE_FORMAT
+		= DateTimeFormatter.ofPattern ("dd/MM/yy");		// NOI18N
+	private static final DateTimeFormatter TIME_FORMAT
+		= DateTimeFormatter.ofPattern ("HH:mm:ss");		// NOI18N
+
 	private static final String TOSTRING_BEGIN = "PhoneAlarm[";	// NOI18N
 	private static final String TOSTRING_END = "]";			// NOI18N
 	private static final String TOSTRING_ID = "ID=";		// NOI18N
@@ -57,14 +69,19 @@ public class PhoneAlarm
 
 	private static final Integer ALL_DAYS = 0;
 
-	private final SimpleDateFormat dateFormat
-		= new SimpleDateFormat ("dd/MM/yy,HH:mm:ss");
+	private final LocalDate date;
+	private final LocalTime time;
+	private final boolean oneTime;
+	private final boolean forAllDays;
+	private final Set<Integer> days;
+	private final int number;
 
-	private Calendar time;
-	private boolean oneTime;
-	private boolean forAllDays;
-	private Set<Integer> days;
-	private int number;
+	// the representations, computed once
+	private final String dateString;
+	private final String timeString;
+	private final String daysString;
+	private final String alarmString;
+	private final String text;
 
 	/**
 	 * Creates a new instance of PhoneAlarm.
@@ -78,29 +95,9 @@ public class PhoneAlarm
 	public PhoneAlarm (Calendar alarmTime, boolean isOneTimeAlarm,
 		boolean isForAllDays, int[] alarmDays, int alarmNumber)
 	{
-		if ( alarmTime == null )
-		{
-			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:alarmTime==null");	// NOI18N
-		}
-		if ( (! isForAllDays) && (! isOneTimeAlarm) && alarmDays == null )
-		{
-			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:alarmDays==null");	// NOI18N
-		}
-
-		time = alarmTime;
-		time.set (Calendar.MILLISECOND, 0);
-		oneTime = isOneTimeAlarm;
-		forAllDays = isForAllDays;
-		days = null;
-		if (! isForAllDays)
-		{
-			days = makeSetFromArray (alarmDays);
-			if ( days != null && days.contains (ALL_DAYS) )
-			{
-				forAllDays = true;
-			}
-		}
-		number = alarmNumber;
+		this (toLocalDate (alarmTime), toLocalTime (alarmTime), isOneTimeAlarm,
+			isForAllDays, isForAllDays? null : makeSetFromArray (alarmDays),
+			alarmNumber);
 	}
 
 	/**
@@ -115,29 +112,8 @@ public class PhoneAlarm
 	public PhoneAlarm (Calendar alarmTime, boolean isOneTimeAlarm,
 		boolean isForAllDays, Set<? extends Integer> alarmDays, int alarmNumber)
 	{
-		if ( alarmTime == null )
-		{
-			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:alarmTime==null");	// NOI18N
-		}
-		if ( (! isForAllDays) && (! isOneTimeAlarm) && alarmDays == null )
-		{
-			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:alarmDays==null");	// NOI18N
-		}
-
-		time = alarmTime;
-		time.set (Calendar.MILLISECOND, 0);
-		oneTime = isOneTimeAlarm;
-		forAllDays = isForAllDays;
-		days = null;
-		if (! isForAllDays && alarmDays != null )
-		{
-			days = new HashSet<Integer> (alarmDays);
-			if ( alarmDays.contains (ALL_DAYS) )
-			{
-				forAllDays = true;
-			}
-		}
-		number = alarmNumber;
+		this (toLocalDate (alarmTime), toLocalTime (alarmTime), isOneTimeAlarm,
+			isForAllDays, isForAllDays? null : alarmDays, alarmNumber);
 	}
 
 	/**
@@ -152,98 +128,106 @@ public class PhoneAlarm
 	public PhoneAlarm (int alarmNumber, String dateString, String timeString,
 		String daysString)
 	{
-		if ( timeString == null )
-		{
-			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:timeString==null");	// NOI18N
-		}
-		number = alarmNumber;
-		time = Calendar.getInstance ();
-		if ( dateString == null )
-		{
-			oneTime = true;
-		}
-		else if ( dateString.isEmpty () )
-		{
-			oneTime = true;
-		}
-		else
-		{
-			String[] parts = dateString.split (SLASH);
-			if ( parts.length != 3 )
-			{
-				throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:dateString: " + dateString);	// NOI18N
-			}
-			oneTime = false;
-			int month = Utils.convertRealMonthToCalendar (Integer.parseInt (parts[1]));
-			int day = Integer.parseInt (parts[0]);
-			int year = Integer.parseInt (parts[2]);
-			time.set (Calendar.MONTH, month);
-			time.set (Calendar.DAY_OF_MONTH, day);
-			if ( year < 80 )
-			{
-				time.set (Calendar.YEAR, 2000+year);
-			}
-			else
-			{
-				time.set (Calendar.YEAR, 1900+year);
-			}
-		}
-		if ( timeString.isEmpty () )
-		{
-			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:timeString:length=0");	// NOI18N
-		}
-		else
+		this (parseDate (dateString), parseTime (timeString),
+			dateString == null || dateString.isEmpty (),
+			parseDays (daysString), alarmNumber);
+	}
+
+	/**
+	 * Creates a new instance of PhoneAlarm.
+	 * @param alarmDate The date to start the alarm.
+	 * @param alarmTime The time to start the alarm.
+	 * @param isOneTimeAlarm Is the alarm one-time.
+	 * @param alarmDays The days to start the alarms on or null
+	 *	for all days.
+	 * @param alarmNumber The number of the alarm.
+	 */
+	private PhoneAlarm (LocalDate alarmDate, LocalTime alarmTime,
+		boolean isOneTimeAlarm, Set<Integer> alarmDays, int alarmNumber)
+	{
+		this (alarmDate, alarmTime, isOneTimeAlarm, alarmDays == null,
+			alarmDays, alarmNumber);
+	}
+
+	/**
+	 * Creates a new instance of PhoneAlarm. All the other constructors
+	 * end up here.
+	 * @param alarmDate The date to start the alarm.
+	 * @param alarmTime The time to start the alarm.
+	 * @param isOneTimeAlarm Is the alarm one-time.
+	 * @param isForAllDays Is the alarm for all days of week.
+	 * @param alarmDays The days to start the alarms on.
+	 * @param alarmNumber The number of the alarm.
+	 */
+	private PhoneAlarm (LocalDate alarmDate, LocalTime alarmTime,
+		boolean isOneTimeAlarm, boolean isForAllDays,
+		Set<? extends Integer> alarmDays, int alarmNumber)
+	{
+		if ( alarmDate == null || alarmTime == null )
 		{
-			String[] parts = timeString.split (Utils.COLON);
-			if ( parts.length != 3 )
-			{
-				throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:timeString: " + timeString);	// NOI18N
-			}
-			time.set (Calendar.HOUR_OF_DAY, Integer.parseInt (parts[0]));
-			time.set (Calendar.MINUTE, Integer.parseInt (parts[1]));
-			time.set (Calendar.SECOND, Integer.parseInt (parts[2]));
+			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:alarmTime==null");	// NOI18N
 		}
-		days = null;
-		if ( daysString == null )
+		if ( (! isForAllDays) && (! isOneTimeAlarm) && alarmDays == null )
 		{
-			forAllDays = true;
+			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:alarmDays==null");	// NOI18N
 		}
-		else if ( daysString.isEmpty () )
+		date = alarmDate;
+		time = alarmTime.withNano (0);
+		oneTime = isOneTimeAlarm;
+		if ( alarmDays != null )
 		{
-			forAllDays = true;
+			days = Collections.unmodifiableSet (new HashSet<Integer> (alarmDays));
+			forAllDays = isForAllDays || days.contains (ALL_DAYS);
 		}
 		else
 		{
-			forAllDays = false;
-			String[] recurrs = daysString.split (Utils.COMMA);
-			if ( recurrs != null )
-			{
-				Set<Integer> tmpDays = makeSetFromArray (recurrs);
-				if ( tmpDays != null )
-				{
-					if ( tmpDays.isEmpty () )
-					{
-						forAllDays = true;
-					}
-					else if ( tmpDays.contains (ALL_DAYS) )
-					{
-						forAllDays = true;
-					}
-					else
-					{
-						days = tmpDays;
-					}
-				}
-			}
+			days = null;
+			forAllDays = isForAllDays;
 		}
-		time.set (Calendar.MILLISECOND, 0);
+		number = alarmNumber;
+
+		dateString = oneTime? DATE_FORMAT.format (date) : null;
+		timeString = TIME_FORMAT.format (time);
+		daysString = makeDaysString (days);
+		alarmString = makeAlarmString ();
+		text = TOSTRING_BEGIN + TOSTRING_ID + number + Utils.COMMA
+			+ TOSTRING_DATETIME + DATE_FORMAT.format (date)
+			+ Utils.COMMA + timeString
+			+ Utils.COMMA + TOSTRING_DAYS + daysString
+			+ TOSTRING_END;
 	}
 
 	/**
 	 * Returns the time at which this PhoneAlarm will start.
-	 * @return the time at which this PhoneAlarm will start.
+	 * @return a new Calendar with the date and time at which this
+	 *	PhoneAlarm will start.
+	 */
+	public Calendar getTime ()
+	{
+		Calendar c = Calendar.getInstance ();
+		c.set (date.getYear (),
+			Utils.convertRealMonthToCalendar (date.getMonthValue ()),
+			date.getDayOfMonth (), time.getHour (), time.getMinute (),
+			time.getSecond ());
+		c.set (Calendar.MILLISECOND, 0);
+		return c;
+	}
+
+	/**
+	 * Returns the date at which this PhoneAlarm will start. Used by the
+	 * phone only for one-time alarms.
+	 * @return the date at which this PhoneAlarm will start.
 	 */
-	public synchronized Calendar getTime ()
+	public LocalDate getLocalDate ()
+	{
+		return date;
+	}
+
+	/**
+	 * Returns the time of day at which this PhoneAlarm will start.
+	 * @return the time of day at which this PhoneAlarm will start.
+	 */
+	public LocalTime getLocalTime ()
 	{
 		return time;
 	}
@@ -252,7 +236,7 @@ public class PhoneAlarm
 	 * Tells if this PhoneAlarm is a one-time alarm.
 	 * @return TRUE if this PhoneAlarm is a one-time alarm.
 	 */
-	public synchronized boolean isOneTimeAlarm ()
+	public boolean isOneTimeAlarm ()
 	{
 		return oneTime;
 	}
@@ -261,23 +245,19 @@ public class PhoneAlarm
 	 * Tells if this PhoneAlarm is set for all days of the week.
 	 * @return TRUE if this PhoneAlarm is set for all days of the week.
 	 */
-	public synchronized boolean isForAllDays ()
+	public boolean isForAllDays ()
 	{
 		return forAllDays;
 	}
 
 	/**
 	 * Returns the days at which this PhoneAlarm will start.
-	 * @return the days at which this PhoneAlarm will start or
-	 *	null in case of everyday alarms.
+	 * @return the unmodifiable Set of days at which this PhoneAlarm will
+	 *	start or null in case of everyday alarms.
 	 */
-	public synchronized Set<Integer> getDays ()
+	public Set<Integer> getDays ()
 	{
-		if ( days == null )
-		{
-			return null;
-		}
-		return new HashSet<Integer> (days);
+		return days;
 	}
 
 	/**
@@ -286,201 +266,220 @@ public class PhoneAlarm
 	 * @return the number at which this PhoneAlarm will
 	 *	be put in the phone.
 	 */
-	public synchronized int getNumber ()
+	public int getNumber ()
 	{
 		return number;
 	}
 
-	/* ============= setters: =============== */
+	/**
+	 * Makes a Builder with the values of this alarm, to create a changed
+	 * copy of it.
+	 * @return a new Builder with the values of this alarm.
+	 */
+	public Builder toBuilder ()
+	{
+		return new Builder (this);
+	}
 
 	/**
-	 * Sets the time at which this PhoneAlarm will start.
-	 * @param c the time at which this PhoneAlarm will start.
+	 * Gets the alarm string for this alarm.
+	 * @return the alarm string for this alarm, suitable for commands sent
+	 *	to the phone.
 	 */
-	public synchronized void setTime (Calendar c)
+	public String getAlarmString ()
 	{
-		if ( c == null )
-		{
-			throw new IllegalArgumentException ("PhoneAlarm.setTime:alarmTime==null");	// NOI18N
-		}
-		time = c;
+		return alarmString;
 	}
 
 	/**
-	 * Sets if this PhoneAlarm is a one-time alarm.
-	 * @param isOneTime TRUE if this PhoneAlarm is a one-time alarm.
+	 * Get the date String for this alarm, if any.
+	 * @return the date String for this alarm (in "DD/MM/YY" format)
+	 *	or null for not one-time alarms.
 	 */
-	public synchronized void setOneTimeAlarm (boolean isOneTime)
+	public String getDateString ()
 	{
-		oneTime = isOneTime;
+		return dateString;
 	}
 
 	/**
-	 * Sets if this PhoneAlarm is set for all days of the week.
-	 * @param isForAllDays TRUE if this PhoneAlarm is set for all days of the week.
+	 * Get the time String for this alarm.
+	 * @return the time String for this alarm (in "HH:MM:SS" format).
 	 */
-	public synchronized void setForAllDays (boolean isForAllDays)
+	public String getTimeString ()
 	{
-		forAllDays = isForAllDays;
+		return timeString;
 	}
 
 	/**
-	 * Sets the days at which this PhoneAlarm will start.
-	 * @param alarmDays the days at which this PhoneAlarm will start or
-	 *	null in case of everyday alarms.
+	 * Get the days String for this alarm.
+	 * @return the days String for this alarm (in "N,N,N" format).
 	 */
-	public synchronized void setDays (int[] alarmDays)
+	public String getDaysString ()
+	{
+		return daysString;
+	}
+
+	private String makeAlarmString ()
 	{
-		if ( (! forAllDays) && (! oneTime) && alarmDays == null )
+		StringBuilder result = new StringBuilder (40);
+		result.append (Utils.DQUOT);
+		if ( oneTime )
 		{
-			throw new IllegalArgumentException ("PhoneAlarm.setDays:alarmDays==null");	// NOI18N
+			result.append (dateString).append (Utils.COMMA);
 		}
-		days = makeSetFromArray (alarmDays);
-		if ( days != null && days.contains (ALL_DAYS) )
+		result.append (timeString).append (Utils.DQUOT);
+		if ( number != -1 )
 		{
-			forAllDays = true;
+			result.append (Utils.COMMA).append (number).append (Utils.COMMA);
+			if ( forAllDays || days == null )
+			{
+				result.append (Utils.ZERO);
+			}
+			else
+			{
+				result.append (Utils.DQUOT).append (daysString)
+					.append (Utils.DQUOT);
+			}
 		}
+		return result.toString ();
 	}
 
-	/**
-	 * Sets the days at which this PhoneAlarm will start.
-	 * @param alarmDays the days at which this PhoneAlarm will start or
-	 *	null in case of everyday alarms.
-	 */
-	public synchronized void setDays (Set<? extends Integer> alarmDays)
+	private static String makeDaysString (Set<Integer> alarmDays)
 	{
-		if ( (! forAllDays) && (! oneTime) && alarmDays == null )
+		if ( alarmDays == null )
 		{
-			throw new IllegalArgumentException ("PhoneAlarm.setDays:alarmDays==null");	// NOI18N
+			return Utils.EMPTY_STR;
 		}
-		if ( alarmDays != null )
+		if ( alarmDays.contains (ALL_DAYS) )
+		{
+			return Utils.ZERO;
+		}
+		StringBuilder result = new StringBuilder (20);
+		Iterator<Integer> it = alarmDays.iterator ();
+		while ( it.hasNext () )
 		{
-			days = new HashSet<Integer> (alarmDays);
-			if ( alarmDays.contains (ALL_DAYS) )
+			Integer nextInt = it.next ();
+			if ( nextInt == null )
 			{
-				forAllDays = true;
+				continue;
+			}
+			result.append (nextInt.toString ());
+			if ( it.hasNext () )
+			{
+				result.append (Utils.COMMA);
 			}
 		}
-		else
+		if ( result.length () == 0 )
 		{
-			days = null;
+			result.append (Utils.ZERO);
 		}
+		return result.toString ();
 	}
 
-	/**
-	 * Sets the number (position) at which this PhoneAlarm
-	 *	will be put in the phone.
-	 * @param alarmNumber the number at which this PhoneAlarm
-	 *	will be put in the phone.
-	 */
-	public synchronized void setNumber (int alarmNumber)
+	private static LocalDate toLocalDate (Calendar c)
 	{
-		number = alarmNumber;
+		if ( c == null )
+		{
+			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:alarmTime==null");	// NOI18N
+		}
+		return LocalDate.of (c.get (Calendar.YEAR),
+			Utils.convertCalendarMonthToReal (c.get (Calendar.MONTH)),
+			c.get (Calendar.DAY_OF_MONTH));
 	}
 
-	/**
-	 * Gets the alarm string for this alarm.
-	 * @return the alarm string for this alarm, suitable for commands sent
-	 *	to the phone.
-	 */
-	public synchronized String getAlarmString ()
+	private static LocalTime toLocalTime (Calendar c)
 	{
-		String result = Utils.DQUOT;
-		if ( oneTime )
-		{
-			result += getDateString () + Utils.COMMA;
-		}
-		result += getTimeString () + Utils.DQUOT;
-		if ( number != -1 )
+		if ( c == null )
 		{
-			result += Utils.COMMA + number + Utils.COMMA;
-			if ( forAllDays || days == null )
-			{
-				result += Utils.ZERO;
-			}
-			else
-			{
-				result += Utils.DQUOT + getDaysString () + Utils.DQUOT;
-			}
+			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:alarmTime==null");	// NOI18N
 		}
-		return result;
+		return LocalTime.of (c.get (Calendar.HOUR_OF_DAY),
+			c.get (Calendar.MINUTE), c.get (Calendar.SECOND));
 	}
 
 	/**
-	 * Get the date String for this alarm, if any.
-	 * @return the date String for this alarm (in "DD/MM/YY" format)
-	 *	or null for not one-time alarms.
+	 * Makes a date from the given parts.
+	 * @param year The year, 2 digits.
+	 * @param month The month, 1-12.
+	 * @param day The day of the month.
+	 * @return the date.
+	 * @throws DateTimeException if the date is invalid.
 	 */
-	public synchronized String getDateString ()
+	private static LocalDate makeDate (int year, int month, int day)
 	{
-		if ( oneTime )
+		if ( year < 80 )
 		{
-			int year  = time.get (Calendar.YEAR) % 100;
-			int month = Utils.convertCalendarMonthToReal (time.get (Calendar.MONTH));
-			int day   = time.get (Calendar.DAY_OF_MONTH);
-
-			return ((day<10)? Utils.ZERO : Utils.EMPTY_STR ) + day + SLASH
-				+ ((month<10)? Utils.ZERO : Utils.EMPTY_STR ) + month + SLASH
-				+ ((year<10)? Utils.ZERO : Utils.EMPTY_STR ) + year;
+			return LocalDate.of (2000+year, month, day);
 		}
-		return null;
+		return LocalDate.of (1900+year, month, day);
 	}
 
-	/**
-	 * Get the time String for this alarm.
-	 * @return the time String for this alarm (in "HH:MM:SS" format).
-	 */
-	public synchronized String getTimeString ()
+	private static LocalDate parseDate (String dateString)
 	{
-		int hour   = time.get (Calendar.HOUR_OF_DAY);
-		int minute = time.get (Calendar.MINUTE);
-		int second = time.get (Calendar.SECOND);
+		if ( dateString == null || dateString.isEmpty () )
+		{
+			return LocalDate.now ();
+		}
+		String[] parts = dateString.split (SLASH);
+		if ( parts.length != 3 )
+		{
+			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:dateString: " + dateString);	// NOI18N
+		}
+		try
+		{
+			return makeDate (Integer.parseInt (parts[2]),
+				Integer.parseInt (parts[1]), Integer.parseInt (parts[0]));
+		}
+		catch (DateTimeException ex)
+		{
+			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:dateString: " + dateString, ex);	// NOI18N
+		}
+	}
 
-		return ((hour<10)? Utils.ZERO : Utils.EMPTY_STR ) + hour + Utils.COLON
-			+ ((minute<10)? Utils.ZERO : Utils.EMPTY_STR ) + minute + Utils.COLON
-			+ ((second<10)? Utils.ZERO : Utils.EMPTY_STR ) + second;
+	private static LocalTime parseTime (String timeString)
+	{
+		if ( timeString == null )
+		{
+			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:timeString==null");	// NOI18N
+		}
+		if ( timeString.isEmpty () )
+		{
+			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:timeString:length=0");	// NOI18N
+		}
+		String[] parts = timeString.split (Utils.COLON);
+		if ( parts.length != 3 )
+		{
+			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:timeString: " + timeString);	// NOI18N
+		}
+		try
+		{
+			return LocalTime.of (Integer.parseInt (parts[0]),
+				Integer.parseInt (parts[1]), Integer.parseInt (parts[2]));
+		}
+		catch (DateTimeException ex)
+		{
+			throw new IllegalArgumentException ("PhoneAlarm.PhoneAlarm:timeString: " + timeString, ex);	// NOI18N
+		}
 	}
 
 	/**
-	 * Get the days String for this alarm.
-	 * @return the days String for this alarm (in "N,N,N" format).
+	 * Parses the given days String.
+	 * @param daysString The days, in "N,N,N" format.
+	 * @return the days or null if the alarm is for all days.
 	 */
-	public synchronized String getDaysString ()
+	private static Set<Integer> parseDays (String daysString)
 	{
-		if ( days == null )
+		if ( daysString == null || daysString.isEmpty () )
 		{
-			return Utils.EMPTY_STR;
-		}
-		if ( days.contains (ALL_DAYS) )
-		{
-			return Utils.ZERO;
+			return null;
 		}
-		else
+		Set<Integer> tmpDays = makeSetFromArray (daysString.split (Utils.COMMA));
+		if ( tmpDays == null || tmpDays.isEmpty ()
+			|| tmpDays.contains (ALL_DAYS) )
 		{
-			StringBuilder result = new StringBuilder (20);
-			Iterator<Integer> it = days.iterator ();
-			if ( it != null )
-			{
-				while ( it.hasNext () )
-				{
-					Integer nextInt = it.next ();
-					if ( nextInt == null )
-					{
-						continue;
-					}
-					result.append (nextInt.toString ());
-					if ( it.hasNext () )
-					{
-						result.append (Utils.COMMA);
-					}
-				}
-			}
-			if ( result.length () == 0 )
-			{
-				result.append (Utils.ZERO);
-			}
-			return result.toString ();
+			return null;
 		}
+		return tmpDays;
 	}
 
 	/**
@@ -532,10 +531,11 @@ public class PhoneAlarm
 
 	/**
 	 * Parses the given phone response and creates a PhoneAlarm that matches it.
+	 * Can be called from many threads at the same time.
 	 * @param response The response to parse.
 	 * @return a PhoneAlarm that matches the given response.
 	 */
-	public static synchronized PhoneAlarm parseReponse (String response)
+	public static PhoneAlarm parseReponse (String response)
 	{
 		if ( response == null )
 		{
@@ -544,7 +544,6 @@ public class PhoneAlarm
 		Matcher m = DATETIME_PATTERN.matcher (response);
 		if ( m.matches () )
 		{
-			Calendar c = Calendar.getInstance ();
 			Integer year;
 			Integer month;
 			Integer day;
@@ -568,28 +567,21 @@ public class PhoneAlarm
 			{
 				alNumber = 0;
 			}
-
-			c.set (Calendar.MONTH, Utils.convertRealMonthToCalendar (month));
-			c.set (Calendar.DAY_OF_MONTH, day);
-			c.set (Calendar.HOUR_OF_DAY, hour);
-			c.set (Calendar.MINUTE, minute);
-			c.set (Calendar.SECOND, second);
-			c.set (Calendar.MILLISECOND, 0);
-			if ( year < 80 )
+			try
 			{
-				c.set (Calendar.YEAR, 2000+year);
+				return new PhoneAlarm (makeDate (year, month, day),
+					LocalTime.of (hour, minute, second), true, false,
+					null, alNumber);
 			}
-			else
+			catch (DateTimeException ex)
 			{
-				c.set (Calendar.YEAR, 1900+year);
+				Utils.handleException (ex, "PhoneAlarm.parseReponse: " + response);	// NOI18N
+				return null;
 			}
-
-			return new PhoneAlarm (c, true, false, (int[])null, alNumber);
 		}
 		m = TIME_PATTERN.matcher (response);
 		if ( m.matches () )
 		{
-			Calendar c = Calendar.getInstance ();
 			Integer hour;
 			Integer minute;
 			Integer second;
@@ -641,11 +633,6 @@ public class PhoneAlarm
 				return null;
 			}
 
-			c.set (Calendar.HOUR_OF_DAY, hour);
-			c.set (Calendar.MINUTE, minute);
-			c.set (Calendar.SECOND, second);
-			c.set (Calendar.MILLISECOND, 0);
-
 			boolean isForAllDays = false;
 			if ( tmpDays != null )
 			{
@@ -660,7 +647,18 @@ public class PhoneAlarm
 				isForAllDays = true;
 			}
 
-			return new PhoneAlarm (c, false, isForAllDays, tmpDays, alNumber);
+			try
+			{
+				return new PhoneAlarm (LocalDate.now (),
+					LocalTime.of (hour, minute, second), false,
+					isForAllDays, isForAllDays? null : tmpDays,
+					alNumber);
+			}
+			catch (DateTimeException ex)
+			{
+				Utils.handleException (ex, "PhoneAlarm.parseReponse: " + response);	// NOI18N
+				return null;
+			}
 		}
 		return null;
 	}
@@ -671,19 +669,17 @@ public class PhoneAlarm
 	 *	PhoneAlarm[ID=xxx,date/time,days].
 	 */
 	@Override
-	public synchronized String toString ()
+	public String toString ()
 	{
-		return TOSTRING_BEGIN + TOSTRING_ID + number + Utils.COMMA
-			+ TOSTRING_DATETIME + dateFormat.format (time.getTime ())
-			+ Utils.COMMA + TOSTRING_DAYS + getDaysString ()
-			+ TOSTRING_END;
+		return text;
 	}
 
 	@Override
 	public int hashCode()
 	{
 		int hash = 7;
-		hash = 41 * hash + (this.time != null ? this.time.hashCode() : 0);
+		hash = 41 * hash + this.date.hashCode();
+		hash = 41 * hash + this.time.hashCode();
 		hash = 41 * hash + (this.oneTime ? 1 : 0);
 		hash = 41 * hash + (this.forAllDays ? 1 : 0);
 		hash = 41 * hash + (this.days != null ? this.days.hashCode() : 0);
@@ -719,7 +715,7 @@ public class PhoneAlarm
 		{
 			return false;
 		}
-		if (this.time != other.time && (this.time == null || !this.time.equals(other.time)))
+		if (! this.date.equals(other.date) || ! this.time.equals(other.time))
 		{
 			return false;
 		}
@@ -744,4 +740,159 @@ public class PhoneAlarm
 		}
 		return 0;
 	}
+
+	/**
+	 * Builder - creates PhoneAlarms, also changed copies of the existing
+	 * ones. Not thread-safe, unlike the alarms it creates.
+	 */
+	public static final class Builder
+	{
+		private LocalDate date;
+		private LocalTime time;
+		private boolean oneTime;
+		private boolean forAllDays;
+		private Set<Integer> days;
+		private int number;
+
+		/**
+		 * Creates a new Builder for a repetitive alarm for all days,
+		 * on today's date, without a number and without the time.
+		 */
+		public Builder ()
+		{
+			date = LocalDate.now ();
+			time = null;
+			oneTime = false;
+			forAllDays = true;
+			days = null;
+			number = -1;
+		}
+
+		/**
+		 * Creates a new Builder with the values of the given alarm.
+		 * @param al The alarm to copy.
+		 */
+		private Builder (PhoneAlarm al)
+		{
+			date = al.date;
+			time = al.time;
+			oneTime = al.oneTime;
+			forAllDays = al.forAllDays;
+			days = al.days;
+			number = al.number;
+		}
+
+		/**
+		 * Sets the date at which the alarm will start.
+		 * @param d the date at which the alarm will start.
+		 * @return this Builder.
+		 */
+		public Builder setDate (LocalDate d)
+		{
+			date = d;
+			return this;
+		}
+
+		/**
+		 * Sets the time of day at which the alarm will start.
+		 * @param t the time of day at which the alarm will start.
+		 * @return this Builder.
+		 */
+		public Builder setTime (LocalTime t)
+		{
+			time = t;
+			return this;
+		}
+
+		/**
+		 * Sets the date and time at which the alarm will start.
+		 * @param c the date and time at which the alarm will start.
+		 * @return this Builder.
+		 */
+		public Builder setTime (Calendar c)
+		{
+			date = toLocalDate (c);
+			time = toLocalTime (c);
+			return this;
+		}
+
+		/**
+		 * Sets if the alarm is a one-time alarm.
+		 * @param isOneTime TRUE if the alarm is a one-time alarm.
+		 * @return this Builder.
+		 */
+		public Builder setOneTimeAlarm (boolean isOneTime)
+		{
+			oneTime = isOneTime;
+			return this;
+		}
+
+		/**
+		 * Sets if the alarm is set for all days of the week.
+		 * @param isForAllDays TRUE if the alarm is set for all days of the week.
+		 * @return this Builder.
+		 */
+		public Builder setForAllDays (boolean isForAllDays)
+		{
+			forAllDays = isForAllDays;
+			return this;
+		}
+
+		/**
+		 * Sets the days at which the alarm will start.
+		 * @param alarmDays the days at which the alarm will start or
+		 *	null in case of everyday alarms.
+		 * @return this Builder.
+		 */
+		public Builder setDays (int[] alarmDays)
+		{
+			days = makeSetFromArray (alarmDays);
+			return this;
+		}
+
+		/**
+		 * Sets the days at which the alarm will start.
+		 * @param alarmDays the days at which the alarm will start or
+		 *	null in case of everyday alarms.
+		 * @return this Builder.
+		 */
+		public Builder setDays (Set<? extends Integer> alarmDays)
+		{
+			if ( alarmDays != null )
+			{
+				days = new HashSet<Integer> (alarmDays);
+			}
+			else
+			{
+				days = null;
+			}
+			return this;
+		}
+
+		/**
+		 * Sets the number (position) at which the alarm
+		 *	will be put in the phone.
+		 * @param alarmNumber the number at which the alarm
+		 *	will be put in the phone, -1 for none.
+		 * @return this Builder.
+		 */
+		public Builder setNumber (int alarmNumber)
+		{
+			number = alarmNumber;
+			return this;
+		}
+
+		/**
+		 * Creates the alarm.
+		 * @return the new alarm.
+		 * @throws IllegalArgumentException if the date or time is missing
+		 *	or if the days are missing for a repetitive alarm which
+		 *	isn't for all days.
+		 */
+		public PhoneAlarm build ()
+		{
+			return new PhoneAlarm (date, time, oneTime, forAllDays,
+				days, number);
+		}
+	}
 }
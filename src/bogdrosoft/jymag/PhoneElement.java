@@ -21,7 +21,6 @@
 package bogdrosoft.jymag;
 
 import java.io.Serializable;
-import java.util.Locale;
 
 /**
  * This class represents an element in the phone (picture, ringtone, ...).
@@ -40,6 +39,7 @@ public class PhoneElement implements Serializable
 	private final String id;
 	private final String type;
 	private final String filename;
+	private final long length;
 
 	/**
 	 * Creates a new instance of PhoneElement.
@@ -48,10 +48,25 @@ public class PhoneElement implements Serializable
 	 * @param name Element's name.
 	 */
 	public PhoneElement (String elementId, String format, String name)
+	{
+		this (elementId, format, name, -1);
+	}
+
+	/**
+	 * Creates a new instance of PhoneElement.
+	 * @param elementId ID number of the element in the phone.
+	 * @param format Element type (format), like FGIF, JPEG, MIDI.
+	 * @param name Element's name.
+	 * @param size Element's length in bytes, as listed by the phone,
+	 *	or -1 if unknown.
+	 */
+	public PhoneElement (String elementId, String format, String name,
+		long size)
 	{
 		id = elementId;
 		type = format;
 		filename = name;
+		length = size;
 	}
 
 	/**
@@ -63,89 +78,41 @@ public class PhoneElement implements Serializable
 		return id;
 	}
 
+	/**
+	 * Returns this element's type (format), as given by the phone.
+	 * @return This element's type (format), like FGIF, JPEG, MIDI.
+	 */
+	public String getFormat ()
+	{
+		return type;
+	}
+
+	/**
+	 * Returns this element's name, as given by the phone.
+	 * @return This element's name, without any characters replaced.
+	 */
+	public String getName ()
+	{
+		return filename;
+	}
+
+	/**
+	 * Returns this element's length, as listed by the phone. The length
+	 * is not compared by equals().
+	 * @return This element's length in bytes or -1 if unknown.
+	 */
+	public long getLength ()
+	{
+		return length;
+	}
+
 	/**
 	 * Returns the file extension suitable for this element.
 	 * @return A file extension suitable for this element.
 	 */
 	public String getExt ()
 	{
-		if ( type == null )
-		{
-			return Utils.EMPTY_STR;
-		}
-		if ( "FGIF".equals (type) )
-		{
-			return "gif";				// NOI18N
-		}
-		else if ( "JPEG".equals (type) )
-		{
-			return "jpg";				// NOI18N
-		}
-		else if ( "MIDI".equals (type) )
-		{
-			return "mid";				// NOI18N
-		}
-		else if ( "VCRD".equals (type) )
-		{
-			return "vcf";				// NOI18N
-		}
-		else if ( "VCAL".equals (type) )
-		{
-			return "ics";				// NOI18N
-		}
-		else if ( "WBMP".equals (type) )
-		{
-			return "wbm";				// NOI18N
-		}
-		else if ( "TIFF".equals (type) )
-		{
-			return "tif";				// NOI18N
-		}
-		else if ( "PICT".equals (type) )
-		{
-			return "pct";				// NOI18N
-		}
-		else if ( "SVGZ".equals (type) )
-		{
-			return "svz";				// NOI18N
-		}
-		else if ( "AIFF".equals (type) )
-		{
-			return "aif";				// NOI18N
-		}
-		else if ( "MPEG".equals (type) )
-		{
-			return "mpg";				// NOI18N
-		}
-		else if ( "EMS_GR".equals (type) )
-		{
-			return "emg";				// NOI18N
-		}
-		else if ( "ASG1".equals (type) )
-		{
-			return "as1";				// NOI18N
-		}
-		else if ( "ASG2".equals (type) )
-		{
-			return "as2";				// NOI18N
-		}
-		else if ( "EMS_AN".equals (type) )
-		{
-			return "ema";				// NOI18N
-		}
-		else if ( "MJPG".equals (type) )
-		{
-			return "mjp";				// NOI18N
-		}
-		else if ( "3GP2".equals (type) )
-		{
-			return "3gp";				// NOI18N
-		}
-		else if ( "3GPP".equals (type) )
-		{
-			return "3gp";				// NOI18N
-		}
-		return type.toLowerCase (Locale.ENGLISH);
+		return FileFormat.getExtension (type);
 	}
 
 	/**
@@ -21,8 +21,6 @@
 package bogdrosoft.jymag;
 
 import java.io.Serializable;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class represents a message in the phone.
@@ -44,33 +42,10 @@ public class PhoneMessage implements Serializable
 	+CMGR: "<status>",
 	<body>
 */
-	private static final Pattern MESSAGE_LIST_PATTERN
-		= Pattern.compile ("(\\+CMGL:)?\\s*(\\d+)\\s*,\\s*\"([\\w\\s]*)\"\\s*,"		// NOI18N
-			+ "\\s*\"(\\+?\\d+)\"\\s*,"						// NOI18N
-			+ "\\s*\"(\\d{2}/\\d{2}/\\d{2},\\d{2}:\\d{2}:\\d{2}\\+\\d{2})\"\\s*,"	// NOI18N
-			+ "\\s*,\\d+[\r\n]+([\\w\\s]+)[\r\n]",					// NOI18N
-			Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-	private static final Pattern MESSAGE_LIST_PATTERN_NOT_FULL
-		= Pattern.compile ("(\\+CMGL:)?\\s*(\\d+)\\s*,\\s*\"([\\w\\s]*)\"\\s*,"		// NOI18N
-			+ "\\s*(\"(\\+?\\d+)\"\\s*,"						// NOI18N
-			+ "\\s*\"(\\d{2}/\\d{2}/\\d{2},\\d{2}:\\d{2}:\\d{2}\\+\\d{2})\"\\s*,"	// NOI18N
-			+ "\\s*,\\d+)?[\r\n]+([\\w\\s]+)[\r\n]",				// NOI18N
-			Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-	private static final Pattern MESSAGE_PATTERN_CMGR
-		= Pattern.compile ("(\\+CMGR:)?\\s*\"([\\w\\s]*)\"\\s*,"			// NOI18N
-			+ "\\s*\"(\\+?\\d+)\"\\s*,"						// NOI18N
-			+ "\\s*\"(\\d{2}/\\d{2}/\\d{2},\\d{2}:\\d{2}:\\d{2}\\+\\d{2})\"\\s*,"	// NOI18N
-			+ "\\s*,\\d+[\r\n]+([\\w\\s]+)[\r\n]",					// NOI18N
-			Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-
-	private static final Pattern MESSAGE_PATTERN_CMGR_NOT_FULL
-		= Pattern.compile ("(\\+CMGR:)?\\s*\"([\\w\\s]*)\"\\s*,"			// NOI18N
-			+ "\\s*(\"(\\+?\\d+)\"\\s*,"						// NOI18N
-			+ "\\s*\"(\\d{2}/\\d{2}/\\d{2},\\d{2}:\\d{2}:\\d{2}\\+\\d{2})\"\\s*,"	// NOI18N
-			+ "\\s*,\\d+)?[\r\n]+([\\w\\s]+)[\r\n]",				// NOI18N
-			Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+	private static final String LIST_PREFIX = "+CMGL:";				// NOI18N
+	private static final String READ_PREFIX = "+CMGR:";				// NOI18N
+	/** The length of "DD/MM/YY,HH:MM:SS+ZZ". */
+	private static final int DATETIME_LENGTH = 20;
 
 	private static final String ESC = "\033" /* ESC */;					// NOI18N
 	private static final String TOSTRING_BEGIN = "PhoneMessage[";				// NOI18N
@@ -196,60 +171,228 @@ public class PhoneMessage implements Serializable
 
 	/**
 	 * Parses the given phone response and creates a PhoneMessage that matches it.
+	 * The response is read once, from the beginning to the end. The
+	 * header tells if this is a +CMGL or a +CMGR reply and if it contains
+	 * the number and the date. Without the header, a reply starting with
+	 * a number is a +CMGL reply. Thread-safe.
 	 * @param response The response to parse.
 	 * @return a PhoneMessage that matches the given response.
 	 */
-	public static synchronized PhoneMessage parseReponse (String response)
+	public static PhoneMessage parseReponse (String response)
 	{
 		if ( response == null )
 		{
 			return null;
 		}
+		int len = response.length ();
+		int pos = 0;
+		while ( pos < len && Character.isWhitespace (response.charAt (pos)) )
+		{
+			pos++;
+		}
+		boolean list;
+		if ( response.regionMatches (true, pos, LIST_PREFIX, 0, LIST_PREFIX.length ()) )
+		{
+			list = true;
+			pos += LIST_PREFIX.length ();
+		}
+		else if ( response.regionMatches (true, pos, READ_PREFIX, 0, READ_PREFIX.length ()) )
+		{
+			list = false;
+			pos += READ_PREFIX.length ();
+		}
+		else
+		{
+			list = pos < len && isDigit (response.charAt (pos));
+		}
+		PhoneMessage msg = new PhoneMessage ();
+		pos = skipSpaces (response, pos);
+		if ( list )
+		{
+			int idEnd = skipDigits (response, pos);
+			if ( idEnd == pos )
+			{
+				return null;
+			}
+			msg.id = response.substring (pos, idEnd);
+			pos = skipComma (response, idEnd);
+		}
+		// "<status>",
+		int end = findQuoteEnd (response, pos);
+		if ( end < 0 )
+		{
+			return null;
+		}
+		msg.status = response.substring (pos + 1, end);
+		pos = skipSpaces (response, skipComma (response, end + 1));
+		if ( pos < 0 )
+		{
+			return null;
+		}
+		if ( pos < len && response.charAt (pos) == '"' )
+		{
+			// "<number>","<DD/MM/YY,HH:MM:SS+ZZ>",,<N>
+			end = findQuoteEnd (response, pos);
+			if ( end < 0 )
+			{
+				return null;
+			}
+			msg.recipientNum = response.substring (pos + 1, end);
+			pos = skipSpaces (response, skipComma (response, end + 1));
+			end = findQuoteEnd (response, pos);
+			if ( end < 0 || ! isDateTime (response, pos + 1, end) )
+			{
+				return null;
+			}
+			msg.datetime = response.substring (pos + 1, end);
+			pos = skipComma (response, skipComma (response, end + 1));
+			int nEnd = skipDigits (response, skipSpaces (response, pos));
+			if ( pos < 0 || nEnd == skipSpaces (response, pos) )
+			{
+				return null;
+			}
+			pos = skipSpaces (response, nEnd);
+		}
+		// the body is on the next lines
+		int bodyStart = pos;
+		while ( bodyStart < len && isLineBreak (response.charAt (bodyStart)) )
+		{
+			bodyStart++;
+		}
+		int bodyEnd = len;
+		while ( bodyEnd > bodyStart && isLineBreak (response.charAt (bodyEnd - 1)) )
+		{
+			bodyEnd--;
+		}
+		if ( bodyStart == pos || bodyEnd == bodyStart )
+		{
+			return null;
+		}
+		msg.message = response.substring (bodyStart, bodyEnd);
+		return msg;
+	}
+
+	private static boolean isDigit (char c)
+	{
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isLineBreak (char c)
+	{
+		return c == '\r' || c == '\n';
+	}
+
+	/**
+	 * Skips the spaces and tabs.
+	 * @param s The text to check.
+	 * @param pos The position to start at, may be negative.
+	 * @return the position of the first other character, the same
+	 *	negative value if a negative one was given.
+	 */
+	private static int skipSpaces (String s, int pos)
+	{
+		if ( pos < 0 )
+		{
+			return pos;
+		}
+		while ( pos < s.length () && (s.charAt (pos) == ' ' || s.charAt (pos) == '\t') )
+		{
+			pos++;
+		}
+		return pos;
+	}
 
-		Matcher m = MESSAGE_LIST_PATTERN.matcher (response);
-		if ( m.matches () )
+	private static int skipDigits (String s, int pos)
+	{
+		if ( pos < 0 )
 		{
-			PhoneMessage msg = new PhoneMessage();
-			msg.setID (m.group (2));
-			msg.setStatus (m.group (3));
-			msg.setRecipientNum (m.group (4));
-			msg.setDateTime (m.group (5));
-			msg.setMessage (m.group (6));
-			return msg;
+			return pos;
 		}
-		m = MESSAGE_LIST_PATTERN_NOT_FULL.matcher (response);
-		if ( m.matches () )
+		while ( pos < s.length () && isDigit (s.charAt (pos)) )
 		{
-			PhoneMessage msg = new PhoneMessage();
-			msg.setID (m.group (2));
-			msg.setStatus (m.group (3));
-			msg.setRecipientNum (m.group (5));
-			msg.setDateTime (m.group (6));
-			msg.setMessage (m.group (7));
-			return msg;
+			pos++;
 		}
-		m = MESSAGE_PATTERN_CMGR.matcher (response);
-		if ( m.matches () )
+		return pos;
+	}
+
+	/**
+	 * Skips a comma and the spaces before it.
+	 * @param s The text to check.
+	 * @param pos The position to start at, may be negative.
+	 * @return the position after the comma or -1 if there's no comma.
+	 */
+	private static int skipComma (String s, int pos)
+	{
+		pos = skipSpaces (s, pos);
+		if ( pos < 0 || pos >= s.length () || s.charAt (pos) != ',' )
 		{
-			PhoneMessage msg = new PhoneMessage();
-			msg.setStatus (m.group (2));
-			msg.setRecipientNum (m.group (3));
-			msg.setDateTime (m.group (4));
-			msg.setMessage (m.group (5));
-			return msg;
+			return -1;
 		}
-		m = MESSAGE_PATTERN_CMGR_NOT_FULL.matcher (response);
-		if ( m.matches () )
+		return pos + 1;
+	}
+
+	/**
+	 * Finds the end of the quoted text starting at the given position.
+	 * @param s The text to check.
+	 * @param pos The position of the opening quote, may be negative.
+	 * @return the position of the closing quote or -1 if there are
+	 *	no quotes.
+	 */
+	private static int findQuoteEnd (String s, int pos)
+	{
+		if ( pos < 0 || pos >= s.length () || s.charAt (pos) != '"' )
 		{
-			PhoneMessage msg = new PhoneMessage();
-			msg.setStatus (m.group (2));
-			msg.setRecipientNum (m.group (4));
-			msg.setDateTime (m.group (5));
-			msg.setMessage (m.group (6));
-			return msg;
+			return -1;
 		}
+		return s.indexOf ('"', pos + 1);
+	}
 
-		return null;
+	/**
+	 * Tells if the given part of the text has the format
+	 * "DD/MM/YY,HH:MM:SS+ZZ". The time zone may also be negative.
+	 * @param s The text to check.
+	 * @param from The start of the part to check.
+	 * @param to The end of the part to check (exclusive).
+	 * @return TRUE if the part has the right format.
+	 */
+	private static boolean isDateTime (String s, int from, int to)
+	{
+		if ( to - from != DATETIME_LENGTH )
+		{
+			return false;
+		}
+		for ( int i = 0; i < DATETIME_LENGTH; i++ )
+		{
+			char c = s.charAt (from + i);
+			switch (i % 3)
+			{
+				case 2:
+					if ( (i == 2 || i == 5) && c != '/' )
+					{
+						return false;
+					}
+					if ( i == 8 && c != ',' )
+					{
+						return false;
+					}
+					if ( (i == 11 || i == 14) && c != ':' )
+					{
+						return false;
+					}
+					if ( i == 17 && c != '+' && c != '-' )
+					{
+						return false;
+					}
+					break;
+				default:
+					if ( ! isDigit (c) )
+					{
+						return false;
+					}
+					break;
+			}
+		}
+		return true;
 	}
 
 	@Override
@@ -20,6 +20,9 @@
 
 package bogdrosoft.jymag;
 
+import bogdrosoft.jymag.comm.ObjectCache;
+import bogdrosoft.jymag.comm.SessionPool;
+import bogdrosoft.jymag.comm.TransferUtils;
 import bogdrosoft.jymag.gui.MainWindow;
 import bogdrosoft.jymag.gui.UiUtils;
 import java.io.File;
@@ -33,10 +36,18 @@ import java.util.ResourceBundle;
  */
 public class Starter
 {
+	/** Current version number as a String. */
+	public static final String JYMAG_VERSION =
+		ResourceBundle.getBundle("bogdrosoft/jymag/rsrc/version")	// NOI18N
+		.getString("VER");	// NOI18N
+
 	private static final String START_ERROR
 		= ResourceBundle.getBundle("bogdrosoft/jymag/i18n/Starter")
 		.getString("JYMAG_Start_Error");
 
+	// synchronization variable for the command line:
+	private static final Object SYNC = new Object ();
+
 	private static String logFile = "jymag.log";	// NOI18N
 
 	private Starter ()
@@ -58,7 +69,17 @@ public class Starter
 
 		try
 		{
-			MainWindow.start (args);
+			// don't download again the objects which haven't changed:
+			TransferUtils.setObjectCache (ObjectCache.getDefault ());
+
+			// parse the command line. No GUI classes are loaded
+			// before the command line is handled, so the command
+			// line works without a display and starts faster.
+			CommandLineParser.parse (args, SYNC);
+
+			// If we get here, it means that the command line didn't
+			// cause the program to exit and the GUI should be displayed.
+			MainWindow.start ();
 		}
 		catch (Throwable ex)
 		{
@@ -77,6 +98,8 @@ public class Starter
 	 */
 	public static void closeProgram (int retval)
 	{
+		// close the ports kept open between the operations
+		SessionPool.closeAll ();
 		// close logging
 		if ( System.err != null )
 		{
@@ -19,8 +19,6 @@
  */
 package bogdrosoft.jymag;
 
-import java.awt.Component;
-
 /**
  * A sample uncaught-exception handler class for threads.
  * @author Bogdan Drozdowski
@@ -32,18 +30,6 @@ public class UncExceptionHandler implements Thread.UncaughtExceptionHandler
 	 */
 	public static final UncExceptionHandler HANDLER = new UncExceptionHandler();
 
-	private final Component target;
-
-	public UncExceptionHandler()
-	{
-		target = null;
-	}
-
-	public UncExceptionHandler(Component c)
-	{
-		target = c;
-	}
-
 	/**
 	 * Called when an uncaught exception occurrs.
 	 * @param t The thread, in which the exception occurred.
@@ -61,41 +47,6 @@ public class UncExceptionHandler implements Thread.UncaughtExceptionHandler
 		{
 			/* ignore */
 		}
-		try
-		{
-			if (target != null)
-			{
-				target.paintAll(target.getGraphics());
-			}
-		} catch (Throwable th) {}
-	}
-
-	public static void setHandlerForGuiThreads(Component c)
-	{
-		try
-		{
-			Thread[] ths = new Thread[Thread.activeCount() * 5];
-			final int nThreads = Thread.enumerate(ths);
-			for (int i = 0; i < nThreads; i++)
-			{
-				String name = ths[i].getName();
-				if (name == null)
-				{
-					continue;
-				}
-				if (name.contains("AWT") // NOI18N
-				 || name.contains("Swing") // NOI18N
-				 || name.contains("Image") // NOI18N
-				)
-				{
-					ths[i].setUncaughtExceptionHandler(new UncExceptionHandler(c));
-				}
-			}
-		}
-		catch (Throwable th)
-		{
-			// don't care for exceptions, this is optional
-		}
 	}
 
 	@Override
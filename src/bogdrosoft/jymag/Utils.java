@@ -21,10 +21,7 @@
 package bogdrosoft.jymag;
 
 import java.util.Calendar;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 /**
  * A utility class, containing some useful methods and fields.
@@ -32,12 +29,6 @@ import java.util.regex.Pattern;
  */
 public class Utils
 {
-	/**
-	 * A pattern describing the format of lists of elements received from
-	 * the phone.
-	 */
-	public static final Pattern LIST_PATTERN;
-
 	/**
 	 * A Map containing all ID numbers connected to the given file
 	 * extensions, used for file uploading.
@@ -125,110 +116,15 @@ public class Utils
 
 	static
 	{
-		/*
-		 * List receiving format:
-		 * +KPSL: "5303650005022001FFFF",1,2016,"PICTURES","FGIF","0000065535","","Zzz"
-				Id	    HIDDEN,LENG, CATEGORY, CONTENT, LOCATION  FLAG, NAME
-		 */
-		LIST_PATTERN = Pattern.compile ("\\s*\\+KPSL:\\s*\\" + '"'	// NOI18N
-				+ "([0-9A-Fa-f]+)" + "\\" + '"' + ",(\\d+),\\d+,\\" + '"'	// NOI18N
-				+ "\\w+\\" + '"' + ",\\" + '"' + "(\\w+)\\"+ '"'	// NOI18N
-				+ ",[^,]+,[^,]+,\\"+ '"' + "([^\"]+)\\" + '"');	// NOI18N
-
-		Map<String, Integer> tempMap = new HashMap<String, Integer> (12);
-		tempMap.put ("wav" ,   1);		// NOI18N
-		tempMap.put ("mid" ,   2);		// NOI18N
-		tempMap.put ("midi",   2);		// NOI18N
-		//tempMap.put ("rmi" ,   2);// ?	// NOI18N
-		//tempMap.put ("kar" ,   2);// ?	// NOI18N
-		tempMap.put ("amr" ,  14);		// NOI18N
-		// UNCHECKED:
-		tempMap.put ("mp3" ,   3);		// NOI18N
-		tempMap.put ("imy" ,   4);		// NOI18N
-		tempMap.put ("asg1",   5);		// NOI18N
-		tempMap.put ("asg2",   6);		// NOI18N
-		tempMap.put ("mfi" ,  15);		// NOI18N
-		tempMap.put ("aac" ,  17);		// NOI18N
-		tempMap.put ("m4a" ,  17);		// NOI18N
-		tempMap.put ("awb" ,  18);		// NOI18N
-		RING_FILE_IDS = Collections.unmodifiableMap (tempMap);
-
-		tempMap = new HashMap<String, Integer> (16);
-		tempMap.put ("wbmp", 101);		// NOI18N
-		tempMap.put ("bmp" , 102);		// NOI18N
-		tempMap.put ("png" , 103);		// NOI18N
-		tempMap.put ("jpg" , 104);		// NOI18N
-		tempMap.put ("jpeg", 104);		// NOI18N
-		tempMap.put ("jpe" , 104);		// NOI18N
-		tempMap.put ("jif" , 104);		// NOI18N
-		tempMap.put ("gif" , 105);		// NOI18N
-		// UNCHECKED:
-		tempMap.put ("tif" , 106);		// NOI18N
-		tempMap.put ("tiff", 106);		// NOI18N
-		tempMap.put ("pct" , 107);		// NOI18N
-		tempMap.put ("pict", 107);		// NOI18N
-		tempMap.put ("ai"  , 108);		// NOI18N
-		tempMap.put ("eps" , 108);		// NOI18N
-		tempMap.put ("ps"  , 108);		// NOI18N
-		tempMap.put ("ems_gr", 109 );	// NOI18N
-		PHOTO_FILE_IDS = Collections.unmodifiableMap (tempMap);
-
-		tempMap = new HashMap<String, Integer> (3);
-		tempMap.put  ("vcf"  , 220);	// NOI18N
-		tempMap.put  ("vcard", 220);	// NOI18N
-		tempMap.put  ("vcrd" , 220);	// NOI18N
-		ADDR_FILE_IDS = Collections.unmodifiableMap (tempMap);
-
-		tempMap = new HashMap<String, Integer> (5);
-		tempMap.put  ("ics" , 221);		// NOI18N
-		tempMap.put  ("ical", 221);		// NOI18N
-		tempMap.put  ("ifb" , 221);		// NOI18N
-		tempMap.put  ("icalendar", 221);	// NOI18N
-		tempMap.put  ("vcs" , 221);		// NOI18N
-		TODO_FILE_IDS = Collections.unmodifiableMap (tempMap);
-
-		tempMap = new HashMap<String, Integer> (TODO_FILE_IDS.size ());
-		tempMap.putAll (TODO_FILE_IDS);
-		EVENT_FILE_IDS = Collections.unmodifiableMap (tempMap);
-
-		tempMap = new HashMap<String, Integer> (15);
-		tempMap.put  ("gif" , 105);		// NOI18N
-		tempMap.put  ("mng" , 202);		// NOI18N
-		// UNCHECKED:
-		tempMap.put  ("sg1" , 203);		// NOI18N
-		tempMap.put  ("sg2" , 204);		// NOI18N
-		tempMap.put  ("ems_an", 205);	// NOI18N
-		tempMap.put  ("ssa" , 206);		// NOI18N
-		tempMap.put  ("mjpg", 207);		// NOI18N
-		tempMap.put  ("mjpeg",207);		// NOI18N
-		tempMap.put  ("avi" , 231);		// NOI18N
-		tempMap.put  ("mp4" , 232);		// NOI18N
-		tempMap.put  ("mpeg", 232);		// NOI18N
-		tempMap.put  ("mpg" , 232);		// NOI18N
-		tempMap.put  ("3gp" , 233);		// NOI18N
-		tempMap.put  ("3gpp", 233);		// NOI18N
-		tempMap.put  ("3g2" , 233);		// NOI18N
-		ANIM_FILE_IDS = Collections.unmodifiableMap (tempMap);
-
-		tempMap = new HashMap<String, Integer> (3);
-		// UNCHECKED:
-		tempMap.put  ("jar" , 1001);	// NOI18N
-		tempMap.put  ("jad" , 1002);	// NOI18N
-		tempMap.put  ("jam" , 1003);	// NOI18N
-		JAVA_FILE_IDS = Collections.unmodifiableMap (tempMap);
-
-		tempMap = new HashMap<String, Integer> (RING_FILE_IDS.size ()
-			+ PHOTO_FILE_IDS.size () + ADDR_FILE_IDS.size ()
-			+ TODO_FILE_IDS.size () + EVENT_FILE_IDS.size ()
-			+ ANIM_FILE_IDS.size () + JAVA_FILE_IDS.size ());
-		tempMap.putAll (PHOTO_FILE_IDS);
-		tempMap.putAll (RING_FILE_IDS);
-		tempMap.putAll (ADDR_FILE_IDS);
-		tempMap.putAll (TODO_FILE_IDS);
-		tempMap.putAll (EVENT_FILE_IDS);
-		tempMap.putAll (ANIM_FILE_IDS);
-		tempMap.putAll (JAVA_FILE_IDS);
-		FILE_TYPE_IDS = Collections.unmodifiableMap (tempMap);
+		// the extensions and IDs are defined in the file format registry
+		RING_FILE_IDS = FileFormat.getUploadIDs (FileFormat.Category.RINGTONE);
+		PHOTO_FILE_IDS = FileFormat.getUploadIDs (FileFormat.Category.PHOTO);
+		ADDR_FILE_IDS = FileFormat.getUploadIDs (FileFormat.Category.ADDRESS_BOOK);
+		TODO_FILE_IDS = FileFormat.getUploadIDs (FileFormat.Category.TODO);
+		EVENT_FILE_IDS = FileFormat.getUploadIDs (FileFormat.Category.EVENT);
+		ANIM_FILE_IDS = FileFormat.getUploadIDs (FileFormat.Category.ANIMATION);
+		JAVA_FILE_IDS = FileFormat.getUploadIDs (FileFormat.Category.JAVA);
+		FILE_TYPE_IDS = FileFormat.getUploadIDs (null);
 	}
 
 	private Utils ()
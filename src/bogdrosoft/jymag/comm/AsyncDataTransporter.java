@@ -0,0 +1,649 @@
+/*
+ * AsyncDataTransporter.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.PhoneAlarm;
+import bogdrosoft.jymag.PhoneElement;
+import bogdrosoft.jymag.PhoneMessage;
+import bogdrosoft.jymag.Utils;
+import java.io.File;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AsyncDataTransporter - a non-blocking facade for DataTransporter.
+ * The commands for each port are queued and run one by one on a single
+ * I/O thread belonging to that port, the more urgent first, in the same
+ * way as the port's CommandScheduler orders them. Each method returns at once with
+ * a CompletableFuture, which is completed on the port's I/O thread, so
+ * the operations can be chained without waiting. The port is taken from
+ * the SessionPool for each command and the commands share the port with
+ * the other transfers through the port's CommandScheduler.
+ * The futures are completed after the port is given back, but the
+ * synchronous dependent stages (like thenApply) still run on the port's
+ * I/O thread, so the next command waits for them. A dependent stage
+ * which waits for another command on the same port (for example, calls
+ * join() on its future) must use an *Async variant without this class'
+ * executor, like thenApplyAsync(fn), or it will wait forever.
+ * @author Bogdan Drozdowski
+ */
+public class AsyncDataTransporter
+{
+	/** The I/O threads of all the ports used so far, by port name. */
+	private static final Map<String, PortExecutor> IO_THREADS =
+		new ConcurrentHashMap<String, PortExecutor> (4);
+
+	private final TransferParameters tp;
+	private final PortExecutor io;
+
+	/**
+	 * A command to run on the open port.
+	 * @param <T> the type of the command's result.
+	 */
+	public interface Command<T>
+	{
+		/**
+		 * Runs the command.
+		 * @param dt the open port to use.
+		 * @return the result of the command.
+		 * @throws java.lang.Exception in case of error.
+		 */
+		T run (DataTransporter dt) throws Exception;
+	}
+
+	/**
+	 * A queued command with its priority.
+	 */
+	private static final class Task implements Runnable, Comparable<Task>
+	{
+		private final Runnable task;
+		private final long deadline;
+		private final long ticket;
+
+		private Task (Runnable r, CommandScheduler.Priority p, long order)
+		{
+			task = r;
+			// like in CommandScheduler, each AGING_TIME of waiting
+			// raises the priority by one class
+			deadline = System.currentTimeMillis ()
+				+ p.ordinal () * CommandScheduler.AGING_TIME;
+			ticket = order;
+		}
+
+		@Override
+		public void run ()
+		{
+			task.run ();
+		}
+
+		@Override
+		public int compareTo (Task other)
+		{
+			if ( deadline != other.deadline )
+			{
+				return (deadline < other.deadline)? -1 : 1;
+			}
+			return Long.compare (ticket, other.ticket);
+		}
+
+		@Override
+		public String toString ()
+		{
+			return "AsyncDataTransporter.Task[" + task + "]";	// NOI18N
+		}
+	}
+
+	/**
+	 * The I/O thread of a port, running the queued commands by priority
+	 * and, within one priority, in the order they were queued.
+	 */
+	private static final class PortExecutor implements Executor
+	{
+		private final ThreadPoolExecutor thread;
+		private final AtomicLong nextTicket = new AtomicLong ();
+
+		private PortExecutor (ThreadFactory tf)
+		{
+			thread = new ThreadPoolExecutor (1, 1, 0L, TimeUnit.MILLISECONDS,
+				new PriorityBlockingQueue<Runnable> (), tf);
+		}
+
+		private void execute (CommandScheduler.Priority p, Runnable r)
+		{
+			thread.execute (new Task (r, p, nextTicket.getAndIncrement ()));
+		}
+
+		@Override
+		public void execute (Runnable r)
+		{
+			execute (CommandScheduler.Priority.TRANSFER, r);
+		}
+
+		private void shutdown ()
+		{
+			thread.shutdown ();
+		}
+	}
+
+	/**
+	 * Creates a new instance of AsyncDataTransporter.
+	 * @param params The port parameters to use.
+	 */
+	public AsyncDataTransporter (TransferParameters params)
+	{
+		if ( params == null || params.getId () == null )
+		{
+			throw new IllegalArgumentException ("AsyncDataTransporter: null");	// NOI18N
+		}
+		tp = params;
+		io = getIOThread (DataTransporter.getPortName (params.getId ()));
+	}
+
+	/**
+	 * Gets the I/O thread for the given port, creating it if needed.
+	 * @param portName The name of the port.
+	 * @return the I/O thread for the given port.
+	 */
+	private static PortExecutor getIOThread (String portName)
+	{
+		final String key = (portName != null)? portName : Utils.EMPTY_STR;
+		PortExecutor res = IO_THREADS.get (key);
+		if ( res == null )
+		{
+			PortExecutor newThread = new PortExecutor (new ThreadFactory ()
+			{
+				@Override
+				public Thread newThread (Runnable r)
+				{
+					Thread t = new Thread (r, "AsyncDataTransporter." + key);	// NOI18N
+					t.setDaemon (true);
+					return t;
+				}
+			});
+			res = IO_THREADS.putIfAbsent (key, newThread);
+			if ( res == null )
+			{
+				res = newThread;
+			}
+			else
+			{
+				newThread.shutdown ();
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Queues the given command for the port, with the TRANSFER priority.
+	 * @param <T> the type of the command's result.
+	 * @param cmd The command to run.
+	 * @return the future result of the command. The future is completed
+	 *	exceptionally if the port couldn't be opened or the command
+	 *	threw an exception.
+	 */
+	public <T> CompletableFuture<T> submit (final Command<T> cmd)
+	{
+		return submit (CommandScheduler.Priority.TRANSFER, cmd);
+	}
+
+	/**
+	 * Queues the given command for the port.
+	 * @param <T> the type of the command's result.
+	 * @param prio The priority of the command when competing for the port
+	 *	with the other commands and threads.
+	 * @param cmd The command to run.
+	 * @return the future result of the command. The future is completed
+	 *	exceptionally if the port couldn't be opened or the command
+	 *	threw an exception. It is completed after the port is released,
+	 *	on the port's I/O thread.
+	 */
+	public <T> CompletableFuture<T> submit (final CommandScheduler.Priority prio,
+		final Command<T> cmd)
+	{
+		final CompletableFuture<T> res = new CompletableFuture<T> ();
+		if ( cmd == null )
+		{
+			res.completeExceptionally (new IllegalArgumentException (
+				"AsyncDataTransporter.submit: null"));	// NOI18N
+			return res;
+		}
+		io.execute (prio, new Runnable ()
+		{
+			@Override
+			public void run ()
+			{
+				if ( res.isDone () )
+				{
+					// cancelled while waiting in the queue
+					return;
+				}
+				CommandScheduler scheduler = CommandScheduler.forPort (
+					DataTransporter.getPortName (tp.getId ()));
+				T ret = null;
+				Throwable error = null;
+				scheduler.acquire (prio);
+				try
+				{
+					DataTransporter dt = SessionPool.acquire (tp);
+					boolean ok = false;
+					try
+					{
+						ret = cmd.run (dt);
+						ok = true;
+					}
+					finally
+					{
+						SessionPool.release (dt, ok);
+					}
+				}
+				catch (Throwable ex)
+				{
+					error = ex;
+				}
+				finally
+				{
+					scheduler.release ();
+				}
+				// the synchronous dependent stages run here, so give
+				// the port back first
+				if ( error != null )
+				{
+					res.completeExceptionally (error);
+				}
+				else
+				{
+					res.complete (ret);
+				}
+			}
+
+			@Override
+			public String toString ()
+			{
+				return "AsyncDataTransporter.submit";	// NOI18N
+			}
+		});
+		return res;
+	}
+
+	/**
+	 * Gets the executor running the commands for this port. It can be
+	 * used for the dependent stages of the returned futures to keep them
+	 * in the port's order. They are queued with the TRANSFER priority.
+	 * @return the executor running the commands for this port.
+	 */
+	public Executor getExecutor ()
+	{
+		return io;
+	}
+
+	/**
+	 * Tests the port to determine if something is connected.
+	 * @return the future result of DataTransporter.test().
+	 * @see DataTransporter#test()
+	 */
+	public CompletableFuture<Integer> test ()
+	{
+		return submit (new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.test ();
+			}
+		});
+	}
+
+	/**
+	 * Gets a list of elements of the given type from the phone.
+	 * @param ofWhat The type of the elements to get.
+	 * @return the future result of DataTransporter.getList().
+	 * @see DataTransporter#getList(java.lang.String)
+	 */
+	public CompletableFuture<Vector<PhoneElement>> getList (final String ofWhat)
+	{
+		return submit (new Command<Vector<PhoneElement>> ()
+		{
+			@Override
+			public Vector<PhoneElement> run (DataTransporter dt)
+			{
+				return dt.getList (ofWhat);
+			}
+		});
+	}
+
+	/**
+	 * Downloads the given element from the phone to the given file.
+	 * @param f The file to write the element to.
+	 * @param el The element to download.
+	 * @return the future result of DataTransporter.getFile().
+	 * @see DataTransporter#getFile(java.io.File, bogdrosoft.jymag.PhoneElement)
+	 */
+	public CompletableFuture<Integer> getFile (final File f, final PhoneElement el)
+	{
+		return submit (new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.getFile (f, el);
+			}
+		});
+	}
+
+	/**
+	 * Sends the given file to the phone.
+	 * @param f The file to send.
+	 * @param newName Name of the object to be sent to the phone.
+	 * @return the future result of DataTransporter.putFile().
+	 * @see DataTransporter#putFile(java.io.File, java.lang.String)
+	 */
+	public CompletableFuture<Integer> putFile (final File f, final String newName)
+	{
+		return submit (new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.putFile (f, newName);
+			}
+		});
+	}
+
+	/**
+	 * Deletes the given element from the phone.
+	 * @param el The element to delete.
+	 * @return the future result of DataTransporter.deleteFile().
+	 * @see DataTransporter#deleteFile(bogdrosoft.jymag.PhoneElement)
+	 */
+	public CompletableFuture<Integer> deleteFile (final PhoneElement el)
+	{
+		return submit (new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.deleteFile (el);
+			}
+		});
+	}
+
+	/**
+	 * Gets the alarms from the phone.
+	 * @return the future result of DataTransporter.getAlarms().
+	 * @see DataTransporter#getAlarms()
+	 */
+	public CompletableFuture<Vector<PhoneAlarm>> getAlarms ()
+	{
+		return submit (new Command<Vector<PhoneAlarm>> ()
+		{
+			@Override
+			public Vector<PhoneAlarm> run (DataTransporter dt)
+			{
+				return dt.getAlarms ();
+			}
+		});
+	}
+
+	/**
+	 * Adds the given alarm to the phone.
+	 * @param al The alarm to add.
+	 * @return the future result of DataTransporter.addAlarm().
+	 * @see DataTransporter#addAlarm(bogdrosoft.jymag.PhoneAlarm)
+	 */
+	public CompletableFuture<Integer> addAlarm (final PhoneAlarm al)
+	{
+		return submit (new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.addAlarm (al);
+			}
+		});
+	}
+
+	/**
+	 * Deletes the given alarm from the phone.
+	 * @param number The number of the alarm to delete.
+	 * @return the future result of DataTransporter.deleteAlarm().
+	 * @see DataTransporter#deleteAlarm(int)
+	 */
+	public CompletableFuture<Integer> deleteAlarm (final int number)
+	{
+		return submit (new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.deleteAlarm (number);
+			}
+		});
+	}
+
+	/**
+	 * Gets the messages from the phone.
+	 * @return the future result of DataTransporter.getMessages().
+	 * @see DataTransporter#getMessages()
+	 */
+	public CompletableFuture<Vector<PhoneMessage>> getMessages ()
+	{
+		return submit (new Command<Vector<PhoneMessage>> ()
+		{
+			@Override
+			public Vector<PhoneMessage> run (DataTransporter dt)
+			{
+				return dt.getMessages ();
+			}
+		});
+	}
+
+	/**
+	 * Gets the message with the given number from the phone.
+	 * @param number The number of the message to get.
+	 * @return the future result of DataTransporter.getMessage().
+	 * @see DataTransporter#getMessage(int)
+	 */
+	public CompletableFuture<PhoneMessage> getMessage (final int number)
+	{
+		return submit (new Command<PhoneMessage> ()
+		{
+			@Override
+			public PhoneMessage run (DataTransporter dt)
+			{
+				return dt.getMessage (number);
+			}
+		});
+	}
+
+	/**
+	 * Sends the given message.
+	 * @param msg The message to send.
+	 * @return the future result of DataTransporter.sendMessage().
+	 * @see DataTransporter#sendMessage(bogdrosoft.jymag.PhoneMessage)
+	 */
+	public CompletableFuture<Integer> sendMessage (final PhoneMessage msg)
+	{
+		return submit (new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.sendMessage (msg);
+			}
+		});
+	}
+
+	/**
+	 * Deletes the given message from the phone.
+	 * @param number The number of the message to delete.
+	 * @return the future result of DataTransporter.deleteMessage().
+	 * @see DataTransporter#deleteMessage(int)
+	 */
+	public CompletableFuture<Integer> deleteMessage (final int number)
+	{
+		return submit (new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.deleteMessage (number);
+			}
+		});
+	}
+
+	/**
+	 * Gets the signal power.
+	 * @return the future result of DataTransporter.getSignalPower().
+	 * @see DataTransporter#getSignalPower()
+	 */
+	public CompletableFuture<Integer> getSignalPower ()
+	{
+		return submit (CommandScheduler.Priority.BACKGROUND, new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.getSignalPower ();
+			}
+		});
+	}
+
+	/**
+	 * Dials the given number.
+	 * @param number The number to dial.
+	 * @param isVoice TRUE for a voice call.
+	 * @param dialMode The dialing mode.
+	 * @return the future result of DataTransporter.dialNumber().
+	 * @see DataTransporter#dialNumber(java.lang.String, boolean, bogdrosoft.jymag.comm.DataTransporter.DIAL_MODE)
+	 */
+	public CompletableFuture<Integer> dialNumber (final String number,
+		final boolean isVoice, final DataTransporter.DIAL_MODE dialMode)
+	{
+		return submit (CommandScheduler.Priority.INTERACTIVE, new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.dialNumber (number, isVoice, dialMode);
+			}
+		});
+	}
+
+	/**
+	 * Hangs the phone up.
+	 * @return the future result of DataTransporter.hangup().
+	 * @see DataTransporter#hangup()
+	 */
+	public CompletableFuture<Integer> hangup ()
+	{
+		return submit (CommandScheduler.Priority.INTERACTIVE, new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.hangup ();
+			}
+		});
+	}
+
+	/**
+	 * Answers the phone.
+	 * @return the future result of DataTransporter.answer().
+	 * @see DataTransporter#answer()
+	 */
+	public CompletableFuture<Integer> answer ()
+	{
+		return submit (CommandScheduler.Priority.INTERACTIVE, new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.answer ();
+			}
+		});
+	}
+
+	/**
+	 * Gets the current volume level.
+	 * @return the future result of DataTransporter.getVolume().
+	 * @see DataTransporter#getVolume()
+	 */
+	public CompletableFuture<Integer> getVolume ()
+	{
+		return submit (CommandScheduler.Priority.INTERACTIVE, new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.getVolume ();
+			}
+		});
+	}
+
+	/**
+	 * Sets the volume level.
+	 * @param vol The new volume level.
+	 * @return the future result of DataTransporter.setVolume().
+	 * @see DataTransporter#setVolume(int)
+	 */
+	public CompletableFuture<Integer> setVolume (final int vol)
+	{
+		return submit (CommandScheduler.Priority.INTERACTIVE, new Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				return dt.setVolume (vol);
+			}
+		});
+	}
+
+	/**
+	 * Gets the phone's IMEI number.
+	 * @return the future result of DataTransporter.getIMEI().
+	 * @see DataTransporter#getIMEI()
+	 */
+	public CompletableFuture<String> getIMEI ()
+	{
+		return submit (new Command<String> ()
+		{
+			@Override
+			public String run (DataTransporter dt)
+			{
+				return dt.getIMEI ();
+			}
+		});
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "AsyncDataTransporter[" + DataTransporter.getPortName (tp.getId ()) + "]";	// NOI18N
+	}
+}
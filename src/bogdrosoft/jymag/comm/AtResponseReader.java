@@ -0,0 +1,387 @@
+/*
+ * AtResponseReader.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package bogdrosoft.jymag.comm;
+
+/**
+ * AtResponseReader - walks over the lines of a reply to an AT command and
+ * over the comma-separated fields of each line, in place. The fields may
+ * be quoted, the quoted ones may contain commas. Nothing is copied or
+ * allocated while walking: the lines and fields are just ranges of the
+ * given array, which can be compared and converted to numbers directly.
+ * Only the fields which are kept are converted to Strings. One instance
+ * can be reused for many replies. Not thread-safe.
+ * @author Bogdan Drozdowski
+ */
+class AtResponseReader
+{
+	private static final byte[] EMPTY = new byte[0];
+
+	private byte[] buf = EMPTY;
+	private int end;
+	/** The start of the next line to read. */
+	private int pos;
+	private int lineStart;
+	private int lineEnd;
+	/** The start of the next field to read, past lineEnd if none. */
+	private int fieldPos;
+	private int fieldStart;
+	private int fieldEnd;
+	private boolean fieldQuoted;
+
+	/**
+	 * Creates a new instance of AtResponseReader with no data.
+	 */
+	AtResponseReader ()
+	{
+		// nothing to do
+	}
+
+	/**
+	 * Creates a new instance of AtResponseReader.
+	 * @param data The reply to read.
+	 */
+	AtResponseReader (byte[] data)
+	{
+		reset (data, 0, (data != null)? data.length : 0);
+	}
+
+	/**
+	 * Starts reading the given reply.
+	 * @param data The array with the reply.
+	 * @param off The offset of the reply in the array.
+	 * @param len The length of the reply.
+	 */
+	void reset (byte[] data, int off, int len)
+	{
+		buf = (data != null)? data : EMPTY;
+		pos = off;
+		end = (data != null)? off + len : 0;
+		lineStart = pos;
+		lineEnd = pos;
+		fieldPos = lineEnd + 1;
+		fieldStart = pos;
+		fieldEnd = pos;
+		fieldQuoted = false;
+	}
+
+	/**
+	 * Tells if the given data contains only white space.
+	 * @param data The data to check.
+	 * @param off The offset of the first byte to check.
+	 * @param len The number of bytes to check.
+	 * @return TRUE if the data is empty or contains only white space.
+	 */
+	static boolean isBlank (byte[] data, int off, int len)
+	{
+		if ( data == null )
+		{
+			return true;
+		}
+		for ( int i = off; i < off + len; i++ )
+		{
+			if ( ! isSpace (data[i]) )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isSpace (byte b)
+	{
+		return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+	}
+
+	/**
+	 * Moves to the next line which isn't empty. The white space at the
+	 * beginning and the end of the line is skipped.
+	 * @return TRUE if there was another line.
+	 */
+	boolean nextLine ()
+	{
+		while ( pos < end )
+		{
+			int start = pos;
+			while ( pos < end && buf[pos] != '\r' && buf[pos] != '\n' )
+			{
+				pos++;
+			}
+			int stop = pos;
+			while ( pos < end && (buf[pos] == '\r' || buf[pos] == '\n') )
+			{
+				pos++;
+			}
+			while ( start < stop && isSpace (buf[start]) )
+			{
+				start++;
+			}
+			while ( stop > start && isSpace (buf[stop - 1]) )
+			{
+				stop--;
+			}
+			if ( start < stop )
+			{
+				lineStart = start;
+				lineEnd = stop;
+				fieldPos = start;
+				fieldStart = start;
+				fieldEnd = start;
+				fieldQuoted = false;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the offset of the current line in the array.
+	 * @return the offset of the current line.
+	 */
+	int getLineStart ()
+	{
+		return lineStart;
+	}
+
+	/**
+	 * Gets the offset of the end of the current line in the array.
+	 * @return the offset of the byte just after the current line.
+	 */
+	int getLineEnd ()
+	{
+		return lineEnd;
+	}
+
+	/**
+	 * Tells if the current line starts with the given bytes.
+	 * @param prefix The bytes to check.
+	 * @return TRUE if the current line starts with the given bytes.
+	 */
+	boolean lineStartsWith (byte[] prefix)
+	{
+		return prefix != null && lineEnd - lineStart >= prefix.length
+			&& regionEquals (lineStart, prefix);
+	}
+
+	/**
+	 * Tells if the current line is equal to the given bytes.
+	 * @param what The bytes to compare to.
+	 * @return TRUE if the current line is equal to the given bytes.
+	 */
+	boolean lineEquals (byte[] what)
+	{
+		return what != null && lineEnd - lineStart == what.length
+			&& regionEquals (lineStart, what);
+	}
+
+	/**
+	 * Gets the current line.
+	 * @return the current line.
+	 */
+	String getLine ()
+	{
+		return getString (lineStart, lineEnd);
+	}
+
+	/**
+	 * Gets a part of the reply, in the default encoding, because the
+	 * reply may be in any encoding.
+	 * @param from The offset of the first byte.
+	 * @param to The offset of the byte just after the last one.
+	 * @return the given part of the reply.
+	 */
+	String getString (int from, int to)
+	{
+		return new String (buf, from, Math.max (to - from, 0));
+	}
+
+	/**
+	 * Makes the fields of the current line start after the given number
+	 * of bytes, for example after the name of the reply, like "+KPSL:".
+	 * @param skip The number of bytes to skip.
+	 */
+	void startFields (int skip)
+	{
+		fieldPos = Math.min (lineStart + skip, lineEnd);
+	}
+
+	/**
+	 * Moves to the next field of the current line. The white space
+	 * around the field and the quotes are skipped.
+	 * @return TRUE if there was another field.
+	 */
+	boolean nextField ()
+	{
+		if ( fieldPos > lineEnd )
+		{
+			return false;
+		}
+		int p = fieldPos;
+		while ( p < lineEnd && isSpace (buf[p]) )
+		{
+			p++;
+		}
+		if ( p < lineEnd && buf[p] == '"' )
+		{
+			fieldQuoted = true;
+			fieldStart = p + 1;
+			p = fieldStart;
+			while ( p < lineEnd && buf[p] != '"' )
+			{
+				p++;
+			}
+			fieldEnd = p;
+			while ( p < lineEnd && buf[p] != ',' )
+			{
+				p++;
+			}
+		}
+		else
+		{
+			fieldQuoted = false;
+			fieldStart = p;
+			while ( p < lineEnd && buf[p] != ',' )
+			{
+				p++;
+			}
+			fieldEnd = p;
+			while ( fieldEnd > fieldStart && isSpace (buf[fieldEnd - 1]) )
+			{
+				fieldEnd--;
+			}
+		}
+		// past the comma or past the end of the line
+		fieldPos = p + 1;
+		return true;
+	}
+
+	/**
+	 * Tells if the current field was quoted.
+	 * @return TRUE if the current field was quoted.
+	 */
+	boolean isFieldQuoted ()
+	{
+		return fieldQuoted;
+	}
+
+	/**
+	 * Gets the length of the current field.
+	 * @return the length of the current field.
+	 */
+	int getFieldLength ()
+	{
+		return fieldEnd - fieldStart;
+	}
+
+	/**
+	 * Tells if the current field is equal to the given bytes.
+	 * @param what The bytes to compare to.
+	 * @return TRUE if the current field is equal to the given bytes.
+	 */
+	boolean fieldEquals (byte[] what)
+	{
+		return what != null && fieldEnd - fieldStart == what.length
+			&& regionEquals (fieldStart, what);
+	}
+
+	/**
+	 * Tells if the current field is a non-empty decimal number.
+	 * @return TRUE if the current field contains only decimal digits.
+	 */
+	boolean isFieldDigits ()
+	{
+		return isFieldOf (false);
+	}
+
+	/**
+	 * Tells if the current field is a non-empty hexadecimal number.
+	 * @return TRUE if the current field contains only hexadecimal digits.
+	 */
+	boolean isFieldHex ()
+	{
+		return isFieldOf (true);
+	}
+
+	private boolean isFieldOf (boolean hex)
+	{
+		if ( fieldEnd == fieldStart )
+		{
+			return false;
+		}
+		for ( int i = fieldStart; i < fieldEnd; i++ )
+		{
+			byte b = buf[i];
+			if ( (b < '0' || b > '9') && (! hex
+				|| ((b < 'a' || b > 'f') && (b < 'A' || b > 'F'))) )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the current field as a decimal number.
+	 * @param def The value to return if the field isn't a number.
+	 * @return the value of the current field or the given default value.
+	 */
+	int getFieldInt (int def)
+	{
+		if ( ! isFieldDigits () || fieldEnd - fieldStart > 9 )
+		{
+			return def;
+		}
+		int res = 0;
+		for ( int i = fieldStart; i < fieldEnd; i++ )
+		{
+			res = res * 10 + (buf[i] - '0');
+		}
+		return res;
+	}
+
+	/**
+	 * Gets the current field.
+	 * @return the current field, without the quotes.
+	 */
+	String getField ()
+	{
+		return getString (fieldStart, fieldEnd);
+	}
+
+	private boolean regionEquals (int from, byte[] what)
+	{
+		for ( int i = 0; i < what.length; i++ )
+		{
+			if ( buf[from + i] != what[i] )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "AtResponseReader[line=" + lineStart + ".." + lineEnd	// NOI18N
+			+ ",field=" + fieldStart + ".." + fieldEnd + "]";	// NOI18N
+	}
+}
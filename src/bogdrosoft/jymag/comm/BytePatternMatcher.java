@@ -0,0 +1,217 @@
+/*
+ * BytePatternMatcher.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import java.util.Arrays;
+
+/**
+ * An Aho-Corasick automaton which finds all occurrences of a set of
+ * byte patterns in a single pass over the data. The automaton is
+ * immutable once built. The scanning state is a plain int kept by the
+ * caller, so the data can be fed in chunks and no objects are created
+ * while scanning.
+ * @author Bogdan Drozdowski
+ */
+class BytePatternMatcher
+{
+	/** The state the scanning starts in. */
+	static final int START_STATE = 0;
+
+	private static final int[] NO_MATCHES = new int[0];
+
+	private final int[] patternLengths;
+	/** The transition table: 256 entries for each state. */
+	private final int[] delta;
+	/** The indices of the patterns which end in the given state. */
+	private final int[][] matches;
+	/** The number of pattern bytes matched in the given state. */
+	private final int[] depth;
+
+	/**
+	 * Creates a new instance of BytePatternMatcher.
+	 * @param patterns The patterns to search for. The index of a pattern
+	 *	in the array is used to identify it in the results.
+	 */
+	BytePatternMatcher (byte[]... patterns)
+	{
+		if ( patterns == null )
+		{
+			throw new IllegalArgumentException ("BytePatternMatcher: null");	// NOI18N
+		}
+		patternLengths = new int[patterns.length];
+		int maxStates = 1;
+		for ( int i = 0; i < patterns.length; i++ )
+		{
+			if ( patterns[i] == null || patterns[i].length == 0 )
+			{
+				throw new IllegalArgumentException ("BytePatternMatcher: " + i);	// NOI18N
+			}
+			patternLengths[i] = patterns[i].length;
+			maxStates += patterns[i].length;
+		}
+
+		// build the trie
+		int[] trie = new int[maxStates * 256];
+		Arrays.fill (trie, -1);
+		int[] tmpDepth = new int[maxStates];
+		int[][] tmpMatches = new int[maxStates][];
+		int states = 1;
+		for ( int i = 0; i < patterns.length; i++ )
+		{
+			int s = START_STATE;
+			for ( int j = 0; j < patterns[i].length; j++ )
+			{
+				int t = (s << 8) | (patterns[i][j] & 0xff);
+				if ( trie[t] < 0 )
+				{
+					trie[t] = states;
+					tmpDepth[states] = j + 1;
+					states++;
+				}
+				s = trie[t];
+			}
+			tmpMatches[s] = append (tmpMatches[s], new int[] {i});
+		}
+
+		// turn the trie into a full transition table, breadth-first
+		delta = new int[states * 256];
+		System.arraycopy (trie, 0, delta, 0, delta.length);
+		int[] fail = new int[states];
+		int[] queue = new int[states];
+		int qHead = 0;
+		int qTail = 0;
+		for ( int c = 0; c < 256; c++ )
+		{
+			int t = delta[c];
+			if ( t < 0 )
+			{
+				delta[c] = START_STATE;
+			}
+			else
+			{
+				fail[t] = START_STATE;
+				queue[qTail++] = t;
+			}
+		}
+		while ( qHead < qTail )
+		{
+			int s = queue[qHead++];
+			tmpMatches[s] = append (tmpMatches[s], tmpMatches[fail[s]]);
+			for ( int c = 0; c < 256; c++ )
+			{
+				int t = delta[(s << 8) | c];
+				if ( t < 0 )
+				{
+					delta[(s << 8) | c] = delta[(fail[s] << 8) | c];
+				}
+				else
+				{
+					fail[t] = delta[(fail[s] << 8) | c];
+					queue[qTail++] = t;
+				}
+			}
+		}
+
+		matches = new int[states][];
+		depth = new int[states];
+		for ( int s = 0; s < states; s++ )
+		{
+			matches[s] = (tmpMatches[s] != null)? tmpMatches[s] : NO_MATCHES;
+			depth[s] = tmpDepth[s];
+		}
+	}
+
+	/**
+	 * Joins the two arrays of pattern indices.
+	 * @param a The first array, can be null.
+	 * @param b The second array, can be null.
+	 * @return the joined array, or null if both arrays were null.
+	 */
+	private static int[] append (int[] a, int[] b)
+	{
+		if ( b == null || b.length == 0 )
+		{
+			return a;
+		}
+		if ( a == null || a.length == 0 )
+		{
+			return b;
+		}
+		int[] res = new int[a.length + b.length];
+		System.arraycopy (a, 0, res, 0, a.length);
+		System.arraycopy (b, 0, res, a.length, b.length);
+		return res;
+	}
+
+	/**
+	 * Gets the number of patterns.
+	 * @return the number of patterns.
+	 */
+	int getPatternCount ()
+	{
+		return patternLengths.length;
+	}
+
+	/**
+	 * Gets the length of the given pattern.
+	 * @param pattern The index of the pattern.
+	 * @return the length of the given pattern.
+	 */
+	int getPatternLength (int pattern)
+	{
+		return patternLengths[pattern];
+	}
+
+	/**
+	 * Moves the automaton to the next state.
+	 * @param state The current state.
+	 * @param b The next byte of the data.
+	 * @return the new state.
+	 */
+	int next (int state, byte b)
+	{
+		return delta[(state << 8) | (b & 0xff)];
+	}
+
+	/**
+	 * Gets the indices of the patterns which end at the byte which
+	 * moved the automaton to the given state.
+	 * @param state The state to check.
+	 * @return the indices of the patterns which end here, empty if none.
+	 *	The array is shared and must not be modified.
+	 */
+	int[] getMatches (int state)
+	{
+		return matches[state];
+	}
+
+	/**
+	 * Gets the number of the last bytes of the data which can be
+	 * the beginning of a pattern.
+	 * @param state The current state.
+	 * @return the length of the longest pattern prefix matched in
+	 *	the given state.
+	 */
+	int getDepth (int state)
+	{
+		return depth[state];
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * ByteRingBuffer.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+/**
+ * A growable circular byte buffer, filled by the port reader and
+ * consumed by the receiving code. All the methods are synchronized
+ * and the waiting methods wait on this object's monitor.
+ * @author Bogdan Drozdowski
+ */
+class ByteRingBuffer
+{
+	private byte[] buf;
+	/** Index of the first unread byte. */
+	private int head;
+	/** Number of unread bytes. */
+	private int count;
+
+	/**
+	 * Creates a new instance of ByteRingBuffer.
+	 * @param initialCapacity The initial capacity of the buffer, in bytes.
+	 */
+	ByteRingBuffer (int initialCapacity)
+	{
+		buf = new byte[(initialCapacity > 0)? initialCapacity : 16];
+	}
+
+	/**
+	 * Appends the given bytes to the buffer, growing it if needed, and
+	 * wakes up all the threads waiting for data.
+	 * @param b The array with the bytes to append.
+	 * @param off The starting offset in the array.
+	 * @param len The number of bytes to append.
+	 */
+	synchronized void write (byte[] b, int off, int len)
+	{
+		if ( b == null || len <= 0 || off < 0 || off + len > b.length )
+		{
+			return;
+		}
+		ensureCapacity (count + len);
+		int tail = (head + count) % buf.length;
+		int first = Math.min (len, buf.length - tail);
+		System.arraycopy (b, off, buf, tail, first);
+		if ( first < len )
+		{
+			System.arraycopy (b, off + first, buf, 0, len - first);
+		}
+		count += len;
+		notifyAll ();
+	}
+
+	/**
+	 * Gets the number of bytes that can be read.
+	 * @return the number of bytes that can be read.
+	 */
+	synchronized int available ()
+	{
+		return count;
+	}
+
+	/**
+	 * Gets the byte at the given position, without consuming it.
+	 * @param index The index of the byte, relative to the first unread one.
+	 * @return the byte at the given position.
+	 */
+	synchronized byte get (int index)
+	{
+		if ( index < 0 || index >= count )
+		{
+			throw new IndexOutOfBoundsException ("ByteRingBuffer.get: " + index);	// NOI18N
+		}
+		return buf[(head + index) % buf.length];
+	}
+
+	/**
+	 * Copies bytes from the buffer without consuming them.
+	 * @param from The index of the first byte to copy, relative to
+	 *	the first unread one.
+	 * @param dst The destination array.
+	 * @param dstOff The starting offset in the destination array.
+	 * @param len The maximum number of bytes to copy.
+	 * @return the number of bytes actually copied.
+	 */
+	synchronized int peek (int from, byte[] dst, int dstOff, int len)
+	{
+		if ( dst == null || from < 0 || from >= count || len <= 0 )
+		{
+			return 0;
+		}
+		int toCopy = Math.min (Math.min (len, count - from), dst.length - dstOff);
+		if ( toCopy <= 0 )
+		{
+			return 0;
+		}
+		int start = (head + from) % buf.length;
+		int first = Math.min (toCopy, buf.length - start);
+		System.arraycopy (buf, start, dst, dstOff, first);
+		if ( first < toCopy )
+		{
+			System.arraycopy (buf, 0, dst, dstOff + first, toCopy - first);
+		}
+		return toCopy;
+	}
+
+	/**
+	 * Feeds the bytes from the given range of the buffer, without
+	 * consuming them, to the given automaton.
+	 * @param from The index of the first byte, relative to the first
+	 *	unread one.
+	 * @param to The index to stop at (exclusive).
+	 * @param m The automaton to feed the bytes to.
+	 * @param state The current state of the automaton.
+	 * @return the state of the automaton after the last byte or -1 if
+	 *	any of the automaton's patterns was found.
+	 */
+	synchronized int scan (int from, int to, BytePatternMatcher m, int state)
+	{
+		int end = Math.min (to, count);
+		for ( int i = Math.max (from, 0); i < end; i++ )
+		{
+			state = m.next (state, buf[(head + i) % buf.length]);
+			if ( m.getMatches (state).length > 0 )
+			{
+				return -1;
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * Reads (consumes) bytes from the buffer into the given array.
+	 * @param dst The destination array.
+	 * @param dstOff The starting offset in the destination array.
+	 * @param len The maximum number of bytes to read.
+	 * @return the number of bytes actually read.
+	 */
+	synchronized int read (byte[] dst, int dstOff, int len)
+	{
+		int read = peek (0, dst, dstOff, len);
+		skip (read);
+		return read;
+	}
+
+	/**
+	 * Reads (consumes) the given number of bytes from the buffer into
+	 * a new array.
+	 * @param len The maximum number of bytes to read.
+	 * @return a new array with the bytes read.
+	 */
+	synchronized byte[] read (int len)
+	{
+		byte[] res = new byte[Math.max (0, Math.min (len, count))];
+		read (res, 0, res.length);
+		return res;
+	}
+
+	/**
+	 * Discards the given number of bytes from the beginning of the buffer.
+	 * @param n The number of bytes to discard.
+	 */
+	synchronized void skip (int n)
+	{
+		if ( n <= 0 )
+		{
+			return;
+		}
+		int toSkip = Math.min (n, count);
+		head = (head + toSkip) % buf.length;
+		count -= toSkip;
+		if ( count == 0 )
+		{
+			head = 0;
+		}
+	}
+
+	/**
+	 * Discards all the bytes in the buffer.
+	 */
+	synchronized void clear ()
+	{
+		head = 0;
+		count = 0;
+		notifyAll ();
+	}
+
+	/**
+	 * Waits until the buffer holds more than the given number of bytes.
+	 * @param than The number of bytes to compare against.
+	 * @param timeout The maximum time to wait, in milliseconds.
+	 * @return TRUE if the buffer holds more than the given number of bytes.
+	 * @throws java.lang.InterruptedException when interrupted while waiting.
+	 */
+	synchronized boolean awaitMoreThan (int than, long timeout)
+		throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis () + timeout;
+		long left = timeout;
+		while ( count <= than && left > 0 )
+		{
+			wait (left);
+			left = deadline - System.currentTimeMillis ();
+		}
+		return count > than;
+	}
+
+	/**
+	 * Grows the buffer so that it can hold at least the given number
+	 * of bytes, keeping the unread data.
+	 * @param needed The required capacity.
+	 */
+	private void ensureCapacity (int needed)
+	{
+		if ( needed <= buf.length )
+		{
+			return;
+		}
+		int newCap = buf.length;
+		while ( newCap < needed )
+		{
+			newCap *= 2;
+		}
+		byte[] newBuf = new byte[newCap];
+		int first = Math.min (count, buf.length - head);
+		System.arraycopy (buf, head, newBuf, 0, first);
+		if ( first < count )
+		{
+			System.arraycopy (buf, 0, newBuf, first, count - first);
+		}
+		buf = newBuf;
+		head = 0;
+	}
+
+	@Override
+	public synchronized String toString ()
+	{
+		return "ByteRingBuffer[" + count + "/" + buf.length + "]";	// NOI18N
+	}
+}
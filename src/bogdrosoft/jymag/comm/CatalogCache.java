@@ -0,0 +1,489 @@
+/*
+ * CatalogCache.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.PhoneElement;
+import bogdrosoft.jymag.Utils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Vector;
+
+/**
+ * CatalogCache - keeps the lists of the objects in the phones on the disk,
+ * so that they can be shown before the phone is asked again. The lists
+ * are kept per phone (by IMEI) and per object type, with the time they
+ * were received. All the lists of a phone are dropped when its firmware
+ * version changes. The last phone seen on each port is also remembered.
+ * @author Bogdan Drozdowski
+ */
+public class CatalogCache
+{
+	/** The beginning of each catalog file, "JYCC". */
+	private static final int MAGIC = 0x4A594343;
+	/** The version of the catalog file format. */
+	private static final int VERSION = 2;
+	private static final String CATALOG_EXT = ".cat";		// NOI18N
+	private static final String TMP_EXT = ".tmp";			// NOI18N
+	private static final String PORTS_FILE = "ports.properties";	// NOI18N
+
+	private static CatalogCache defaultCache;
+
+	private final File dir;
+	/** The catalogs read so far, by IMEI. Guarded by this object. */
+	private final Map<String, Device> devices = new HashMap<String, Device> (4);
+	/** The last IMEI seen on each port, read when first needed. */
+	private Properties ports;
+
+	/**
+	 * The cached list of objects of one type.
+	 */
+	public static final class Entry
+	{
+		private final List<PhoneElement> elements;
+		private final long fetchTime;
+
+		private Entry (List<PhoneElement> elems, long time)
+		{
+			elements = Collections.unmodifiableList (elems);
+			fetchTime = time;
+		}
+
+		/**
+		 * Gets the cached elements.
+		 * @return the unmodifiable list of the cached elements.
+		 */
+		public List<PhoneElement> getElements ()
+		{
+			return elements;
+		}
+
+		/**
+		 * Gets the time the list was received from the phone.
+		 * @return the time the list was received from the phone,
+		 *	in milliseconds since the epoch.
+		 */
+		public long getFetchTime ()
+		{
+			return fetchTime;
+		}
+	}
+
+	/**
+	 * The catalog of one phone.
+	 */
+	private static final class Device
+	{
+		private String firmware;
+		private final Map<String, Entry> entries =
+			new LinkedHashMap<String, Entry> (8);
+	}
+
+	/**
+	 * Creates a new instance of CatalogCache.
+	 * @param directory The directory to keep the catalogs in. Created
+	 *	when the first catalog is written.
+	 */
+	public CatalogCache (File directory)
+	{
+		if ( directory == null )
+		{
+			throw new IllegalArgumentException ("CatalogCache: directory==null");	// NOI18N
+		}
+		dir = directory;
+	}
+
+	/**
+	 * Gets the cache kept in the user's home directory.
+	 * @return the default cache or null if the home directory is unknown.
+	 */
+	public static synchronized CatalogCache getDefault ()
+	{
+		if ( defaultCache == null )
+		{
+			try
+			{
+				String home = System.getProperty ("user.home");	// NOI18N
+				if ( home != null )
+				{
+					defaultCache = new CatalogCache (new File (home,
+						".jymag" + File.separator + "catalog"));	// NOI18N
+				}
+			}
+			catch (Exception ex)
+			{
+				Utils.handleException (ex, "CatalogCache.getDefault");	// NOI18N
+			}
+		}
+		return defaultCache;
+	}
+
+	/**
+	 * Gets the cached list of objects of the given type.
+	 * @param imei The IMEI of the phone.
+	 * @param ofWhat The type of the objects, e.g. "PICTURES".
+	 * @return the cached list or null if none.
+	 */
+	public synchronized Entry get (String imei, String ofWhat)
+	{
+		if ( imei == null || ofWhat == null )
+		{
+			return null;
+		}
+		return getDevice (imei).entries.get (ofWhat);
+	}
+
+	/**
+	 * Stores the list of objects of the given type received from the phone.
+	 * @param imei The IMEI of the phone.
+	 * @param firmware The firmware version of the phone or null if unknown.
+	 *	If it's different from the stored one, the other lists of the
+	 *	phone are dropped.
+	 * @param ofWhat The type of the objects, e.g. "PICTURES".
+	 * @param elems The received list.
+	 */
+	public synchronized void put (String imei, String firmware,
+		String ofWhat, List<PhoneElement> elems)
+	{
+		if ( imei == null || ofWhat == null || elems == null )
+		{
+			return;
+		}
+		Device d = getDevice (imei);
+		checkFirmware (d, firmware);
+		d.entries.put (ofWhat, new Entry (new Vector<PhoneElement> (elems),
+			System.currentTimeMillis ()));
+		write (imei, d);
+	}
+
+	/**
+	 * Tells the cache which phone has been found on the given port.
+	 * @param portName The name of the port.
+	 * @param imei The IMEI of the phone.
+	 * @param firmware The firmware version of the phone or null if unknown.
+	 *	If it's different from the stored one, the lists of the phone
+	 *	are dropped.
+	 */
+	public synchronized void setDevice (String portName, String imei,
+		String firmware)
+	{
+		if ( portName == null || imei == null )
+		{
+			return;
+		}
+		Device d = getDevice (imei);
+		if ( checkFirmware (d, firmware) )
+		{
+			write (imei, d);
+		}
+		Properties p = getPorts ();
+		if ( ! imei.equals (p.getProperty (portName)) )
+		{
+			p.setProperty (portName, imei);
+			writePorts (p);
+		}
+	}
+
+	/**
+	 * Gets the IMEI of the phone last found on the given port.
+	 * @param portName The name of the port.
+	 * @return the IMEI of the phone last found on the given port or null.
+	 */
+	public synchronized String getLastDevice (String portName)
+	{
+		if ( portName == null )
+		{
+			return null;
+		}
+		return getPorts ().getProperty (portName);
+	}
+
+	/**
+	 * Drops all the cached lists of the given phone.
+	 * @param imei The IMEI of the phone.
+	 */
+	public synchronized void invalidate (String imei)
+	{
+		if ( imei == null )
+		{
+			return;
+		}
+		devices.remove (imei);
+		File f = getFile (imei);
+		if ( f.exists () && ! f.delete () )
+		{
+			Utils.handleException (new IOException (f.getPath ()),
+				"CatalogCache.invalidate");	// NOI18N
+		}
+	}
+
+	/**
+	 * Checks the firmware version of the phone and drops its lists
+	 * if it has changed.
+	 * @return TRUE if the stored version has changed.
+	 */
+	private static boolean checkFirmware (Device d, String firmware)
+	{
+		if ( firmware == null || firmware.equals (d.firmware) )
+		{
+			return false;
+		}
+		if ( d.firmware != null )
+		{
+			// new firmware - the objects may be numbered differently
+			d.entries.clear ();
+		}
+		d.firmware = firmware;
+		return true;
+	}
+
+	private Device getDevice (String imei)
+	{
+		Device d = devices.get (imei);
+		if ( d == null )
+		{
+			d = read (getFile (imei));
+			devices.put (imei, d);
+		}
+		return d;
+	}
+
+	private File getFile (String imei)
+	{
+		return new File (dir, imei.replaceAll ("[^a-zA-Z0-9_-]", "_")	// NOI18N
+			+ CATALOG_EXT);
+	}
+
+	/**
+	 * Reads the catalog from the given file.
+	 * @param f The file to read.
+	 * @return the catalog, empty if the file can't be read.
+	 */
+	private static Device read (File f)
+	{
+		Device d = new Device ();
+		if ( ! f.exists () )
+		{
+			return d;
+		}
+		DataInputStream in = null;
+		try
+		{
+			in = new DataInputStream (new BufferedInputStream (
+				new FileInputStream (f)));
+			if ( in.readInt () != MAGIC || in.readInt () != VERSION )
+			{
+				return d;
+			}
+			String fw = readString (in);
+			int types = in.readInt ();
+			Map<String, Entry> entries = new LinkedHashMap<String, Entry> (types);
+			for ( int i = 0; i < types; i++ )
+			{
+				String ofWhat = in.readUTF ();
+				long time = in.readLong ();
+				int count = in.readInt ();
+				Vector<PhoneElement> elems = new Vector<PhoneElement> (count);
+				for ( int j = 0; j < count; j++ )
+				{
+					elems.add (new PhoneElement (readString (in),
+						readString (in), readString (in),
+						in.readLong ()));
+				}
+				entries.put (ofWhat, new Entry (elems, time));
+			}
+			d.firmware = fw;
+			d.entries.putAll (entries);
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "CatalogCache.read: " + f);	// NOI18N
+		}
+		finally
+		{
+			close (in);
+		}
+		return d;
+	}
+
+	/**
+	 * Writes the catalog of the given phone. A new file is written and
+	 * then put in place of the old one, so a failed write doesn't
+	 * destroy the old catalog.
+	 */
+	private void write (String imei, Device d)
+	{
+		File f = getFile (imei);
+		File tmp = new File (dir, f.getName () + TMP_EXT);
+		DataOutputStream out = null;
+		try
+		{
+			if ( ! dir.isDirectory () && ! dir.mkdirs () )
+			{
+				throw new IOException ("CatalogCache.write: mkdirs: " + dir);	// NOI18N
+			}
+			out = new DataOutputStream (new BufferedOutputStream (
+				new FileOutputStream (tmp)));
+			out.writeInt (MAGIC);
+			out.writeInt (VERSION);
+			writeString (out, d.firmware);
+			out.writeInt (d.entries.size ());
+			for ( Map.Entry<String, Entry> e : d.entries.entrySet ())
+			{
+				List<PhoneElement> elems = e.getValue ().elements;
+				out.writeUTF (e.getKey ());
+				out.writeLong (e.getValue ().fetchTime);
+				out.writeInt (elems.size ());
+				for ( int i = 0; i < elems.size (); i++ )
+				{
+					PhoneElement el = elems.get (i);
+					writeString (out, el.getID ());
+					writeString (out, el.getFormat ());
+					writeString (out, el.getName ());
+					out.writeLong (el.getLength ());
+				}
+			}
+			out.close ();
+			out = null;
+			if ( f.exists () && ! f.delete () )
+			{
+				throw new IOException ("CatalogCache.write: delete: " + f);	// NOI18N
+			}
+			if ( ! tmp.renameTo (f) )
+			{
+				throw new IOException ("CatalogCache.write: rename: " + tmp);	// NOI18N
+			}
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "CatalogCache.write: " + f);	// NOI18N
+		}
+		finally
+		{
+			close (out);
+		}
+	}
+
+	private Properties getPorts ()
+	{
+		if ( ports == null )
+		{
+			ports = new Properties ();
+			File f = new File (dir, PORTS_FILE);
+			if ( f.exists () )
+			{
+				InputStream in = null;
+				try
+				{
+					in = new FileInputStream (f);
+					ports.load (in);
+				}
+				catch (Exception ex)
+				{
+					Utils.handleException (ex, "CatalogCache.getPorts");	// NOI18N
+				}
+				finally
+				{
+					close (in);
+				}
+			}
+		}
+		return ports;
+	}
+
+	private void writePorts (Properties p)
+	{
+		OutputStream out = null;
+		try
+		{
+			if ( ! dir.isDirectory () && ! dir.mkdirs () )
+			{
+				throw new IOException ("CatalogCache.writePorts: mkdirs: " + dir);	// NOI18N
+			}
+			out = new FileOutputStream (new File (dir, PORTS_FILE));
+			p.store (out, null);
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "CatalogCache.writePorts");	// NOI18N
+		}
+		finally
+		{
+			close (out);
+		}
+	}
+
+	private static void writeString (DataOutputStream out, String s)
+		throws IOException
+	{
+		out.writeBoolean (s != null);
+		if ( s != null )
+		{
+			out.writeUTF (s);
+		}
+	}
+
+	private static String readString (DataInputStream in) throws IOException
+	{
+		if ( in.readBoolean () )
+		{
+			return in.readUTF ();
+		}
+		return null;
+	}
+
+	private static void close (Closeable c)
+	{
+		if ( c == null )
+		{
+			return;
+		}
+		try
+		{
+			c.close ();
+		}
+		catch (IOException ex)
+		{
+			Utils.handleException (ex, "CatalogCache.close");	// NOI18N
+		}
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "CatalogCache[" + dir + "]";	// NOI18N
+	}
+}
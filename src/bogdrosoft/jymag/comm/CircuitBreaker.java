@@ -0,0 +1,172 @@
+/*
+ * CircuitBreaker.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.Utils;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CircuitBreaker - stops using a port which doesn't respond. After
+ * FAILURE_THRESHOLD failed operations in a row, the breaker opens and
+ * all the operations on the port fail at once, without waiting for the
+ * device. After OPEN_TIME milliseconds, one operation is let through to
+ * check the device: if it succeeds, the breaker closes again, if it
+ * fails, the breaker stays open for another OPEN_TIME milliseconds.
+ * The breakers are kept per port, so they survive opening and closing
+ * the port.
+ * @author Bogdan Drozdowski
+ */
+public class CircuitBreaker
+{
+	/**
+	 * The states of a breaker.
+	 */
+	public enum State
+	{
+		/** The port is used normally. */
+		CLOSED,
+		/** The operations fail at once. */
+		OPEN,
+		/** One operation is checking the device. */
+		HALF_OPEN
+	}
+
+	/** The number of failed operations in a row which opens the breaker. */
+	static final int FAILURE_THRESHOLD = 5;
+	/** The time the breaker stays open, in milliseconds. */
+	static final long OPEN_TIME = 30000;
+
+	/** The breakers of all the ports used so far. */
+	private static final Map<String, CircuitBreaker> BREAKERS =
+		new ConcurrentHashMap<String, CircuitBreaker> (4);
+
+	private final int threshold;
+	private final long openTime;
+	private State state = State.CLOSED;
+	private int failures;
+	private long openedAt;
+
+	/**
+	 * Creates a new instance of CircuitBreaker.
+	 * @param failureThreshold The number of failed operations in a row
+	 *	which opens the breaker.
+	 * @param openMillis The time the breaker stays open, in milliseconds.
+	 */
+	CircuitBreaker (int failureThreshold, long openMillis)
+	{
+		threshold = failureThreshold;
+		openTime = openMillis;
+	}
+
+	/**
+	 * Gets the breaker for the given port, creating it if needed.
+	 * @param portName The name of the port.
+	 * @return the breaker for the given port.
+	 */
+	public static CircuitBreaker forPort (String portName)
+	{
+		String key = (portName != null)? portName : Utils.EMPTY_STR;
+		CircuitBreaker res = BREAKERS.get (key);
+		if ( res == null )
+		{
+			CircuitBreaker newBreaker = new CircuitBreaker (
+				FAILURE_THRESHOLD, OPEN_TIME);
+			res = BREAKERS.putIfAbsent (key, newBreaker);
+			if ( res == null )
+			{
+				res = newBreaker;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Tells if an operation can be started. When the open time has
+	 * passed, the first caller is let through to check the device.
+	 * If the check isn't finished within the open time, the next
+	 * caller is let through, too.
+	 * @return TRUE if an operation can be started.
+	 */
+	public synchronized boolean allowRequest ()
+	{
+		if ( state == State.CLOSED )
+		{
+			return true;
+		}
+		long now = System.currentTimeMillis ();
+		if ( now - openedAt >= openTime )
+		{
+			state = State.HALF_OPEN;
+			openedAt = now;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Records a successful operation. Closes the breaker.
+	 */
+	public synchronized void recordSuccess ()
+	{
+		failures = 0;
+		state = State.CLOSED;
+	}
+
+	/**
+	 * Records a failed operation. Opens the breaker after too many
+	 * failures in a row or when checking the device has failed.
+	 */
+	public synchronized void recordFailure ()
+	{
+		failures++;
+		if ( state == State.HALF_OPEN || failures >= threshold )
+		{
+			state = State.OPEN;
+			openedAt = System.currentTimeMillis ();
+		}
+	}
+
+	/**
+	 * Closes the breaker, for example when the user has connected
+	 * the device again.
+	 */
+	public void reset ()
+	{
+		recordSuccess ();
+	}
+
+	/**
+	 * Gets the current state of the breaker.
+	 * @return the current state of the breaker.
+	 */
+	public synchronized State getState ()
+	{
+		return state;
+	}
+
+	@Override
+	public synchronized String toString ()
+	{
+		return "CircuitBreaker[" + state + ",failures=" + failures + "]";	// NOI18N
+	}
+}
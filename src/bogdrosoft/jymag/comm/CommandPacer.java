@@ -0,0 +1,129 @@
+/*
+ * CommandPacer.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.Utils;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Paces the commands sent to a device. The pause between a reply and the
+ * next command starts at zero and grows only when the device returns
+ * empty or incomplete replies, then slowly shrinks again with each good
+ * reply. The values are kept per port, so they survive opening and
+ * closing the port.
+ * @author Bogdan Drozdowski
+ */
+class CommandPacer
+{
+	/** The pause set after the first bad reply, in milliseconds. */
+	static final long BACKOFF_START = 50;
+	/** The maximum pause between commands, in milliseconds. */
+	static final long MAX_GAP = 1000;
+
+	/** The pacers of all the ports used so far. */
+	private static final Map<String, CommandPacer> PACERS =
+		new ConcurrentHashMap<String, CommandPacer> (4);
+
+	/** The current pause between commands, in milliseconds. */
+	private long gap;
+	/** The time the last reply was received. */
+	private long lastReply;
+
+	/**
+	 * Creates a new instance of CommandPacer.
+	 */
+	CommandPacer ()
+	{
+		// nothing to do
+	}
+
+	/**
+	 * Gets the pacer for the given port, creating it if needed.
+	 * @param portName The name of the port.
+	 * @return the pacer for the given port.
+	 */
+	static CommandPacer forPort (String portName)
+	{
+		String key = (portName != null)? portName : Utils.EMPTY_STR;
+		CommandPacer res = PACERS.get (key);
+		if ( res == null )
+		{
+			CommandPacer newPacer = new CommandPacer ();
+			res = PACERS.putIfAbsent (key, newPacer);
+			if ( res == null )
+			{
+				res = newPacer;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Waits until the current pause since the last reply has passed.
+	 */
+	void beforeCommand ()
+	{
+		long toWait;
+		synchronized (this)
+		{
+			toWait = lastReply + gap - System.currentTimeMillis ();
+		}
+		if ( toWait > 0 )
+		{
+			Utils.sleepIgnoreException (toWait);
+		}
+	}
+
+	/**
+	 * Records a good reply to a command. Shrinks the pause between commands.
+	 */
+	synchronized void replyReceived ()
+	{
+		gap -= (gap + 7) / 8;
+		lastReply = System.currentTimeMillis ();
+	}
+
+	/**
+	 * Records an empty, incomplete or garbled reply to a command.
+	 * Makes the pause between commands longer.
+	 */
+	synchronized void replyFailed ()
+	{
+		gap = Math.min (Math.max (gap * 2, BACKOFF_START), MAX_GAP);
+		lastReply = System.currentTimeMillis ();
+	}
+
+	/**
+	 * Gets the current pause between commands.
+	 * @return the current pause between commands, in milliseconds.
+	 */
+	synchronized long getGap ()
+	{
+		return gap;
+	}
+
+	@Override
+	public synchronized String toString ()
+	{
+		return "CommandPacer[gap=" + gap + "]";	// NOI18N
+	}
+}
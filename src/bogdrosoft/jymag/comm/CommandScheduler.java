@@ -0,0 +1,294 @@
+/*
+ * CommandScheduler.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.Utils;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CommandScheduler - gives the threads access to a port one at a time,
+ * by priority. When the port is freed, it is handed to the waiting thread
+ * with the highest priority; threads with equal priorities get the port in
+ * the order they asked for it. The priority of a waiting thread is raised
+ * by one class for each AGING_TIME milliseconds it has waited, so that
+ * the background polls are not starved. Long operations can give the port
+ * away between their stages with giveWay(). The access is reentrant.
+ * @author Bogdan Drozdowski
+ */
+public class CommandScheduler
+{
+	/**
+	 * The priority classes of the port users, the most urgent first.
+	 */
+	public enum Priority
+	{
+		/** Commands the user waits for: dialing, hanging up, volume. */
+		INTERACTIVE,
+		/** Data transfers: lists, files, messages, alarms. */
+		TRANSFER,
+		/** Periodic polls: signal power, control lines. */
+		BACKGROUND
+	}
+
+	/** The waiting time which raises the priority by one class, in milliseconds. */
+	static final long AGING_TIME = 1000;
+
+	/** The schedulers of all the ports used so far. */
+	private static final Map<String, CommandScheduler> SCHEDULERS =
+		new ConcurrentHashMap<String, CommandScheduler> (4);
+
+	/** The threads waiting for the port, guarded by this object. */
+	private final Vector<Waiter> waiters = new Vector<Waiter> (4);
+	private Thread owner;
+	private Priority ownerPriority;
+	private int holds;
+	private long nextTicket;
+
+	/**
+	 * A thread waiting for the port.
+	 */
+	private static class Waiter
+	{
+		private final Thread thread;
+		private final Priority priority;
+		private final long since;
+		private final long ticket;
+		private final int holds;
+
+		private Waiter (Thread t, Priority p, long waitStart,
+			long order, int holdCount)
+		{
+			thread = t;
+			priority = p;
+			since = waitStart;
+			ticket = order;
+			holds = holdCount;
+		}
+
+		private long getRank (long now)
+		{
+			return priority.ordinal () - (now - since) / AGING_TIME;
+		}
+	}
+
+	/**
+	 * Creates a new instance of CommandScheduler.
+	 */
+	CommandScheduler ()
+	{
+		// nothing to do
+	}
+
+	/**
+	 * Gets the scheduler for the given port, creating it if needed.
+	 * @param portName The name of the port.
+	 * @return the scheduler for the given port.
+	 */
+	public static CommandScheduler forPort (String portName)
+	{
+		String key = (portName != null)? portName : Utils.EMPTY_STR;
+		CommandScheduler res = SCHEDULERS.get (key);
+		if ( res == null )
+		{
+			CommandScheduler newScheduler = new CommandScheduler ();
+			res = SCHEDULERS.putIfAbsent (key, newScheduler);
+			if ( res == null )
+			{
+				res = newScheduler;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Waits until the current thread gets the port. Each call must be
+	 * matched with a call to release(), preferably in a "finally" block.
+	 * Interrupting the waiting thread doesn't stop the waiting, but the
+	 * thread's interrupted status is kept.
+	 * @param p The priority of the current thread's commands.
+	 */
+	public synchronized void acquire (Priority p)
+	{
+		Thread me = Thread.currentThread ();
+		if ( owner == me )
+		{
+			holds++;
+			return;
+		}
+		Priority prio = (p != null)? p : Priority.TRANSFER;
+		if ( owner == null && waiters.isEmpty () )
+		{
+			owner = me;
+			ownerPriority = prio;
+			holds = 1;
+			return;
+		}
+		waitForTurn (new Waiter (me, prio, System.currentTimeMillis (),
+			nextTicket++, 1));
+	}
+
+	/**
+	 * Frees the port held by the current thread, if acquire() was
+	 * called as many times as release().
+	 */
+	public synchronized void release ()
+	{
+		if ( owner != Thread.currentThread () )
+		{
+			throw new IllegalMonitorStateException ("CommandScheduler.release");	// NOI18N
+		}
+		holds--;
+		if ( holds > 0 )
+		{
+			return;
+		}
+		owner = null;
+		ownerPriority = null;
+		grantNext ();
+	}
+
+	/**
+	 * Lets the waiting threads with the same or higher (also raised by
+	 * waiting) priority use the port, then gets it back. Should be called
+	 * by long operations between their stages, when the port is in
+	 * a clean state.
+	 * @return TRUE if the port was given away for a while.
+	 */
+	public synchronized boolean giveWay ()
+	{
+		Thread me = Thread.currentThread ();
+		if ( owner != me || waiters.isEmpty () )
+		{
+			return false;
+		}
+		long now = System.currentTimeMillis ();
+		if ( getBest (now).getRank (now) > ownerPriority.ordinal () )
+		{
+			return false;
+		}
+		Waiter w = new Waiter (me, ownerPriority, now, nextTicket++, holds);
+		owner = null;
+		ownerPriority = null;
+		holds = 0;
+		grantNext ();
+		waitForTurn (w);
+		return true;
+	}
+
+	/**
+	 * Tells if the current thread holds the port.
+	 * @return TRUE if the current thread holds the port.
+	 */
+	public synchronized boolean isHeldByCurrentThread ()
+	{
+		return owner == Thread.currentThread ();
+	}
+
+	/**
+	 * Gets the number of threads waiting for the port.
+	 * @return the number of threads waiting for the port.
+	 */
+	public synchronized int getWaitingCount ()
+	{
+		return waiters.size ();
+	}
+
+	/**
+	 * Queues the given waiter and waits until the port is handed to it.
+	 * Must be called with this object's lock held.
+	 * @param w The waiter for the current thread.
+	 */
+	private void waitForTurn (Waiter w)
+	{
+		waiters.add (w);
+		if ( owner == null )
+		{
+			grantNext ();
+		}
+		boolean interrupted = false;
+		while ( owner != w.thread )
+		{
+			try
+			{
+				wait ();
+			}
+			catch (InterruptedException ex)
+			{
+				interrupted = true;
+			}
+		}
+		if ( interrupted )
+		{
+			w.thread.interrupt ();
+		}
+	}
+
+	/**
+	 * Hands the free port to the best waiting thread, if any.
+	 * Must be called with this object's lock held.
+	 */
+	private void grantNext ()
+	{
+		if ( waiters.isEmpty () )
+		{
+			return;
+		}
+		Waiter next = getBest (System.currentTimeMillis ());
+		waiters.remove (next);
+		owner = next.thread;
+		ownerPriority = next.priority;
+		holds = next.holds;
+		notifyAll ();
+	}
+
+	/**
+	 * Finds the waiting thread which should get the port next.
+	 * Must be called with this object's lock held.
+	 * @param now The current time.
+	 * @return the waiting thread which should get the port next.
+	 */
+	private Waiter getBest (long now)
+	{
+		Waiter best = null;
+		long bestRank = 0;
+		for ( int i = 0; i < waiters.size (); i++ )
+		{
+			Waiter w = waiters.get (i);
+			long rank = w.getRank (now);
+			if ( best == null || rank < bestRank
+				|| (rank == bestRank && w.ticket < best.ticket) )
+			{
+				best = w;
+				bestRank = rank;
+			}
+		}
+		return best;
+	}
+
+	@Override
+	public synchronized String toString ()
+	{
+		return "CommandScheduler[owner=" + owner + ",waiting="	// NOI18N
+			+ waiters.size () + "]";	// NOI18N
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * ControlLineMonitor.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.Utils;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ControlLineMonitor - keeps the last known state of the control lines of
+ * a port and tells the listeners about the changes. The state is updated
+ * by the port's events, so reading it doesn't touch the port.
+ * @author Bogdan Drozdowski
+ */
+public class ControlLineMonitor
+{
+	/**
+	 * The control lines and the line errors.
+	 */
+	public enum Line
+	{
+		/** Clear To Send. */
+		CTS,
+		/** Data Set Ready. */
+		DSR,
+		/** Carrier Detect. */
+		CD,
+		/** Ring Indicator. */
+		RI,
+		/** Request To Send, set by this side. */
+		RTS,
+		/** Data Terminal Ready, set by this side. */
+		DTR,
+		/** Overrun error - reported each time it occurs. */
+		OE,
+		/** Parity error - reported each time it occurs. */
+		PE,
+		/** Framing error - reported each time it occurs. */
+		FE,
+		/** Break interrupt - reported each time it occurs. */
+		BI;
+
+		/**
+		 * Tells if this is an error, reported each time it occurs,
+		 * instead of a line with a state.
+		 * @return TRUE for the errors.
+		 */
+		public boolean isError ()
+		{
+			return ordinal () >= OE.ordinal ();
+		}
+	}
+
+	/**
+	 * A receiver of the control line changes. The methods are called on
+	 * the thread delivering the port's events, so they should return
+	 * quickly and must not send anything to the port.
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called when a line changes its state or an error occurs.
+		 * @param line The line which has changed.
+		 * @param state The new state of the line, always TRUE for
+		 *	the errors.
+		 */
+		void lineChanged (Line line, boolean state);
+
+		/**
+		 * Called when new data has been received from the port.
+		 */
+		void dataAvailable ();
+	}
+
+	private static final Line[] LINES = Line.values ();
+
+	private final boolean[] states = new boolean[LINES.length];
+	private final long[] errorCounts = new long[LINES.length];
+	private final CopyOnWriteArrayList<Listener> listeners =
+		new CopyOnWriteArrayList<Listener> ();
+
+	/**
+	 * Creates a new instance of ControlLineMonitor.
+	 */
+	ControlLineMonitor ()
+	{
+		// nothing to do
+	}
+
+	/**
+	 * Registers the given listener.
+	 * @param l The listener to add.
+	 */
+	public void addListener (Listener l)
+	{
+		if ( l != null )
+		{
+			listeners.addIfAbsent (l);
+		}
+	}
+
+	/**
+	 * Unregisters the given listener.
+	 * @param l The listener to remove.
+	 */
+	public void removeListener (Listener l)
+	{
+		listeners.remove (l);
+	}
+
+	/**
+	 * Gets the last known state of the given line.
+	 * @param line The line to check.
+	 * @return TRUE if the line is on. Always FALSE for the errors.
+	 */
+	public synchronized boolean isSet (Line line)
+	{
+		if ( line == null || line.isError () )
+		{
+			return false;
+		}
+		return states[line.ordinal ()];
+	}
+
+	/**
+	 * Gets the number of times the given error has occurred.
+	 * @param line The error to check.
+	 * @return the number of times the given error has occurred,
+	 *	0 for the lines which aren't errors.
+	 */
+	public synchronized long getErrorCount (Line line)
+	{
+		if ( line == null )
+		{
+			return 0;
+		}
+		return errorCounts[line.ordinal ()];
+	}
+
+	/**
+	 * Records the new state of the given line and tells the listeners
+	 * if it has changed. The errors are always reported.
+	 * @param line The line which may have changed.
+	 * @param state The new state of the line.
+	 */
+	void update (Line line, boolean state)
+	{
+		if ( line == null )
+		{
+			return;
+		}
+		synchronized (this)
+		{
+			int idx = line.ordinal ();
+			if ( line.isError () )
+			{
+				errorCounts[idx]++;
+				state = true;
+			}
+			else if ( states[idx] == state )
+			{
+				return;
+			}
+			else
+			{
+				states[idx] = state;
+			}
+		}
+		for ( Listener l : listeners )
+		{
+			try
+			{
+				l.lineChanged (line, state);
+			}
+			catch (Exception ex)
+			{
+				Utils.handleException (ex, "ControlLineMonitor.update: " + line);	// NOI18N
+			}
+		}
+	}
+
+	/**
+	 * Tells the listeners that new data has been received.
+	 */
+	void dataReceived ()
+	{
+		for ( Listener l : listeners )
+		{
+			try
+			{
+				l.dataAvailable ();
+			}
+			catch (Exception ex)
+			{
+				Utils.handleException (ex, "ControlLineMonitor.dataReceived");	// NOI18N
+			}
+		}
+	}
+
+	@Override
+	public synchronized String toString ()
+	{
+		StringBuilder sb = new StringBuilder ("ControlLineMonitor[");	// NOI18N
+		for ( int i = 0; i < LINES.length; i++ )
+		{
+			if ( ! LINES[i].isError () && states[i] )
+			{
+				sb.append (LINES[i]).append (' ');
+			}
+		}
+		sb.append (']');
+		return sb.toString ();
+	}
+}
@@ -20,6 +20,7 @@
 
 package bogdrosoft.jymag.comm;
 
+import bogdrosoft.jymag.FileFormat;
 import bogdrosoft.jymag.PhoneAlarm;
 import bogdrosoft.jymag.PhoneElement;
 import bogdrosoft.jymag.PhoneMessage;
@@ -36,9 +37,18 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -50,8 +60,16 @@ public class DataTransporter
 {
 	/** Maximum number of attempts to establish communication. */
 	public static final int MAX_TRIALS = 3;
-	/** DT_TIMEOUT betwenn up/download stages, in milliseconds. */
-	private static final int DT_TIMEOUT = 250;
+	/** The maximum time to wait for new data in recv(), in milliseconds. */
+	private static final long RECV_TIMEOUT = 5*1000L;
+	/** The initial size of the receive buffer, in bytes. */
+	private static final int RECV_BUFFER_SIZE = 16*1024;
+	/** The number of bytes examined to detect the type of a received file. */
+	private static final int SNIFF_WINDOW_SIZE = 4096;
+	/** The maximum size of the reply preceding a received file. */
+	private static final int MAX_HEADER_SIZE = 4096;
+	/** The size of the chunks of data sent when uploading a file. */
+	static final int SEND_BUFFER_SIZE = 10240;
 
 	/** The firmware version Pattern. */
 	private static final Pattern VERSION_PATTERN
@@ -92,7 +110,6 @@ public class DataTransporter
 	private static final String CHARSET_CMD = "AT+CSCS=\"8859-1\"\r";		// NOI18N
 	private static final String LIST_CMD_START = "AT+KPSL=\"";			// NOI18N
 	private static final String LIST_CMD_END = "\",1\r";				// NOI18N
-	private static final String NEWLINE_REGEX = "[\\r\\n]{1,2}";			// NOI18N
 	private static final String DEL_CMD_START = "AT+KPSD=\"";			// NOI18N
 	private static final String PORT_OPEN_PROG_NAME = "JYMAG";			// NOI18N
 	private static final String AT_CMD = "AT\r";					// NOI18N
@@ -115,13 +132,13 @@ public class DataTransporter
 	private static final String ALARM_LIST_CMD = "AT+CALA?\r";			// NOI18N
 	private static final String MSG_DEL_CMD = "AT+CMGD=";				// NOI18N
 	private static final String MSG_LIST_CMD = "AT+CMGL\r";				// NOI18N
-	private static final String LAST_OK_REGEX = "OK[\r\n]*$";			// NOI18N
-	private static final String MSG_LIST_REPLY_REGEX = "\\+CMG[LR]\\s*:\\s*";	// NOI18N
 	private static final String MSG_GET_CMD = "AT+CMGR=";				// NOI18N
 	private static final String MSG_SEND_CMD = "AT+CMGS=";				// NOI18N
 	private static final String SIGNAL_POWER_CMD = "AT+CSQ\r";			// NOI18N
 	private static final String MSG_TEXT_MODE_CMD = "AT+CMGF=1\r";			// NOI18N
 	private static final String MSG_STORAGE_CMD = "AT+CPMS=";			// NOI18N
+	private static final String MSG_NOTIFY_ON_CMD = "AT+CNMI=2,1,0,0,0\r";		// NOI18N
+	private static final String MSG_NOTIFY_OFF_CMD = "AT+CNMI=0,0,0,0,0\r";	// NOI18N
 	private static final String MSG_PROMPT = ">";					// NOI18N
 	private static final String DIAL_CMD_AUTO = "ATD";				// NOI18N
 	private static final String DIAL_CMD_TONE = "ATDT";				// NOI18N
@@ -131,179 +148,6 @@ public class DataTransporter
 	private static final String CURRENT_VOLUME_CMD = "AT+CLVL?\r";			// NOI18N
 	private static final String SET_VOLUME_CMD = "AT+CLVL=";			// NOI18N
 
-	// file headers:
-	// JPG/EXIF/MJPG
-	private static final byte[] JPG = new byte[] {
-		(byte) 0xff, (byte) 0xd8/*, (byte) 0xff*/
-		};
-	// MTh
-	private static final byte[] MID = new byte[] {
-		(byte) 0x4d, (byte) 0x54, (byte) 0x68
-		};
-	// AMR and AMR-WB (AWB) #!AMR = 23 21 41 4D  52
-	private static final byte[] AMR = new byte[] {
-		(byte) 0x23, (byte) 0x21, (byte) 0x41, (byte) 0x4D,
-		(byte) 0x52
-		};
-	// BM  = 42 4D
-	private static final byte[] BMP = new byte[] {
-		(byte) 0x42, (byte) 0x4D
-		};
-	// GIF = 47 49 46
-	private static final byte[] GIF = new byte[] {
-		(byte) 0x47, (byte) 0x49, (byte) 0x46
-		};
-	// PNG
-	private static final byte[] PNG = new byte[] {
-		(byte) 0x89, (byte) 0x50, (byte) 0x4E, (byte) 0x47
-		};
-	// WAV = RIFF = 52 49 46 46
-	private static final byte[] WAV = new byte[] {
-		(byte) 0x52, (byte) 0x49, (byte) 0x46, (byte) 0x46
-		};
-	//// "BEGIN:VCALENDAR"
-	private static final byte[] VCAL = new byte[] {
-		(byte) 0x42, (byte) 0x45, (byte) 0x47, (byte) 0x49,
-		(byte) 0x4E, (byte) 0x3A, (byte) 0x56, (byte) 0x43,
-		(byte) 0x41, (byte) 0x4C, (byte) 0x45, (byte) 0x4E,
-		(byte) 0x44, (byte) 0x41, (byte) 0x52
-		};
-	//// "BEGIN:vCard"
-	private static final byte[] VCRD = new byte[] {
-		(byte) 0x42, (byte) 0x45, (byte) 0x47, (byte) 0x49,
-		(byte) 0x4E, (byte) 0x3A, (byte) 0x76, (byte) 0x43,
-		(byte) 0x61, (byte) 0x72, (byte) 0x64
-		};
-	// WBMP: 0, 0
-	//private final byte[] WBMP = new byte[] { (byte) 0x00, (byte) 0x00 };
-	// the 2-bytes-zero header dosen't work well. Instead, let's look for '$'
-	// and skip 3 bytes after it.
-	private static final byte[] WBMP = new byte[] { (byte) 0x24 };
-
-	// MNG: 8A 4D 4E 47
-	private static final byte[] MNG = new byte[] {
-		(byte) 0x8A, (byte) 0x4D, (byte) 0x4E, (byte) 0x47
-		};
-
-	// AIFF: "FORM" or "AIFF"
-	private static final byte[] AIFF1 = new byte[] {
-		(byte) 0x46, (byte) 0x4F, (byte) 0x52, (byte) 0x4D
-		};
-	private static final byte[] AIFF2 = new byte[] {
-		(byte) 0x41, (byte) 0x49, (byte) 0x46, (byte) 0x46
-		};
-
-	// IMY (IMELODY): "BEGIN:IMELODY"
-	private static final byte[] IMY = new byte[] {
-		(byte) 0x42, (byte) 0x45, (byte) 0x47, (byte) 0x49,
-		(byte) 0x4E, (byte) 0x3A, (byte) 0x49, (byte) 0x4D,
-		(byte) 0x45, (byte) 0x4C, (byte) 0x4F, (byte) 0x44,
-		(byte) 0x59
-		};
-
-	// AAC: "\0 \0 \0 . ftyp"
-	private static final byte[] MPEG = new byte[] {
-		//(byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x14,
-		(byte) 0x66, (byte) 0x74, (byte) 0x79, (byte) 0x70
-		};
-
-	// GZIP:
-	private static final byte[] GZIP = new byte[] {
-		(byte) 0x1f, (byte) 0x8b
-		};
-
-	// ZIP:
-	private static final byte[] ZIP = new byte[] {
-		(byte) 0x50, (byte) 0x4b
-		};
-
-	// MPEG-audio:
-	private static final byte[] MPA1 = new byte[] {
-		(byte) 0xFF, (byte) 0xFA
-		};
-	private static final byte[] MPA2 = new byte[] {
-		(byte) 0xFF, (byte) 0xFB
-		};
-	private static final byte[] MPA3 = new byte[] {
-		(byte) 0xFF, (byte) 0xFC
-		};
-
-	// WMV1/2:
-	private static final byte[] WMV = new byte[] {
-		(byte) 0x30, (byte) 0x26, (byte) 0xB2, (byte) 0x75
-		/* after these four, there are: 8E 66 CF 11  A6 D9 00 AA  00 62 CE 6C */
-		};
-
-	// XML: "<?xml"
-	private static final byte[] XML = new byte[] {
-		(byte) 0x3C, (byte) 0x3F, (byte) 0x78, (byte) 0x6D, (byte) 0x6C
-		};
-
-	// DOCTYPE:
-	private static final byte[] DOCTYPE = new byte[] {
-		(byte) 0x3C, (byte) 0x21, (byte) 0x44, (byte) 0x4F,
-		(byte) 0x43, (byte) 0x54, (byte) 0x59, (byte) 0x50,
-		(byte) 0x45
-		};
-
-	// SVG:
-	private static final byte[] SVG = new byte[] {
-		(byte) 0x3C, (byte) 0x73, (byte) 0x76, (byte) 0x67
-		};
-
-	// WMF
-	private static final byte[] WMF = new byte[] {
-		(byte) 0xD7, (byte) 0xCD, (byte) 0xC6, (byte) 0x9A,
-		(byte) 0x00, (byte) 0x00
-		};
-
-	// PS/EPS: %!PS
-	private static final byte[] PS = new byte[] {
-		(byte) 0x25, (byte) 0x21, (byte) 0x50, (byte) 0x53
-		};
-
-	// TIFF: "II"
-	private static final byte[] TIFF = new byte[] {
-		(byte) 0x49, (byte) 0x49
-		};
-
-	// midlets: "MIDlet"
-	private static final byte[] MIDLET = new byte[] {
-		(byte) 0x4D, (byte) 0x49, (byte) 0x44, (byte) 0x6C,
-		(byte) 0x65, (byte) 0x74
-		};
-
-	// text CGM: "BEGMF"
-	private static final byte[] CGMtext = new byte[] {
-		(byte) 0x42, (byte) 0x45, (byte) 0x47, (byte) 0x4D, (byte) 0x46
-		};
-
-	// binary CGM: & 0xFFE0 = "0x0020" big-endian
-	private static final byte[] CGMbin01 = new byte[] {
-		(byte) 0x00, (byte) 0x29
-		};
-
-	private static final byte[] CGMbin02 = new byte[] {
-		(byte) 0x00, (byte) 0x28
-		};
-
-	// character CGM: =="0x3020" big-endian
-	private static final byte[] CGMchar = new byte[] {
-		(byte) 0x30, (byte) 0x20
-		};
-
-	// PMB: "[BitmapInfo2]"
-	private static final byte[] PMB = new byte[] {
-		(byte) 0x5B, (byte) 0x42, (byte) 0x69, (byte) 0x74,
-		(byte) 0x6D, (byte) 0x61, (byte) 0x70, (byte) 0x49,
-		(byte) 0x6E, (byte) 0x66, (byte) 0x6F, (byte) 0x32,
-		(byte) 0x5D
-		};
-
-	// 3GP has a header of 3 zeros, so let's catch it with "generic type" - WBMP
-	// DIB is a bitmap with no header, so let's catch it with "generic type" - WBMP
-
-
 	// "CONNECT\r\n"
 	private static final byte[] START = new byte[] {
 		(byte) 0x43, (byte) 0x4F, (byte) 0x4E, (byte) 0x4E,
@@ -311,6 +155,12 @@ public class DataTransporter
 		(byte) 0x0A
 		};
 
+	// "ERROR"
+	private static final byte[] ERROR_BYTES = new byte[] {
+		(byte) 0x45, (byte) 0x52, (byte) 0x52, (byte) 0x4F,
+		(byte) 0x52
+		};
+
 	// "\r\nNO CARRIER"
 	private static final byte[] FINISH = new byte[] {
 		(byte) 0x0D, (byte) 0x0A,
@@ -319,7 +169,102 @@ public class DataTransporter
 		(byte) 0x45, (byte) 0x52
 		};
 
+	// "OK"
+	private static final byte[] OK_BYTES = new byte[] {
+		(byte) 0x4F, (byte) 0x4B
+		};
+
+	/** The beginning of each line of an object list. */
+	private static final byte[] LIST_REPLY = "+KPSL:".getBytes ();		// NOI18N
+	/** The beginnings of the first lines of the messages. */
+	private static final byte[][] MSG_REPLIES = new byte[][] {
+		"+CMGL:".getBytes (), "+CMGR:".getBytes ()			// NOI18N
+		};
+
+	/**
+	 * The signatures (file headers) of all the known file formats,
+	 * in the order of checking, followed by the end marker.
+	 */
+	private static final BytePatternMatcher SIGNATURES;
+	/** The file format of each signature, null for the end marker. */
+	private static final FileFormat[] SIGNATURE_FORMATS;
+	/** The index of the end marker in SIGNATURES. */
+	private static final int SIGNATURES_FINISH;
+	/** The markers looked for in the reply header: START, ERROR and FINISH. */
+	private static final BytePatternMatcher HEADER_MARKERS =
+		new BytePatternMatcher (START, ERROR_BYTES, FINISH);
+	private static final int HEADER_START = 0;
+	private static final BytePatternMatcher FINISH_MARKER =
+		new BytePatternMatcher (FINISH);
+
+	/**
+	 * The terminators of every reply, see getTerminatorMatcher(). OK and
+	 * ERROR end a reply only as whole lines, so that the same words
+	 * inside an SMS or a phonebook entry don't cut the reply short.
+	 */
+	private static final String[] DEFAULT_TERMINATOR_STRINGS = new String[] {
+		Utils.CR + OK_STRING + Utils.CR, Utils.CR + OK_STRING + Utils.LF,
+		Utils.LF + OK_STRING + Utils.CR, Utils.LF + OK_STRING + Utils.LF,
+		Utils.CR + ERROR_STRING + Utils.CR, Utils.CR + ERROR_STRING + Utils.LF,
+		Utils.LF + ERROR_STRING + Utils.CR, Utils.LF + ERROR_STRING + Utils.LF,
+		NOCAR_STRING
+		};
+	/** The matcher for DEFAULT_TERMINATOR_STRINGS. */
+	private static final BytePatternMatcher DEFAULT_TERMINATORS;
+	/** The maximum number of sets of extra terminators to remember. */
+	private static final int MAX_CACHED_TERMINATORS = 16;
+	/** The matchers for the sets of extra terminators used so far. */
+	private static final Map<List<String>, BytePatternMatcher> TERMINATORS_CACHE =
+		new ConcurrentHashMap<List<String>, BytePatternMatcher> (MAX_CACHED_TERMINATORS);
+
+	static
+	{
+		Vector<byte[]> sigs = new Vector<byte[]> (40);
+		Vector<FileFormat> formats = new Vector<FileFormat> (40);
+		FileFormat[] values = FileFormat.values ();
+		for ( int i = 0; i < values.length; i++ )
+		{
+			for ( int j = 0; j < values[i].getSignatureCount (); j++ )
+			{
+				sigs.add (values[i].getSignature (j));
+				formats.add (values[i]);
+			}
+		}
+		SIGNATURES_FINISH = sigs.size ();
+		sigs.add (FINISH);
+		formats.add (null);
+		SIGNATURES = new BytePatternMatcher (sigs.toArray (new byte[sigs.size ()][]));
+		SIGNATURE_FORMATS = formats.toArray (new FileFormat[formats.size ()]);
+
+		byte[][] terms = new byte[DEFAULT_TERMINATOR_STRINGS.length][];
+		for ( int i = 0; i < terms.length; i++ )
+		{
+			terms[i] = DEFAULT_TERMINATOR_STRINGS[i].getBytes ();
+		}
+		DEFAULT_TERMINATORS = new BytePatternMatcher (terms);
+	}
+
 	private final SPL spl = new SPL ();
+	/** The pacer of the commands sent to the port, shared per port. */
+	private final CommandPacer pacer;
+	/** Makes the operations fail at once when the device doesn't respond. */
+	private final CircuitBreaker breaker;
+	/** Tells how to retry the failed operations. */
+	private volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+	/** TRUE if the last reply received by recv() had a terminator. */
+	private volatile boolean lastReplyComplete;
+	/** The maximum time to wait for new data, in milliseconds. */
+	private volatile long recvTimeout = RECV_TIMEOUT;
+	/** Cuts the unsolicited result codes out of the received data. */
+	private final UrcFilter urcFilter;
+	/** TRUE if data was sent and the reply hasn't been received yet. */
+	private volatile boolean replyPending;
+	/** TRUE if the character set has been set since the port was opened. */
+	private volatile boolean charsetSet;
+	/** The IMEI of the phone, read once after opening the port. */
+	private volatile String sessionIMEI;
+	/** The last known state of the control lines. */
+	private final ControlLineMonitor controlLines = new ControlLineMonitor ();
 
 	//private final CommPortIdentifier portID;
 	private final Object portID;
@@ -327,6 +272,12 @@ public class DataTransporter
 	private InputStream inputStream;
 	private final Object inputStreamLock = new Object ();
 	private OutputStream outputStream;
+	/** The data received from the port and not yet consumed by recv(). */
+	private final ByteRingBuffer recvBuffer = new ByteRingBuffer (RECV_BUFFER_SIZE);
+	/** The buffer for reading the port, guarded by inputStreamLock. */
+	private final byte[] pumpBuffer = new byte[4096];
+	/** The buffer for the uploaded data, reused between the chunks. */
+	private final ByteBuffer sendBuffer = ByteBuffer.allocate (SEND_BUFFER_SIZE);
 
 	/**
 	 * Creates a new instance of DataTransporter.
@@ -336,6 +287,9 @@ public class DataTransporter
 	public DataTransporter (Object /*CommPortIdentifier*/ id)
 	{
 		portID = id;
+		pacer = CommandPacer.forPort (getPortName ());
+		breaker = CircuitBreaker.forPort (getPortName ());
+		urcFilter = new UrcFilter (UrcDispatcher.forPort (getPortName ()));
 	}
 
 	/**
@@ -367,10 +321,16 @@ public class DataTransporter
 					+ portName);
 			}
 		}
+		// an idle pooled session would keep the port busy
+		SessionPool.closeIdle (portName, this);
 		reopenRealOrFake();
+		charsetSet = false;
+		sessionIMEI = null;
 		synchronized (inputStreamLock)
 		{
 			inputStream  = s.getInputStream ();
+			recvBuffer.clear ();
+			urcFilter.reset ();
 		}
 		outputStream = s.getOutputStream ();
 
@@ -442,190 +402,261 @@ public class DataTransporter
 
 		s.addEventListener (spl);
 		s.notifyOnDataAvailable (true);
+		watchControlLines ();
+	}
+
+	/**
+	 * Asks the port for the control line events and reads
+	 * the current state of the lines.
+	 */
+	private void watchControlLines ()
+	{
+		s.notifyOnCTS (true);
+		s.notifyOnDSR (true);
+		s.notifyOnCarrierDetect (true);
+		s.notifyOnRingIndicator (true);
+		s.notifyOnOverrunError (true);
+		s.notifyOnParityError (true);
+		s.notifyOnFramingError (true);
+		s.notifyOnBreakInterrupt (true);
+		controlLines.update (ControlLineMonitor.Line.CTS, s.isCTS ());
+		controlLines.update (ControlLineMonitor.Line.DSR, s.isDSR ());
+		controlLines.update (ControlLineMonitor.Line.CD, s.isCD ());
+		controlLines.update (ControlLineMonitor.Line.RI, s.isRI ());
+		controlLines.update (ControlLineMonitor.Line.RTS, s.isRTS ());
+		controlLines.update (ControlLineMonitor.Line.DTR, s.isDTR ());
+	}
+
+	/**
+	 * Gets the last known state of this port's control lines, which
+	 * can be checked without touching the port. The listeners
+	 * registered there are told about the changes of the lines and
+	 * about the new data received.
+	 * @return the monitor of this port's control lines.
+	 */
+	public ControlLineMonitor getControlLines ()
+	{
+		return controlLines;
+	}
+
+	/**
+	 * Sets the policy of retrying the failed operations on this port.
+	 * @param policy The new policy, null for the default one.
+	 */
+	public void setRetryPolicy (RetryPolicy policy)
+	{
+		retryPolicy = (policy != null)? policy : RetryPolicy.DEFAULT;
+	}
+
+	/**
+	 * Gets the policy of retrying the failed operations on this port.
+	 * @return the policy of retrying the failed operations.
+	 */
+	public RetryPolicy getRetryPolicy ()
+	{
+		return retryPolicy;
+	}
+
+	/**
+	 * Gets the circuit breaker of this port, shared by all the
+	 * DataTransporters using the port.
+	 * @return the circuit breaker of this port.
+	 */
+	public CircuitBreaker getCircuitBreaker ()
+	{
+		return breaker;
+	}
+
+	/**
+	 * Records the result of an operation in the port's circuit breaker.
+	 * Failures on a closed port are not the device's fault, so they
+	 * are not counted.
+	 * @param success TRUE if the operation succeeded.
+	 */
+	private void recordResult (boolean success)
+	{
+		if ( success )
+		{
+			breaker.recordSuccess ();
+			return;
+		}
+		synchronized (inputStreamLock)
+		{
+			if ( inputStream == null )
+			{
+				return;
+			}
+		}
+		breaker.recordFailure ();
+	}
+
+	/**
+	 * Gets the scheduler which gives the threads access to this port.
+	 * All the commands sent from more than one thread should be sent
+	 * while holding the scheduler.
+	 * @return the scheduler of this port.
+	 */
+	public CommandScheduler getScheduler ()
+	{
+		return CommandScheduler.forPort (getPortName ());
+	}
+
+	/**
+	 * Sets the maximum time to wait for new data when receiving.
+	 * @param millis The new timeout, in milliseconds. 0 or less
+	 *	restores the default of 5 seconds.
+	 */
+	void setRecvTimeout (long millis)
+	{
+		recvTimeout = (millis > 0)? millis : RECV_TIMEOUT;
 	}
 
 	/**
-	 * Receives data from the port (waits at most 5 seconds).
+	 * Receives data from the port (waits at most 5 seconds by default).
 	 * @param extraTerminators Any extra elements that are a mark of transmission end.
 	 * @return The received bytes.
 	 */
 	public byte[] recv (Object[] extraTerminators)
 	{
-		byte[] res = new byte[0];
 		synchronized (inputStreamLock)
 		{
 			if ( inputStream == null )
 			{
-				return res;
+				return new byte[0];
 			}
 		}
-		int avail;
+		lastReplyComplete = false;
+		BytePatternMatcher terminators = getTerminatorMatcher (extraTerminators);
+		// a reply starts at the beginning of a line
+		int state = terminators.next (BytePatternMatcher.START_STATE, (byte) '\n');
+		// the number of buffered bytes already checked for terminators
+		int examined = 0;
 		while (true)
 		{
 			try
 			{
-				synchronized (inputStreamLock)
-				{
-					avail = inputStream.available ();
-				}
-				if ( avail == 0 )
+				// drain the port in case a DATA_AVAILABLE event got lost
+				if ( recvBuffer.available () <= examined
+					&& drainPort () == 0
+					&& ! recvBuffer.awaitMoreThan (examined, recvTimeout) )
 				{
-					synchronized (inputStreamLock)
-					{
-						//synchronized (inputStream)
-						{
-							inputStreamLock.wait (5*1000L);//inputStream.wait (5*1000);
-						}
-					}
-					synchronized (inputStreamLock)
-					{
-						if ( inputStream == null )
-						{
-							return res;
-						}
-						avail = inputStream.available ();
-					}
-					if ( avail > 0 )
-					{
-						byte[] readBuffer = new byte[avail];
-						int wasRead;
-						synchronized (inputStreamLock)
-						{
-							if ( inputStream == null )
-							{
-								return res;
-							}
-							wasRead = inputStream.read (readBuffer);
-						}
-						if ( wasRead < 0 )
-						{
-							break;
-						}
-						// don't force any encodings, because the file data may
-						// be invalid in any given encoding
-						String curr = new String (readBuffer, 0, wasRead);
-						res = Utils.joinArrays (res, Arrays.copyOf (readBuffer, wasRead));
-						if ( isTerminatorPresent ( curr.trim (), extraTerminators ) )
-						{
-							break;
-						}
-					}
-					else
-					{
-						return res;
-					}
+					break;
 				}
-				else if ( avail > 0 )
+			}
+			catch (InterruptedException intex)
+			{
+				// being interrupted not necessarily means that data is available, so check
+				drainPort ();
+				if ( recvBuffer.available () <= examined )
 				{
-					byte[] readBuffer = new byte[avail];
-					int wasRead;
-					synchronized (inputStreamLock)
-					{
-						if ( inputStream == null )
-						{
-							return res;
-						}
-						wasRead = inputStream.read (readBuffer);
-					}
-					if ( wasRead < 0 )
-					{
-						break;
-					}
-					// don't force any encodings, because the file data may
-					// be invalid in any given encoding
-					String curr = new String (readBuffer, 0, wasRead);
-					res = Utils.joinArrays (res, Arrays.copyOf (readBuffer, wasRead));
-					if ( isTerminatorPresent ( curr.trim (), extraTerminators ) )
-					{
-						break;
-					}
+					continue;
 				}
 			}
-			catch (InterruptedException intex)
+			int avail = recvBuffer.available ();
+			if ( avail <= examined )
 			{
-				try
+				// the buffer was cleared by close()
+				break;
+			}
+			// only the new bytes are checked, the state of the
+			// matcher is kept between the chunks
+			state = recvBuffer.scan (examined, avail, terminators, state);
+			examined = avail;
+			if ( state < 0 )
+			{
+				lastReplyComplete = true;
+				break;
+			}
+		}
+		replyPending = false;
+		return recvBuffer.read (examined);
+	}
+
+	/**
+	 * Moves all the bytes currently available in the port's input stream
+	 * to the receive buffer.
+	 * @return the number of bytes moved.
+	 */
+	private int drainPort ()
+	{
+		int total = 0;
+		synchronized (inputStreamLock)
+		{
+			if ( inputStream == null )
+			{
+				return 0;
+			}
+			try
+			{
+				int avail = inputStream.available ();
+				while ( avail > 0 )
 				{
-					// being interrupted not necessarily means that data is available, so check
-					synchronized (inputStreamLock)
-					{
-						if ( inputStream == null )
-						{
-							return res;
-						}
-						avail = inputStream.available ();
-					}
-					if ( avail > 0 )
+					int wasRead = inputStream.read (pumpBuffer, 0,
+						Math.min (avail, pumpBuffer.length));
+					if ( wasRead <= 0 )
 					{
-						byte[] readBuffer = new byte[avail];
-						int wasRead;
-						synchronized (inputStreamLock)
-						{
-							if ( inputStream == null )
-							{
-								return res;
-							}
-							wasRead = inputStream.read (readBuffer);
-						}
-						if ( wasRead < 0 )
-						{
-							break;
-						}
-						// don't force any encodings, because the file data may
-						// be invalid in any given encoding
-						String curr = new String (readBuffer, 0, wasRead);
-						res = Utils.joinArrays (res, Arrays.copyOf (readBuffer, wasRead));
-						if ( isTerminatorPresent ( curr.trim (), extraTerminators ) )
-						{
-							break;
-						}
+						break;
 					}
-				}
-				catch (IOException ex)
-				{
-					// ignore
+					urcFilter.write (pumpBuffer, 0, wasRead,
+						recvBuffer, replyPending);
+					total += wasRead;
+					avail = inputStream.available ();
 				}
 			}
 			catch (IOException ex)
 			{
-				Utils.handleException (ex, "DataTransporter.recv");	// NOI18N
-				break;
+				Utils.handleException (ex, "DataTransporter.drainPort");	// NOI18N
 			}
 		}
-		return res;
+		return total;
 	}
 
 	/**
-	 * Checks if the given String contains anything from the array (converted to Strings).
-	 * @param haystack The String to look in.
-	 * @param needles The elements to search for.
-	 * @return true, if contains.
+	 * Gets the matcher for the terminators of a reply: OK or ERROR as
+	 * a whole line, NO CARRIER anywhere, and the given
+	 * extra elements (converted to Strings) anywhere.
+	 * @param extraTerminators Any extra elements that are a mark of
+	 *	transmission end, can be null.
+	 * @return the matcher for the terminators.
 	 */
-	private boolean isTerminatorPresent (String haystack, Object[] needles)
+	private static BytePatternMatcher getTerminatorMatcher (Object[] extraTerminators)
 	{
-		if ( haystack == null )
+		if ( extraTerminators == null || extraTerminators.length == 0 )
 		{
-			return false;
+			return DEFAULT_TERMINATORS;
+		}
+		String[] extras = new String[extraTerminators.length];
+		for ( int i = 0; i < extras.length; i++ )
+		{
+			extras[i] = String.valueOf (extraTerminators[i]);
 		}
-		String haystackTrimmed = haystack.trim ();
-		if ( haystackTrimmed.startsWith (OK_STRING)
-			|| haystackTrimmed.endsWith (OK_STRING)
-			|| haystackTrimmed.startsWith (ERROR_STRING)
-			|| haystackTrimmed.endsWith (ERROR_STRING)
-			|| haystack.contains (NOCAR_STRING) )
+		List<String> key = Arrays.asList (extras);
+		BytePatternMatcher res = TERMINATORS_CACHE.get (key);
+		if ( res != null )
 		{
-			return true;
+			return res;
+		}
+		Vector<byte[]> patterns = new Vector<byte[]> (DEFAULT_TERMINATOR_STRINGS.length
+			+ extras.length);
+		for ( int i = 0; i < DEFAULT_TERMINATOR_STRINGS.length; i++ )
+		{
+			patterns.add (DEFAULT_TERMINATOR_STRINGS[i].getBytes ());
 		}
-		if ( needles != null )
+		for ( int i = 0; i < extras.length; i++ )
 		{
-			for ( int i=0; i < needles.length; i++ )
+			// don't force any encodings, the same as when the reply was
+			// converted to a String
+			if ( ! extras[i].isEmpty () )
 			{
-				if ( haystack.contains (needles[i].toString ()))
-				{
-					return true;
-				}
+				patterns.add (extras[i].getBytes ());
 			}
 		}
-		return false;
+		res = new BytePatternMatcher (patterns.toArray (new byte[patterns.size ()][]));
+		if ( TERMINATORS_CACHE.size () < MAX_CACHED_TERMINATORS )
+		{
+			TERMINATORS_CACHE.put (key, res);
+		}
+		return res;
 	}
 
 	/**
@@ -663,13 +694,16 @@ public class DataTransporter
 				return;
 			}
 
+			replyPending = true;
 			outputStream.write (b, start, length);
 			outputStream.flush ();
 		}
 	}
 
 	/**
-	 * Closes the port.
+	 * Closes the port. The settings sent to the phone since opening the
+	 * port are forgotten, because the phone may be reset or replaced
+	 * before the port is opened again.
 	 */
 	public void close ()
 	{
@@ -681,7 +715,11 @@ public class DataTransporter
 				inputStream = null;
 				outputStream = null;
 			}
+			recvBuffer.clear ();
+			urcFilter.reset ();
 		}
+		charsetSet = false;
+		sessionIMEI = null;
 	}
 
 	/**
@@ -702,9 +740,8 @@ public class DataTransporter
 		{
 			return -8;
 		}
-		if ( ! Utils.getFiletypeIDs ().containsKey (fName.substring
-			(fName.lastIndexOf (Utils.DOT)+1)
-			.toLowerCase (Locale.ENGLISH)))
+		String type = fName.substring (fName.lastIndexOf (Utils.DOT)+1);
+		if ( ! Utils.getFiletypeIDs ().containsKey (type.toLowerCase (Locale.ENGLISH)) )
 		{
 			return -9;
 		}
@@ -714,247 +751,360 @@ public class DataTransporter
 				fName.indexOf (Utils.DOT));
 		}
 
-		String rcvd;
-		byte[] recvdB;
-		// number of attempts.
-		int trials = 0;
 		FileInputStream fis = null;
-		MAIN: while (trials <= MAX_TRIALS)
+		try
 		{
-			// stage variable, useful when an exception is caught.
-			int stage = 0;
-			try
+			fis = new FileInputStream (f);
+			FileChannel fc = fis.getChannel ();
+			return putFileData (fc, fc.size (), type, newName);
+		}
+		catch ( IOException ex )
+		{
+			Utils.handleException (ex, "DataTransporter.putFile:"	// NOI18N
+				+ f.getName () + ", newName=" + newName);	// NOI18N
+			return -7;
+		}
+		finally
+		{
+			if (fis != null)
 			{
-				// reset file upload
-				send (TRANSFER_RESET_BYTES.getBytes (DEFAULT_ENCODING));
-				recvdB = recv (null);
-				rcvd = new String (recvdB, DEFAULT_ENCODING);
-
-				if ( rcvd.isEmpty ()
-					|| (! rcvd.contains (OK_STRING)
-					&& ! rcvd.contains (ERROR_STRING)) )
+				try
 				{
-					reopen ();
-					trials++;
-					continue;
+					fis.close();
 				}
-			}
-			catch ( IOException e )
-			{
-				Utils.handleException (e, "DataTransporter.putFile: init:"	// NOI18N
-					+ f.getName () + ", newName=" + newName);	// NOI18N
-				reopen ();
-				trials++;
-				continue;
-			}
-			try
-			{
-				//initiate transfer
-				rcvd = tryCommand (TRANSFER_INIT_CMD, null);
-				if ( ! rcvd.contains (OK_STRING) )
+				catch (IOException t2)
 				{
-					reopen ();
-					trials++;
-					if ( trials > MAX_TRIALS )
-					{
-						return -1;
-					}
-					continue;
+					Utils.handleException(t2,
+						"DataTransporter.putFile->close->exception");
 				}
+			}
+		}
+	}
 
-				stage++;
-
-				// send filename length (the last parameter)
-				rcvd = tryCommand (TRANSFER_FILE_LEN_CMD + newName.length () + Utils.CR,
-					new String[] { CONN_STRING });
-				if ( rcvd.contains (ERROR_STRING) || ! rcvd.contains (CONN_STRING) )
-				{
-					reopen ();
-					trials++;
-					if ( trials > MAX_TRIALS )
-					{
-						return -2;
-					}
-					continue;
-				}
+	/**
+	 * The stages of uploading an object to the phone, in order.
+	 */
+	private enum UploadStage
+	{
+		/** Resetting the upload state of the phone. */
+		RESET (-10, true),
+		/** Starting the upload. */
+		INIT (-1, true),
+		/** Announcing the length of the name. */
+		NAME_LENGTH (-2, true),
+		/** Sending the name. */
+		NAME (-3, false),
+		/** Announcing the type and length of the data. */
+		TYPE_LENGTH (-4, true),
+		/** Sending the data. */
+		DATA (-5, false),
+		/** Finishing the upload. */
+		END (-6, true),
+		/** The upload is complete. */
+		DONE (0, false);
+
+		/** The value returned when this stage can't be completed. */
+		private final int errorCode;
+		/**
+		 * TRUE if the phone accepts other commands before this stage,
+		 * FALSE if it is waiting for the name or the data.
+		 */
+		private final boolean canGiveWay;
 
-				stage++;
+		private UploadStage (int err, boolean giveWay)
+		{
+			errorCode = err;
+			canGiveWay = giveWay;
+		}
 
-				// send the filename
-				rcvd = tryCommand (newName + Utils.CR, null);
-				if ( ! rcvd.contains (OK_STRING) )
-				{
-					reopen ();
-					trials++;
-					if ( trials > MAX_TRIALS )
-					{
-						return -3;
-					}
-					continue;
-				}
+		/**
+		 * Gets the stage following this one.
+		 * @return the stage following this one.
+		 */
+		UploadStage next ()
+		{
+			return values ()[ordinal () + 1];
+		}
+	}
 
-				stage++;
-
-				// send file type (4th param) and length (5th parameter)
-				rcvd = tryCommand (TRANSFER_FILE_TYPE_CMD
-						+ Utils.getFiletypeIDs ().get
-							(f.getName ().substring
-								(f.getName ().lastIndexOf (Utils.DOT)+1)
-								.toLowerCase (Locale.ENGLISH)
-							)
-						+ Utils.COMMA + f.length () + Utils.CR,
-						new String[] { CONN_STRING });
-				if ( rcvd.contains (ERROR_STRING) || ! rcvd.contains (CONN_STRING) )
-				{
-					reopen ();
-					trials++;
-					if ( trials > MAX_TRIALS )
-					{
-						return -4;
-					}
-					continue;
-				}
+	/**
+	 * Sends the data from the specified channel to the phone. The data
+	 * is read straight into one reusable buffer, which is written to
+	 * the port. The upload goes through the stages of UploadStage and
+	 * only the stage which has failed is retried, not the whole upload.
+	 * A failed data transfer leaves the phone in an unknown state, so
+	 * the upload starts over and the data is re-read from the starting
+	 * position, if the channel is seekable. Between the stages, when the
+	 * phone isn't waiting for the name or the data, the more urgent
+	 * commands can use the port (see CommandScheduler.giveWay()).
+	 * @param src The channel to read the data from.
+	 * @param length The number of bytes that will be read from the channel.
+	 * @param type The type (file extension) of the data, like "jpg".
+	 * @param newName Name of the object to be sent to the phone.
+	 * @return 0 in case of success, -12 if the data has to be sent again,
+	 *	but the channel isn't seekable, -13 if the phone hasn't been
+	 *	responding recently.
+	 */
+	public int putFileData (ReadableByteChannel src, long length,
+		String type, String newName)
+	{
+		if ( src == null || type == null || newName == null )
+		{
+			return -11;
+		}
+		Integer typeID = Utils.getFiletypeIDs ().get
+			(type.toLowerCase (Locale.ENGLISH));
+		if ( typeID == null )
+		{
+			return -9;
+		}
+		if ( ! breaker.allowRequest () )
+		{
+			// the device doesn't respond
+			return -13;
+		}
+		long startPos = -1;
+		try
+		{
+			if ( src instanceof SeekableByteChannel )
+			{
+				startPos = ((SeekableByteChannel) src).position ();
+			}
+		}
+		catch ( IOException ex )
+		{
+			Utils.handleException (ex, "DataTransporter.putFileData:position"	// NOI18N
+				+ ", newName=" + newName);	// NOI18N
+		}
 
-				Utils.sleepIgnoreException(DT_TIMEOUT);
-				// send file data here:
-				fis = new FileInputStream (f);
-				byte[] contents = new byte[10240];
-				int read;
-				stage++;
-				do
+		String rcvd;
+		UploadStage stage = UploadStage.RESET;
+		RetryPolicy policy = retryPolicy;
+		long start = System.currentTimeMillis ();
+		// number of failed attempts, all stages together.
+		int trials = 0;
+		boolean dataRead = false;
+		CommandScheduler scheduler = getScheduler ();
+		while ( stage != UploadStage.DONE )
+		{
+			if ( stage.canGiveWay )
+			{
+				scheduler.giveWay ();
+			}
+			// the stage to go back to if this one fails
+			UploadStage retryFrom = stage;
+			boolean ok;
+			try
+			{
+				switch (stage)
 				{
-					read = fis.read (contents);
-					if ( read < 0 )
-					{
+					case RESET:
+						// reset file upload
+						send (TRANSFER_RESET_BYTES.getBytes (DEFAULT_ENCODING));
+						rcvd = new String (recv (null), DEFAULT_ENCODING);
+						ok = ! rcvd.isEmpty ()
+							&& (rcvd.contains (OK_STRING)
+							|| rcvd.contains (ERROR_STRING));
 						break;
-					}
-					send (Arrays.copyOf (contents, read));
-
-				} while (read == contents.length);
-				fis.close ();
-				do
-				{
-					recvdB = recv (null);
-					rcvd = new String (recvdB, DEFAULT_ENCODING);
-
-					if ( rcvd.trim ().isEmpty () )
-					{
-						reopen ();
-						trials++;
-						if ( trials > MAX_TRIALS )
+					case INIT:
+						//initiate transfer
+						rcvd = tryCommand (TRANSFER_INIT_CMD, null);
+						ok = rcvd.contains (OK_STRING);
+						break;
+					case NAME_LENGTH:
+						// send filename length (the last parameter)
+						rcvd = tryCommand (TRANSFER_FILE_LEN_CMD
+							+ newName.length () + Utils.CR,
+							new String[] { CONN_STRING });
+						ok = ! rcvd.contains (ERROR_STRING)
+							&& rcvd.contains (CONN_STRING);
+						break;
+					case NAME:
+						// the phone expects the name only after its length
+						retryFrom = UploadStage.NAME_LENGTH;
+						// send the filename
+						rcvd = tryCommand (newName + Utils.CR, null);
+						ok = rcvd.contains (OK_STRING);
+						break;
+					case TYPE_LENGTH:
+						// send file type (4th param) and length (5th parameter)
+						rcvd = tryCommand (TRANSFER_FILE_TYPE_CMD
+								+ typeID
+								+ Utils.COMMA + length + Utils.CR,
+								new String[] { CONN_STRING });
+						ok = ! rcvd.contains (ERROR_STRING)
+							&& rcvd.contains (CONN_STRING);
+						break;
+					case DATA:
+						pacer.beforeCommand ();
+						if ( dataRead )
 						{
-							break;
+							if ( startPos < 0 )
+							{
+								// the data can't be read again
+								recordResult (false);
+								return -12;
+							}
+							((SeekableByteChannel) src).position (startPos);
 						}
-						continue MAIN;
-					}
-				} while (rcvd.trim ().isEmpty () && trials <= MAX_TRIALS);
-				if ( trials > MAX_TRIALS )
-				{
-					return -5;
-				}
-				if ( ! rcvd.contains (OK_STRING) )
-				{
-					reopen ();
-					trials++;
-					if ( trials > MAX_TRIALS )
-					{
-						return -5;
-					}
-					continue;
-				}
-
-				stage++;
-
-				// close file upload
-				rcvd = tryCommand (TRANSFER_FILE_END_CMD, null);
-				if ( ! rcvd.contains (OK_STRING) )
-				{
-					reopen ();
-					trials++;
-					if ( trials > MAX_TRIALS )
-					{
-						return -6;
-					}
-					continue;
+						dataRead = true;
+						// the phone isn't in the data mode anymore
+						retryFrom = UploadStage.RESET;
+						ok = sendData (src);
+						if ( ok )
+						{
+							rcvd = new String (recv (null), DEFAULT_ENCODING);
+							ok = rcvd.contains (OK_STRING)
+								&& ! rcvd.contains (ERROR_STRING);
+						}
+						if ( ok )
+						{
+							pacer.replyReceived ();
+						}
+						else
+						{
+							pacer.replyFailed ();
+						}
+						break;
+					case END:
+						// close file upload
+						rcvd = tryCommand (TRANSFER_FILE_END_CMD, null);
+						ok = rcvd.contains (OK_STRING);
+						break;
+					default:
+						ok = true;
+						break;
 				}
-				return 0;
 			}
 			catch ( IOException ex )
 			{
-				/*
-				if ( stage > 0 )
-				{
-					try
-					{
-						// close file upload
-						send (transferFileEndCmd.getBytes ());
-						recv (null);
-					}
-					catch ( Exception e ) {}
-				}*/
-				Utils.handleException (ex, "DataTransporter.putFile:end"	// NOI18N
-					+ f.getName () + ", newName=" + newName);	// NOI18N
+				Utils.handleException (ex, "DataTransporter.putFileData:" + stage	// NOI18N
+					+ ", newName=" + newName);	// NOI18N
 				reopen ();
 				trials++;
-				if ( trials > MAX_TRIALS )
+				if ( ! policy.canRetry (trials, start) )
 				{
+					recordResult (false);
 					return -7;
 				}
-			}
-			finally
-			{
-				if (fis != null)
+				policy.backOff (trials);
+				if ( stage == UploadStage.DATA )
 				{
-					try
-					{
-						fis.close();
-					}
-					catch (IOException t2)
-					{
-						Utils.handleException(t2,
-							"DataTransporter.putFile->close->exception");
-					}
+					// the state of the phone is unknown
+					stage = UploadStage.RESET;
 				}
+				continue;
+			}
+			if ( ok )
+			{
+				stage = stage.next ();
+				continue;
+			}
+			reopen ();
+			trials++;
+			if ( ! policy.canRetry (trials, start) )
+			{
+				recordResult (false);
+				return stage.errorCode;
 			}
-		} // MAIN while // MAIN while // MAIN while // MAIN while
-		return -10;	// number of trials exceeded
+			policy.backOff (trials);
+			stage = retryFrom;
+		}
+		recordResult (true);
+		return 0;
 	}
 
 	/**
-	 * Finds needle in haystack.
-	 * @param haystack The array to search through.
-	 * @param needle The array to search for.
-	 * @return The position from which needle starts in haystack or -1 if not found.
+	 * Sends all the data from the given channel to the port. The data
+	 * is read into one reused buffer and written to the port without
+	 * copying, then the port is flushed once, at the end. Before writing
+	 * each next part, the replies to the previous parts are checked and
+	 * the sending stops if the phone has rejected the data.
+	 * @param src The channel to read the data from.
+	 * @return FALSE if the phone has replied with an error before all
+	 *	the data has been sent.
+	 * @throws java.io.IOException in case of an I/O problem with the
+	 *	channel or the port.
 	 */
-	private int findBytes (byte[] haystack, byte[] needle)
+	private boolean sendData (ReadableByteChannel src)
+		throws IOException
 	{
-		if ( haystack != null )
+		boolean sent = false;
+		byte[] data = sendBuffer.array ();
+		while (true)
 		{
-			if ( needle == null )
+			sendBuffer.clear ();
+			int read = src.read (sendBuffer);
+			if ( read < 0 )
 			{
-				return 0;
+				break;
 			}
-			if ( needle.length > haystack.length )
+			if ( read == 0 )
 			{
-				return -1;
+				continue;
+			}
+			if ( sent && isPartRejected () )
+			{
+				return false;
 			}
-			HAY: for ( int i=0; i < haystack.length - needle.length; i++ )
+			synchronized (inputStreamLock)
 			{
-				for ( int j=0; j < needle.length; j++ )
+				if ( outputStream == null )
 				{
-					if ( haystack[i+j] != needle[j] )
-					{
-						continue HAY;
-					}
+					throw new IllegalStateException("outputStream == null");
 				}
-				return i;
+				outputStream.write (data, 0, sendBuffer.position ());
 			}
+			sent = true;
+		}
+		synchronized (inputStreamLock)
+		{
+			if ( outputStream == null )
+			{
+				throw new IllegalStateException("outputStream == null");
+			}
+			outputStream.flush ();
+		}
+		return true;
+	}
+
+	/**
+	 * Checks, without waiting, if the phone has rejected the data sent
+	 * so far. A complete reply is removed from the receive buffer. The
+	 * acknowledgements of the parts of the data are skipped - they don't
+	 * tell how much of the data the phone has accepted.
+	 * @return TRUE if a complete reply with an ERROR has been received.
+	 */
+	private boolean isPartRejected ()
+	{
+		drainPort ();
+		int avail = recvBuffer.available ();
+		if ( avail == 0 )
+		{
+			return false;
+		}
+		int state = DEFAULT_TERMINATORS.next (BytePatternMatcher.START_STATE,
+			(byte) '\n');
+		if ( recvBuffer.scan (0, avail, DEFAULT_TERMINATORS, state) >= 0 )
+		{
+			// no complete reply yet
+			return false;
+		}
+		try
+		{
+			return new String (recvBuffer.read (avail), DEFAULT_ENCODING)
+				.contains (ERROR_STRING);
+		}
+		catch (UnsupportedEncodingException ex)
+		{
+			return false;
 		}
-		return -1;
 	}
 
 	/**
-	 * Gets the specified object and saves it to a file.
+	 * Gets the specified object and saves it to a file. The data is
+	 * written as it arrives. A partially-written file is deleted in
+	 * case of an error.
 	 * @param f The file for the object.
 	 * @param el The element to retrieve.
 	 * @return 0 in case of success.
@@ -965,15 +1115,81 @@ public class DataTransporter
 		{
 			return -3;
 		}
+		int ret;
 		FileOutputStream fos = null;
 		try
 		{
-			String rcvd;
-			byte[] recvdB;
+			fos = new FileOutputStream (f);
+			ret = getFileData (fos.getChannel (), el);
+		}
+		catch ( IOException ex )
+		{
+			Utils.handleException (ex, "DataTransporter.getFile:"	// NOI18N
+				+ f.getName () + ", id="	// NOI18N
+				+ el.getID ());
+			ret = -1;
+		}
+		finally
+		{
+			try
+			{
+				if ( fos != null )
+				{
+					fos.close ();
+				}
+			}
+			catch (IOException exc)
+			{
+				Utils.handleException (exc,
+					"DataTransporter.getFile:fos.close");
+			}
+		}
+		if ( ret != 0 && ! f.delete () )
+		{
+			Utils.handleException (new IOException (f.getName ()),
+				"DataTransporter.getFile:f.delete");	// NOI18N
+		}
+		return ret;
+	}
+
+	/**
+	 * Gets the specified object and writes it to the given channel
+	 * as the data arrives. Only a small, fixed amount of data is kept in
+	 * memory, no matter how big the object is. The more urgent commands
+	 * can use the port before each attempt, but not while the object's
+	 * data is being received.
+	 * @param out The channel to write the object's contents to.
+	 * @param el The element to retrieve.
+	 * @return 0 in case of success.
+	 */
+	public int getFileData (WritableByteChannel out, PhoneElement el)
+	{
+		if ( out == null || el == null )
+		{
+			return -3;
+		}
+		if ( ! breaker.allowRequest () )
+		{
+			return -2;
+		}
+		// the binary data could look like an unsolicited result code
+		setUrcFiltering (false);
+		try
+		{
+			int ret;
+			RetryPolicy policy = retryPolicy;
+			long start = System.currentTimeMillis ();
 			int trials = 0;
+			CommandScheduler scheduler = getScheduler ();
 			do
 			{
-				Utils.sleepIgnoreException(DT_TIMEOUT);
+				// the object's data can't be interrupted, but the
+				// more urgent commands can run before each attempt
+				setUrcFiltering (true);
+				scheduler.giveWay ();
+				setUrcFiltering (false);
+				policy.backOff (trials);
+				pacer.beforeCommand ();
 				// send file retrieve command
 				send ((FILE_RETR_CMD_START + el.getID () + DQUOT_CR).getBytes (DEFAULT_ENCODING));
 				/*
@@ -984,263 +1200,324 @@ public class DataTransporter
 				 * <binary data>
 				 * \r\nNO CARRIER
 				 */
-				// receive file data
-				recvdB = recv (null);
-				// don't force any encodings, because the file data may
-				// be invalid in any given encoding
-				rcvd = new String (recvdB);
-
-				if ( rcvd.trim ().isEmpty () || recvdB.length == 0 )
+				ret = receiveFile (out);
+				if ( ret == 0 )
 				{
-					reopen ();
-					trials++;
+					pacer.replyReceived ();
 				}
-			} while ( (rcvd.trim ().isEmpty () || recvdB.length == 0)
-				&& trials < MAX_TRIALS);
-			if ( rcvd.trim ().isEmpty () || recvdB.length == 0
-				|| ! rcvd.contains (NOCAR_STRING) )
-			{
-				return -2;
-			}
-
-			// check file type
-			fos = new FileOutputStream (f);
-			if ( findBytes (recvdB, JPG) >= 0 )
-			{
-				// check if single or double match
-				int pos = findBytes (recvdB, JPG);
-				int pos2 = findBytes (Arrays.copyOfRange (recvdB, pos+1, recvdB.length),
-					JPG);
-				if ( pos2 >= 0 && ((recvdB[pos+1+pos2+2] & 0xff) == 0xff ||
-					recvdB[pos+1+pos2+2] == -1) )
+				else
 				{
-					fos.write (recvdB, pos+1+pos2,
-						findBytes (recvdB, FINISH) - pos2-pos-1 );
+					pacer.replyFailed ();
 				}
-				else
+				if ( ret > 0 )
 				{
-					fos.write (recvdB, pos, findBytes (recvdB, FINISH) - pos );
+					reopen ();
+					trials++;
 				}
-			}
-			else if ( findBytes (recvdB, MID) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, MID),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, MID) );
-			}
-			else if ( findBytes (recvdB, AMR) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, AMR),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, AMR) );
-			}
-			else if ( findBytes (recvdB, WAV) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, WAV),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, WAV) );
-			}
-			else if ( findBytes (recvdB, GIF) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, GIF),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, GIF) );
-			}
-			else if ( findBytes (recvdB, PNG) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, PNG),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, PNG) );
-			}
-			else if ( findBytes (recvdB, VCAL) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, VCAL),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, VCAL) );
-			}
-			else if ( findBytes (recvdB, VCRD) >= 0 )
+			} while ( ret > 0 && policy.canRetry (trials, start) );
+			// only a complete object shows that the device works
+			recordResult (ret == 0);
+			if ( ret != 0 )
 			{
-				fos.write (recvdB, findBytes (recvdB, VCRD),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, VCRD) );
-			}
-			else if ( findBytes (recvdB, MNG) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, MNG),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, MNG) );
-			}
-			else if ( findBytes (recvdB, AIFF1) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, AIFF1),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, AIFF1) );
-			}
-			else if ( findBytes (recvdB, AIFF2) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, AIFF2),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, AIFF2) );
-			}
-			else if ( findBytes (recvdB, IMY) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, IMY),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, IMY) );
-			}
-			else if ( findBytes (recvdB, MPEG) >= 0 )
-			{
-				// start with 4 bytes before "ftyp"
-				fos.write (recvdB, findBytes (recvdB, MPEG) -4,
-					findBytes (recvdB, FINISH) - (findBytes (recvdB, MPEG)-4) );
-			}
-			else if ( findBytes (recvdB, GZIP) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, GZIP),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, GZIP) );
-			}
-			else if ( findBytes (recvdB, ZIP) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, ZIP),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, ZIP) );
-			}
-			else if ( findBytes (recvdB, MPA1) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, MPA1),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, MPA1) );
-			}
-			else if ( findBytes (recvdB, MPA2) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, MPA2),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, MPA2) );
-			}
-			else if ( findBytes (recvdB, MPA3) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, MPA3),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, MPA3) );
-			}
-			else if ( findBytes (recvdB, WMV) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, WMV),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, WMV) );
-			}
-			else if ( findBytes (recvdB, XML) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, XML),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, XML) );
-			}
-			else if ( findBytes (recvdB, DOCTYPE) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, DOCTYPE),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, DOCTYPE) );
-			}
-			else if ( findBytes (recvdB, SVG) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, SVG),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, SVG) );
-			}
-			else if ( findBytes (recvdB, WMF) >= 0 )
-			{
-				fos.write (recvdB, findBytes (recvdB, WMF),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, WMF) );
+				return -2;
 			}
-			else if ( findBytes (recvdB, PS) >= 0 )
+			return 0;
+		}
+		catch ( IOException ex )
+		{
+			Utils.handleException (ex, "DataTransporter.getFile: id="	// NOI18N
+				+ el.getID ());
+			return -1;
+		}
+		finally
+		{
+			setUrcFiltering (true);
+		}
+	}
+
+	/**
+	 * Enables or disables cutting the unsolicited result codes out of
+	 * the received data.
+	 * @param enable TRUE to enable the filtering.
+	 */
+	private void setUrcFiltering (boolean enable)
+	{
+		synchronized (inputStreamLock)
+		{
+			urcFilter.setEnabled (enable);
+		}
+	}
+
+	/**
+	 * Receives the reply to a file retrieve command and writes the
+	 * object's contents to the given channel. The reply header is
+	 * skipped, then the beginning of the data is examined to find the
+	 * start of the object and the rest is copied until the end marker.
+	 * @param out The channel to write the object's contents to.
+	 * @return 0 in case of success, a positive value if nothing was
+	 *	received and a negative value if the transmission was incomplete.
+	 * @throws java.io.IOException in case of an I/O problem with the channel.
+	 */
+	private int receiveFile (WritableByteChannel out) throws IOException
+	{
+		byte[] work = new byte[Math.max (SNIFF_WINDOW_SIZE, MAX_HEADER_SIZE)];
+		ByteBuffer workBuf = ByteBuffer.wrap (work);
+
+		// skip the header, up to and including "CONNECT\r\n"
+		int dataStart = -1;
+		boolean failed = false;
+		int state = BytePatternMatcher.START_STATE;
+		int n = 0;
+		while (true)
+		{
+			int scanned = n;
+			n += recvBuffer.peek (n, work, n, MAX_HEADER_SIZE - n);
+			for ( ; scanned < n && dataStart < 0; scanned++ )
 			{
-				fos.write (recvdB, findBytes (recvdB, PS),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, PS) );
+				state = HEADER_MARKERS.next (state, work[scanned]);
+				int[] m = HEADER_MARKERS.getMatches (state);
+				for ( int i = 0; i < m.length; i++ )
+				{
+					if ( m[i] == HEADER_START )
+					{
+						dataStart = scanned + 1;
+					}
+					else
+					{
+						failed = true;
+					}
+				}
 			}
-			else if ( findBytes (recvdB, TIFF) >= 0 )
+			if ( dataStart >= 0 )
 			{
-				fos.write (recvdB, findBytes (recvdB, TIFF),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, TIFF) );
+				break;
 			}
-			else if ( findBytes (recvdB, MIDLET) >= 0 )
+			if ( failed )
 			{
-				fos.write (recvdB, findBytes (recvdB, MIDLET),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, MIDLET) );
+				// no object will be sent
+				recvBuffer.skip (n);
+				return -1;
 			}
-			else if ( findBytes (recvdB, CGMtext) >= 0 )
+			if ( n >= MAX_HEADER_SIZE )
 			{
-				fos.write (recvdB, findBytes (recvdB, CGMtext),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, CGMtext) );
+				// garbage, not a reply to the command
+				recvBuffer.skip (n);
+				return -1;
 			}
-			else if ( findBytes (recvdB, CGMchar) >= 0 )
+			if ( ! waitForData (n) )
 			{
-				fos.write (recvdB, findBytes (recvdB, CGMchar),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, CGMchar) );
+				recvBuffer.skip (n);
+				return (n == 0)? 1 : -1;
 			}
-			else if ( findBytes (recvdB, CGMbin01) >= 0 )
+		}
+		recvBuffer.skip (dataStart);
+
+		// collect the beginning of the data to check the file type,
+		// finding all the signatures and the end marker in one pass
+		int[] first = new int[SIGNATURES.getPatternCount ()];
+		int[] second = new int[first.length];
+		Arrays.fill (first, -1);
+		Arrays.fill (second, -1);
+		int end = -1;
+		state = BytePatternMatcher.START_STATE;
+		n = 0;
+		while (true)
+		{
+			int scanned = n;
+			n += recvBuffer.peek (n, work, n, SNIFF_WINDOW_SIZE - n);
+			for ( ; scanned < n && end < 0; scanned++ )
 			{
-				fos.write (recvdB, findBytes (recvdB, CGMbin01),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, CGMbin01) );
+				state = SIGNATURES.next (state, work[scanned]);
+				int[] m = SIGNATURES.getMatches (state);
+				for ( int i = 0; i < m.length; i++ )
+				{
+					int pos = scanned + 1 - SIGNATURES.getPatternLength (m[i]);
+					if ( m[i] == SIGNATURES_FINISH )
+					{
+						end = pos;
+					}
+					else if ( first[m[i]] < 0 )
+					{
+						first[m[i]] = pos;
+					}
+					else if ( second[m[i]] < 0 )
+					{
+						second[m[i]] = pos;
+					}
+				}
 			}
-			else if ( findBytes (recvdB, CGMbin02) >= 0 )
+			if ( end >= 0 || n >= SNIFF_WINDOW_SIZE )
 			{
-				fos.write (recvdB, findBytes (recvdB, CGMbin02),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, CGMbin02) );
+				break;
 			}
-			else if ( findBytes (recvdB, PMB) >= 0 )
+			if ( ! waitForData (n) )
 			{
-				fos.write (recvdB, findBytes (recvdB, PMB),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, PMB) );
+				recvBuffer.skip (n);
+				return -1;
 			}
-			// BMP after CGM, which can start with "BM"?
-			else if ( findBytes (recvdB, BMP) >= 0 )
+		}
+		int limit = (end >= 0)? end : n - (FINISH.length - 1);
+		int start = Math.min (getDataStart (work, (end >= 0)? end : n,
+			first, second), limit);
+		writeFully (out, workBuf, start, limit - start);
+		recvBuffer.skip (limit);
+
+		// copy the rest of the data, keeping the bytes that could
+		// be the beginning of the end marker
+		while ( end < 0 )
+		{
+			n = recvBuffer.peek (0, work, 0, work.length);
+			state = BytePatternMatcher.START_STATE;
+			for ( int i = 0; i < n; i++ )
 			{
-				fos.write (recvdB, findBytes (recvdB, BMP),
-					findBytes (recvdB, FINISH) - findBytes (recvdB, BMP) );
+				state = FINISH_MARKER.next (state, work[i]);
+				if ( FINISH_MARKER.getMatches (state).length > 0 )
+				{
+					end = i + 1 - FINISH.length;
+					break;
+				}
 			}
-			/* always keep WBMP last, as this is the new generic case */
-			else if ( findBytes (recvdB, WBMP) >= 0 )
+			limit = (end >= 0)? end : n - FINISH_MARKER.getDepth (state);
+			if ( limit > 0 )
 			{
-				fos.write (recvdB, findBytes (recvdB, WBMP) + 4,
-					findBytes (recvdB, FINISH) - (findBytes (recvdB, WBMP)+4) );
+				writeFully (out, workBuf, 0, limit);
+				recvBuffer.skip (limit);
 			}
-			else if ( findBytes (recvdB, START) >= 0 )
+			else if ( end < 0 && ! waitForData (n) )
 			{
-				fos.write (recvdB, findBytes (recvdB, START) + START.length,
-					findBytes (recvdB, FINISH) -
-					(findBytes (recvdB, START) + START.length) );
+				recvBuffer.skip (n);
+				return -1;
 			}
-			fos.close ();
-			return 0;
 		}
-		catch ( IOException ex )
+		recvBuffer.skip (FINISH.length);
+		// drop the rest of the "NO CARRIER" line
+		while ( recvBuffer.available () > 0
+			&& (recvBuffer.get (0) == '\r' || recvBuffer.get (0) == '\n') )
 		{
-			Utils.handleException (ex, "DataTransporter.getFile:"	// NOI18N
-				+ f.getName () + ", id="	// NOI18N
-				+ el.getID ());
-			return -1;
+			recvBuffer.skip (1);
 		}
-		finally
+		return 0;
+	}
+
+	/**
+	 * Waits until the receive buffer holds more than the given number of bytes.
+	 * @param than The number of bytes to compare against.
+	 * @return TRUE if more data has arrived, FALSE in case of a timeout.
+	 */
+	private boolean waitForData (int than)
+	{
+		try
 		{
-			try
+			drainPort ();
+			return recvBuffer.awaitMoreThan (than, recvTimeout);
+		}
+		catch (InterruptedException intex)
+		{
+			return recvBuffer.available () > than;
+		}
+	}
+
+	/**
+	 * Writes the given part of the array wrapped by the buffer to the channel.
+	 * @param out The channel to write to.
+	 * @param b The buffer wrapping the data array.
+	 * @param off The starting offset in the array.
+	 * @param len The number of bytes to write.
+	 * @throws java.io.IOException in case of an I/O problem with the channel.
+	 */
+	private static void writeFully (WritableByteChannel out, ByteBuffer b,
+		int off, int len) throws IOException
+	{
+		if ( len <= 0 )
+		{
+			return;
+		}
+		b.clear ();
+		b.position (off);
+		b.limit (off + len);
+		while ( b.hasRemaining () )
+		{
+			out.write (b);
+		}
+	}
+
+	/**
+	 * Finds the start of the object's data, based on the file type
+	 * detected from the beginning of the data. The first file format
+	 * (in the order of FileFormat) with a signature found wins.
+	 * @param data The beginning of the data received after the
+	 *	"CONNECT" line.
+	 * @param length The number of valid bytes in the array.
+	 * @param first The position of the first occurrence of each signature
+	 *	in the data, -1 if not found.
+	 * @param second The position of the second occurrence of each
+	 *	signature in the data, -1 if not found.
+	 * @return the offset of the object's data in the array.
+	 */
+	private static int getDataStart (byte[] data, int length,
+		int[] first, int[] second)
+	{
+		for ( int i = 0; i < SIGNATURES_FINISH; i++ )
+		{
+			int sigLength = SIGNATURES.getPatternLength (i);
+			int pos = first[i];
+			if ( pos < 0 || pos + sigLength > length )
 			{
-				if ( fos != null )
-				{
-					fos.close ();
-				}
+				continue;
 			}
-			catch (IOException exc)
+			if ( SIGNATURE_FORMATS[i] == FileFormat.JPEG )
 			{
-				Utils.handleException (exc,
-					"DataTransporter.getFile:fos.close");
+				// check if single or double match
+				int pos2 = second[i];
+				if ( pos2 >= 0 && pos2 + sigLength <= length
+					&& pos2+2 < length && (data[pos2+2] & 0xff) == 0xff )
+				{
+					return pos2;
+				}
 			}
+			return Math.max (pos + SIGNATURE_FORMATS[i].getDataOffset (), 0);
 		}
+		// no known header - the data starts right after "CONNECT"
+		return 0;
 	}
 
 	/**
-	 * Tries to send the given command at most MAX_TRIALS times
-	 *	and returns the response. The sending stops also when
-	 *	the reply is not empty.
+	 * Tries to send the given command as many times as the retry policy
+	 *	allows and returns the response. The sending stops when
+	 *	the reply is not empty. Nothing is sent while the port's
+	 *	circuit breaker is open.
 	 * @param cmd The command to send.
 	 * @return The received reply.
 	 */
 	private String tryCommand (String cmd, Object[] extraTerminators)
 	{
-		if ( cmd == null )
+		// don't force any encodings, because the reply may
+		// be in another encoding
+		return new String (tryCommandBytes (cmd, extraTerminators));
+	}
+
+	/**
+	 * Tries to send the given command as many times as the retry policy
+	 *	allows and returns the response, like tryCommand(), but
+	 *	without converting it to a String.
+	 * @param cmd The command to send.
+	 * @return The received reply.
+	 */
+	private byte[] tryCommandBytes (String cmd, Object[] extraTerminators)
+	{
+		byte[] recvdB = new byte[0];
+		if ( cmd == null || ! breaker.allowRequest () )
 		{
-			return Utils.EMPTY_STR;
+			return recvdB;
 		}
-		StringBuilder rcvd = new StringBuilder (10000);
-		byte[] recvdB;
+		boolean blank = true;
+		RetryPolicy policy = retryPolicy;
+		long start = System.currentTimeMillis ();
 		int trials = 0;
 		do
 		{
-			if ( trials >= MAX_TRIALS )
-			{
-				break;
-			}
-			Utils.sleepIgnoreException(DT_TIMEOUT);
+			policy.backOff (trials);
+			pacer.beforeCommand ();
 			try
 			{
 				// send the command
@@ -1252,30 +1529,42 @@ public class DataTransporter
 			{
 				Utils.handleException (ioex, "DataTransporter.tryCommand:"	// NOI18N
 					+ cmd);
+				pacer.replyFailed ();
 				trials++;
 				continue;
 			}
-			// don't force any encodings, because the reply may
-			// be in another encoding
-			rcvd.append (new String (recvdB));
+			blank = AtResponseReader.isBlank (recvdB, 0, recvdB.length);
 
-			if ( rcvd.toString ().trim ().isEmpty () )
+			if ( blank )
 			{
+				pacer.replyFailed ();
 				reopen ();
 				trials++;
 			}
-		} while (rcvd.toString ().trim ().isEmpty () && trials < MAX_TRIALS);
-		return rcvd.toString ();
+			else if ( lastReplyComplete )
+			{
+				pacer.replyReceived ();
+			}
+			else
+			{
+				// the reply is incomplete or garbled
+				pacer.replyFailed ();
+			}
+		} while (blank && policy.canRetry (trials, start));
+		recordResult (! blank);
+		return recvdB;
 	}
 
 	/**
 	 * Gets the list of objects from the phone.
 	 * @param ofWhat The type of the object, e.g. "PICTURES".
-	 * @return A Vector containing information about the elements.
+	 * @return A Vector containing information about the elements or null
+	 *	if the list can't be read, so that it isn't taken for an empty
+	 *	phone.
 	 */
 	public Vector<PhoneElement> getList (String ofWhat)
 	{
-		Vector<PhoneElement> res = new Vector<PhoneElement> (1);
+		Vector<PhoneElement> res = null;
 		if ( ofWhat == null )
 		{
 			return res;
@@ -1283,10 +1572,15 @@ public class DataTransporter
 		try
 		{
 			// removed: sending ATZ and AT115200
-			String rcvd = tryCommand (CHARSET_CMD, null);
-			if ( ! rcvd.contains (OK_STRING) )
+			// the character set stays until the port is closed
+			if ( ! charsetSet )
 			{
-				return res;
+				String rcvd = tryCommand (CHARSET_CMD, null);
+				if ( ! rcvd.contains (OK_STRING) )
+				{
+					return res;
+				}
+				charsetSet = true;
 			}
 
 			/*
@@ -1295,27 +1589,30 @@ public class DataTransporter
 			 * +KPSL: "53036500050220030045",0,48006,"RINGTONES","AMR","0000000069","","aaa"
 					Id	    HIDDEN,LENG, CATEGORY, CONTENT, LOCATION  FLAG, NAME
 			 */
-			rcvd = tryCommand (LIST_CMD_START + ofWhat + LIST_CMD_END, null);
-			if ( rcvd.trim ().isEmpty () || ! rcvd.contains (OK_STRING) )
-			{
-				return res;
-			}
-
-			Matcher m;
-			// split into lines
-			String[] lines = rcvd.split (NEWLINE_REGEX);
-			for ( int i=0; i < lines.length; i++ )
+			AtResponseReader r = new AtResponseReader (tryCommandBytes (
+				LIST_CMD_START + ofWhat + LIST_CMD_END, null));
+			Vector<PhoneElement> found = new Vector<PhoneElement> (1);
+			boolean ok = false;
+			while ( r.nextLine () )
 			{
-				m = Utils.LIST_PATTERN.matcher (lines[i]);
-				if ( m.matches () )
+				if ( r.lineEquals (OK_BYTES) )
+				{
+					ok = true;
+				}
+				else if ( r.lineStartsWith (LIST_REPLY) )
 				{
-					if ( "0".equals(m.group (2)) )			// NOI18N
+					r.startFields (LIST_REPLY.length);
+					PhoneElement el = parseListLine (r);
+					if ( el != null )
 					{
-						res.add (new PhoneElement (m.group (1),
-							m.group (3), m.group (4) ));
+						found.add (el);
 					}
 				}
 			}
+			if ( ok )
+			{
+				res = found;
+			}
 		}
 		catch ( Exception ex )
 		{
@@ -1325,6 +1622,43 @@ public class DataTransporter
 		return res;
 	}
 
+	/**
+	 * Makes an element from the fields of a line of an object list.
+	 * @param r The reader positioned at the first field of the line.
+	 * @return the element or null if the line is not valid or the
+	 *	object is hidden.
+	 */
+	private static PhoneElement parseListLine (AtResponseReader r)
+	{
+		// "ID",HIDDEN,LENGTH,"CATEGORY","CONTENT",LOCATION,FLAG,"NAME"
+		if ( ! r.nextField () || ! r.isFieldQuoted () || ! r.isFieldHex () )
+		{
+			return null;
+		}
+		String id = r.getField ();
+		if ( ! r.nextField () || ! r.isFieldDigits () || r.getFieldInt (-1) != 0 )
+		{
+			return null;
+		}
+		if ( ! r.nextField () || ! r.isFieldDigits () )
+		{
+			return null;
+		}
+		int length = r.getFieldInt (-1);
+		if ( ! r.nextField () || r.getFieldLength () == 0
+			|| ! r.nextField () || r.getFieldLength () == 0 )
+		{
+			return null;
+		}
+		String type = r.getField ();
+		if ( ! r.nextField () || ! r.nextField () || ! r.nextField ()
+			|| ! r.isFieldQuoted () || r.getFieldLength () == 0 )
+		{
+			return null;
+		}
+		return new PhoneElement (id, type, r.getField (), length);
+	}
+
 	/**
 	 * Deletes the specified object from the phone.
 	 * @param el The element to delete.
@@ -1356,7 +1690,8 @@ public class DataTransporter
 	// 'public' because used in MainWindow
 	/**
 	 * Reopens the transmission port used by thie DataTransporter,
-	 * saving its parameters.
+	 * saving its parameters. Like close(), makes the character set
+	 * to be set again before the next listing.
 	 */
 	public void reopen ()
 	{
@@ -1380,6 +1715,7 @@ public class DataTransporter
 		}
 		try
 		{
+			// forgets the character set, too
 			close ();
 			reopenRealOrFake();
 			if ( s != null )
@@ -1394,6 +1730,7 @@ public class DataTransporter
 
 				s.addEventListener (spl);
 				s.notifyOnDataAvailable (true);
+				watchControlLines ();
 			}
 		}
 		catch (Exception ex)
@@ -1448,6 +1785,37 @@ public class DataTransporter
 		}
 	}
 
+	/**
+	 * Checks if the phone still answers on the open port. This function
+	 * sends a single "AT" and waits for an "OK" to show up.
+	 * @return 0 in case of "OK" response.
+	 */
+	int ping ()
+	{
+		try
+		{
+			send (AT_CMD.getBytes (DEFAULT_ENCODING));
+			// don't force any encodings, because the reply may
+			// contain trash that may be invalid in any given encoding
+			if ( new String (recv (null)).contains (OK_STRING) )
+			{
+				return 0;
+			}
+			return -1;
+		}
+		catch ( IOException ex )
+		{
+			Utils.handleException (ex, "DataTransporter.ping:"	// NOI18N
+				+ getPortName());
+			return -2;
+		}
+		catch ( IllegalStateException ex )
+		{
+			// the port is not open
+			return -3;
+		}
+	}
+
 	/**
 	 * Gets the firmware version from the phone.
 	 * @return the firmware version or null in case of error.
@@ -1606,6 +1974,28 @@ public class DataTransporter
 		return null;
 	}
 
+	/**
+	 * Gets the IMEI number of the phone, asking the phone only once
+	 * after the port has been opened.
+	 * @return the IMEI number or null if it can't be read.
+	 */
+	public String getSessionIMEI ()
+	{
+		String imei = sessionIMEI;
+		if ( imei == null )
+		{
+			imei = getIMEI ();
+			// not an error reply
+			if ( imei == null || imei.isEmpty ()
+				|| ! imei.matches ("[0-9A-Fa-f]+") )	// NOI18N
+			{
+				return null;
+			}
+			sessionIMEI = imei;
+		}
+		return imei;
+	}
+
 	/**
 	 * Gets the subscriber phone numbers from the phone.
 	 * @return the subscriber phone numbers (separated with ", ") or null in case of error / no numbers.
@@ -1907,13 +2297,8 @@ public class DataTransporter
 			if ( getNumberOfAlarms () == 1 )
 			{
 				// when the supported number of alarms is 1, don't send the days
-				int num = al.getNumber ();
-				boolean oneTime = al.isOneTimeAlarm ();
-				al.setNumber (-1);
-				al.setOneTimeAlarm (true);
-				alString = al.getAlarmString ();
-				al.setNumber (num);
-				al.setOneTimeAlarm (oneTime);
+				alString = al.toBuilder ().setNumber (-1)
+					.setOneTimeAlarm (true).build ().getAlarmString ();
 			}
 			String rcvd = tryCommand (ALARM_ADD_CMD + alString + Utils.CR, null);
 			if ( rcvd.trim ().isEmpty () )
@@ -1943,28 +2328,33 @@ public class DataTransporter
 		Vector<PhoneAlarm> res = new Vector<PhoneAlarm> (1);
 		try
 		{
-			String rcvd = tryCommand (ALARM_LIST_CMD, null);
+			AtResponseReader r = new AtResponseReader (
+				tryCommandBytes (ALARM_LIST_CMD, null));
 			/*
 			 * Receiving format:
 			 * +CALA: "08/08/02,06:30:00"
 			 * +CALA: "08/08/02,06:30:00"
 			 * OK
 			 */
-			if ( rcvd.trim ().isEmpty () || ! rcvd.contains (OK_STRING) )
-			{
-				return res;
-			}
-
-			// split into lines
-			String[] lines = rcvd.split (NEWLINE_REGEX);
-			for ( int i=0; i < lines.length; i++ )
+			Vector<PhoneAlarm> found = new Vector<PhoneAlarm> (1);
+			boolean ok = false;
+			while ( r.nextLine () )
 			{
-				PhoneAlarm pa = PhoneAlarm.parseReponse (lines[i]);
+				if ( r.lineEquals (OK_BYTES) )
+				{
+					ok = true;
+					continue;
+				}
+				PhoneAlarm pa = PhoneAlarm.parseReponse (r.getLine ());
 				if ( pa != null )
 				{
-					res.add (pa);
+					found.add (pa);
 				}
 			}
+			if ( ok )
+			{
+				res = found;
+			}
 		}
 		catch ( Exception ex )
 		{
@@ -2025,31 +2415,71 @@ public class DataTransporter
 				return res;
 			}
 
-			rcvd = tryCommand (MSG_LIST_CMD, null);
-			if ( rcvd.trim ().isEmpty () || ! rcvd.contains (OK_STRING) )
+			byte[] reply = tryCommandBytes (MSG_LIST_CMD, null);
+			Vector<PhoneMessage> found = new Vector<PhoneMessage> (1);
+			if ( parseMessages (reply, found) )
 			{
-				return res;
+				res = found;
 			}
+		}
+		catch ( Exception ex )
+		{
+			Utils.handleException (ex, "DataTransporter.getMessagess");	// NOI18N
+			return res;
+		}
+		return res;
+	}
 
-			// remove the final "OK"
-			rcvd = rcvd.replaceAll (LAST_OK_REGEX, Utils.EMPTY_STR);
-			// split into lines
-			String[] lines = rcvd.split (MSG_LIST_REPLY_REGEX);
-			for ( int i=0; i < lines.length; i++ )
+	/**
+	 * Finds the messages in the reply to a message list or message read
+	 * command. Each message starts with a +CMGL or +CMGR line and ends
+	 * where the next one starts or at the final OK.
+	 * @param reply The reply to parse.
+	 * @param res The list to add the messages to.
+	 * @return TRUE if the reply ended with an OK.
+	 */
+	private static boolean parseMessages (byte[] reply, Vector<PhoneMessage> res)
+	{
+		AtResponseReader r = new AtResponseReader (reply);
+		int msgStart = -1;
+		int okStart = reply.length;
+		boolean ok = false;
+		while ( r.nextLine () )
+		{
+			ok = r.lineEquals (OK_BYTES);
+			if ( ok )
 			{
-				PhoneMessage pm = PhoneMessage.parseReponse (lines[i]);
-				if ( pm != null )
+				okStart = r.getLineStart ();
+				continue;
+			}
+			for ( int i = 0; i < MSG_REPLIES.length; i++ )
+			{
+				if ( r.lineStartsWith (MSG_REPLIES[i]) )
 				{
-					res.add (pm);
+					if ( msgStart >= 0 )
+					{
+						addMessage (r.getString (msgStart,
+							r.getLineStart ()), res);
+					}
+					msgStart = r.getLineStart () + MSG_REPLIES[i].length;
+					break;
 				}
 			}
 		}
-		catch ( Exception ex )
+		if ( msgStart >= 0 )
 		{
-			Utils.handleException (ex, "DataTransporter.getMessagess");	// NOI18N
-			return res;
+			addMessage (r.getString (msgStart, ok? okStart : reply.length), res);
+		}
+		return ok;
+	}
+
+	private static void addMessage (String msg, Vector<PhoneMessage> res)
+	{
+		PhoneMessage pm = PhoneMessage.parseReponse (msg);
+		if ( pm != null )
+		{
+			res.add (pm);
 		}
-		return res;
 	}
 
 	/**
@@ -2070,14 +2500,19 @@ public class DataTransporter
 			{
 				return null;
 			}
-			rcvd = tryCommand (MSG_GET_CMD + String.valueOf (number) + Utils.CR, null);
-			if ( rcvd.trim ().isEmpty () )
+			byte[] reply = tryCommandBytes (MSG_GET_CMD
+				+ String.valueOf (number) + Utils.CR, null);
+			if ( AtResponseReader.isBlank (reply, 0, reply.length) )
 			{
 				return null;
 			}
-			// remove the final "OK"
-			rcvd = rcvd.replaceAll (LAST_OK_REGEX, Utils.EMPTY_STR);
-			return PhoneMessage.parseReponse (rcvd);
+			Vector<PhoneMessage> found = new Vector<PhoneMessage> (1);
+			parseMessages (reply, found);
+			if ( found.isEmpty () )
+			{
+				return null;
+			}
+			return found.get (0);
 		}
 		catch ( Exception ex )
 		{
@@ -2165,6 +2600,38 @@ public class DataTransporter
 		}
 	}
 
+	/**
+	 * Enables or disables the notifications about new messages. When
+	 * enabled, the phone stores each new message and sends a +CMTI
+	 * unsolicited result code with the message's storage and number.
+	 * @param enable TRUE to enable the notifications.
+	 * @return 0 in case of success.
+	 * @see UrcDispatcher
+	 */
+	public int setMessageNotifications (boolean enable)
+	{
+		try
+		{
+			String rcvd = tryCommand (enable? MSG_NOTIFY_ON_CMD
+				: MSG_NOTIFY_OFF_CMD, null);
+			if ( rcvd.trim ().isEmpty () )
+			{
+				return -1;
+			}
+			if ( rcvd.contains (OK_STRING) )
+			{
+				return 0;
+			}
+			return -2;
+		}
+		catch ( Exception ex )
+		{
+			Utils.handleException (ex, "DataTransporter.setMessageNotifications: "	// NOI18N
+				+ enable);
+			return -3;
+		}
+	}
+
 	/**
 	 * Sets or clears the DTR line in the port. The port must already be open.
 	 * @param on If TRUE, the DTR signal will be set, otherwise it will be cleared.
@@ -2174,6 +2641,7 @@ public class DataTransporter
 		if ( s != null )
 		{
 			s.setDTR (on);
+			controlLines.update (ControlLineMonitor.Line.DTR, on);
 		}
 	}
 
@@ -2186,6 +2654,7 @@ public class DataTransporter
 		if ( s != null )
 		{
 			s.setRTS (on);
+			controlLines.update (ControlLineMonitor.Line.RTS, on);
 		}
 	}
 
@@ -2338,7 +2807,6 @@ public class DataTransporter
 			send ((command + Utils.CR).getBytes (DEFAULT_ENCODING));
 			byte[] recvdB = recv (null);
 			String rcvd = new String (recvdB, DEFAULT_ENCODING);
-
 			if ( rcvd.isEmpty ()
 				|| rcvd.contains (ERROR_STRING)
 				|| rcvd.contains (NOCAR_STRING))
@@ -2468,37 +2936,34 @@ public class DataTransporter
 	 */
 	public int getAvailableBytes ()
 	{
-		if ( inputStream == null )
-		{
-			return 0;
-		}
-		synchronized (inputStreamLock)
-		{
-			try
-			{
-				return inputStream.available ();
-			}
-			catch (IOException ioex)
-			{
-				return 0;
-			}
-		}
+		drainPort ();
+		return recvBuffer.available ();
 	}
 
 	private String getPortName()
 	{
-		if (portID == null)
+		return getPortName (portID);
+	}
+
+	/**
+	 * Gets the name of the port with the given identifier.
+	 * @param id The port identifier.
+	 * @return the name of the port or null if unknown.
+	 */
+	static String getPortName(Object /*CommPortIdentifier*/ id)
+	{
+		if (id == null)
 		{
 			return null;
 		}
 		String portName = null;
-		if (portID instanceof CommPortIdentifier)
+		if (id instanceof CommPortIdentifier)
 		{
-			portName = ((CommPortIdentifier)portID).getName ();
+			portName = ((CommPortIdentifier)id).getName ();
 		}
-		else if (portID instanceof FakeCommPortIdentifier)
+		else if (id instanceof FakeCommPortIdentifier)
 		{
-			portName = ((FakeCommPortIdentifier)portID).getName ();
+			portName = ((FakeCommPortIdentifier)id).getName ();
 		}
 		return portName;
 	}
@@ -2519,11 +2984,38 @@ public class DataTransporter
 			switch (event.getEventType ())
 			{
 				case SerialPortEvent.DATA_AVAILABLE:
-					//synchronized (inputStream)
-					synchronized (inputStreamLock)
-					{
-						inputStreamLock.notifyAll ();// inputStream.notifyAll ();
-					}
+					// move the data to the receive buffer, which
+					// also wakes up any waiting recv() calls
+					drainPort ();
+					controlLines.dataReceived ();
+					break;
+				case SerialPortEvent.CTS:
+					controlLines.update (ControlLineMonitor.Line.CTS,
+						event.getNewValue ());
+					break;
+				case SerialPortEvent.DSR:
+					controlLines.update (ControlLineMonitor.Line.DSR,
+						event.getNewValue ());
+					break;
+				case SerialPortEvent.CD:
+					controlLines.update (ControlLineMonitor.Line.CD,
+						event.getNewValue ());
+					break;
+				case SerialPortEvent.RI:
+					controlLines.update (ControlLineMonitor.Line.RI,
+						event.getNewValue ());
+					break;
+				case SerialPortEvent.OE:
+					controlLines.update (ControlLineMonitor.Line.OE, true);
+					break;
+				case SerialPortEvent.PE:
+					controlLines.update (ControlLineMonitor.Line.PE, true);
+					break;
+				case SerialPortEvent.FE:
+					controlLines.update (ControlLineMonitor.Line.FE, true);
+					break;
+				case SerialPortEvent.BI:
+					controlLines.update (ControlLineMonitor.Line.BI, true);
 					break;
 				default:
 					// ignore
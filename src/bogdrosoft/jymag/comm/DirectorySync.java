@@ -0,0 +1,671 @@
+/*
+ * DirectorySync.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.FileFormat;
+import bogdrosoft.jymag.PhoneElement;
+import bogdrosoft.jymag.Utils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * DirectorySync - brings a local directory and one type of objects in the
+ * phone (PICTURES, RINGTONES, VCARDS, ...) to the same contents. The
+ * phone's list (ID, name, type and length) and the local files (name,
+ * length and modification time) are compared with the state saved by the
+ * previous run in a small file in the directory, so that only the new and
+ * the changed objects are transferred, in both directions. An object
+ * changed on both sides is a conflict and is left alone. Nothing is ever
+ * deleted: an object removed from one side is copied again from the other.
+ * @author Bogdan Drozdowski
+ */
+public class DirectorySync
+{
+	/** The beginning of the state file, "JYSS". */
+	private static final int MAGIC = 0x4A595353;
+	/** The version of the state file format. */
+	private static final int VERSION = 1;
+	private static final String STATE_FILE_START = ".jymag_sync_";	// NOI18N
+	private static final String TMP_EXT = ".tmp";			// NOI18N
+	private static final String ID_SEPARATOR = "_";			// NOI18N
+
+	/** The categories of the phone's object types. */
+	private static final Map<String, FileFormat.Category> CATEGORIES;
+
+	static
+	{
+		Map<String, FileFormat.Category> tempMap =
+			new HashMap<String, FileFormat.Category> (8);
+		tempMap.put ("PICTURES", FileFormat.Category.PHOTO);		// NOI18N
+		tempMap.put ("RINGTONES", FileFormat.Category.RINGTONE);	// NOI18N
+		tempMap.put ("VCARDS", FileFormat.Category.ADDRESS_BOOK);	// NOI18N
+		tempMap.put ("VTODO", FileFormat.Category.TODO);		// NOI18N
+		tempMap.put ("VEVENT", FileFormat.Category.EVENT);		// NOI18N
+		tempMap.put ("ANIMATIONS", FileFormat.Category.ANIMATION);	// NOI18N
+		CATEGORIES = Collections.unmodifiableMap (tempMap);
+	}
+
+	/**
+	 * The kinds of transfers.
+	 */
+	public enum Action
+	{
+		/** Get the object from the phone into the local file. */
+		DOWNLOAD,
+		/** Send the local file to the phone, replacing the object if given. */
+		UPLOAD,
+		/** Both the object and the local file have changed - do nothing. */
+		CONFLICT
+	}
+
+	/**
+	 * One transfer to perform.
+	 */
+	public static final class Step
+	{
+		private final Action action;
+		private final File file;
+		private final PhoneElement element;
+
+		private Step (Action what, File f, PhoneElement el)
+		{
+			action = what;
+			file = f;
+			element = el;
+		}
+
+		/**
+		 * Gets the kind of this transfer.
+		 * @return the kind of this transfer.
+		 */
+		public Action getAction ()
+		{
+			return action;
+		}
+
+		/**
+		 * Gets the local file.
+		 * @return the local file.
+		 */
+		public File getFile ()
+		{
+			return file;
+		}
+
+		/**
+		 * Gets the object in the phone.
+		 * @return the object in the phone, null for the files to be
+		 *	uploaded as new objects.
+		 */
+		public PhoneElement getElement ()
+		{
+			return element;
+		}
+
+		@Override
+		public String toString ()
+		{
+			return action + Utils.L_PAREN + file.getName () + Utils.COMMA
+				+ element + Utils.R_PAREN;
+		}
+	}
+
+	/**
+	 * A pair of a local file and an object in the phone which had the
+	 * same contents after the last run.
+	 */
+	private static final class Record
+	{
+		private final String fileName;
+		private final long fileLength;
+		private final long fileModified;
+		private final PhoneElement element;
+
+		private Record (String name, long length, long modified,
+			PhoneElement el)
+		{
+			fileName = name;
+			fileLength = length;
+			fileModified = modified;
+			element = el;
+		}
+
+		private Record (File f, PhoneElement el)
+		{
+			this (f.getName (), f.length (), f.lastModified (), el);
+		}
+
+		private boolean isSameFile (File f)
+		{
+			return f != null && f.length () == fileLength
+				&& f.lastModified () == fileModified;
+		}
+
+		private boolean isSameElement (PhoneElement el)
+		{
+			return el != null && el.getLength () == element.getLength ()
+				&& isSame (el.getName (), element.getName ())
+				&& isSame (el.getFormat (), element.getFormat ());
+		}
+	}
+
+	private final File dir;
+	private final String ofWhat;
+	private final Map<String, Integer> exts;
+	private final File stateFile;
+	/** The pairs which need no transfer, found by the last plan(). */
+	private final Map<String, Record> unchanged =
+		new LinkedHashMap<String, Record> (16);
+	/** The saved state, read when first needed. */
+	private Map<String, Record> records;
+	private int downloaded;
+	private int uploaded;
+	private int conflicts;
+
+	/**
+	 * Creates a new instance of DirectorySync.
+	 * @param directory The local directory to synchronize.
+	 * @param type The type of the objects to synchronize. One of
+	 *	PICTURES, RINGTONES, VTODO, VEVENT, VCARDS, ANIMATIONS.
+	 */
+	public DirectorySync (File directory, String type)
+	{
+		if ( directory == null || type == null
+			|| ! CATEGORIES.containsKey (type) )
+		{
+			throw new IllegalArgumentException ("DirectorySync: "	// NOI18N
+				+ directory + Utils.COMMA + type);
+		}
+		dir = directory;
+		ofWhat = type;
+		exts = FileFormat.getUploadIDs (CATEGORIES.get (type));
+		stateFile = new File (dir, STATE_FILE_START + type);
+	}
+
+	/**
+	 * Brings the directory and the phone to the same contents. Must be
+	 * called by the thread holding the port, like in a PortOperation.
+	 * @param dt The open port to use.
+	 * @return 0 in case of success, -1 if the list of objects can't be
+	 *	read, -2 if the directory can't be created and the result of
+	 *	the last failed transfer otherwise.
+	 */
+	public int sync (DataTransporter dt)
+	{
+		downloaded = 0;
+		uploaded = 0;
+		conflicts = 0;
+		if ( ! dir.isDirectory () && ! dir.mkdirs () )
+		{
+			return -2;
+		}
+		Vector<PhoneElement> before = dt.getList (ofWhat);
+		if ( before == null )
+		{
+			return -1;
+		}
+		List<Step> steps = plan (before);
+		Map<String, Record> state = new LinkedHashMap<String, Record> (unchanged);
+		List<File> sent = new Vector<File> (steps.size ());
+		int ret = 0;
+		for ( int i = 0; i < steps.size (); i++ )
+		{
+			// let the more urgent commands in between the objects
+			dt.getScheduler ().giveWay ();
+			Step s = steps.get (i);
+			int res = 0;
+			if ( s.action == Action.DOWNLOAD )
+			{
+				res = download (dt, s);
+				if ( res == 0 )
+				{
+					state.put (s.file.getName (), new Record (s.file, s.element));
+					downloaded++;
+				}
+			}
+			else if ( s.action == Action.UPLOAD )
+			{
+				res = dt.putFile (s.file, null);
+				if ( res == 0 )
+				{
+					if ( s.element != null )
+					{
+						// the new object replaces the old one
+						dt.deleteFile (s.element);
+					}
+					sent.add (s.file);
+					uploaded++;
+				}
+			}
+			else
+			{
+				conflicts++;
+			}
+			if ( res != 0 || s.action == Action.CONFLICT )
+			{
+				// keep the pair, so that the same step is found again
+				Record r = getRecords ().get (s.file.getName ());
+				if ( r != null )
+				{
+					state.put (r.fileName, r);
+				}
+			}
+			if ( res != 0 )
+			{
+				ret = res;
+			}
+		}
+		if ( ! sent.isEmpty () )
+		{
+			Vector<PhoneElement> after = dt.getList (ofWhat);
+			if ( after != null )
+			{
+				addUploaded (state, before, after, sent);
+			}
+			else if ( ret == 0 )
+			{
+				// the next run pairs the new objects by their names
+				ret = -1;
+			}
+		}
+		records = state;
+		writeState (state);
+		return ret;
+	}
+
+	/**
+	 * Gets the number of objects downloaded by the last sync().
+	 * @return the number of objects downloaded by the last sync().
+	 */
+	public int getDownloaded ()
+	{
+		return downloaded;
+	}
+
+	/**
+	 * Gets the number of files uploaded by the last sync().
+	 * @return the number of files uploaded by the last sync().
+	 */
+	public int getUploaded ()
+	{
+		return uploaded;
+	}
+
+	/**
+	 * Gets the number of objects changed on both sides, found by the
+	 * last sync().
+	 * @return the number of conflicts found by the last sync().
+	 */
+	public int getConflicts ()
+	{
+		return conflicts;
+	}
+
+	private Map<String, Record> getRecords ()
+	{
+		if ( records == null )
+		{
+			records = readState ();
+		}
+		return records;
+	}
+
+	/**
+	 * Compares the given list of objects in the phone with the local
+	 * files and the saved state and finds the transfers needed.
+	 * @param phoneList The objects in the phone.
+	 * @return the transfers needed.
+	 */
+	public List<Step> plan (List<PhoneElement> phoneList)
+	{
+		unchanged.clear ();
+		List<Step> steps = new Vector<Step> ();
+		Map<String, PhoneElement> phone =
+			new LinkedHashMap<String, PhoneElement> (phoneList.size ());
+		for ( int i = 0; i < phoneList.size (); i++ )
+		{
+			PhoneElement el = phoneList.get (i);
+			if ( el != null && el.getID () != null )
+			{
+				phone.put (el.getID (), el);
+			}
+		}
+		Map<String, File> local = getLocalFiles ();
+		Set<String> usedIds = new HashSet<String> (phone.size ());
+		Set<String> usedNames = new HashSet<String> (local.size ());
+
+		// the pairs known from the last run
+		for ( Record r : getRecords ().values () )
+		{
+			PhoneElement el = phone.get (r.element.getID ());
+			File f = local.get (r.fileName);
+			if ( el == null || f == null )
+			{
+				// copied again from the other side
+				continue;
+			}
+			usedIds.add (el.getID ());
+			usedNames.add (f.getName ());
+			boolean sameFile = r.isSameFile (f);
+			boolean sameElement = r.isSameElement (el);
+			if ( sameFile && sameElement )
+			{
+				unchanged.put (r.fileName, r);
+			}
+			else if ( sameElement )
+			{
+				steps.add (new Step (Action.UPLOAD, f, el));
+			}
+			else if ( sameFile )
+			{
+				steps.add (new Step (Action.DOWNLOAD, f, el));
+			}
+			else
+			{
+				steps.add (new Step (Action.CONFLICT, f, el));
+			}
+		}
+
+		// the new objects in the phone
+		for ( PhoneElement el : phone.values () )
+		{
+			if ( usedIds.contains (el.getID ()) )
+			{
+				continue;
+			}
+			String name = el.getFilename () + Utils.DOT + el.getExt ();
+			File f = local.get (name);
+			if ( f != null && ! usedNames.contains (name) )
+			{
+				usedNames.add (name);
+				if ( f.length () == el.getLength () )
+				{
+					// already here, like after downloadFiles()
+					unchanged.put (name, new Record (f, el));
+				}
+				else
+				{
+					steps.add (new Step (Action.CONFLICT, f, el));
+				}
+				continue;
+			}
+			if ( usedNames.contains (name) )
+			{
+				name = el.getFilename () + ID_SEPARATOR + el.getID ()
+					+ Utils.DOT + el.getExt ();
+			}
+			usedNames.add (name);
+			steps.add (new Step (Action.DOWNLOAD, new File (dir, name), el));
+		}
+
+		// the new local files
+		for ( File f : local.values () )
+		{
+			if ( ! usedNames.contains (f.getName ()) )
+			{
+				steps.add (new Step (Action.UPLOAD, f, null));
+			}
+		}
+		return steps;
+	}
+
+	/**
+	 * Gets the files in the directory which can be uploaded as the
+	 * objects of the synchronized type.
+	 * @return the files, by name.
+	 */
+	private Map<String, File> getLocalFiles ()
+	{
+		Map<String, File> res = new LinkedHashMap<String, File> (16);
+		File[] files = dir.listFiles ();
+		if ( files == null )
+		{
+			return res;
+		}
+		for ( int i = 0; i < files.length; i++ )
+		{
+			String name = files[i].getName ();
+			int dot = name.lastIndexOf (Utils.DOT);
+			if ( dot <= 0 || ! files[i].isFile ()
+				|| ! exts.containsKey (name.substring (dot + 1)
+					.toLowerCase (Locale.ENGLISH)) )
+			{
+				continue;
+			}
+			res.put (name, files[i]);
+		}
+		return res;
+	}
+
+	/**
+	 * Downloads the object to a temporary file first, so that the
+	 * local file isn't lost if the transfer fails.
+	 */
+	private int download (DataTransporter dt, Step s)
+	{
+		File tmp = new File (dir, s.file.getName () + TMP_EXT);
+		try
+		{
+			int res = TransferUtils.getFile (dt, tmp, s.element);
+			if ( res != 0 )
+			{
+				return res;
+			}
+			Files.move (tmp.toPath (), s.file.toPath (),
+				StandardCopyOption.REPLACE_EXISTING);
+			return 0;
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "DirectorySync.download: " + s);	// NOI18N
+			if ( tmp.exists () && ! tmp.delete () )
+			{
+				Utils.handleException (new IOException (tmp.getPath ()),
+					"DirectorySync.download: delete");	// NOI18N
+			}
+			return -3;
+		}
+	}
+
+	/**
+	 * Finds the objects created by the uploads and pairs them with
+	 * their files. The phone names the new objects after the files.
+	 */
+	private static void addUploaded (Map<String, Record> state,
+		List<PhoneElement> before, List<PhoneElement> after, List<File> sent)
+	{
+		Set<String> oldIds = new HashSet<String> (before.size ());
+		for ( int i = 0; i < before.size (); i++ )
+		{
+			oldIds.add (before.get (i).getID ());
+		}
+		for ( int i = 0; i < sent.size (); i++ )
+		{
+			File f = sent.get (i);
+			String name = f.getName ();
+			int dot = name.indexOf (Utils.DOT);
+			if ( dot >= 0 )
+			{
+				name = name.substring (0, dot);
+			}
+			for ( int j = 0; j < after.size (); j++ )
+			{
+				PhoneElement el = after.get (j);
+				if ( ! oldIds.contains (el.getID ())
+					&& name.equals (el.getName ()) )
+				{
+					state.put (f.getName (), new Record (f, el));
+					oldIds.add (el.getID ());
+					break;
+				}
+			}
+		}
+	}
+
+	private static boolean isSame (String a, String b)
+	{
+		return (a == null)? b == null : a.equals (b);
+	}
+
+	/**
+	 * Reads the state saved by the last run.
+	 * @return the pairs found by the last run, by file name.
+	 */
+	private Map<String, Record> readState ()
+	{
+		Map<String, Record> res = new LinkedHashMap<String, Record> (16);
+		if ( ! stateFile.exists () )
+		{
+			return res;
+		}
+		DataInputStream in = null;
+		try
+		{
+			in = new DataInputStream (new BufferedInputStream (
+				new FileInputStream (stateFile)));
+			if ( in.readInt () != MAGIC || in.readInt () != VERSION )
+			{
+				return res;
+			}
+			int count = in.readInt ();
+			for ( int i = 0; i < count; i++ )
+			{
+				String name = in.readUTF ();
+				long length = in.readLong ();
+				long modified = in.readLong ();
+				PhoneElement el = new PhoneElement (in.readUTF (),
+					readString (in), readString (in), in.readLong ());
+				res.put (name, new Record (name, length, modified, el));
+			}
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "DirectorySync.readState: " + stateFile);	// NOI18N
+			res.clear ();
+		}
+		finally
+		{
+			close (in);
+		}
+		return res;
+	}
+
+	/**
+	 * Writes the state for the next run. A new file is written and then
+	 * put in place of the old one, so a failed write doesn't destroy
+	 * the old state.
+	 */
+	private void writeState (Map<String, Record> state)
+	{
+		File tmp = new File (dir, stateFile.getName () + TMP_EXT);
+		DataOutputStream out = null;
+		try
+		{
+			out = new DataOutputStream (new BufferedOutputStream (
+				new FileOutputStream (tmp)));
+			out.writeInt (MAGIC);
+			out.writeInt (VERSION);
+			out.writeInt (state.size ());
+			for ( Record r : state.values () )
+			{
+				out.writeUTF (r.fileName);
+				out.writeLong (r.fileLength);
+				out.writeLong (r.fileModified);
+				out.writeUTF (r.element.getID ());
+				writeString (out, r.element.getFormat ());
+				writeString (out, r.element.getName ());
+				out.writeLong (r.element.getLength ());
+			}
+			out.close ();
+			out = null;
+			Files.move (tmp.toPath (), stateFile.toPath (),
+				StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "DirectorySync.writeState: " + stateFile);	// NOI18N
+		}
+		finally
+		{
+			close (out);
+		}
+	}
+
+	private static void writeString (DataOutputStream out, String s)
+		throws IOException
+	{
+		out.writeBoolean (s != null);
+		if ( s != null )
+		{
+			out.writeUTF (s);
+		}
+	}
+
+	private static String readString (DataInputStream in) throws IOException
+	{
+		if ( in.readBoolean () )
+		{
+			return in.readUTF ();
+		}
+		return null;
+	}
+
+	private static void close (Closeable c)
+	{
+		if ( c == null )
+		{
+			return;
+		}
+		try
+		{
+			c.close ();
+		}
+		catch (IOException ex)
+		{
+			Utils.handleException (ex, "DirectorySync.close");	// NOI18N
+		}
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "DirectorySync[" + ofWhat + Utils.COMMA + dir + "]";	// NOI18N
+	}
+}
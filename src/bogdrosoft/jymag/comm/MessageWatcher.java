@@ -0,0 +1,225 @@
+/*
+ * MessageWatcher.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.PhoneMessage;
+import bogdrosoft.jymag.Utils;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * MessageWatcher - reports the new SMS messages as soon as they arrive.
+ * The phone is asked to send a +CMTI unsolicited result code for each new
+ * message and the port is kept open, so that the codes are received at
+ * once. Each announced message is then read from the phone and given to
+ * the listener.
+ * @author Bogdan Drozdowski
+ */
+public class MessageWatcher implements UrcDispatcher.Listener
+{
+	/** The unsolicited result code announcing a new message. */
+	static final String NEW_MESSAGE_CODE = "+CMTI";	// NOI18N
+
+	/**
+	 * A receiver of the new messages.
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called when a new message arrives. Called on the port's
+		 * I/O thread, not on the Event Dispatching Thread.
+		 * @param msg The new message, with its ID set.
+		 */
+		void messageReceived (PhoneMessage msg);
+	}
+
+	private final TransferParameters tp;
+	private final Listener listener;
+	private final AsyncDataTransporter async;
+	private final UrcDispatcher dispatcher;
+	/** The port kept open while watching, guarded by this object. */
+	private DataTransporter retained;
+
+	/**
+	 * Creates a new instance of MessageWatcher.
+	 * @param params The port parameters to use.
+	 * @param l The receiver of the new messages.
+	 */
+	public MessageWatcher (TransferParameters params, Listener l)
+	{
+		if ( params == null || params.getId () == null || l == null )
+		{
+			throw new IllegalArgumentException ("MessageWatcher: null");	// NOI18N
+		}
+		tp = params;
+		listener = l;
+		async = new AsyncDataTransporter (params);
+		dispatcher = UrcDispatcher.forPort (
+			DataTransporter.getPortName (params.getId ()));
+	}
+
+	/**
+	 * Starts watching for new messages.
+	 * @return the future result of starting: 0 in case of success.
+	 */
+	public CompletableFuture<Integer> start ()
+	{
+		dispatcher.addListener (this);
+		CompletableFuture<Integer> res = async.submit (
+			CommandScheduler.Priority.BACKGROUND,
+			new AsyncDataTransporter.Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				int ret = dt.setMessageNotifications (true);
+				if ( ret != 0 )
+				{
+					return ret;
+				}
+				synchronized (MessageWatcher.this)
+				{
+					if ( retained == null )
+					{
+						if ( ! SessionPool.retain (dt, tp) )
+						{
+							return -4;
+						}
+						retained = dt;
+					}
+				}
+				return 0;
+			}
+		});
+		res.whenComplete (new BiConsumer<Integer, Throwable> ()
+		{
+			@Override
+			public void accept (Integer ret, Throwable ex)
+			{
+				if ( ex != null || ret == null || ret.intValue () != 0 )
+				{
+					dispatcher.removeListener (MessageWatcher.this);
+				}
+			}
+		});
+		return res;
+	}
+
+	/**
+	 * Stops watching for new messages and lets the port be closed.
+	 * @return the future result of stopping: 0 in case of success.
+	 */
+	public CompletableFuture<Integer> stop ()
+	{
+		dispatcher.removeListener (this);
+		return async.submit (CommandScheduler.Priority.BACKGROUND,
+			new AsyncDataTransporter.Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				int ret = dt.setMessageNotifications (false);
+				synchronized (MessageWatcher.this)
+				{
+					if ( retained != null )
+					{
+						SessionPool.release (retained, true);
+						retained = null;
+					}
+				}
+				return ret;
+			}
+		});
+	}
+
+	/**
+	 * Tells if the watching has been started.
+	 * @return TRUE if the watching has been started.
+	 */
+	public synchronized boolean isWatching ()
+	{
+		return retained != null;
+	}
+
+	@Override
+	public void urcReceived (String portName, String code, String data)
+	{
+		if ( ! NEW_MESSAGE_CODE.equals (code) )
+		{
+			return;
+		}
+		final int number = getMessageNumber (data);
+		if ( number < 0 )
+		{
+			return;
+		}
+		async.getMessage (number).whenComplete (
+			new BiConsumer<PhoneMessage, Throwable> ()
+		{
+			@Override
+			public void accept (PhoneMessage msg, Throwable ex)
+			{
+				if ( ex != null )
+				{
+					Utils.handleException (ex,
+						"MessageWatcher.getMessage: " + number);	// NOI18N
+					return;
+				}
+				if ( msg == null )
+				{
+					return;
+				}
+				// +CMGR replies don't contain the number
+				msg.setID (String.valueOf (number));
+				listener.messageReceived (msg);
+			}
+		});
+	}
+
+	/**
+	 * Gets the message number from the data of a +CMTI code,
+	 * like <code>"SM",3</code>.
+	 * @param data The data of the code.
+	 * @return the message number or -1 if not found.
+	 */
+	static int getMessageNumber (String data)
+	{
+		if ( data == null )
+		{
+			return -1;
+		}
+		int comma = data.lastIndexOf (',');
+		try
+		{
+			return Integer.parseInt (data.substring (comma + 1).trim ());
+		}
+		catch (NumberFormatException ex)
+		{
+			return -1;
+		}
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "MessageWatcher[" + tp.getId () + "]";	// NOI18N
+	}
+}
@@ -0,0 +1,472 @@
+/*
+ * ObjectCache.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.PhoneElement;
+import bogdrosoft.jymag.Utils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ObjectCache - keeps copies of the objects downloaded from the phones, so
+ * that an object which hasn't changed doesn't have to be downloaded again.
+ * An object is found by the IMEI of its phone and by its ID and the length,
+ * type and name from the phone's list, so only the objects of a known
+ * phone and with a known length are kept. The
+ * contents are stored once per SHA-256 hash, so the same content under
+ * many IDs or in many phones takes space only once. When the contents
+ * take more than the maximum size, the least recently used objects are
+ * removed.
+ * @author Bogdan Drozdowski
+ */
+public class ObjectCache
+{
+	/** The default maximum size of the contents, in bytes. */
+	public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+	/** The beginning of the index file, "JYOC". */
+	private static final int MAGIC = 0x4A594F43;
+	/** The version of the index file format. */
+	private static final int VERSION = 1;
+	private static final String INDEX_FILE = "index";		// NOI18N
+	private static final String TMP_EXT = ".tmp";			// NOI18N
+	private static final String HASH_ALGORITHM = "SHA-256";	// NOI18N
+	private static final char KEY_SEPARATOR = '\n';
+
+	private static ObjectCache defaultCache;
+
+	private final File dir;
+	private final long maxSize;
+	/** The objects by key, the least recently used first. */
+	private final LinkedHashMap<String, Record> index =
+		new LinkedHashMap<String, Record> (16, 0.75f, true);
+	/** The number of objects with each content, by hash. */
+	private final Map<String, Integer> refs = new HashMap<String, Integer> (16);
+	/** The size of all the stored contents. */
+	private long size;
+	private boolean loaded;
+	/** TRUE if the order of the objects has changed since the index was written. */
+	private boolean dirty;
+
+	/**
+	 * A stored object.
+	 */
+	private static final class Record
+	{
+		private final String hash;
+		private final long length;
+
+		private Record (String contentHash, long contentLength)
+		{
+			hash = contentHash;
+			length = contentLength;
+		}
+	}
+
+	/**
+	 * Creates a new instance of ObjectCache.
+	 * @param directory The directory to keep the objects in. Created
+	 *	when the first object is stored.
+	 * @param maxBytes The maximum size of the contents, in bytes.
+	 */
+	public ObjectCache (File directory, long maxBytes)
+	{
+		if ( directory == null )
+		{
+			throw new IllegalArgumentException ("ObjectCache: directory==null");	// NOI18N
+		}
+		if ( maxBytes <= 0 )
+		{
+			throw new IllegalArgumentException ("ObjectCache: maxBytes=" + maxBytes);	// NOI18N
+		}
+		dir = directory;
+		maxSize = maxBytes;
+	}
+
+	/**
+	 * Gets the cache kept in the user's home directory.
+	 * @return the default cache or null if the home directory is unknown.
+	 */
+	public static synchronized ObjectCache getDefault ()
+	{
+		if ( defaultCache == null )
+		{
+			try
+			{
+				String home = System.getProperty ("user.home");	// NOI18N
+				if ( home != null )
+				{
+					defaultCache = new ObjectCache (new File (home,
+						".jymag" + File.separator + "objects"),	// NOI18N
+						DEFAULT_MAX_SIZE);
+				}
+			}
+			catch (Exception ex)
+			{
+				Utils.handleException (ex, "ObjectCache.getDefault");	// NOI18N
+			}
+		}
+		return defaultCache;
+	}
+
+	/**
+	 * Copies the stored copy of the given object to the given file.
+	 * @param imei The IMEI of the phone with the object.
+	 * @param el The object to look for.
+	 * @param f The file to write.
+	 * @return TRUE if the object was found and copied.
+	 */
+	public synchronized boolean get (String imei, PhoneElement el, File f)
+	{
+		String key = getKey (imei, el);
+		if ( key == null || f == null )
+		{
+			return false;
+		}
+		load ();
+		Record r = index.get (key);
+		if ( r == null )
+		{
+			return false;
+		}
+		dirty = true;
+		File content = getContentFile (r.hash);
+		try
+		{
+			Files.copy (content.toPath (), f.toPath (),
+				StandardCopyOption.REPLACE_EXISTING);
+			return true;
+		}
+		catch (IOException ex)
+		{
+			Utils.handleException (ex, "ObjectCache.get: " + el);	// NOI18N
+			// the content is lost or can't be read - forget it
+			remove (key);
+			writeIndex ();
+			return false;
+		}
+	}
+
+	/**
+	 * Stores a copy of the given object, downloaded to the given file.
+	 * @param imei The IMEI of the phone with the object.
+	 * @param el The object downloaded.
+	 * @param f The file with the object's contents.
+	 */
+	public synchronized void put (String imei, PhoneElement el, File f)
+	{
+		String key = getKey (imei, el);
+		if ( key == null || f == null || ! f.isFile ()
+			|| f.length () > maxSize )
+		{
+			return;
+		}
+		load ();
+		try
+		{
+			String hash = getHash (f);
+			Record old = index.get (key);
+			if ( old != null && old.hash.equals (hash) )
+			{
+				return;
+			}
+			File content = getContentFile (hash);
+			if ( ! refs.containsKey (hash) )
+			{
+				if ( ! dir.isDirectory () && ! dir.mkdirs () )
+				{
+					throw new IOException ("ObjectCache.put: mkdirs: " + dir);	// NOI18N
+				}
+				File tmp = new File (dir, hash + TMP_EXT);
+				Files.copy (f.toPath (), tmp.toPath (),
+					StandardCopyOption.REPLACE_EXISTING);
+				Files.move (tmp.toPath (), content.toPath (),
+					StandardCopyOption.REPLACE_EXISTING);
+				size += content.length ();
+			}
+			remove (key);
+			index.put (key, new Record (hash, content.length ()));
+			addRef (hash);
+			evict ();
+			writeIndex ();
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "ObjectCache.put: " + el);	// NOI18N
+		}
+	}
+
+	/**
+	 * Writes the order of the objects, if it has changed.
+	 */
+	public synchronized void flush ()
+	{
+		if ( dirty )
+		{
+			writeIndex ();
+		}
+	}
+
+	/**
+	 * Gets the size of all the stored contents.
+	 * @return the size of all the stored contents, in bytes.
+	 */
+	public synchronized long getSize ()
+	{
+		load ();
+		return size;
+	}
+
+	/**
+	 * Gets the key of the given object. The phones number their objects
+	 * in the same way, so the key includes the phone's IMEI.
+	 * @param imei The IMEI of the phone with the object.
+	 * @param el The object.
+	 * @return the key or null if the object can't be stored.
+	 */
+	static String getKey (String imei, PhoneElement el)
+	{
+		if ( imei == null || imei.isEmpty () || el == null
+			|| el.getID () == null || el.getLength () < 0 )
+		{
+			return null;
+		}
+		return imei + KEY_SEPARATOR + el.getID ()
+			+ KEY_SEPARATOR + el.getLength ()
+			+ KEY_SEPARATOR + el.getFormat ()
+			+ KEY_SEPARATOR + el.getName ();
+	}
+
+	private File getContentFile (String hash)
+	{
+		return new File (dir, hash);
+	}
+
+	private void addRef (String hash)
+	{
+		Integer n = refs.get (hash);
+		refs.put (hash, (n == null)? 1 : n + 1);
+	}
+
+	/**
+	 * Forgets the given object and removes its content if no other
+	 * object has it.
+	 */
+	private void remove (String key)
+	{
+		Record r = index.remove (key);
+		if ( r == null )
+		{
+			return;
+		}
+		Integer n = refs.get (r.hash);
+		if ( n != null && n > 1 )
+		{
+			refs.put (r.hash, n - 1);
+			return;
+		}
+		refs.remove (r.hash);
+		size -= r.length;
+		File content = getContentFile (r.hash);
+		if ( content.exists () && ! content.delete () )
+		{
+			Utils.handleException (new IOException (content.getPath ()),
+				"ObjectCache.remove");	// NOI18N
+		}
+	}
+
+	/**
+	 * Removes the least recently used objects until the contents fit.
+	 */
+	private void evict ()
+	{
+		Iterator<String> it = index.keySet ().iterator ();
+		while ( size > maxSize && it.hasNext () )
+		{
+			String key = it.next ();
+			// remove() changes the map, so start again each time
+			remove (key);
+			it = index.keySet ().iterator ();
+		}
+	}
+
+	private static String getHash (File f) throws Exception
+	{
+		MessageDigest md = MessageDigest.getInstance (HASH_ALGORITHM);
+		InputStream in = new FileInputStream (f);
+		try
+		{
+			byte[] buf = new byte[8192];
+			int read;
+			while ( (read = in.read (buf)) > 0 )
+			{
+				md.update (buf, 0, read);
+			}
+		}
+		finally
+		{
+			in.close ();
+		}
+		byte[] digest = md.digest ();
+		StringBuilder sb = new StringBuilder (digest.length * 2);
+		for ( int i = 0; i < digest.length; i++ )
+		{
+			sb.append (Character.forDigit ((digest[i] >> 4) & 0x0F, 16));
+			sb.append (Character.forDigit (digest[i] & 0x0F, 16));
+		}
+		return sb.toString ();
+	}
+
+	/**
+	 * Reads the index, if it hasn't been read yet. The objects whose
+	 * contents are missing are skipped.
+	 */
+	private void load ()
+	{
+		if ( loaded )
+		{
+			return;
+		}
+		loaded = true;
+		File f = new File (dir, INDEX_FILE);
+		if ( ! f.exists () )
+		{
+			return;
+		}
+		DataInputStream in = null;
+		try
+		{
+			in = new DataInputStream (new BufferedInputStream (
+				new FileInputStream (f)));
+			if ( in.readInt () != MAGIC || in.readInt () != VERSION )
+			{
+				return;
+			}
+			int count = in.readInt ();
+			for ( int i = 0; i < count; i++ )
+			{
+				String key = in.readUTF ();
+				String hash = in.readUTF ();
+				long length = in.readLong ();
+				File content = getContentFile (hash);
+				if ( content.length () != length )
+				{
+					continue;
+				}
+				if ( ! refs.containsKey (hash) )
+				{
+					size += length;
+				}
+				index.put (key, new Record (hash, length));
+				addRef (hash);
+			}
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "ObjectCache.load: " + f);	// NOI18N
+		}
+		finally
+		{
+			if ( in != null )
+			{
+				try
+				{
+					in.close ();
+				}
+				catch (IOException ex)
+				{
+					Utils.handleException (ex, "ObjectCache.load.close");	// NOI18N
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the index, the least recently used objects first.
+	 */
+	private void writeIndex ()
+	{
+		File f = new File (dir, INDEX_FILE);
+		File tmp = new File (dir, INDEX_FILE + TMP_EXT);
+		DataOutputStream out = null;
+		try
+		{
+			if ( ! dir.isDirectory () && ! dir.mkdirs () )
+			{
+				throw new IOException ("ObjectCache.writeIndex: mkdirs: " + dir);	// NOI18N
+			}
+			out = new DataOutputStream (new BufferedOutputStream (
+				Files.newOutputStream (tmp.toPath ())));
+			out.writeInt (MAGIC);
+			out.writeInt (VERSION);
+			out.writeInt (index.size ());
+			for ( Map.Entry<String, Record> e : index.entrySet () )
+			{
+				out.writeUTF (e.getKey ());
+				out.writeUTF (e.getValue ().hash);
+				out.writeLong (e.getValue ().length);
+			}
+			out.close ();
+			out = null;
+			Files.move (tmp.toPath (), f.toPath (),
+				StandardCopyOption.REPLACE_EXISTING);
+			dirty = false;
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "ObjectCache.writeIndex");	// NOI18N
+		}
+		finally
+		{
+			if ( out != null )
+			{
+				try
+				{
+					out.close ();
+				}
+				catch (IOException ex)
+				{
+					Utils.handleException (ex, "ObjectCache.writeIndex.close");	// NOI18N
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "ObjectCache[" + dir + "]";	// NOI18N
+	}
+}
@@ -0,0 +1,311 @@
+/*
+ * OperationExecutor.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.Utils;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OperationExecutor - runs the TransferOperations in the background.
+ * The operations are performed by a pluggable ExecutorService - by
+ * default, one with virtual threads, if the runtime has them, or with
+ * daemon platform threads otherwise. The caller waiting for an operation
+ * blocks on its Future and then completes the operation itself, so the
+ * result is available as soon as the operation ends. The operations not
+ * waited for are completed by the callback Executor - by default, on the
+ * thread which has performed them. The GUI sets it to the Event
+ * Dispatching Thread, so no Swing classes are used without the GUI.
+ * @author Bogdan Drozdowski
+ */
+public final class OperationExecutor
+{
+	/** The result of an operation which threw an exception. */
+	static final int RESULT_EXCEPTION = -101;
+	/** The result of an operation which has been interrupted. */
+	static final int RESULT_INTERRUPTED = -102;
+
+	/** Runs the given code at once, on the calling thread. */
+	private static final Executor DIRECT = new Executor ()
+	{
+		@Override
+		public void execute (Runnable r)
+		{
+			r.run ();
+		}
+
+		@Override
+		public String toString ()
+		{
+			return "OperationExecutor.DIRECT";	// NOI18N
+		}
+	};
+
+	private static ExecutorService defaultWorkers;
+	private static volatile ExecutorService workers;
+	private static volatile Executor callbacks = DIRECT;
+
+	// non-instantiable
+	private OperationExecutor () {}
+
+	/**
+	 * Sets the ExecutorService to perform the operations with.
+	 * @param exec The ExecutorService to use or null for the default one.
+	 */
+	public static void setExecutor (ExecutorService exec)
+	{
+		workers = exec;
+	}
+
+	/**
+	 * Gets the ExecutorService performing the operations.
+	 * @return the ExecutorService performing the operations.
+	 */
+	public static ExecutorService getExecutor ()
+	{
+		ExecutorService res = workers;
+		if ( res == null )
+		{
+			res = getDefaultExecutor ();
+		}
+		return res;
+	}
+
+	/**
+	 * Sets the Executor completing the operations which aren't waited for:
+	 * processing their data, displaying the errors and running the
+	 * code given for the end of the operation.
+	 * @param exec The Executor to use or null to complete the operations
+	 *	on the threads which have performed them.
+	 */
+	public static void setCallbackExecutor (Executor exec)
+	{
+		callbacks = (exec != null)? exec : DIRECT;
+	}
+
+	private static synchronized ExecutorService getDefaultExecutor ()
+	{
+		if ( defaultWorkers == null )
+		{
+			defaultWorkers = createVirtualThreadExecutor ();
+			if ( defaultWorkers == null )
+			{
+				defaultWorkers = Executors.newCachedThreadPool (
+					new ThreadFactory ()
+				{
+					private final AtomicInteger number = new AtomicInteger (0);
+
+					@Override
+					public Thread newThread (Runnable r)
+					{
+						Thread t = new Thread (r, "OperationExecutor-"	// NOI18N
+							+ number.incrementAndGet ());
+						t.setDaemon (true);
+						return t;
+					}
+				});
+			}
+		}
+		return defaultWorkers;
+	}
+
+	/**
+	 * Creates an ExecutorService starting a new virtual thread for each
+	 * operation, if the runtime has virtual threads.
+	 * @return the new ExecutorService or null if virtual threads
+	 *	aren't available.
+	 */
+	private static ExecutorService createVirtualThreadExecutor ()
+	{
+		try
+		{
+			return (ExecutorService) Executors.class.getMethod (
+				"newVirtualThreadPerTaskExecutor").invoke (null);	// NOI18N
+		}
+		catch (Exception ex)
+		{
+			// an older runtime
+			return null;
+		}
+	}
+
+	/**
+	 * Performs the given operation in the background. If the operation
+	 * is to be waited for, this method returns when it has been
+	 * completed, including the code for the end of the operation.
+	 * @param <T> the type of the operation's result.
+	 * @param op the operation to perform.
+	 * @return the result of the operation if it is waited for and 0
+	 *	otherwise.
+	 */
+	static <T> int run (final TransferOperation<T> op)
+	{
+		if ( op.isWaitFor () )
+		{
+			Future<T> f = getExecutor ().submit (new Callable<T> ()
+			{
+				@Override
+				public T call () throws Exception
+				{
+					return op.perform ();
+				}
+
+				@Override
+				public String toString ()
+				{
+					return "OperationExecutor.run.Callable." + op.getName ();	// NOI18N
+				}
+			});
+			T res = null;
+			int failure = 0;
+			try
+			{
+				res = f.get ();
+			}
+			catch (ExecutionException ex)
+			{
+				Utils.handleException (ex.getCause (),
+					"OE." + op.getName ()		// NOI18N
+					+ ".perform: "			// NOI18N
+					+ op.getErrorParams ());
+				failure = RESULT_EXCEPTION;
+			}
+			catch (InterruptedException ex)
+			{
+				// the operation goes on, but nobody waits for it
+				Thread.currentThread ().interrupt ();
+				failure = RESULT_INTERRUPTED;
+			}
+			return complete (op, res, failure);
+		}
+
+		getExecutor ().execute (new Runnable ()
+		{
+			@Override
+			public void run ()
+			{
+				T res = null;
+				int failure = 0;
+				try
+				{
+					res = op.perform ();
+				}
+				catch (Exception ex)
+				{
+					Utils.handleException (ex,
+						"OE." + op.getName ()		// NOI18N
+						+ ".perform: "			// NOI18N
+						+ op.getErrorParams ());
+					failure = RESULT_EXCEPTION;
+				}
+				final T result = res;
+				final int err = failure;
+				callbacks.execute (new Runnable ()
+				{
+					@Override
+					public void run ()
+					{
+						complete (op, result, err);
+					}
+
+					@Override
+					public String toString ()
+					{
+						return "OperationExecutor.run.Runnable.Runnable." + op.getName ();	// NOI18N
+					}
+				});
+			}
+
+			@Override
+			public String toString ()
+			{
+				return "OperationExecutor.run.Runnable." + op.getName ();	// NOI18N
+			}
+		});
+		return 0;
+	}
+
+	/**
+	 * Completes the given operation: processes its data, displays
+	 * the errors and runs the code for the end of the operation.
+	 * @param op the operation to complete.
+	 * @param res the result of the operation.
+	 * @param failure the error code if the operation has failed
+	 *	without a result, 0 otherwise.
+	 * @return the result code of the operation.
+	 */
+	private static <T> int complete (TransferOperation<T> op, T res,
+		int failure)
+	{
+		int put = failure;
+		try
+		{
+			if ( failure == 0 )
+			{
+				if ( res == null )
+				{
+					// another data type, but null means error
+					put = -1;
+				}
+				else if ( res instanceof Number )
+				{
+					put = ((Number)res).intValue ();
+				}
+				else
+				{
+					// another data type - process it
+					op.processData (res);
+				}
+			}
+			if ( put != 0 )
+			{
+				TransferUtils.showOperationError (op, put);
+			}
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex,
+				"OE." + op.getName ()		// NOI18N
+				+ ".complete: "			// NOI18N
+				+ op.getErrorParams ());
+			put = RESULT_EXCEPTION;
+		}
+		try
+		{
+			op.runOnDone ();
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex,
+				"OE." + op.getName ()		// NOI18N
+				+ ".onDone: "			// NOI18N
+				+ op.getErrorParams ());
+		}
+		return put;
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * PortOperation.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+/**
+ * An operation which needs an open port. The port is taken from
+ * the SessionPool before the operation and given back after it.
+ * The operation waits for its turn in the port's CommandScheduler.
+ * @author Bogdan Drozdowski
+ */
+abstract class PortOperation<T> extends TransferOperation<T>
+{
+	private final TransferParameters opParams;
+	private final CommandScheduler scheduler;
+
+	/**
+	 * The PortOperation constructor, setting basic data.
+	 * @param name the name of this operation.
+	 * @param errorParams a description or value of any paramters.
+	 * @param onDone the code to run after performing the operation.
+	 * @param waitFor whether the program should wait until the
+	 * 	operation is completed.
+	 * @param tp the port parameters to use. Can't be null.
+	 * @param quiet whether the operation should NOT display
+	 *	any messages.
+	 * @param quietGUI whether the operation should NOT display
+	 *	any GUI messages.
+	 * @param parentFrame the parent frame for displaying
+	 *	GUI messages.
+	 */
+	PortOperation(String name, String errorParams, Runnable onDone,
+		boolean waitFor, TransferParameters tp, boolean quiet,
+		boolean quietGUI, Object parentFrame)
+	{
+		super (name, errorParams, onDone, waitFor,
+			quiet, quietGUI, parentFrame);
+		if ( tp == null )
+		{
+			throw new IllegalArgumentException ("PortOperation: tp==null");	// NOI18N
+		}
+		opParams = tp;
+		scheduler = CommandScheduler.forPort (
+			DataTransporter.getPortName (tp.getId ()));
+	}
+
+	/**
+	 * Performs the operation on an open port.
+	 * @return the result of the operation.
+	 */
+	@Override
+	public final T perform() throws Exception
+	{
+		scheduler.acquire (getPriority ());
+		try
+		{
+			final DataTransporter dt = SessionPool.acquire (opParams);
+			boolean ok = false;
+			try
+			{
+				T ret = perform (dt);
+				ok = true;
+				return ret;
+			}
+			finally
+			{
+				SessionPool.release (dt, ok);
+			}
+		}
+		finally
+		{
+			scheduler.release ();
+		}
+	}
+
+	/**
+	 * Lets the more urgent commands use the port between the stages
+	 * of this operation. Must be called only from perform(), when the
+	 * port is not in the middle of a command.
+	 */
+	void giveWay()
+	{
+		scheduler.giveWay ();
+	}
+
+	/**
+	 * Performs the operation.
+	 * @param dt the open port to use.
+	 * @return the result of the operation.
+	 */
+	public abstract T perform(DataTransporter dt) throws Exception;
+}
@@ -0,0 +1,141 @@
+/*
+ * RetryPolicy.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.Utils;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * RetryPolicy - tells how many times and how often a failed operation
+ * should be tried again. The pause before each next attempt doubles,
+ * up to a maximum, and is randomized a bit, so that the retries of many
+ * threads or ports don't happen at the same moments. The retrying stops
+ * after the given number of attempts or after the given time since the
+ * first attempt, whichever comes first. Immutable.
+ * @author Bogdan Drozdowski
+ */
+public class RetryPolicy
+{
+	/**
+	 * The default policy: MAX_TRIALS attempts within 20 seconds,
+	 * with the pauses starting at 100 milliseconds.
+	 */
+	public static final RetryPolicy DEFAULT = new RetryPolicy (
+		DataTransporter.MAX_TRIALS, 100, 2000, 20000);
+
+	/** A policy which makes only one attempt. */
+	public static final RetryPolicy NO_RETRIES = new RetryPolicy (1, 0, 0, 0);
+
+	private final int maxAttempts;
+	private final long baseDelay;
+	private final long maxDelay;
+	private final long maxElapsed;
+
+	/**
+	 * Creates a new instance of RetryPolicy.
+	 * @param attempts The maximum number of attempts, at least 1.
+	 * @param base The pause before the first retry, in milliseconds.
+	 * @param max The maximum pause before a retry, in milliseconds.
+	 * @param elapsed The maximum time since the first attempt after
+	 *	which a retry can still start, in milliseconds, 0 for no limit.
+	 */
+	public RetryPolicy (int attempts, long base, long max, long elapsed)
+	{
+		if ( attempts < 1 || base < 0 || max < base || elapsed < 0 )
+		{
+			throw new IllegalArgumentException ("RetryPolicy: "	// NOI18N
+				+ attempts + "," + base + "," + max + "," + elapsed);	// NOI18N
+		}
+		maxAttempts = attempts;
+		baseDelay = base;
+		maxDelay = max;
+		maxElapsed = elapsed;
+	}
+
+	/**
+	 * Gets the maximum number of attempts.
+	 * @return the maximum number of attempts.
+	 */
+	public int getMaxAttempts ()
+	{
+		return maxAttempts;
+	}
+
+	/**
+	 * Tells if another attempt can be made.
+	 * @param failures The number of failed attempts so far.
+	 * @param startTime The time of the first attempt, as returned by
+	 *	System.currentTimeMillis().
+	 * @return TRUE if another attempt can be made.
+	 */
+	public boolean canRetry (int failures, long startTime)
+	{
+		if ( failures >= maxAttempts )
+		{
+			return false;
+		}
+		return maxElapsed == 0
+			|| System.currentTimeMillis () - startTime < maxElapsed;
+	}
+
+	/**
+	 * Gets the pause before the next attempt. The result is random,
+	 * between a half of the full pause and the full pause.
+	 * @param failures The number of failed attempts so far.
+	 * @return the pause before the next attempt, in milliseconds.
+	 */
+	public long getDelay (int failures)
+	{
+		if ( failures < 1 || baseDelay == 0 )
+		{
+			return 0;
+		}
+		long delay = maxDelay;
+		int shift = failures - 1;
+		if ( shift < 62 && (baseDelay << shift) >> shift == baseDelay )
+		{
+			delay = Math.min (baseDelay << shift, maxDelay);
+		}
+		long half = delay / 2;
+		return half + ThreadLocalRandom.current ().nextLong (delay - half + 1);
+	}
+
+	/**
+	 * Waits the pause before the next attempt.
+	 * @param failures The number of failed attempts so far.
+	 */
+	public void backOff (int failures)
+	{
+		long delay = getDelay (failures);
+		if ( delay > 0 )
+		{
+			Utils.sleepIgnoreException (delay);
+		}
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "RetryPolicy[attempts=" + maxAttempts + ",delay=" + baseDelay	// NOI18N
+			+ ".." + maxDelay + ",elapsed=" + maxElapsed + "]";	// NOI18N
+	}
+}
@@ -0,0 +1,444 @@
+/*
+ * SessionPool.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.Utils;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SessionPool - keeps the ports open between the operations, one session
+ * per port. A session which has been idle for a while is checked with
+ * an "AT" command before being reused and is reopened if the phone doesn't
+ * answer. Sessions idle for longer than the maximum idle time are closed.
+ * @author Bogdan Drozdowski
+ */
+public class SessionPool
+{
+	/** The default maximum idle time of a session, in milliseconds. */
+	public static final long DEFAULT_MAX_IDLE_TIME = 30000;
+	/** A session idle for longer than this is checked before reuse, in milliseconds. */
+	static final long CHECK_IDLE_TIME = 2000;
+	/** How often the idle sessions are looked for, in milliseconds. */
+	private static final long EVICT_PERIOD = 1000;
+
+	/** The open sessions, by port name. Guarded by itself. */
+	private static final Map<String, Session> SESSIONS =
+		new HashMap<String, Session> (4);
+	private static long maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+	private static ScheduledExecutorService evictor;
+
+	// non-instantiable
+	private SessionPool () {}
+
+	/**
+	 * An open port with the parameters it was opened with.
+	 */
+	private static class Session
+	{
+		private final DataTransporter dt;
+		private final TransferParameters params;
+		private long lastUsed;
+		/** The number of operations using the session. */
+		private int users;
+
+		private Session (DataTransporter transporter, TransferParameters tp)
+		{
+			dt = transporter;
+			params = tp;
+			users = 1;
+		}
+	}
+
+	/**
+	 * Gets an open DataTransporter for the port described by the given
+	 * parameters, reusing the pooled session if possible.
+	 * Each acquired DataTransporter must be given back with release().
+	 * A session in use is shared only with the threads which hold the
+	 * port's CommandScheduler, while its user has given the port away.
+	 * @param tp The port parameters to use.
+	 * @return an open DataTransporter.
+	 * @throws java.lang.Exception in case port opening failed.
+	 */
+	static DataTransporter acquire (TransferParameters tp) throws Exception
+	{
+		if ( tp == null )
+		{
+			throw new IllegalArgumentException ("SessionPool.acquire: tp == null");	// NOI18N
+		}
+		String name = getKey (tp.getId ());
+		Session pooled = null;
+		Session stale = null;
+		boolean canPool;
+		boolean shared = false;
+		synchronized (SESSIONS)
+		{
+			canPool = maxIdleTime > 0;
+			Session s = SESSIONS.get (name);
+			if ( s != null )
+			{
+				if ( s.users > 0 )
+				{
+					if ( isSameSetup (s.params, tp)
+						&& CommandScheduler.forPort (name).isHeldByCurrentThread () )
+					{
+						// the other user is waiting for the port
+						s.users++;
+						pooled = s;
+						shared = true;
+					}
+					else
+					{
+						// used by another operation - don't share it
+						canPool = false;
+					}
+				}
+				else if ( isSameSetup (s.params, tp) )
+				{
+					s.users = 1;
+					pooled = s;
+				}
+				else
+				{
+					SESSIONS.remove (name);
+					stale = s;
+				}
+			}
+		}
+		if ( stale != null )
+		{
+			stale.dt.close ();
+		}
+		if ( pooled != null )
+		{
+			if ( shared
+				|| System.currentTimeMillis () - pooled.lastUsed <= CHECK_IDLE_TIME
+				|| pooled.dt.ping () == 0 )
+			{
+				return pooled.dt;
+			}
+			// no answer, reopen the port
+			pooled.dt.close ();
+			try
+			{
+				openPort (pooled.dt, tp);
+			}
+			catch (Exception ex)
+			{
+				synchronized (SESSIONS)
+				{
+					SESSIONS.remove (name);
+				}
+				throw ex;
+			}
+			return pooled.dt;
+		}
+		DataTransporter dt = new DataTransporter (tp.getId ());
+		openPort (dt, tp);
+		if ( canPool )
+		{
+			synchronized (SESSIONS)
+			{
+				if ( maxIdleTime > 0 && ! SESSIONS.containsKey (name) )
+				{
+					SESSIONS.put (name, new Session (dt, tp));
+					startEvictor ();
+				}
+			}
+		}
+		return dt;
+	}
+
+	/**
+	 * Gives back the DataTransporter received from acquire(). The port
+	 * is kept open for the next operation if the current one succeeded
+	 * and closed otherwise.
+	 * @param dt The DataTransporter to give back.
+	 * @param ok FALSE if an error occurred while using the port.
+	 */
+	static void release (DataTransporter dt, boolean ok)
+	{
+		if ( dt == null )
+		{
+			return;
+		}
+		synchronized (SESSIONS)
+		{
+			Iterator<Session> it = SESSIONS.values ().iterator ();
+			while ( it.hasNext () )
+			{
+				Session s = it.next ();
+				if ( s.dt == dt )
+				{
+					s.users--;
+					if ( s.users > 0 )
+					{
+						// still used by someone else
+						return;
+					}
+					if ( ok && maxIdleTime > 0 )
+					{
+						s.lastUsed = System.currentTimeMillis ();
+						return;
+					}
+					it.remove ();
+					break;
+				}
+			}
+		}
+		dt.close ();
+	}
+
+	/**
+	 * Keeps the given open port open until it is given back with
+	 * an extra call to release(), even if it wasn't pooled or the pool
+	 * is disabled. The current thread must have got the port from
+	 * acquire() and not given it back yet.
+	 * @param dt The DataTransporter to keep open.
+	 * @param tp The port parameters the port was opened with.
+	 * @return TRUE if the port will be kept open, FALSE if another
+	 *	session for the same port is pooled.
+	 */
+	static boolean retain (DataTransporter dt, TransferParameters tp)
+	{
+		if ( dt == null || tp == null )
+		{
+			return false;
+		}
+		String name = getKey (tp.getId ());
+		synchronized (SESSIONS)
+		{
+			Session s = SESSIONS.get (name);
+			if ( s == null )
+			{
+				s = new Session (dt, tp);
+				// the current user and the retaining one
+				s.users = 2;
+				SESSIONS.put (name, s);
+				startEvictor ();
+				return true;
+			}
+			if ( s.dt != dt )
+			{
+				return false;
+			}
+			s.users++;
+			return true;
+		}
+	}
+
+	/**
+	 * Closes the idle pooled session for the given port, so that the
+	 * port can be opened by someone else.
+	 * @param portName The name of the port.
+	 * @param opener The DataTransporter which is opening the port.
+	 */
+	static void closeIdle (String portName, DataTransporter opener)
+	{
+		String name = (portName != null)? portName : Utils.EMPTY_STR;
+		Session toClose = null;
+		synchronized (SESSIONS)
+		{
+			Session s = SESSIONS.get (name);
+			if ( s != null && s.users == 0 && s.dt != opener )
+			{
+				SESSIONS.remove (name);
+				toClose = s;
+			}
+		}
+		if ( toClose != null )
+		{
+			toClose.dt.close ();
+		}
+	}
+
+	/**
+	 * Closes the sessions which have been idle for too long.
+	 * @return the number of sessions closed.
+	 */
+	static int evictIdle ()
+	{
+		Vector<Session> toClose = new Vector<Session> (4);
+		synchronized (SESSIONS)
+		{
+			long now = System.currentTimeMillis ();
+			Iterator<Session> it = SESSIONS.values ().iterator ();
+			while ( it.hasNext () )
+			{
+				Session s = it.next ();
+				if ( s.users == 0 && now - s.lastUsed >= maxIdleTime )
+				{
+					it.remove ();
+					toClose.add (s);
+				}
+			}
+		}
+		for ( int i = 0; i < toClose.size (); i++ )
+		{
+			toClose.get (i).dt.close ();
+		}
+		return toClose.size ();
+	}
+
+	/**
+	 * Closes all the idle sessions. The sessions currently in use
+	 * will be closed when released.
+	 */
+	public static void closeAll ()
+	{
+		Vector<Session> toClose = new Vector<Session> (4);
+		synchronized (SESSIONS)
+		{
+			Iterator<Session> it = SESSIONS.values ().iterator ();
+			while ( it.hasNext () )
+			{
+				Session s = it.next ();
+				if ( s.users == 0 )
+				{
+					toClose.add (s);
+				}
+			}
+			SESSIONS.clear ();
+		}
+		for ( int i = 0; i < toClose.size (); i++ )
+		{
+			toClose.get (i).dt.close ();
+		}
+	}
+
+	/**
+	 * Sets the maximum time a port can stay open without being used.
+	 * @param millis The new maximum idle time, in milliseconds.
+	 *	0 or less means that the ports are closed after each operation.
+	 */
+	public static void setMaxIdleTime (long millis)
+	{
+		synchronized (SESSIONS)
+		{
+			maxIdleTime = Math.max (millis, 0);
+		}
+		if ( millis <= 0 )
+		{
+			closeAll ();
+		}
+		else
+		{
+			evictIdle ();
+		}
+	}
+
+	/**
+	 * Gets the maximum time a port can stay open without being used.
+	 * @return the maximum idle time, in milliseconds.
+	 */
+	public static long getMaxIdleTime ()
+	{
+		synchronized (SESSIONS)
+		{
+			return maxIdleTime;
+		}
+	}
+
+	/**
+	 * Gets the number of open pooled sessions.
+	 * @return the number of open pooled sessions.
+	 */
+	static int getSessionCount ()
+	{
+		synchronized (SESSIONS)
+		{
+			return SESSIONS.size ();
+		}
+	}
+
+	private static void openPort (DataTransporter dt, TransferParameters tp)
+		throws Exception
+	{
+		dt.open (tp.getSpeed (), tp.getDataBits (),
+			tp.getStopBits (),
+			tp.getParity (), tp.getFlow ());
+	}
+
+	private static String getKey (Object id)
+	{
+		String name = DataTransporter.getPortName (id);
+		return (name != null)? name : Utils.EMPTY_STR;
+	}
+
+	private static boolean isSameSetup (TransferParameters a, TransferParameters b)
+	{
+		return a.getId () == b.getId ()
+			&& a.getSpeed () == b.getSpeed ()
+			&& a.getDataBits () == b.getDataBits ()
+			&& Math.abs (a.getStopBits () - b.getStopBits ()) < 0.0001
+			&& a.getParity () == b.getParity ()
+			&& a.getFlow () == b.getFlow ();
+	}
+
+	/**
+	 * Starts the thread closing the idle sessions, if not started yet.
+	 * Must be called with the SESSIONS lock held.
+	 */
+	private static void startEvictor ()
+	{
+		if ( evictor != null )
+		{
+			return;
+		}
+		evictor = Executors.newSingleThreadScheduledExecutor (new ThreadFactory ()
+		{
+			@Override
+			public Thread newThread (Runnable r)
+			{
+				Thread t = new Thread (r, "SessionPool.evictor");	// NOI18N
+				t.setDaemon (true);
+				return t;
+			}
+		});
+		evictor.scheduleWithFixedDelay (new Runnable ()
+		{
+			@Override
+			public void run ()
+			{
+				try
+				{
+					evictIdle ();
+				}
+				catch (Exception ex)
+				{
+					Utils.handleException (ex, "SessionPool.evictor");	// NOI18N
+				}
+			}
+
+			@Override
+			public String toString ()
+			{
+				return "SessionPool.evictor";	// NOI18N
+			}
+		}, EVICT_PERIOD, EVICT_PERIOD, TimeUnit.MILLISECONDS);
+	}
+}
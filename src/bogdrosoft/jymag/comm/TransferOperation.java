@@ -20,7 +20,6 @@
 package bogdrosoft.jymag.comm;
 
 import bogdrosoft.jymag.Utils;
-import java.awt.Component;
 
 /**
  * A class describing the operation to perform.
@@ -32,10 +31,9 @@ abstract class TransferOperation<T>
 	private String opErrorParams;
 	private Runnable opOnDone;
 	private boolean opWaitFor;
-	private Object opSync;
 	private boolean opQuiet;
 	private boolean opQuietGUI;
-	private Component opParentFrame;
+	private Object opParentFrame;
 
 	/**
 	 * The TUOperation constructor, setting basic data.
@@ -44,8 +42,6 @@ abstract class TransferOperation<T>
 	 * @param onDone the code to run after performing the operation.
 	 * @param waitFor whether the program should wait until the
 	 * 	operation is completed.
-	 * @param sync the transmission synchronization object.
-	 *	 Can't be null.
 	 * @param quiet whether the operation should NOT display
 	 *	any messages.
 	 * @param quietGUI whether the operation should NOT display
@@ -54,18 +50,13 @@ abstract class TransferOperation<T>
 	 *	GUI messages.
 	 */
 	TransferOperation(String name, String errorParams, Runnable onDone,
-		boolean waitFor, Object sync, boolean quiet, boolean quietGUI,
-		Component parentFrame)
+		boolean waitFor, boolean quiet, boolean quietGUI,
+		Object parentFrame)
 	{
-		if (sync == null)
-		{
-			throw new IllegalArgumentException("TUOperation.TUOperation: sync==null"); // NOI18N
-		}
 		opName = name;
 		opErrorParams = errorParams;
 		opOnDone = onDone;
 		opWaitFor = waitFor;
-		opSync = sync;
 		opQuiet = quiet;
 		opQuietGUI = quietGUI;
 		opParentFrame = parentFrame;
@@ -77,6 +68,15 @@ abstract class TransferOperation<T>
 	 */
 	public abstract T perform() throws Exception;
 
+	/**
+	 * Gets the priority of this operation when waiting for the port.
+	 * @return the priority of this operation.
+	 */
+	public CommandScheduler.Priority getPriority()
+	{
+		return CommandScheduler.Priority.TRANSFER;
+	}
+
 	/**
 	 * Gets an error message for the given error code.
 	 * @param errCode the error code to get the message for.
@@ -128,15 +128,6 @@ abstract class TransferOperation<T>
 		return opWaitFor;
 	}
 
-	/**
-	 * Gets the transmission synchronization object.
-	 * @return the transmission synchronization object.
-	 */
-	public Object getSync()
-	{
-		return opSync;
-	}
-
 	/**
 	 * Tells whether the operation should NOT display any messages.
 	 * @return TRUE if the operation should NOT display any messages.
@@ -159,7 +150,7 @@ abstract class TransferOperation<T>
 	 * Returns the parent frame for displaying GUI messages.
 	 * @return the parent frame for displaying GUI messages.
 	 */
-	public Component getParentFrame()
+	public Object getParentFrame()
 	{
 		return opParentFrame;
 	}
@@ -20,9 +20,6 @@
 
 package bogdrosoft.jymag.comm;
 
-import javax.swing.JCheckBox;
-import javax.swing.JComboBox;
-
 /**
  * A class container for transfer parameters.
  * @author Bogdan Drozdowski
@@ -122,47 +119,6 @@ public class TransferParameters
 			dSync);
         }
 
-	/**
-	 * Creates a new instance of TransferParameters, using defaults.
-	 * @param portCombo Port ID combo box.
-	 * @param speedCombo Port transfer speed (bit rate) combo box.
-	 * @param dataBitsCombo Number of port data bits' combo box.
-	 * @param stopBitsCombo Number of port stop bits' combo box.
-	 * @param parityCombo Port parity setting combo box.
-	 * @param flowSoft Hardware port data flow control setting checkbox.
-	 * @param flowHard Software port data flow control setting checkbox.
-	 * @param dSync Transmission synchronisation object.
-	 */
-	@SuppressWarnings("rawtypes")
-        public TransferParameters (
-		final JComboBox portCombo,
-		final JComboBox speedCombo,
-		final JComboBox dataBitsCombo,
-		final JComboBox stopBitsCombo,
-		final JComboBox parityCombo,
-		final JCheckBox flowSoft,
-		final JCheckBox flowHard,
-		final Object dSync)
-        {
-		Object selectedPort = portCombo.getSelectedItem ();
-		if ( selectedPort != null )
-		{
-			id = TransferUtils.getIdentifierForPort (selectedPort.toString ());
-		}
-		else
-		{
-			// NOTE that the port can be NULL if there aren't any
-			// ports detected at all. We need to manage that gracefully.
-			id = null;
-		}
-		speed = Integer.parseInt (speedCombo.getSelectedItem ().toString ());
-		dataBits = Integer.parseInt (dataBitsCombo.getSelectedItem ().toString ());
-		stopBits = Double.parseDouble(stopBitsCombo.getSelectedItem ().toString ());
-		parity = parityCombo.getSelectedIndex ();
-		flow = (flowSoft.isSelected ()? 1 : 0) + (flowHard.isSelected ()? 2 : 0);
-		sync = dSync;
-        }
-
 	public int getDataBits ()
 	{
 		return dataBits;
@@ -26,24 +26,27 @@ import bogdrosoft.jymag.PhoneElement;
 import bogdrosoft.jymag.PhoneMessage;
 import bogdrosoft.jymag.Utils;
 import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
-import bogdrosoft.jymag.gui.UiUtils;
 import gnu.io.CommPortIdentifier;
 import gnu.io.NoSuchPortException;
-import java.awt.Component;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Vector;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
-import javax.swing.JTable;
-import javax.swing.SwingWorker;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableModel;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * TransferUtils - utility methods connected to transfering data.
@@ -90,6 +93,16 @@ public class TransferUtils
 		= MSGS.getString("Number_of_attempts_exceeded");	// NOI18N
 	private static final String UPLOAD_MSG_11
 		= MSGS.getString("Incorrect_parameter");	// NOI18N
+	private static final String UPLOAD_MSG_12
+		= MSGS.getString("Data_cannot_be_reread");	// NOI18N
+	private static final String UPLOAD_MSG_13
+		= MSGS.getString("Phone_not_responding");	// NOI18N
+	private static final String SYNC_DOWNLOADED
+		= MSGS.getString("sync_downloaded");		// NOI18N
+	private static final String SYNC_UPLOADED
+		= MSGS.getString("sync_uploaded");		// NOI18N
+	private static final String SYNC_CONFLICTS
+		= MSGS.getString("sync_conflicts");		// NOI18N
 	// error messages for file download:
 	private static final String DOWNLOAD_MSG_1
 		= MSGS.getString("Exception_occurred");		// NOI18N
@@ -102,9 +115,42 @@ public class TransferUtils
 	private static final String FILENAME_FORBIDDEN_CHARS_REPLACE = "_";	// NOI18N
 	private static final String ELLIPSIS = "...";				// NOI18N
 
+	/** The maximum number of ports probed at the same time. */
+	private static final int MAX_SCAN_THREADS = 8;
+	/** The default time to wait for the reply to "AT" when scanning, in milliseconds. */
+	public static final long DEFAULT_SCAN_PROBE_TIMEOUT = 2000;
+	private static volatile long scanProbeTimeout = DEFAULT_SCAN_PROBE_TIMEOUT;
+	private static volatile ObjectCache objectCache;
+	private static volatile ErrorDisplay errorDisplay;
+
+	/**
+	 * A displayer of the error messages of the operations, like
+	 * a message box. Without one, the messages are only printed.
+	 */
+	public interface ErrorDisplay
+	{
+		/**
+		 * Displays the given error message.
+		 * @param parent The parent frame given to the operation, can be null.
+		 * @param msg The message to display.
+		 */
+		void showError (Object parent, String msg);
+	}
+
 	// non-instantiable
 	private TransferUtils () {}
 
+	/**
+	 * Sets the displayer of the error messages of the operations which
+	 * aren't quiet for the GUI.
+	 * @param display The displayer to use or null to only print
+	 *	the messages.
+	 */
+	public static void setErrorDisplay (ErrorDisplay display)
+	{
+		errorDisplay = display;
+	}
+
 	/**
 	 * Common method to perform the given operation.
 	 * @param op the operation to perform.
@@ -116,125 +162,36 @@ public class TransferUtils
 		{
 			return -100;
 		}
+		// the operations wait for the port in its scheduler
+		return OperationExecutor.run (op);
+	}
 
-		final AtomicInteger result = new AtomicInteger (0);
-		final AtomicBoolean isDone = new AtomicBoolean (false);
+	/**
+	 * Displays the error message for the given failed operation.
+	 * @param op the operation which has failed.
+	 * @param errCode the error code returned by the operation.
+	 */
+	static void showOperationError (TransferOperation<?> op, int errCode)
+	{
+		String msg = op.msgForError (errCode);
 
-		SwingWorker<T, Void> sw =
-			new SwingWorker<T, Void> ()
+		if ( ! op.isQuiet () )
 		{
-			@Override
-			protected T doInBackground ()
-			{
-				synchronized (op.getSync ())
-				{
-					try
-					{
-						return op.perform ();
-					}
-					catch (Exception e)
-					{
-						Utils.handleException (e,
-							"TU." + op.getName ()		// NOI18N
-							+ ".SW.doInBackground: "	// NOI18N
-							+ op.getErrorParams ());
-						result.set (-101);
-					}
-					return null;
-				}
-			}
-
-			@Override
-			public synchronized void done ()
-			{
-				try
-				{
-					if ( isDone.get () )
-					{
-						return;
-					}
-					int put = 0;
-					T res = get ();
-					if ( res != null )
-					{
-						if ( res instanceof Number )
-						{
-							put = ((Number)res).intValue ();
-						}
-						else
-						{
-							// another data type - process it
-							op.processData (res);
-						}
-					}
-					else
-					{
-						// another data type, but null means error
-						put = -1;
-					}
-					result.set (put);
-					if ( put != 0 )
-					{
-						String msg = op.msgForError (put);
-
-						if ( ! op.isQuiet () )
-						{
-							System.out.println (
-								ERR_STRING + Utils.COLON
-								+ Utils.SPACE + msg + Utils.COLON
-								+ Utils.SPACE + op.getErrorParams ());
-						}
-						if ( ! op.isQuietGUI () )
-						{
-							UiUtils.showErrorMessage(
-								op.getParentFrame (),
-								ERR_STRING + Utils.COLON
-								+ Utils.SPACE + msg
-								+ Utils.COLON + Utils.SPACE
-								+ op.getErrorParams ());
-						}
-					}
-				}
-				catch (Exception ex)
-				{
-					Utils.handleException (ex,
-						"TU." + op.getName ()		// NOI18N
-						+ ".SW.done: "			// NOI18N
-						+ op.getErrorParams ());
-					result.set (-10);
-				}
-				try
-				{
-					op.runOnDone ();
-				}
-				catch (Exception ex)
-				{
-					Utils.handleException (ex,
-						"TU." + op.getName ()		// NOI18N
-						+ ".SW.onDone: "		// NOI18N
-						+ op.getErrorParams ());
-				}
-				isDone.set (true);
-			}
-
-			@Override
-			public String toString ()
-			{
-				return "TransferUtils.performOperation.SwingWorker";	// NOI18N
-			}
-		};
-		sw.execute ();
-		if ( op.isWaitFor () )
+			System.out.println (
+				ERR_STRING + Utils.COLON
+				+ Utils.SPACE + msg + Utils.COLON
+				+ Utils.SPACE + op.getErrorParams ());
+		}
+		ErrorDisplay display = errorDisplay;
+		if ( ! op.isQuietGUI () && display != null )
 		{
-			while ( ! sw.isDone () )
-			{
-				if ( ! isDone.get () )
-				{
-					Utils.sleepIgnoreException(10);
-				}
-			}
+			display.showError (
+				op.getParentFrame (),
+				ERR_STRING + Utils.COLON
+				+ Utils.SPACE + msg
+				+ Utils.COLON + Utils.SPACE
+				+ op.getErrorParams ());
 		}
-		return result.get ();
 	}
 
 	/**
@@ -250,7 +207,7 @@ public class TransferUtils
 	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
 	 */
 	public static int uploadFile (final File f, final TransferParameters tp,
-		final Runnable onDone, final Component parent, final boolean quiet,
+		final Runnable onDone, final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( f == null || tp == null )
@@ -282,24 +239,18 @@ public class TransferUtils
 			return -10;
 		}
 
-		return performOperation (new TransferOperation<Integer>
-			("uploadFile", fname, onDone, waitFor, tp.getSync (),		// NOI18N
+		return performOperation (new PortOperation<Integer>
+			("uploadFile", fname, onDone, waitFor, tp,		// NOI18N
 			quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int ret = dt.putFile (f, fname.substring
 						(0, fname.indexOf (Utils.DOT))
 						.replaceAll (FILENAME_FORBIDDEN_CHARS_REGEX,
 							FILENAME_FORBIDDEN_CHARS_REPLACE)
 						);
-					dt.close ();
 					return ret;
 				}
 
@@ -351,6 +302,14 @@ public class TransferUtils
 					{
 						msg = UPLOAD_MSG_11;
 					}
+					else if ( errCode == -12 )
+					{
+						msg = UPLOAD_MSG_12;
+					}
+					else if ( errCode == -13 )
+					{
+						msg = UPLOAD_MSG_13;
+					}
 					return msg;
 				}
 			});
@@ -371,7 +330,7 @@ public class TransferUtils
 	 */
 	public static int downloadFile (final File f, final PhoneElement element,
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( f == null || tp == null )
@@ -387,21 +346,16 @@ public class TransferUtils
 			return -9;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("downloadFile", element.getFilename ()			// NOI18N
 			+ Utils.COMMA + Utils.SPACE + f.getName (), onDone, waitFor,
-			tp.getSync (), quiet, quietGUI, parent)
+			tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
-				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
-					int ret = dt.getFile (f, element);
-					dt.close ();
+				public Integer perform (DataTransporter dt) throws Exception
+				{
+					int ret = getFile (dt, f, element);
+					flushObjectCache ();
 					return ret;
 				}
 
@@ -440,7 +394,7 @@ public class TransferUtils
 	 */
 	public static int deleteFile (final PhoneElement element,
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( element == null || tp == null )
@@ -448,20 +402,14 @@ public class TransferUtils
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("deleteFile", element.getFilename (),			// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int ret = dt.deleteFile (element);
-					dt.close ();
 					return ret;
 				}
 
@@ -487,7 +435,7 @@ public class TransferUtils
 	 */
 	public static int uploadAlarm (final PhoneAlarm alarm,
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( alarm == null || tp == null )
@@ -495,20 +443,14 @@ public class TransferUtils
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("uploadAlarm", alarm.getAlarmString (),	// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int ret = dt.addAlarm (alarm);
-					dt.close ();
 					return ret;
 				}
 
@@ -534,7 +476,7 @@ public class TransferUtils
 	 */
 	public static int deleteAlarm (final int alarmNo,
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( alarmNo <= 0 || tp == null )
@@ -542,20 +484,14 @@ public class TransferUtils
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("deleteAlarm", String.valueOf(alarmNo),	// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int ret = dt.deleteAlarm (alarmNo);
-					dt.close ();
 					return ret;
 				}
 
@@ -602,7 +538,7 @@ public class TransferUtils
 	 */
 	public static int downloadFiles (final String type,
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor, final String destDir,
 		final boolean deleteAfterDownload)
 	{
@@ -611,24 +547,21 @@ public class TransferUtils
 			return -8;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("downloadFiles", type,			// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
 					int ret = 0;
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					Vector<PhoneElement> elems = dt.getList (type);
 					if ( elems != null )
 					{
 						for ( int i = 0; i < elems.size (); i++ )
 						{
+							// let the more urgent commands in between the files
+							giveWay ();
 							File received = new File (
 								destDir + File.separator
 								+ elems.get (i).getFilename ()
@@ -641,7 +574,7 @@ public class TransferUtils
 									+ Utils.DOT + elems.get (i).getExt ()
 									+ Utils.APOSTROPHE);
 							}
-							int res = dt.getFile (received, elems.get (i));
+							int res = getFile (dt, received, elems.get (i));
 							if ( res != 0 )
 							{
 								ret = res;
@@ -651,8 +584,65 @@ public class TransferUtils
 								dt.deleteFile (elems.get (i));
 							}
 						}
+						flushObjectCache ();
+					}
+					return ret;
+				}
+
+				@Override
+				public String msgForError (int errCode)
+				{
+					return UPLOAD_MSG_11;
+				}
+			});
+	}
+
+	/**
+	 * Synchronizes the given directory with the files of the given type
+	 * in the phone. Only the new and the changed files are transferred,
+	 * in both directions.
+	 * @param type The type of the files to synchronize. One of
+	 *	PICTURES, RINGTONES, VTODO, VEVENT, VCARDS, ANIMATIONS. Can't be null.
+	 * @param tp The port parameters to use.
+	 * @param onDone The code to run at transfer end.
+	 * @param parent The parent frame for displaying messages.
+	 * @param quiet If TRUE, no messages will be displayed.
+	 * @param quietGUI If TRUE, no messageboxes will be displayed.
+	 * @param waitFor If TRUE, the background thread will be waited for.
+	 * @param dir The directory to synchronize.
+	 * @return the result of the task (if it has finished before the
+	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
+	 */
+	public static int syncDirectory (final String type,
+		final TransferParameters tp, final Runnable onDone,
+		final Object parent, final boolean quiet,
+		final boolean quietGUI, final boolean waitFor, final File dir)
+	{
+		if ( tp == null || dir == null || ! isAllowedType (type) )
+		{
+			return -8;
+		}
+
+		return performOperation (new PortOperation<Integer>
+			("syncDirectory", type + Utils.COMMA + Utils.SPACE + dir,	// NOI18N
+			onDone, waitFor, tp, quiet, quietGUI, parent)
+			{
+				@Override
+				public Integer perform (DataTransporter dt) throws Exception
+				{
+					DirectorySync ds = new DirectorySync (dir, type);
+					int ret = ds.sync (dt);
+					flushObjectCache ();
+					if ( ! quiet )
+					{
+						System.out.println (type + Utils.COLON + Utils.SPACE
+							+ SYNC_DOWNLOADED + Utils.SPACE
+							+ ds.getDownloaded () + Utils.COMMA + Utils.SPACE
+							+ SYNC_UPLOADED + Utils.SPACE
+							+ ds.getUploaded () + Utils.COMMA + Utils.SPACE
+							+ SYNC_CONFLICTS + Utils.SPACE
+							+ ds.getConflicts ());
 					}
-					dt.close ();
 					return ret;
 				}
 
@@ -674,36 +664,58 @@ public class TransferUtils
 	 * @param quiet If TRUE, no messages will be displayed.
 	 * @param quietGUI If TRUE, no messageboxes will be displayed.
 	 * @param waitFor If TRUE, the background thread will be waited for.
-	 * @param dtm The table to put the data in or null.
 	 * @param placeForData The place for the found elements or null.
 	 * @return the result of the task (if it has finished before the
 	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
 	 */
 	public static int downloadList (final String ofWhat,
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor,
-		final DefaultTableModel dtm, final Vector<PhoneElement> placeForData)
+		final Vector<PhoneElement> placeForData)
+	{
+		return downloadList (ofWhat, tp, onDone, parent, quiet, quietGUI,
+			waitFor, placeForData, null);
+	}
+
+	/**
+	 * Downloads the list of files of the given type from the phone.
+	 * @param ofWhat The type of the files to download. One of
+	 *	PICTURES, RINGTONES, VTODO, VEVENT, VCARDS, ANIMATIONS. Can't be null.
+	 * @param tp The port parameters to use.
+	 * @param onDone The code to run at transfer end.
+	 * @param parent The parent frame for displaying messages.
+	 * @param quiet If TRUE, no messages will be displayed.
+	 * @param quietGUI If TRUE, no messageboxes will be displayed.
+	 * @param waitFor If TRUE, the background thread will be waited for.
+	 * @param placeForData The place for the found elements or null.
+	 * @param onList The receiver of the list, called only if the list
+	 *	has been received, before onDone. Called before placeForData
+	 *	is filled, so it can still see the previous elements, like
+	 *	the ones shown in a table. Can be null.
+	 * @return the result of the task (if it has finished before the
+	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
+	 */
+	public static int downloadList (final String ofWhat,
+		final TransferParameters tp, final Runnable onDone,
+		final Object parent, final boolean quiet,
+		final boolean quietGUI, final boolean waitFor,
+		final Vector<PhoneElement> placeForData,
+		final Consumer<Vector<PhoneElement>> onList)
 	{
 		if ( tp == null || ! isAllowedType (ofWhat) )
 		{
 			return -8;
 		}
 
-		return performOperation (new TransferOperation<Vector<PhoneElement>>
+		return performOperation (new PortOperation<Vector<PhoneElement>>
 			("downloadList", ofWhat,	// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Vector<PhoneElement> perform () throws Exception
+				public Vector<PhoneElement> perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					Vector<PhoneElement> elems = dt.getList (ofWhat);
-					dt.close ();
 					return elems;
 				}
 
@@ -716,22 +728,15 @@ public class TransferUtils
 				@Override
 				public void processData (Vector<PhoneElement> ret)
 				{
+					if ( onList != null )
+					{
+						onList.accept (ret);
+					}
 					if ( placeForData != null )
 					{
 						placeForData.removeAllElements ();
 						placeForData.addAll (ret);
 					}
-					if ( dtm != null )
-					{
-						dtm.setRowCount (0);
-						for ( int i=0; i < ret.size (); i++ )
-						{
-							dtm.addRow (new String[]
-								{ret.get (i).getFilename ()
-									+ Utils.DOT + ret.get (i).getExt () }
-								);
-						}
-					}
 				}
 			});
 	}
@@ -744,16 +749,41 @@ public class TransferUtils
 	 * @param quiet If TRUE, no messages will be displayed.
 	 * @param quietGUI If TRUE, no messageboxes will be displayed.
 	 * @param waitFor If TRUE, the background thread will be waited for.
-	 * @param alarms The table to put the data in or null.
 	 * @param placeForData The place for the found elements or null.
 	 * @return the result of the task (if it has finished before the
 	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
 	 */
 	public static int downloadAlarmList (
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor,
-		final JTable alarms, final Vector<PhoneAlarm> placeForData)
+		final Vector<PhoneAlarm> placeForData)
+	{
+		return downloadAlarmList (tp, onDone, parent, quiet, quietGUI,
+			waitFor, placeForData, null);
+	}
+
+	/**
+	 * Downloads the list of alarms from the phone.
+	 * @param tp The port parameters to use.
+	 * @param onDone The code to run at transfer end.
+	 * @param parent The parent frame for displaying messages.
+	 * @param quiet If TRUE, no messages will be displayed.
+	 * @param quietGUI If TRUE, no messageboxes will be displayed.
+	 * @param waitFor If TRUE, the background thread will be waited for.
+	 * @param placeForData The place for the found elements or null.
+	 * @param onList The receiver of the alarms and of the number of
+	 *	alarms the phone can hold, called only if the list has been
+	 *	received, before onDone. Can be null.
+	 * @return the result of the task (if it has finished before the
+	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
+	 */
+	public static int downloadAlarmList (
+		final TransferParameters tp, final Runnable onDone,
+		final Object parent, final boolean quiet,
+		final boolean quietGUI, final boolean waitFor,
+		final Vector<PhoneAlarm> placeForData,
+		final BiConsumer<Vector<PhoneAlarm>, Integer> onList)
 	{
 		if ( tp == null )
 		{
@@ -762,21 +792,15 @@ public class TransferUtils
 
 		final AtomicInteger alarmNumber = new AtomicInteger (0);
 
-		return performOperation (new TransferOperation<Vector<PhoneAlarm>>
+		return performOperation (new PortOperation<Vector<PhoneAlarm>>
 			("downloadAlarmList", "ALARM",			// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Vector<PhoneAlarm> perform () throws Exception
+				public Vector<PhoneAlarm> perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					alarmNumber.set (dt.getNumberOfAlarms ());
 					Vector<PhoneAlarm> elems = dt.getAlarms ();
-					dt.close ();
 					return elems;
 				}
 
@@ -789,86 +813,14 @@ public class TransferUtils
 				@Override
 				public void processData (Vector<PhoneAlarm> ret)
 				{
-					int alNumber = alarmNumber.get ();
 					if ( placeForData != null )
 					{
 						placeForData.removeAllElements ();
 						placeForData.addAll (ret);
 					}
-					if ( alarms != null )
+					if ( onList != null )
 					{
-						TableModel model = alarms.getModel ();
-						DefaultTableModel dtm =
-							UiUtils.createTableModel(
-								alarms.getModel (),
-								(alNumber > 0)? alNumber : 1,
-								4,
-								true
-							);
-						if ( model == null )
-						{
-							dtm.setColumnIdentifiers (new String[]
-							{
-								MSGS.getString("Alarm_number"),		// NOI18N
-								MSGS.getString("Alarm_date"),		// NOI18N
-								MSGS.getString("Alarm_time"),		// NOI18N
-								MSGS.getString("Alarm_days")		// NOI18N
-							});
-						}
-						dtm.setRowCount (0);
-						for ( int i=0; i < ret.size (); i++ )
-						{
-							PhoneAlarm al = ret.get (i);
-							if ( al == null )
-							{
-								continue;
-							}
-							String date = null;
-							if ( al.isOneTimeAlarm () )
-							{
-								date = al.getDateString ();
-							}
-							if ( date == null )
-							{
-								date = Utils.EMPTY_STR;
-							}
-							String time = al.getTimeString ();
-							if ( time == null )
-							{
-								time = Utils.QUESTION_MARK;
-							}
-							String days = al.getDaysString ();
-							if ( days == null )
-							{
-								days = Utils.ZERO;
-							}
-							if ( days.isEmpty () )
-							{
-								days = Utils.ZERO;
-							}
-							int num = al.getNumber ();
-							if ( num <= 0 )
-							{
-								num = 1;
-							}
-							dtm.insertRow (num-1, new Object[]
-								{
-									num, date, time, days
-								}
-							);
-						}
-						for ( int i = ret.size (); i < alNumber; i++ )
-						{
-							dtm.addRow (new String[]
-								{
-									String.valueOf (i),
-									Utils.EMPTY_STR,
-									Utils.EMPTY_STR,
-									Utils.EMPTY_STR
-								}
-							);
-						}
-						alarms.setModel (dtm);
+						onList.accept (ret, alarmNumber.get ());
 					}
 				}
 			});
@@ -882,36 +834,54 @@ public class TransferUtils
 	 * @param quiet If TRUE, no messages will be displayed.
 	 * @param quietGUI If TRUE, no messageboxes will be displayed.
 	 * @param waitFor If TRUE, the background thread will be waited for.
-	 * @param messages The table to put the data in or null.
 	 * @param placeForData The place for the found elements or null.
 	 * @return the result of the task (if it has finished before the
 	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
 	 */
 	public static int downloadMessageList (
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor,
-		final JTable messages, final Vector<PhoneMessage> placeForData)
+		final Vector<PhoneMessage> placeForData)
+	{
+		return downloadMessageList (tp, onDone, parent, quiet, quietGUI,
+			waitFor, placeForData, null);
+	}
+
+	/**
+	 * Downloads the list of messages from the phone.
+	 * @param tp The port parameters to use.
+	 * @param onDone The code to run at transfer end.
+	 * @param parent The parent frame for displaying messages.
+	 * @param quiet If TRUE, no messages will be displayed.
+	 * @param quietGUI If TRUE, no messageboxes will be displayed.
+	 * @param waitFor If TRUE, the background thread will be waited for.
+	 * @param placeForData The place for the found elements or null.
+	 * @param onList The receiver of the list, called only if the list
+	 *	has been received, before onDone. Can be null.
+	 * @return the result of the task (if it has finished before the
+	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
+	 */
+	public static int downloadMessageList (
+		final TransferParameters tp, final Runnable onDone,
+		final Object parent, final boolean quiet,
+		final boolean quietGUI, final boolean waitFor,
+		final Vector<PhoneMessage> placeForData,
+		final Consumer<Vector<PhoneMessage>> onList)
 	{
 		if ( tp == null )
 		{
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Vector<PhoneMessage>>
+		return performOperation (new PortOperation<Vector<PhoneMessage>>
 			("downloadMessageList", "SMS",	// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Vector<PhoneMessage> perform () throws Exception
+				public Vector<PhoneMessage> perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					Vector<PhoneMessage> elems = dt.getMessages ();
-					dt.close ();
 					return elems;
 				}
 
@@ -929,68 +899,9 @@ public class TransferUtils
 						placeForData.removeAllElements ();
 						placeForData.addAll (ret);
 					}
-					if ( messages != null )
+					if ( onList != null )
 					{
-						TableModel model = messages.getModel ();
-						DefaultTableModel dtm =
-							UiUtils.createTableModel(
-								messages.getModel (),
-								ret.size (),
-								5,
-								false
-							);
-						if ( model == null )
-						{
-							dtm.setColumnIdentifiers (new String[]
-							{
-								MSGS.getString("smsTable_ID"),		// NOI18N
-								MSGS.getString("smsTable_Status"),	// NOI18N
-								MSGS.getString("smsTable_PhoneNum"),	// NOI18N
-								MSGS.getString("smsTable_DateTime"),	// NOI18N
-								MSGS.getString("smsTable_message")	// NOI18N
-							});
-						}
-						dtm.setRowCount (0);
-						for ( int i=0; i < ret.size (); i++ )
-						{
-							PhoneMessage msg = ret.get (i);
-							if ( msg == null )
-							{
-								continue;
-							}
-							String id = msg.getID ();
-							if ( id == null )
-							{
-								id = Utils.EMPTY_STR;
-							}
-							String status = msg.getStatus ();
-							if ( status == null )
-							{
-								status = Utils.EMPTY_STR;
-							}
-							String phoneNum = msg.getRecipientNum ();
-							if ( phoneNum == null )
-							{
-								phoneNum = Utils.EMPTY_STR;
-							}
-							String datetime = msg.getDateTime ();
-							if ( datetime == null )
-							{
-								datetime = Utils.EMPTY_STR;
-							}
-							String msgBody = msg.getMessage ();
-							if ( msgBody == null )
-							{
-								msgBody = Utils.EMPTY_STR;
-							}
-							dtm.addRow (new Object[]
-								{
-									Integer.valueOf (id),
-									status, phoneNum, datetime, msgBody
-								}
-							);
-						}
-						messages.setModel (dtm);
+						onList.accept (ret);
 					}
 				}
 			});
@@ -1010,7 +921,7 @@ public class TransferUtils
 	 */
 	public static int deleteMessage (final PhoneMessage element,
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( element == null || tp == null )
@@ -1018,21 +929,15 @@ public class TransferUtils
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("deleteMessage", element.getID (),	// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int ret = dt.deleteMessage (
 						Integer.parseInt (element.getID ()));
-					dt.close ();
 					return ret;
 				}
 
@@ -1058,7 +963,7 @@ public class TransferUtils
 	 */
 	public static int sendMessage (final PhoneMessage element,
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( element == null || tp == null )
@@ -1066,20 +971,14 @@ public class TransferUtils
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("sendMessage", element.getRecipientNum (),	// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int ret = dt.sendMessage (element);
-					dt.close ();
 					return ret;
 				}
 
@@ -1109,7 +1008,7 @@ public class TransferUtils
 	public static int dialNumber (final String number, final boolean isVoice,
 		final DataTransporter.DIAL_MODE dialMode,
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( number == null || tp == null )
@@ -1117,24 +1016,24 @@ public class TransferUtils
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("dialNumber", number,		// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int ret = dt.dialNumber (number,
 						isVoice, dialMode);
-					dt.close ();
 					return ret;
 				}
 
+				@Override
+				public CommandScheduler.Priority getPriority ()
+				{
+					return CommandScheduler.Priority.INTERACTIVE;
+				}
+
 				@Override
 				public String msgForError (int errCode)
 				{
@@ -1155,7 +1054,7 @@ public class TransferUtils
 	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
 	 */
 	public static int hangup (final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( tp == null )
@@ -1163,23 +1062,23 @@ public class TransferUtils
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("hangup", Utils.EMPTY_STR,		// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int ret = dt.hangup ();
-					dt.close ();
 					return ret;
 				}
 
+				@Override
+				public CommandScheduler.Priority getPriority ()
+				{
+					return CommandScheduler.Priority.INTERACTIVE;
+				}
+
 				@Override
 				public String msgForError (int errCode)
 				{
@@ -1200,7 +1099,7 @@ public class TransferUtils
 	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
 	 */
 	public static int answer (final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( tp == null )
@@ -1208,23 +1107,23 @@ public class TransferUtils
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("answer", Utils.EMPTY_STR,		// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int ret = dt.answer ();
-					dt.close ();
 					return ret;
 				}
 
+				@Override
+				public CommandScheduler.Priority getPriority ()
+				{
+					return CommandScheduler.Priority.INTERACTIVE;
+				}
+
 				@Override
 				public String msgForError (int errCode)
 				{
@@ -1245,7 +1144,7 @@ public class TransferUtils
 	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
 	 */
 	public static int volumeUp (final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( tp == null )
@@ -1253,25 +1152,19 @@ public class TransferUtils
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("volumeUp", Utils.EMPTY_STR,		// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int volume = dt.getVolume ();
 					int ret = 0;
 					if ( volume >= 0 )
 					{
 						ret = dt.setVolume (volume+1);
 					}
-					dt.close ();
 					if ( volume < 0 )
 					{
 						return volume;
@@ -1279,6 +1172,12 @@ public class TransferUtils
 					return ret;
 				}
 
+				@Override
+				public CommandScheduler.Priority getPriority ()
+				{
+					return CommandScheduler.Priority.INTERACTIVE;
+				}
+
 				@Override
 				public String msgForError (int errCode)
 				{
@@ -1299,7 +1198,7 @@ public class TransferUtils
 	 *	function has returned or if waitFor is TRUE) and 0 otherwise.
 	 */
 	public static int volumeDown (final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( tp == null )
@@ -1307,25 +1206,19 @@ public class TransferUtils
 			return -7;
 		}
 
-		return performOperation (new TransferOperation<Integer>
+		return performOperation (new PortOperation<Integer>
 			("volumeDown", Utils.EMPTY_STR,	// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public Integer perform () throws Exception
+				public Integer perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int volume = dt.getVolume ();
 					int ret = 0;
 					if ( volume > 0 )
 					{
 						ret = dt.setVolume (volume-1);
 					}
-					dt.close ();
 					if ( volume < 0 )
 					{
 						return volume;
@@ -1333,6 +1226,12 @@ public class TransferUtils
 					return ret;
 				}
 
+				@Override
+				public CommandScheduler.Priority getPriority ()
+				{
+					return CommandScheduler.Priority.INTERACTIVE;
+				}
+
 				@Override
 				public String msgForError (int errCode)
 				{
@@ -1356,7 +1255,7 @@ public class TransferUtils
 	 */
 	public static int sendFileAsCommands (final File f,
 		final TransferParameters tp, final Runnable onDone,
-		final Component parent, final boolean quiet,
+		final Object parent, final boolean quiet,
 		final boolean quietGUI, final boolean waitFor)
 	{
 		if ( f == null || tp == null )
@@ -1368,18 +1267,13 @@ public class TransferUtils
 			return -10;
 		}
 
-		return performOperation (new TransferOperation<String>
+		return performOperation (new PortOperation<String>
 			("sendFileAsCommands", Utils.EMPTY_STR,	// NOI18N
-			onDone, waitFor, tp.getSync (), quiet, quietGUI, parent)
+			onDone, waitFor, tp, quiet, quietGUI, parent)
 			{
 				@Override
-				public String perform () throws Exception
+				public String perform (DataTransporter dt) throws Exception
 				{
-					final DataTransporter dt =
-						new DataTransporter (tp.getId ());
-					dt.open (tp.getSpeed (), tp.getDataBits (),
-						tp.getStopBits (),
-						tp.getParity (), tp.getFlow ());
 					int read;
 					byte[] b = new byte[1024];
 					StringBuilder ret = new StringBuilder(1000);
@@ -1387,25 +1281,14 @@ public class TransferUtils
 					try
 					{
 						fis = new FileInputStream (f);
-						synchronized (tp.getSync ())
+						do
 						{
-							do
+							read = fis.read (b);
+							if ( read <= 0 )
 							{
-								read = fis.read (b);
-								if ( read <= 0 )
-								{
-									break;
-								}
-								dt.send (b, 0, read);
-								if ( dt.getAvailableBytes () > 0 )
-								{
-									// don't force any encodings,
-									// because the data may
-									// be invalid in any given encoding
-									ret.append (new String (dt.recv (null)));
-								}
-							} while ( true );
-							Utils.sleepIgnoreException(1000);
+								break;
+							}
+							dt.send (b, 0, read);
 							if ( dt.getAvailableBytes () > 0 )
 							{
 								// don't force any encodings,
@@ -1413,9 +1296,16 @@ public class TransferUtils
 								// be invalid in any given encoding
 								ret.append (new String (dt.recv (null)));
 							}
+						} while ( true );
+						Utils.sleepIgnoreException(1000);
+						if ( dt.getAvailableBytes () > 0 )
+						{
+							// don't force any encodings,
+							// because the data may
+							// be invalid in any given encoding
+							ret.append (new String (dt.recv (null)));
 						}
 						fis.close ();
-						dt.close ();
 					}
 					catch (IOException t)
 					{
@@ -1520,8 +1410,215 @@ public class TransferUtils
 		return null;
 	}
 
+	/**
+	 * Gets the names of the ports selected by the given list. Each
+	 * element of the list is a port name or a pattern with '*' (any
+	 * characters) and '?' (any single character), like "/dev/ttyUSB*".
+	 * The patterns are matched against the names of the serial ports
+	 * and the files in the pattern's directory, if it has one.
+	 * @param spec The port names or patterns, separated with commas.
+	 * @return the names of the selected ports, in the order given and
+	 *	without repetitions.
+	 */
+	public static Vector<String> getPortNames (String spec)
+	{
+		Vector<String> res = new Vector<String> (4);
+		if ( spec == null )
+		{
+			return res;
+		}
+		String[] elems = spec.split (Utils.COMMA);
+		Vector<String> known = null;
+		for ( int i = 0; i < elems.length; i++ )
+		{
+			String elem = elems[i].trim ();
+			if ( elem.isEmpty () )
+			{
+				continue;
+			}
+			if ( ! isPortPattern (elem) )
+			{
+				if ( ! res.contains (elem) )
+				{
+					res.add (elem);
+				}
+				continue;
+			}
+			if ( known == null )
+			{
+				try
+				{
+					known = getSerialPortNames ();
+				}
+				catch (Throwable ex)
+				{
+					// no RXTX - only the files can be matched
+					Utils.handleException (ex,
+						"TransferUtils.getPortNames: " + spec);	// NOI18N
+					known = new Vector<String> (0);
+				}
+			}
+			Pattern p = getPortPattern (elem);
+			Vector<String> found = new Vector<String> (known.size ());
+			for ( int j = 0; j < known.size (); j++ )
+			{
+				if ( p.matcher (known.get (j)).matches () )
+				{
+					found.add (known.get (j));
+				}
+			}
+			File dir = new File (elem).getParentFile ();
+			if ( dir != null && ! isPortPattern (dir.getPath ()) )
+			{
+				File[] files = dir.listFiles ();
+				if ( files != null )
+				{
+					for ( int j = 0; j < files.length; j++ )
+					{
+						if ( p.matcher (files[j].getPath ()).matches () )
+						{
+							found.add (files[j].getPath ());
+						}
+					}
+				}
+			}
+			Collections.sort (found);
+			for ( int j = 0; j < found.size (); j++ )
+			{
+				if ( ! res.contains (found.get (j)) )
+				{
+					res.add (found.get (j));
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Tells if the given port list selects more than one port or
+	 * contains patterns.
+	 * @param spec The port names or patterns, separated with commas.
+	 * @return TRUE if the given list isn't just a single port name.
+	 */
+	public static boolean isPortList (String spec)
+	{
+		return spec != null && (spec.contains (Utils.COMMA)
+			|| isPortPattern (spec));
+	}
+
+	private static boolean isPortPattern (String name)
+	{
+		return name.indexOf ('*') >= 0 || name.indexOf ('?') >= 0;
+	}
+
+	private static Pattern getPortPattern (String pattern)
+	{
+		StringBuilder regex = new StringBuilder (pattern.length () + 16);
+		int start = 0;
+		for ( int i = 0; i < pattern.length (); i++ )
+		{
+			char c = pattern.charAt (i);
+			if ( c == '*' || c == '?' )
+			{
+				if ( i > start )
+				{
+					regex.append (Pattern.quote (pattern.substring (start, i)));
+				}
+				regex.append ((c == '*')? ".*" : ".");	// NOI18N
+				start = i + 1;
+			}
+		}
+		if ( start < pattern.length () )
+		{
+			regex.append (Pattern.quote (pattern.substring (start)));
+		}
+		return Pattern.compile (regex.toString ());
+	}
+
+	/**
+	 * Sets the maximum time to wait for the reply to "AT" when scanning
+	 * a port.
+	 * @param millis The new timeout, in milliseconds. 0 or less
+	 *	restores the default.
+	 */
+	public static void setScanProbeTimeout (long millis)
+	{
+		scanProbeTimeout = (millis > 0)? millis : DEFAULT_SCAN_PROBE_TIMEOUT;
+	}
+
+	/**
+	 * Gets the maximum time to wait for the reply to "AT" when scanning
+	 * a port.
+	 * @return the timeout, in milliseconds.
+	 */
+	public static long getScanProbeTimeout ()
+	{
+		return scanProbeTimeout;
+	}
+
+	/**
+	 * Sets the cache of the downloaded objects.
+	 * @param cache The cache to use or null to always download the objects.
+	 */
+	public static void setObjectCache (ObjectCache cache)
+	{
+		objectCache = cache;
+	}
+
+	/**
+	 * Gets the cache of the downloaded objects.
+	 * @return the cache in use or null if there's none.
+	 */
+	public static ObjectCache getObjectCache ()
+	{
+		return objectCache;
+	}
+
+	/**
+	 * Gets the given object from the cache of the downloaded objects or
+	 * downloads it from the phone and stores it in the cache. The cache
+	 * is used only if the phone's IMEI is known.
+	 * @param dt The DataTransporter to use.
+	 * @param f The file to write.
+	 * @param element The object to get.
+	 * @return the result of DataTransporter.getFile(), 0 if the object
+	 *	was found in the cache.
+	 */
+	static int getFile (DataTransporter dt, File f,
+		PhoneElement element) throws Exception
+	{
+		ObjectCache cache = objectCache;
+		String imei = null;
+		if ( cache != null )
+		{
+			imei = dt.getSessionIMEI ();
+		}
+		if ( cache != null && cache.get (imei, element, f) )
+		{
+			return 0;
+		}
+		int ret = dt.getFile (f, element);
+		if ( cache != null && ret == 0 )
+		{
+			cache.put (imei, element, f);
+		}
+		return ret;
+	}
+
+	private static void flushObjectCache ()
+	{
+		ObjectCache cache = objectCache;
+		if ( cache != null )
+		{
+			cache.flush ();
+		}
+	}
+
 	/**
 	 * Scans all the serial ports with "AT", looking for "OK" responses.
+	 * The ports are probed in parallel, at most MAX_SCAN_THREADS at a time.
+	 * All the result containers and the afterPort callback are used only
+	 * by the calling thread, in the order the ports finish.
 	 * @param quiet If TRUE, no messages will be printed.
 	 * @param tp The port parameters to use.
 	 * @param firmwares If not null, will get the detected firmware versions for the scanned ports.
@@ -1542,7 +1639,7 @@ public class TransferUtils
 		Runnable afterPort)
 	{
 		int active = 0;
-		String portName;
+		Vector<PortProbe> probes = new Vector<PortProbe> (32);
 
 		Enumeration<?> portList = getPortList();
 		while (portList.hasMoreElements ())
@@ -1552,6 +1649,7 @@ public class TransferUtils
 			{
 				continue;
 			}
+			String portName;
 			if (CommandLineParser.mock
 				&& "138b7ce0632d70dd9d6fc7b571fd9199".equals(System.getProperty("mock", "")))
 			{
@@ -1565,7 +1663,6 @@ public class TransferUtils
 				{
 					continue;
 				}
-				portID = id;
 				portName = id.getName ();
 			}
 			else
@@ -1580,69 +1677,143 @@ public class TransferUtils
 				{
 					continue;
 				}
-				portID = id;
 				portName = id.getName ();
 			}
+			probes.add (new PortProbe (portID, portName, tp,
+				firmwares != null, phoneTypes != null,
+				phoneIMEIs != null, phoneSubsNums != null));
+		}
 
-			// scan ports for "AT"-"OK"
-			if ( ! quiet )
-			{
-				System.out.print (TRY_PORT_STRING + portName + ELLIPSIS);
-			}
+		if ( ! probes.isEmpty () )
+		{
+			ExecutorService exec = Executors.newFixedThreadPool (
+				Math.min (probes.size (), MAX_SCAN_THREADS));
+			CompletionService<PortProbe> cs =
+				new ExecutorCompletionService<PortProbe> (exec);
 			try
 			{
-				DataTransporter dt = new DataTransporter (portID);
-				dt.open (tp.getSpeed (), tp.getDataBits (),
-					tp.getStopBits (),
-					tp.getParity (), tp.getFlow ());
-				if ( dt.test () != 0 )
+				for ( int i = 0; i < probes.size (); i++ )
 				{
-					dt.close ();
-					if ( ! quiet )
+					cs.submit (probes.get (i));
+				}
+				for ( int i = 0; i < probes.size (); i++ )
+				{
+					PortProbe probe = null;
+					try
 					{
-						System.out.println ();
+						probe = cs.take ().get ();
 					}
-					/* run in "finally"
-					if ( afterPort != null )
+					catch (ExecutionException ex)
 					{
-						afterPort.run ();
+						Utils.handleException (ex, "TransferUtils.scanPorts");	// NOI18N
+					}
+					try
+					{
+						if ( probe != null && probe.storeResults (quiet,
+							firmwares, phoneTypes, phoneIMEIs,
+							phoneSubsNums, replied) )
+						{
+							active++;
+						}
+					}
+					finally
+					{
+						if ( afterPort != null )
+						{
+							afterPort.run ();
+						}
 					}
-					*/
-					continue;
-				}
-				if ( ! quiet )
-				{
-					System.out.println (GOT_REPLY_STRING);
 				}
-				active++;
+			}
+			catch (InterruptedException ex)
+			{
+				Utils.handleException (ex, "TransferUtils.scanPorts");	// NOI18N
+				Thread.currentThread ().interrupt ();
+			}
+			finally
+			{
+				exec.shutdownNow ();
+			}
+		}
+		if (active == 0)
+		{
+			if ( ! quiet )
+			{
+				System.out.println (NO_REPLIES_STRING);
+			}
+			return -1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Checks a single port for a phone and gets the phone's data.
+	 * The results are kept until they are stored by the scanning thread.
+	 */
+	private static class PortProbe implements Callable<PortProbe>
+	{
+		private final Object portID;
+		private final String portName;
+		private final TransferParameters tp;
+		private final boolean getFirmware;
+		private final boolean getType;
+		private final boolean getIMEI;
+		private final boolean getSubsNums;
+
+		private boolean hasReplied;
+		private String firmware;
+		private String type;
+		private String imei;
+		private String subsNums;
+
+		private PortProbe (Object id, String name, TransferParameters params,
+			boolean firmwareNeeded, boolean typeNeeded,
+			boolean imeiNeeded, boolean subsNumsNeeded)
+		{
+			portID = id;
+			portName = name;
+			tp = params;
+			getFirmware = firmwareNeeded;
+			getType = typeNeeded;
+			getIMEI = imeiNeeded;
+			getSubsNums = subsNumsNeeded;
+		}
 
-				if ( replied != null )
+		@Override
+		public PortProbe call ()
+		{
+			DataTransporter dt = null;
+			try
+			{
+				dt = new DataTransporter (portID);
+				dt.open (tp.getSpeed (), tp.getDataBits (),
+					tp.getStopBits (),
+					tp.getParity (), tp.getFlow ());
+				// the device may have been connected again, so check
+				// it even if it didn't respond recently
+				dt.getCircuitBreaker ().reset ();
+				// don't wait long on silent ports
+				dt.setRecvTimeout (scanProbeTimeout);
+				if ( dt.test () != 0 )
 				{
-					replied.add (portName);
+					return this;
 				}
+				hasReplied = true;
+				dt.setRecvTimeout (0);
 
-				if ( firmwares != null )
+				if ( getFirmware )
 				{
 					// get firmware version
-					firmwares.put (portName, dt.getFirmwareVersion ());
+					firmware = dt.getFirmwareVersion ();
 				}
-				if ( phoneTypes != null )
+				if ( getType )
 				{
 					// get phone type
-					phoneTypes.put (portName, dt.getDeviceType ());
+					type = dt.getDeviceType ();
 					// get additional phone type
 					String addType = dt.getExtraDeviceType ();
 					if ( addType != null )
 					{
-						String type = null;
-						try
-						{
-							type = phoneTypes.get (portName);
-						}
-						catch (Exception ex)
-						{
-							// ignore, defaults provided
-						}
 						if ( type == null )
 						{
 							type = Utils.EMPTY_STR;
@@ -1652,20 +1823,18 @@ public class TransferUtils
 							type += Utils.COMMA + Utils.SPACE;
 						}
 						type += addType;
-						phoneTypes.put (portName, type);
 					}
 				}
-				if ( phoneIMEIs != null )
+				if ( getIMEI )
 				{
 					// get phone IMEI
-					phoneIMEIs.put (portName, dt.getIMEI ());
+					imei = dt.getIMEI ();
 				}
-				if ( phoneSubsNums != null )
+				if ( getSubsNums )
 				{
 					// get subscriber phone numbers:
-					phoneSubsNums.put (portName, dt.getSubscriberNumbers ());
+					subsNums = dt.getSubscriberNumbers ();
 				}
-				dt.close ();
 			}
 			catch (Exception ex)
 			{
@@ -1674,21 +1843,69 @@ public class TransferUtils
 			}
 			finally
 			{
-				if ( afterPort != null )
+				if ( dt != null )
 				{
-					afterPort.run ();
+					dt.close ();
 				}
 			}
+			return this;
 		}
-		if (active == 0)
+
+		/**
+		 * Stores the results of the probe in the given containers.
+		 * @return TRUE if the port has replied.
+		 */
+		private boolean storeResults (boolean quiet,
+			Map<String, String> firmwares,
+			Map<String, String> phoneTypes,
+			Map<String, String> phoneIMEIs,
+			Map<String, String> phoneSubsNums,
+			Vector<String> replied)
 		{
 			if ( ! quiet )
 			{
-				System.out.println (NO_REPLIES_STRING);
+				System.out.print (TRY_PORT_STRING + portName + ELLIPSIS);
 			}
-			return -1;
+			if ( ! hasReplied )
+			{
+				if ( ! quiet )
+				{
+					System.out.println ();
+				}
+				return false;
+			}
+			if ( ! quiet )
+			{
+				System.out.println (GOT_REPLY_STRING);
+			}
+			if ( replied != null )
+			{
+				replied.add (portName);
+			}
+			if ( firmwares != null )
+			{
+				firmwares.put (portName, firmware);
+			}
+			if ( phoneTypes != null )
+			{
+				phoneTypes.put (portName, type);
+			}
+			if ( phoneIMEIs != null )
+			{
+				phoneIMEIs.put (portName, imei);
+			}
+			if ( phoneSubsNums != null )
+			{
+				phoneSubsNums.put (portName, subsNums);
+			}
+			return true;
+		}
+
+		@Override
+		public String toString ()
+		{
+			return "TransferUtils.PortProbe[" + portName + "]";	// NOI18N
 		}
-		return 0;
 	}
 
 	/**
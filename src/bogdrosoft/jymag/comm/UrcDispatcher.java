@@ -0,0 +1,207 @@
+/*
+ * UrcDispatcher.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.Utils;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * UrcDispatcher - delivers the unsolicited result codes (URCs) received
+ * from a port, like RING, +CMTI or +CREG, to the registered listeners.
+ * The codes are cut out of the received data by the port's DataTransporter,
+ * but only while the port's dispatcher has any listeners, so that
+ * without them the received data is left untouched. The listeners are
+ * called one by one on a separate thread belonging to the port, so they
+ * may send commands to the port.
+ * @author Bogdan Drozdowski
+ */
+public class UrcDispatcher
+{
+	/**
+	 * A receiver of the unsolicited result codes.
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called when an unsolicited result code is received.
+		 * @param portName The name of the port the code came from.
+		 * @param code The result code, like "RING" or "+CMTI".
+		 * @param data The text after the code's colon, without the
+		 *	leading and trailing whitespace. The extra lines of
+		 *	the codes which have them, like +CMT, are included.
+		 *	Empty for codes without data.
+		 */
+		void urcReceived (String portName, String code, String data);
+	}
+
+	/** The dispatchers of all the ports used so far. */
+	private static final Map<String, UrcDispatcher> DISPATCHERS =
+		new ConcurrentHashMap<String, UrcDispatcher> (4);
+
+	private final String portName;
+	private final CopyOnWriteArrayList<Listener> listeners =
+		new CopyOnWriteArrayList<Listener> ();
+	/** The thread calling the listeners, created when first needed. */
+	private ExecutorService notifier;
+
+	/**
+	 * Creates a new instance of UrcDispatcher.
+	 * @param name The name of the port.
+	 */
+	UrcDispatcher (String name)
+	{
+		portName = name;
+	}
+
+	/**
+	 * Gets the dispatcher for the given port, creating it if needed.
+	 * @param portName The name of the port.
+	 * @return the dispatcher for the given port.
+	 */
+	public static UrcDispatcher forPort (String portName)
+	{
+		String key = (portName != null)? portName : Utils.EMPTY_STR;
+		UrcDispatcher res = DISPATCHERS.get (key);
+		if ( res == null )
+		{
+			UrcDispatcher newDispatcher = new UrcDispatcher (key);
+			res = DISPATCHERS.putIfAbsent (key, newDispatcher);
+			if ( res == null )
+			{
+				res = newDispatcher;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Registers the given listener. From now on, the unsolicited result
+	 * codes are removed from the data received from the port.
+	 * @param l The listener to add.
+	 */
+	public void addListener (Listener l)
+	{
+		if ( l != null )
+		{
+			listeners.addIfAbsent (l);
+		}
+	}
+
+	/**
+	 * Unregisters the given listener.
+	 * @param l The listener to remove.
+	 */
+	public void removeListener (Listener l)
+	{
+		listeners.remove (l);
+	}
+
+	/**
+	 * Tells if there are any listeners registered.
+	 * @return TRUE if there are any listeners registered.
+	 */
+	public boolean hasListeners ()
+	{
+		return ! listeners.isEmpty ();
+	}
+
+	/**
+	 * Passes the given unsolicited result line to the listeners.
+	 * Returns at once, the listeners are called on the notifying thread.
+	 * @param line The received line, without the line terminators.
+	 */
+	void dispatch (String line)
+	{
+		if ( line == null || listeners.isEmpty () )
+		{
+			return;
+		}
+		String text = line.trim ();
+		final String code;
+		final String data;
+		int colon = text.indexOf (':');
+		if ( text.startsWith ("+") && colon > 0 )	// NOI18N
+		{
+			code = text.substring (0, colon).trim ();
+			data = text.substring (colon + 1).trim ();
+		}
+		else
+		{
+			code = text;
+			data = Utils.EMPTY_STR;
+		}
+		getNotifier ().execute (new Runnable ()
+		{
+			@Override
+			public void run ()
+			{
+				for ( Listener l : listeners )
+				{
+					try
+					{
+						l.urcReceived (portName, code, data);
+					}
+					catch (Exception ex)
+					{
+						Utils.handleException (ex,
+							"UrcDispatcher.dispatch: " + code);	// NOI18N
+					}
+				}
+			}
+
+			@Override
+			public String toString ()
+			{
+				return "UrcDispatcher.dispatch";	// NOI18N
+			}
+		});
+	}
+
+	private synchronized ExecutorService getNotifier ()
+	{
+		if ( notifier == null )
+		{
+			notifier = Executors.newSingleThreadExecutor (new ThreadFactory ()
+			{
+				@Override
+				public Thread newThread (Runnable r)
+				{
+					Thread t = new Thread (r, "UrcDispatcher." + portName);	// NOI18N
+					t.setDaemon (true);
+					return t;
+				}
+			});
+		}
+		return notifier;
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "UrcDispatcher[" + portName + ",listeners="	// NOI18N
+			+ listeners.size () + "]";	// NOI18N
+	}
+}
@@ -0,0 +1,308 @@
+/*
+ * UrcFilter.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import java.io.UnsupportedEncodingException;
+
+/**
+ * UrcFilter - cuts the unsolicited result codes out of the data received
+ * from a port and passes them to the port's UrcDispatcher. The rest of
+ * the data goes to the receive buffer unchanged. The data is checked
+ * byte by byte as it comes, so the codes split between the chunks are
+ * found, too. Only the beginnings of lines which may start a code are
+ * held back, until it is known if they do.
+ * Not thread-safe, the caller must synchronize the calls.
+ * @author Bogdan Drozdowski
+ */
+class UrcFilter
+{
+	/** The codes which are always unsolicited. */
+	private static final String[] ALWAYS_UNSOLICITED =
+	{
+		"RING\r",	// NOI18N
+		"+CRING:",	// NOI18N
+		"+CMTI:",	// NOI18N
+		"+CMT:",	// NOI18N
+		"+CDSI:",	// NOI18N
+		"+CDS:",	// NOI18N
+		"+CBMI:",	// NOI18N
+		"+CBM:"		// NOI18N
+	};
+	/**
+	 * The codes which are also replies to commands, so they are
+	 * unsolicited only when no reply is expected.
+	 */
+	private static final String[] UNSOLICITED_WHEN_IDLE =
+	{
+		"+CLIP:",	// NOI18N
+		"+CCWA:",	// NOI18N
+		"+CREG:",	// NOI18N
+		"+CGREG:",	// NOI18N
+		"+CSQ:",	// NOI18N
+		"+CIEV:"	// NOI18N
+	};
+	/** The codes followed by one more line, the message's contents. */
+	private static final String[] TWO_LINE_CODES =
+	{
+		"+CMT:",	// NOI18N
+		"+CDS:",	// NOI18N
+		"+CBM:"		// NOI18N
+	};
+	/** Longer lines are not treated as codes. */
+	private static final int MAX_LINE = 1024;
+
+	private static final byte[][] CODES;
+	private static final int IDLE_CODES_START;
+
+	private static final int PASS = 0;
+	private static final int CANDIDATE = 1;
+	private static final int CODE = 2;
+
+	private final UrcDispatcher dispatcher;
+	private final byte[] line = new byte[MAX_LINE];
+	private int lineLength;
+	private int state = PASS;
+	private boolean atLineStart = true;
+	private int linesLeft;
+	private boolean enabled = true;
+
+	static
+	{
+		CODES = new byte[ALWAYS_UNSOLICITED.length
+			+ UNSOLICITED_WHEN_IDLE.length][];
+		for ( int i = 0; i < ALWAYS_UNSOLICITED.length; i++ )
+		{
+			CODES[i] = ALWAYS_UNSOLICITED[i].getBytes ();
+		}
+		IDLE_CODES_START = ALWAYS_UNSOLICITED.length;
+		for ( int i = 0; i < UNSOLICITED_WHEN_IDLE.length; i++ )
+		{
+			CODES[IDLE_CODES_START + i] = UNSOLICITED_WHEN_IDLE[i].getBytes ();
+		}
+	}
+
+	/**
+	 * Creates a new instance of UrcFilter.
+	 * @param d The dispatcher to give the codes to.
+	 */
+	UrcFilter (UrcDispatcher d)
+	{
+		dispatcher = d;
+	}
+
+	/**
+	 * Enables or disables the filtering. Should be disabled while
+	 * receiving binary data, which could look like a code.
+	 * @param enable TRUE to enable the filtering.
+	 */
+	void setEnabled (boolean enable)
+	{
+		enabled = enable;
+	}
+
+	/**
+	 * Passes the given received bytes to the output buffer, except for
+	 * the unsolicited result codes, which go to the dispatcher.
+	 * @param b The received bytes.
+	 * @param off The offset of the first byte to process.
+	 * @param len The number of bytes to process.
+	 * @param out The buffer for the other data.
+	 * @param replyPending TRUE if a reply to a command is expected.
+	 */
+	void write (byte[] b, int off, int len, ByteRingBuffer out,
+		boolean replyPending)
+	{
+		if ( ! enabled || ! dispatcher.hasListeners () )
+		{
+			flush (out);
+			out.write (b, off, len);
+			return;
+		}
+		int runStart = off;
+		int end = off + len;
+		for ( int i = off; i < end; i++ )
+		{
+			byte c = b[i];
+			if ( state == PASS )
+			{
+				if ( atLineStart && c != '\r' && c != '\n'
+					&& matchCodes (c, 1, replyPending) != 0 )
+				{
+					out.write (b, runStart, i - runStart);
+					line[0] = c;
+					lineLength = 1;
+					state = CANDIDATE;
+				}
+				atLineStart = (c == '\n');
+				continue;
+			}
+			if ( lineLength == MAX_LINE )
+			{
+				// too long for a code
+				flush (out);
+				runStart = i;
+				atLineStart = false;
+				i--;
+				continue;
+			}
+			line[lineLength++] = c;
+			if ( state == CANDIDATE )
+			{
+				int res = matchCodes (c, lineLength, replyPending);
+				if ( res == 0 )
+				{
+					flush (out);
+					runStart = i + 1;
+					atLineStart = (c == '\n');
+				}
+				else if ( res > 0 )
+				{
+					state = CODE;
+					linesLeft = getExtraLines (res - 1);
+					if ( c == '\r' )
+					{
+						// "RING\r" - the whole code is here
+						lineLength--;
+					}
+				}
+			}
+			else if ( c == '\n' )
+			{
+				if ( linesLeft > 0 )
+				{
+					linesLeft--;
+				}
+				else
+				{
+					dispatch ();
+					runStart = i + 1;
+					atLineStart = true;
+				}
+			}
+		}
+		if ( state == PASS && runStart < end )
+		{
+			out.write (b, runStart, end - runStart);
+		}
+	}
+
+	/**
+	 * Moves any bytes held back to the output buffer.
+	 * @param out The buffer for the data.
+	 */
+	void flush (ByteRingBuffer out)
+	{
+		if ( state != PASS && lineLength > 0 )
+		{
+			out.write (line, 0, lineLength);
+		}
+		reset ();
+	}
+
+	/**
+	 * Forgets any bytes held back, for example when the port is closed.
+	 */
+	void reset ()
+	{
+		state = PASS;
+		lineLength = 0;
+		linesLeft = 0;
+		atLineStart = true;
+	}
+
+	/**
+	 * Checks the held back line against the codes, after adding
+	 * the given byte.
+	 * @param c The byte just added.
+	 * @param length The number of bytes of the line, with the new byte.
+	 * @param replyPending TRUE if a reply to a command is expected.
+	 * @return 0 if the line can't start any code, -1 if it may still
+	 *	become one, or the index of the matching code plus one.
+	 */
+	private int matchCodes (byte c, int length, boolean replyPending)
+	{
+		int limit = replyPending? IDLE_CODES_START : CODES.length;
+		boolean partial = false;
+		for ( int i = 0; i < limit; i++ )
+		{
+			byte[] code = CODES[i];
+			if ( code.length < length || code[length - 1] != c )
+			{
+				continue;
+			}
+			boolean same = true;
+			for ( int j = 0; j < length - 1; j++ )
+			{
+				if ( code[j] != line[j] )
+				{
+					same = false;
+					break;
+				}
+			}
+			if ( ! same )
+			{
+				continue;
+			}
+			if ( code.length == length )
+			{
+				return i + 1;
+			}
+			partial = true;
+		}
+		return partial? -1 : 0;
+	}
+
+	private static int getExtraLines (int codeIndex)
+	{
+		String code = (codeIndex < IDLE_CODES_START)?
+			ALWAYS_UNSOLICITED[codeIndex]
+			: UNSOLICITED_WHEN_IDLE[codeIndex - IDLE_CODES_START];
+		for ( int i = 0; i < TWO_LINE_CODES.length; i++ )
+		{
+			if ( TWO_LINE_CODES[i].equals (code) )
+			{
+				return 1;
+			}
+		}
+		return 0;
+	}
+
+	private void dispatch ()
+	{
+		String text;
+		try
+		{
+			text = new String (line, 0, lineLength, "ISO-8859-1");	// NOI18N
+		}
+		catch (UnsupportedEncodingException ex)
+		{
+			text = new String (line, 0, lineLength);
+		}
+		reset ();
+		dispatcher.dispatch (text);
+	}
+
+	@Override
+	public String toString ()
+	{
+		return "UrcFilter[state=" + state + ",held=" + lineLength + "]";	// NOI18N
+	}
+}
@@ -38,22 +38,53 @@ public class FakeCommPortIdentifier //extends CommPortIdentifier // illegal acce
 	{
 		FAKE_PORTS.add(new FakeCommPortIdentifier());
 	}
-	private final SerialPort sp = new FakeSerialPort();
+	private final String name;
+	private final SerialPort sp;
 
 	public FakeCommPortIdentifier()
 	{
 		//super ("COMfaked", null, PORT_SERIAL, null);
+		this("COMfaked", new FakeSerialPort());
 	}
-	
+
+	/**
+	 * Creates an additional fake port.
+	 * @param portName The name of the port.
+	 * @param port The port to return when opening this port.
+	 */
+	public FakeCommPortIdentifier(String portName, SerialPort port)
+	{
+		name = portName;
+		sp = port;
+	}
+
 	public static Enumeration<?> getPortIdentifiers ()
 	{
 		return FAKE_PORTS.elements();
 	}
 
+	/**
+	 * Adds a port to the list of the fake ports.
+	 * @param id The port to add.
+	 */
+	public static void addPort (FakeCommPortIdentifier id)
+	{
+		FAKE_PORTS.add(id);
+	}
+
+	/**
+	 * Removes a port from the list of the fake ports.
+	 * @param id The port to remove.
+	 */
+	public static void removePort (FakeCommPortIdentifier id)
+	{
+		FAKE_PORTS.remove(id);
+	}
+
 	//@Override
 	public String getName() 
 	{ 
-		return "COMfaked";
+		return name;
 	}
 
 	//@Override
@@ -73,6 +104,13 @@ public class FakeCommPortIdentifier //extends CommPortIdentifier // illegal acce
 	//public static CommPortIdentifier getPortIdentifier (String port)
 	public static FakeCommPortIdentifier getPortIdentifier (String port)
 	{
+		for (FakeCommPortIdentifier id : FAKE_PORTS)
+		{
+			if (id.getName().equals(port))
+			{
+				return id;
+			}
+		}
 		return FAKE_PORTS.get(0);
 	}
 }
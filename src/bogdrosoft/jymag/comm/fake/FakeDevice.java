@@ -76,6 +76,7 @@ class FakeDevice
 	private static final String SIGNAL_POWER_CMD = "AT+CSQ\r";			// NOI18N
 	private static final String MSG_TEXT_MODE_CMD = "AT+CMGF=1\r";			// NOI18N
 	private static final String MSG_STORAGE_CMD = "AT+CPMS=";			// NOI18N
+	private static final String MSG_NOTIFY_CMD = "AT+CNMI=";			// NOI18N
 	private static final String MSG_PROMPT = ">";					// NOI18N
 	private static final String DIAL_CMD_AUTO = "ATD";				// NOI18N
 	private static final String HANGUP_CMD = "ATH\r";				// NOI18N
@@ -144,6 +145,7 @@ class FakeDevice
 					&& ! ALARM_NUM_CMD.equals(buffer))
 				|| buffer.startsWith(MSG_DEL_CMD)
 				|| buffer.startsWith(MSG_STORAGE_CMD)
+				|| buffer.startsWith(MSG_NOTIFY_CMD)
 				)
 			{
 				sendReply(OK_STRING);
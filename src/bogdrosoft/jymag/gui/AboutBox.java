@@ -20,6 +20,7 @@
 
 package bogdrosoft.jymag.gui;
 
+import bogdrosoft.jymag.Starter;
 import bogdrosoft.jymag.Utils;
 import java.awt.Desktop;
 import java.awt.event.MouseEvent;
@@ -101,7 +102,7 @@ public class AboutBox extends javax.swing.JDialog
                 setModal(true);
 
                 jymagLabel.setIcon(new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/about.png"))); // NOI18N
-                jymagLabel.setText("JYMAG - Jig Your Music And Graphics " /* NOI18N */ + MainWindow.JYMAG_VERSION);
+                jymagLabel.setText("JYMAG - Jig Your Music And Graphics " /* NOI18N */ + Starter.JYMAG_VERSION);
                 jymagLabel.setIconTextGap(40);
 
                 authorLabel.setText(bundle.getString("author")); // NOI18N
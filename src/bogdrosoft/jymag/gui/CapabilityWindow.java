@@ -21,9 +21,10 @@
 package bogdrosoft.jymag.gui;
 
 import bogdrosoft.jymag.Utils;
+import bogdrosoft.jymag.comm.CommandScheduler;
 import bogdrosoft.jymag.comm.DataTransporter;
 import java.util.ResourceBundle;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Phaser;
 import javax.swing.SwingWorker;
 
 /**
@@ -42,8 +43,9 @@ public class CapabilityWindow extends javax.swing.JDialog
 	private final MainWindow mw;
 
 	private final transient DataTransporter dtr;
-	private final transient Object sync;
-	private final AtomicBoolean isFinished = new AtomicBoolean(true);
+	private final transient CommandScheduler scheduler;
+	/** The window and its background tasks, which the window waits for. */
+	private final Phaser running = new Phaser (1);
 
 	/**
 	 * Creates new form CapabilityWindow.
@@ -59,7 +61,7 @@ public class CapabilityWindow extends javax.swing.JDialog
 		// make always modal
 		super (parent, true);
 		dtr = dt;
-		sync = synchro;
+		scheduler = (dt != null)? dt.getScheduler () : null;
 		mw = parent;
 		if ( dt == null || synchro == null )
 		{
@@ -333,12 +335,16 @@ public class CapabilityWindow extends javax.swing.JDialog
 			{
 				try
 				{
-					isFinished.set (false);
 					String rcvd;
-					synchronized (sync)
+					scheduler.acquire (CommandScheduler.Priority.TRANSFER);
+					try
 					{
 						rcvd = dtr.getCapabilities (typeToGet);
 					}
+					finally
+					{
+						scheduler.release ();
+					}
 					return rcvd;
 				}
 				catch (Exception ex)
@@ -350,7 +356,7 @@ public class CapabilityWindow extends javax.swing.JDialog
 				}
 				finally
 				{
-					isFinished.set (true);
+					running.arriveAndDeregister ();
 				}
 			}
 
@@ -392,6 +398,7 @@ public class CapabilityWindow extends javax.swing.JDialog
 				return "CapabilityWindow.getCapButActionPerformed.SwingWorker";	// NOI18N
 			}
 		};
+		running.register ();
 		sw.execute ();
 
 	}//GEN-LAST:event_getCapButActionPerformed
@@ -409,10 +416,7 @@ public class CapabilityWindow extends javax.swing.JDialog
 
 	private void exit ()
 	{
-		while ( ! isFinished.get () )
-		{
-			Utils.sleepIgnoreException(10);
-		}
+		running.arriveAndAwaitAdvance ();
 		mw.setReadyStatus ();
 		dispose ();
 	}
@@ -56,6 +56,16 @@ public class EscKeyListener extends KeyAdapter
 		addKeyListeners (frame);
 	}
 
+	/**
+	 * Installs the key listener into the given Component and all its
+	 * subcomponents, for the Components added to the window later.
+	 * @param c The Component to install the key listener into.
+	 */
+	public void install (Component c)
+	{
+		addKeyListeners (c);
+	}
+
 	/**
 	 * Recursively adds this keylistener to the given Component
 	 *	and all its subcomponents.
@@ -24,29 +24,47 @@ import bogdrosoft.jymag.CommandLineParser;
 import bogdrosoft.jymag.ConfigFile;
 import bogdrosoft.jymag.ProgramStatus;
 import bogdrosoft.jymag.Starter;
-import bogdrosoft.jymag.StatusChangeRunnable;
-import bogdrosoft.jymag.UncExceptionHandler;
 import bogdrosoft.jymag.Utils;
+import bogdrosoft.jymag.comm.CatalogCache;
+import bogdrosoft.jymag.comm.CircuitBreaker;
 import bogdrosoft.jymag.comm.DataTransporter;
+import bogdrosoft.jymag.comm.OperationExecutor;
+import bogdrosoft.jymag.comm.SessionPool;
 import bogdrosoft.jymag.comm.TransferParameters;
 import bogdrosoft.jymag.comm.TransferUtils;
+import bogdrosoft.jymag.gui.panels.AddrBookPanel;
+import bogdrosoft.jymag.gui.panels.AlarmPanel;
+import bogdrosoft.jymag.gui.panels.DialPanel;
+import bogdrosoft.jymag.gui.panels.EventsPanel;
 import bogdrosoft.jymag.gui.panels.JYMAGTab;
+import bogdrosoft.jymag.gui.panels.JavasPanel;
+import bogdrosoft.jymag.gui.panels.MoviePanel;
+import bogdrosoft.jymag.gui.panels.PhotoPanel;
+import bogdrosoft.jymag.gui.panels.RingtonePanel;
+import bogdrosoft.jymag.gui.panels.SMSPanel;
+import bogdrosoft.jymag.gui.panels.TasksPanel;
 import java.awt.Component;
 import java.awt.Container;
 import java.awt.Frame;
 import java.awt.event.ItemEvent;
 import java.io.File;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Vector;
+import java.util.concurrent.Executor;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.UIManager;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.filechooser.FileFilter;
 
 /**
@@ -57,11 +75,6 @@ public class MainWindow extends JFrame
 {
 	private static final long serialVersionUID = 65L;
 
-	/** Current version number as a String. */
-	public static final String JYMAG_VERSION =
-		ResourceBundle.getBundle("bogdrosoft/jymag/rsrc/version")	// NOI18N
-		.getString("VER");	// NOI18N
-
 	// synchronization variable:
 	private static final Object SYNC = new Object ();
 
@@ -112,6 +125,7 @@ public class MainWindow extends JFrame
 	private transient Map<String, String> phoneTypes;
 	private transient Map<String, String> phoneIMEIs;
 	private transient Map<String, String> phoneSubsNums;
+	private final transient CatalogCache catalog = CatalogCache.getDefault ();
 
 	private final transient Runnable progressBarUpdateRunnable =
 		new Runnable ()
@@ -149,6 +163,7 @@ public class MainWindow extends JFrame
 	private final transient StatusChangeRunnable setSendingStatus;
 	private final transient StatusChangeRunnable setReceivingStatus;
 	private final MainWindow mw = this;
+	private final transient EscKeyListener escListener;
 	JFileChooser cfgFC;
 
 	// ------------ static variables for command-line
@@ -171,7 +186,7 @@ public class MainWindow extends JFrame
 	MainWindow ()
 	{
 		// set uncaught exception handler for GUI threads, just in case:
-		UncExceptionHandler.setHandlerForGuiThreads(this);
+		UiExceptionHandler.setHandlerForGuiThreads(this);
 
 		destDirName = CommandLineParser.getDstDirName ();
 		dBits = CommandLineParser.getDBits ();
@@ -202,7 +217,8 @@ public class MainWindow extends JFrame
 		fontSizeLab.setHorizontalAlignment(SwingConstants.RIGHT);
 		tabPane.setSelectedIndex(CommandLineParser.getSelectedTab());
 
-		setPorts ();
+		// RXTX can take a while to start and to list the ports:
+		setPortsInBackground ();
 		int width = CommandLineParser.getWidth();
 		int height = CommandLineParser.getHeight();
 		if (width != 0 && height != 0)
@@ -218,8 +234,26 @@ public class MainWindow extends JFrame
 		UiUtils.changeSizeToScreen(this);
 
 		/* add the Esc key listener to the frame and all components. */
-		new EscKeyListener (this).install();
+		escListener = new EscKeyListener (this);
+		escListener.install();
 		setPanelConnections (this);
+		// only the selected tab is created now, the rest when first shown:
+		createTabPanel (tabPane.getSelectedComponent ());
+		tabPane.addChangeListener (new ChangeListener ()
+		{
+			@Override
+			public void stateChanged (ChangeEvent e)
+			{
+				createTabPanel (tabPane.getSelectedComponent ());
+				showCachedData (tabPane.getSelectedComponent ());
+			}
+
+			@Override
+			public String toString ()
+			{
+				return "MainWindow.tabPane.ChangeListener";	// NOI18N
+			}
+		});
 	}
 
 	/**
@@ -256,25 +290,15 @@ public class MainWindow extends JFrame
                 exitBut = new javax.swing.JButton();
                 tabPane = new javax.swing.JTabbedPane();
                 jScrollPane7 = new javax.swing.JScrollPane();
-                photoPanel = new bogdrosoft.jymag.gui.panels.PhotoPanel();
                 jScrollPane8 = new javax.swing.JScrollPane();
-                ringtonePanel = new bogdrosoft.jymag.gui.panels.RingtonePanel();
                 jScrollPane9 = new javax.swing.JScrollPane();
-                addrBookPanel = new bogdrosoft.jymag.gui.panels.AddrBookPanel();
                 jScrollPane10 = new javax.swing.JScrollPane();
-                tasksPanel = new bogdrosoft.jymag.gui.panels.TasksPanel();
                 jScrollPane11 = new javax.swing.JScrollPane();
-                eventsPanel = new bogdrosoft.jymag.gui.panels.EventsPanel();
                 jScrollPane12 = new javax.swing.JScrollPane();
-                moviePanel = new bogdrosoft.jymag.gui.panels.MoviePanel();
                 jScrollPane13 = new javax.swing.JScrollPane();
-                javasPanel = new bogdrosoft.jymag.gui.panels.JavasPanel();
                 jScrollPane16 = new javax.swing.JScrollPane();
-                alarmPanel = new bogdrosoft.jymag.gui.panels.AlarmPanel();
                 jScrollPane18 = new javax.swing.JScrollPane();
-                sMSPanel = new bogdrosoft.jymag.gui.panels.SMSPanel();
                 jScrollPane20 = new javax.swing.JScrollPane();
-                dialPanel = new bogdrosoft.jymag.gui.panels.DialPanel();
                 phoneTypeLabel = new javax.swing.JLabel();
                 flowHard = new javax.swing.JCheckBox();
                 dataBitsCombo = new javax.swing.JComboBox();
@@ -396,64 +420,24 @@ public class MainWindow extends JFrame
 
                 tabPane.setPreferredSize(new java.awt.Dimension(800, 600));
 
-                jScrollPane7.setViewportView(photoPanel);
-                photoPanel.getAccessibleContext().setAccessibleName(bundle.getString("photopanel_name")); // NOI18N
-                photoPanel.getAccessibleContext().setAccessibleDescription(bundle.getString("photopanel_desc")); // NOI18N
-
                 tabPane.addTab(bundle.getString("Photos"), new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/pictures.png")), jScrollPane7); // NOI18N
 
-                jScrollPane8.setViewportView(ringtonePanel);
-                ringtonePanel.getAccessibleContext().setAccessibleName(bundle.getString("ringtonepanel_name")); // NOI18N
-                ringtonePanel.getAccessibleContext().setAccessibleDescription(bundle.getString("ringtonepanel_desc")); // NOI18N
-
                 tabPane.addTab(bundle.getString("Ringtones"), new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/ringtones.png")), jScrollPane8); // NOI18N
 
-                jScrollPane9.setViewportView(addrBookPanel);
-                addrBookPanel.getAccessibleContext().setAccessibleName(bundle.getString("addrbookpanel_name")); // NOI18N
-                addrBookPanel.getAccessibleContext().setAccessibleDescription(bundle.getString("addrbookpanel_desc")); // NOI18N
-
                 tabPane.addTab(bundle.getString("Addressbook"), new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/addrbook.png")), jScrollPane9); // NOI18N
 
-                jScrollPane10.setViewportView(tasksPanel);
-                tasksPanel.getAccessibleContext().setAccessibleName(bundle.getString("todopanel_name")); // NOI18N
-                tasksPanel.getAccessibleContext().setAccessibleDescription(bundle.getString("todopanel_desc")); // NOI18N
-
                 tabPane.addTab(bundle.getString("ToDoTab"), new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/todo.png")), jScrollPane10); // NOI18N
 
-                jScrollPane11.setViewportView(eventsPanel);
-                eventsPanel.getAccessibleContext().setAccessibleName(bundle.getString("eventpanel_name")); // NOI18N
-                eventsPanel.getAccessibleContext().setAccessibleDescription(bundle.getString("eventpanel_desc")); // NOI18N
-
                 tabPane.addTab(bundle.getString("EventsTasksTab"), new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/events.png")), jScrollPane11); // NOI18N
 
-                jScrollPane12.setViewportView(moviePanel);
-                moviePanel.getAccessibleContext().setAccessibleName(bundle.getString("videopanel_name")); // NOI18N
-                moviePanel.getAccessibleContext().setAccessibleDescription(bundle.getString("videopanel_desc")); // NOI18N
-
                 tabPane.addTab(bundle.getString("AnimationsVideosTab"), new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/videos.png")), jScrollPane12); // NOI18N
 
-                jScrollPane13.setViewportView(javasPanel);
-                javasPanel.getAccessibleContext().setAccessibleName(bundle.getString("javapanel_name")); // NOI18N
-                javasPanel.getAccessibleContext().setAccessibleDescription(bundle.getString("javapanel_desc")); // NOI18N
-
                 tabPane.addTab(bundle.getString("JavaTab"), new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/java.png")), jScrollPane13); // NOI18N
 
-                jScrollPane16.setViewportView(alarmPanel);
-                alarmPanel.getAccessibleContext().setAccessibleName(bundle.getString("alarmpanel_main")); // NOI18N
-                alarmPanel.getAccessibleContext().setAccessibleDescription(bundle.getString("alarmpanel_desc")); // NOI18N
-
                 tabPane.addTab(bundle.getString("Alarms"), new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/alarm.png")), jScrollPane16); // NOI18N
 
-                jScrollPane18.setViewportView(sMSPanel);
-                sMSPanel.getAccessibleContext().setAccessibleName(bundle.getString("smspanel_name")); // NOI18N
-                sMSPanel.getAccessibleContext().setAccessibleDescription(bundle.getString("smspanel_desc")); // NOI18N
-
                 tabPane.addTab(bundle.getString("SMS"), new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/sms.png")), jScrollPane18); // NOI18N
 
-                jScrollPane20.setViewportView(dialPanel);
-                dialPanel.getAccessibleContext().setAccessibleName(bundle.getString("dialpanel_name")); // NOI18N
-                dialPanel.getAccessibleContext().setAccessibleDescription(bundle.getString("dialpanel_desc")); // NOI18N
-
                 tabPane.addTab(bundle.getString("tab_dial"), new javax.swing.ImageIcon(getClass().getResource("/bogdrosoft/jymag/rsrc/dialtab.png")), jScrollPane20); // NOI18N
 
                 phoneTypeLabel.setText(bundle.getString("Phone_type:")); // NOI18N
@@ -762,20 +746,18 @@ public class MainWindow extends JFrame
 	private void scanButtonActionPerformed (java.awt.event.ActionEvent evt)	{//GEN-FIRST:event_scanButtonActionPerformed
 
 		// these MUST be read here, on the EDT
-		final TransferParameters tp = new TransferParameters (
-			portCombo, speedCombo, dataBitsCombo, stopBitsCombo,
-			parityCombo, flowSoft, flowHard, SYNC);
+		final TransferParameters tp = getTransferParameters ();
 
 		setSendingStatus ();
 		progressBar.setValue (0);
 		progressBar.setMinimum (0);
 		int max = setPorts ();
 		progressBar.setMaximum (max);
-		// always create new:
-		firmwares = new HashMap<String, String> (max);
-		phoneTypes = new HashMap<String, String> (max);
-		phoneIMEIs = new HashMap<String, String> (max);
-		phoneSubsNums = new HashMap<String, String> (max);
+		// always create new, filled while the port list can be used:
+		firmwares = Collections.synchronizedMap (new HashMap<String, String> (max));
+		phoneTypes = Collections.synchronizedMap (new HashMap<String, String> (max));
+		phoneIMEIs = Collections.synchronizedMap (new HashMap<String, String> (max));
+		phoneSubsNums = Collections.synchronizedMap (new HashMap<String, String> (max));
 
 		SwingWorker<Vector<String>, Void> sw =
 			new SwingWorker<Vector<String>, Void> ()
@@ -797,6 +779,7 @@ public class MainWindow extends JFrame
 				try
 				{
 					Vector<String> active = get ();
+					rememberDevices ();
 					if ( active == null )
 					{
 						UiUtils.showErrorMessage(mw,
@@ -927,6 +910,8 @@ public class MainWindow extends JFrame
 			if ( item != null )
 			{
 				String itemName = item.toString ();
+				// a port which didn't respond before may work now
+				CircuitBreaker.forPort (itemName).reset ();
 				String fw = PRESS_SCAN_MSG;
 				if ( firmwares != null
 					&& firmwares.containsKey (itemName) )
@@ -958,6 +943,8 @@ public class MainWindow extends JFrame
 					pNumber = phoneSubsNums.get (itemName);
 				}
 				subsNum.setText (pNumber);
+				stopWatching (tabPane);
+				showCachedData (tabPane);
 			} // item != null
 		} // selected
 	}//GEN-LAST:event_portComboItemStateChanged
@@ -1011,6 +998,8 @@ public class MainWindow extends JFrame
 				updateControls ();
 				fontSizeSpin.setValue ((float)cfg.getFontSizeValue ());
 				tabPane.setSelectedIndex(cfg.getSelectedTab ());
+				SessionPool.setMaxIdleTime (cfg.getSessionIdle () * 1000L);
+				TransferUtils.setScanProbeTimeout (cfg.getScanTimeout ());
 			}
 			catch (Exception ex)
 			{
@@ -1055,6 +1044,8 @@ public class MainWindow extends JFrame
 				cfg.setIsMaximized((getExtendedState() & Frame.MAXIMIZED_BOTH) != 0);
 				cfg.setFontSizeValue ((int)UiUtils.getFontSize(fontSizeSpin));
 				cfg.setSelectedTab (tabPane.getSelectedIndex());
+				cfg.setSessionIdle ((int) (SessionPool.getMaxIdleTime () / 1000));
+				cfg.setScanTimeout ((int) TransferUtils.getScanProbeTimeout ());
 				cfg.write ();
 			}
 			catch (Exception ex)
@@ -1282,10 +1273,287 @@ public class MainWindow extends JFrame
 		}
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Tells the tabs' panels in the given Component (recursively, if it's
+	 * a Container) to stop watching the phone.
+	 * @param c The Component with the panels.
+	 */
+	private void stopWatching (Component c)
+	{
+		if ( c == null )
+		{
+			return;
+		}
+		if ( c instanceof JYMAGTab )
+		{
+			((JYMAGTab)c).stopWatching ();
+		}
+		if ( c instanceof Container )
+		{
+			Component[] subComps = ((Container)c).getComponents ();
+			if ( subComps != null )
+			{
+				for ( int i = 0; i < subComps.length; i++ )
+				{
+					stopWatching (subComps[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tells the tabs' panels in the given Component (recursively, if it's
+	 * a Container) to show their cached data.
+	 * @param c The Component with the panels.
+	 */
+	private void showCachedData (Component c)
+	{
+		if ( c == null )
+		{
+			return;
+		}
+		if ( c instanceof JYMAGTab )
+		{
+			((JYMAGTab)c).showCachedData ();
+		}
+		if ( c instanceof Container )
+		{
+			Component[] subComps = ((Container)c).getComponents ();
+			if ( subComps != null )
+			{
+				for ( int i = 0; i < subComps.length; i++ )
+				{
+					showCachedData (subComps[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stores the phones found by scanning in the catalog cache.
+	 */
+	private void rememberDevices ()
+	{
+		if ( catalog == null || phoneIMEIs == null )
+		{
+			return;
+		}
+		synchronized (phoneIMEIs)
+		{
+			for ( Map.Entry<String, String> e : phoneIMEIs.entrySet () )
+			{
+				catalog.setDevice (e.getKey (), e.getValue (),
+					(firmwares != null)? firmwares.get (e.getKey ()) : null);
+			}
+		}
+	}
+
+	/**
+	 * Gets the cache of the lists of objects in the phones.
+	 * @return the cache or null if there's none.
+	 */
+	public CatalogCache getCatalogCache ()
+	{
+		return catalog;
+	}
+
+	/**
+	 * Gets the IMEI of the phone on the current port, found by scanning.
+	 * @return the IMEI of the phone on the current port or null if the
+	 *	port hasn't been scanned.
+	 */
+	public String getPhoneIMEI ()
+	{
+		Object port = portCombo.getSelectedItem ();
+		if ( port == null || phoneIMEIs == null )
+		{
+			return null;
+		}
+		return phoneIMEIs.get (port.toString ());
+	}
+
+	/**
+	 * Gets the IMEI of the phone on the current port, found by scanning
+	 * or, if the port hasn't been scanned, the one last seen on the port.
+	 * The phone on the port may have been changed since, so this is only
+	 * good for showing the cached data, not for storing new data.
+	 * @return the IMEI of the phone probably on the current port or null
+	 *	if unknown.
+	 */
+	public String getLastPhoneIMEI ()
+	{
+		String imei = getPhoneIMEI ();
+		Object port = portCombo.getSelectedItem ();
+		if ( imei == null && port != null && catalog != null )
+		{
+			imei = catalog.getLastDevice (port.toString ());
+		}
+		return imei;
+	}
+
+	/**
+	 * Gets the firmware version of the phone on the current port,
+	 * found by scanning.
+	 * @return the firmware version or null if unknown.
+	 */
+	public String getPhoneFirmware ()
+	{
+		Object port = portCombo.getSelectedItem ();
+		if ( port == null || firmwares == null )
+		{
+			return null;
+		}
+		return firmwares.get (port.toString ());
+	}
+
+	/**
+	 * Creates the panel on the given tab, if it hasn't been created yet.
+	 * The panels are created when their tabs are first shown, so that
+	 * the window appears sooner.
+	 * @param tab The tab's scroll pane.
+	 */
+	private void createTabPanel (Component tab)
+	{
+		if ( ! (tab instanceof JScrollPane) )
+		{
+			return;
+		}
+		JScrollPane sp = (JScrollPane)tab;
+		if ( sp.getViewport ().getView () != null )
+		{
+			return;
+		}
+		JPanel panel;
+		String name;
+		String desc;
+		if ( sp == jScrollPane7 )
+		{
+			panel = new PhotoPanel ();
+			name = "photopanel_name";	// NOI18N
+			desc = "photopanel_desc";	// NOI18N
+		}
+		else if ( sp == jScrollPane8 )
+		{
+			panel = new RingtonePanel ();
+			name = "ringtonepanel_name";	// NOI18N
+			desc = "ringtonepanel_desc";	// NOI18N
+		}
+		else if ( sp == jScrollPane9 )
+		{
+			panel = new AddrBookPanel ();
+			name = "addrbookpanel_name";	// NOI18N
+			desc = "addrbookpanel_desc";	// NOI18N
+		}
+		else if ( sp == jScrollPane10 )
+		{
+			panel = new TasksPanel ();
+			name = "todopanel_name";	// NOI18N
+			desc = "todopanel_desc";	// NOI18N
+		}
+		else if ( sp == jScrollPane11 )
+		{
+			panel = new EventsPanel ();
+			name = "eventpanel_name";	// NOI18N
+			desc = "eventpanel_desc";	// NOI18N
+		}
+		else if ( sp == jScrollPane12 )
+		{
+			panel = new MoviePanel ();
+			name = "videopanel_name";	// NOI18N
+			desc = "videopanel_desc";	// NOI18N
+		}
+		else if ( sp == jScrollPane13 )
+		{
+			panel = new JavasPanel ();
+			name = "javapanel_name";	// NOI18N
+			desc = "javapanel_desc";	// NOI18N
+		}
+		else if ( sp == jScrollPane16 )
+		{
+			panel = new AlarmPanel ();
+			name = "alarmpanel_main";	// NOI18N
+			desc = "alarmpanel_desc";	// NOI18N
+		}
+		else if ( sp == jScrollPane18 )
+		{
+			panel = new SMSPanel ();
+			name = "smspanel_name";	// NOI18N
+			desc = "smspanel_desc";	// NOI18N
+		}
+		else if ( sp == jScrollPane20 )
+		{
+			panel = new DialPanel ();
+			name = "dialpanel_name";	// NOI18N
+			desc = "dialpanel_desc";	// NOI18N
+		}
+		else
+		{
+			return;
+		}
+		panel.getAccessibleContext ().setAccessibleName (MW_BUNDLE.getString (name));
+		panel.getAccessibleContext ().setAccessibleDescription (MW_BUNDLE.getString (desc));
+		UiUtils.setFontSize (panel, UiUtils.getFontSize (fontSizeSpin));
+		sp.setViewportView (panel);
+		if ( escListener != null )
+		{
+			escListener.install (panel);
+		}
+		setPanelConnections (panel);
+	}
+
+	/**
+	 * Reads the list of the serial ports in the background, puts it
+	 * in the port list and selects the current port.
+	 */
+	private void setPortsInBackground ()
+	{
+		SwingWorker<Vector<String>, Void> sw =
+			new SwingWorker<Vector<String>, Void> ()
+		{
+			@Override
+			protected Vector<String> doInBackground ()
+			{
+				return TransferUtils.getSerialPortNames ();
+			}
+
+			@Override
+			protected void done ()
+			{
+				try
+				{
+					setPorts (get ());
+				}
+				catch (Exception ex)
+				{
+					Utils.handleException (ex,
+						"MainWindow.setPortsInBackground.SW.done");	// NOI18N
+					return;
+				}
+				if ( portName != null )
+				{
+					portCombo.setSelectedItem (portName);
+				}
+				// the phone last used on the port is probably still there
+				showCachedData (tabPane.getSelectedComponent ());
+			}
+
+			@Override
+			public String toString ()
+			{
+				return "MainWindow.setPortsInBackground.SwingWorker";	// NOI18N
+			}
+		};
+		sw.execute ();
+	}
+
 	final int setPorts ()
 	{
-		Vector<String> portList = TransferUtils.getSerialPortNames ();
+		return setPorts (TransferUtils.getSerialPortNames ());
+	}
+
+	@SuppressWarnings("unchecked")
+	private int setPorts (Vector<String> portList)
+	{
 		if ( portList != null )
 		{
 			int listLen = portList.size ();
@@ -1305,7 +1573,7 @@ public class MainWindow extends JFrame
 	 */
 	public TransferParameters getTransferParameters ()
 	{
-		return new TransferParameters (
+		return UiUtils.createTransferParameters (
 			portCombo, speedCombo, dataBitsCombo, stopBitsCombo,
 			parityCombo, flowSoft, flowHard, SYNC);
 	}
@@ -1325,26 +1593,60 @@ public class MainWindow extends JFrame
 			parityCombo.getSelectedIndex (),
 			(flowSoft.isSelected ()? 1 : 0) + (flowHard.isSelected ()? 2 : 0)
 			);
+		// the user wants to use the port now, so give the device a chance
+		dt.getCircuitBreaker ().reset ();
 		return dt;
 	}
 
 	// =============================== static methods
 
 	/**
-	 * Real program starting point.
-	 * @param args the command line arguments.
+	 * Starts the GUI, after the command line has been handled.
 	 * @throws ClassNotFoundException if the communication classes can't be loaded.
 	 */
-	public static void start (String[] args) throws ClassNotFoundException
+	public static void start () throws ClassNotFoundException
 	{
-		// parse the command line:
-		CommandLineParser.parse (args, SYNC);
+		// Check if the needed classes are available, just in
+		// case. Simply try to get one of the classes, without
+		// initializing it - that loads the native library, which
+		// is left to the first listing of the ports.
+		Class.forName ("gnu.io.CommPortIdentifier", false,	// NOI18N
+			MainWindow.class.getClassLoader ());
+
+		// display the operations' errors in message boxes:
+		TransferUtils.setErrorDisplay (new TransferUtils.ErrorDisplay ()
+		{
+			@Override
+			public void showError (Object parent, String msg)
+			{
+				UiUtils.showErrorMessage (
+					(parent instanceof Component)? (Component) parent : null,
+					msg);
+			}
 
-		// If we get here, it means that the command line didn't
-		// cause the program to exit and the GUI should be displayed.
-		// So check if the needed classes are available, just in
-		// case. Simply try to get one of the classes.
-		Class.forName ("gnu.io.CommPortIdentifier");	// NOI18N
+			@Override
+			public String toString ()
+			{
+				return "MainWindow.start.ErrorDisplay";	// NOI18N
+			}
+		});
+
+		// complete the background operations on the EDT, like
+		// the SwingWorkers did:
+		OperationExecutor.setCallbackExecutor (new Executor ()
+		{
+			@Override
+			public void execute (Runnable r)
+			{
+				SwingUtilities.invokeLater (r);
+			}
+
+			@Override
+			public String toString ()
+			{
+				return "MainWindow.start.Executor";	// NOI18N
+			}
+		});
 
 		try
 		{
@@ -1377,14 +1679,10 @@ public class MainWindow extends JFrame
         private javax.swing.JLabel IMEI;
         private javax.swing.JLabel IMEILabel;
         private javax.swing.JButton aboutBut;
-        private bogdrosoft.jymag.gui.panels.AddrBookPanel addrBookPanel;
-        private bogdrosoft.jymag.gui.panels.AlarmPanel alarmPanel;
         private javax.swing.JLabel bpsLabel;
         @SuppressWarnings("rawtypes")
         private javax.swing.JComboBox dataBitsCombo;
         private javax.swing.JLabel databitsLabel;
-        private bogdrosoft.jymag.gui.panels.DialPanel dialPanel;
-        private bogdrosoft.jymag.gui.panels.EventsPanel eventsPanel;
         private javax.swing.JButton exitBut;
         private javax.swing.JLabel firmware;
         private javax.swing.JLabel firmwareLabel;
@@ -1406,23 +1704,18 @@ public class MainWindow extends JFrame
         private javax.swing.JScrollPane jScrollPane7;
         private javax.swing.JScrollPane jScrollPane8;
         private javax.swing.JScrollPane jScrollPane9;
-        private bogdrosoft.jymag.gui.panels.JavasPanel javasPanel;
         private javax.swing.JButton loadConfBut;
-        private bogdrosoft.jymag.gui.panels.MoviePanel moviePanel;
         @SuppressWarnings("rawtypes")
         private javax.swing.JComboBox parityCombo;
         private javax.swing.JLabel parityLabel;
         private javax.swing.JLabel phone;
         private javax.swing.JLabel phoneTypeLabel;
-        private bogdrosoft.jymag.gui.panels.PhotoPanel photoPanel;
         @SuppressWarnings("rawtypes")
         private javax.swing.JComboBox portCombo;
         private javax.swing.JLabel portLabel;
         private final javax.swing.JProgressBar progressBar = new javax.swing.JProgressBar();
         private javax.swing.JLabel progressLabel;
         private javax.swing.JButton rawBut;
-        private bogdrosoft.jymag.gui.panels.RingtonePanel ringtonePanel;
-        private bogdrosoft.jymag.gui.panels.SMSPanel sMSPanel;
         private javax.swing.JButton saveConfBut;
         private javax.swing.JButton scanButton;
         private javax.swing.JButton signalButton;
@@ -1437,7 +1730,6 @@ public class MainWindow extends JFrame
         private javax.swing.JLabel subsNum;
         private javax.swing.JLabel subsNumLabel;
         private javax.swing.JTabbedPane tabPane;
-        private bogdrosoft.jymag.gui.panels.TasksPanel tasksPanel;
         // End of variables declaration//GEN-END:variables
 
 }
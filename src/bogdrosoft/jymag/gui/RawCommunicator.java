@@ -21,10 +21,14 @@
 package bogdrosoft.jymag.gui;
 
 import bogdrosoft.jymag.Utils;
+import bogdrosoft.jymag.comm.CommandScheduler;
+import bogdrosoft.jymag.comm.ControlLineMonitor;
 import bogdrosoft.jymag.comm.DataTransporter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.util.ResourceBundle;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.ImageIcon;
 import javax.swing.JFileChooser;
@@ -41,8 +45,6 @@ import javax.swing.SwingWorker;
 public class RawCommunicator extends javax.swing.JDialog
 {
 	private static final long serialVersionUID = 71L;
-	/** The refresh interval, in milliseconds. */
-	private static final int REFRESH_TIME = 1000;
 
 	// ------------ i18n stuff
 	private static final ResourceBundle MSGS
@@ -56,7 +58,8 @@ public class RawCommunicator extends javax.swing.JDialog
 
 	/** The file chooser for choosing the file to send. */
 	private JFileChooser fc;
-	private final AtomicBoolean isFinished = new AtomicBoolean(true);
+	/** The window and its background tasks, which the window waits for. */
+	private final Phaser running = new Phaser (1);
 	/** The "line disabled" icon. */
 	private final ImageIcon lineDisabledIcon
 		= new ImageIcon (getClass ().getResource ("/bogdrosoft/jymag/rsrc/line_off.png")); // NOI18N
@@ -66,9 +69,13 @@ public class RawCommunicator extends javax.swing.JDialog
 
 	private final MainWindow mw;
 	private final transient DataTransporter dtr;
-	private final transient Object sync;
-	/** The Thread that updates the control line signal display. */
+	private final transient CommandScheduler scheduler;
+	/** The Thread that displays the data which came unrequested. */
 	private transient Thread updater = null;
+	/** Tells the updater Thread to stop. */
+	private final AtomicBoolean stopUpdater = new AtomicBoolean (false);
+	/** Updates the control line signal display. */
+	private transient ControlLineMonitor.Listener lineListener = null;
 
 	/**
 	 * Creates new form RawCommunicator.
@@ -84,7 +91,7 @@ public class RawCommunicator extends javax.swing.JDialog
 		// make modal
 		super (parent, true);
 		dtr = dt;
-		sync = synchro;
+		scheduler = (dt != null)? dt.getScheduler () : null;
 		mw = parent;
 		if ( dt == null || synchro == null )
 		{
@@ -392,9 +399,9 @@ public class RawCommunicator extends javax.swing.JDialog
 			{
 				try
 				{
-					isFinished.set (false);
 					String rcvd = Utils.EMPTY_STR;
-					synchronized (sync)
+					scheduler.acquire (CommandScheduler.Priority.INTERACTIVE);
+					try
 					{
 						// don't force any encodings, because the command may
 						// be in another encoding
@@ -413,6 +420,10 @@ public class RawCommunicator extends javax.swing.JDialog
 						} while (rcvd.trim ().equals (Utils.EMPTY_STR)
 							&& trial < DataTransporter.MAX_TRIALS);
 					}
+					finally
+					{
+						scheduler.release ();
+					}
 					return rcvd;
 				}
 				catch (Exception ex)
@@ -424,7 +435,7 @@ public class RawCommunicator extends javax.swing.JDialog
 				}
 				finally
 				{
-					isFinished.set (true);
+					running.arriveAndDeregister ();
 				}
 			}
 
@@ -459,6 +470,7 @@ public class RawCommunicator extends javax.swing.JDialog
 				return "RawCommunicator.sendButActionPerformed.SwingWorker";	// NOI18N
 			}
 		};
+		running.register ();
 		sw.execute ();
 	}//GEN-LAST:event_sendButActionPerformed
 
@@ -480,11 +492,15 @@ public class RawCommunicator extends javax.swing.JDialog
 			{
 				try
 				{
-					isFinished.set (false);
-					synchronized (sync)
+					scheduler.acquire (CommandScheduler.Priority.INTERACTIVE);
+					try
 					{
 						dtr.setRTS (isSet);
 					}
+					finally
+					{
+						scheduler.release ();
+					}
 				}
 				catch (Exception ex)
 				{
@@ -492,7 +508,7 @@ public class RawCommunicator extends javax.swing.JDialog
 				}
 				finally
 				{
-					isFinished.set (true);
+					running.arriveAndDeregister ();
 				}
 				return null;
 			}
@@ -503,6 +519,7 @@ public class RawCommunicator extends javax.swing.JDialog
 				return "RawCommunicator.rtsButActionPerformed.SwingWorker";	// NOI18N
 			}
 		};
+		running.register ();
 		sw.execute ();
 	}//GEN-LAST:event_rtsButActionPerformed
 
@@ -518,11 +535,15 @@ public class RawCommunicator extends javax.swing.JDialog
 			{
 				try
 				{
-					isFinished.set (false);
-					synchronized (sync)
+					scheduler.acquire (CommandScheduler.Priority.INTERACTIVE);
+					try
 					{
 						dtr.setDTR (isSet);
 					}
+					finally
+					{
+						scheduler.release ();
+					}
 				}
 				catch (Exception ex)
 				{
@@ -530,7 +551,7 @@ public class RawCommunicator extends javax.swing.JDialog
 				}
 				finally
 				{
-					isFinished.set (true);
+					running.arriveAndDeregister ();
 				}
 				return null;
 			}
@@ -541,6 +562,7 @@ public class RawCommunicator extends javax.swing.JDialog
 				return "RawCommunicator.dtrButActionPerformed.SwingWorker";	// NOI18N
 			}
 		};
+		running.register ();
 		sw.execute ();
 	}//GEN-LAST:event_dtrButActionPerformed
 
@@ -588,14 +610,14 @@ public class RawCommunicator extends javax.swing.JDialog
 				{
 					try
 					{
-						isFinished.set (false);
 						int read = -1;
 						byte[] b = new byte[1024];
 						FileInputStream fis = null;
 						try
 						{
 							fis = new FileInputStream (f);
-							synchronized (sync)
+							scheduler.acquire (CommandScheduler.Priority.TRANSFER);
+							try
 							{
 								do
 								{
@@ -607,6 +629,10 @@ public class RawCommunicator extends javax.swing.JDialog
 									dtr.send (b, 0, read);
 								} while ( true );
 							}
+							finally
+							{
+								scheduler.release ();
+							}
 							fis.close ();
 						}
 						catch (Throwable t)
@@ -636,7 +662,7 @@ public class RawCommunicator extends javax.swing.JDialog
 					}
 					finally
 					{
-						isFinished.set (true);
+						running.arriveAndDeregister ();
 					}
 					return null;
 				}
@@ -660,6 +686,7 @@ public class RawCommunicator extends javax.swing.JDialog
 					return "RawCommunicator.sendFileButActionPerformed.SwingWorker";	// NOI18N
 				}
 			};
+			running.register ();
 			sw.execute ();
 		}
 	}//GEN-LAST:event_sendFileButActionPerformed
@@ -671,18 +698,24 @@ public class RawCommunicator extends javax.swing.JDialog
 
 	private void exit ()
 	{
+		if ( lineListener != null )
+		{
+			dtr.getControlLines ().removeListener (lineListener);
+		}
 		if ( updater != null )
 		{
-			while ( updater.isAlive () )
+			stopUpdater.set (true);
+			updater.interrupt ();
+			try
 			{
-				updater.interrupt ();
-				Utils.sleepIgnoreException(10);
+				updater.join ();
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread ().interrupt ();
 			}
 		}
-		while ( ! isFinished.get () )
-		{
-			Utils.sleepIgnoreException(10);
-		}
+		running.arriveAndAwaitAdvance ();
 		mw.setReadyStatus ();
 		dispose ();
 	}
@@ -746,75 +779,106 @@ public class RawCommunicator extends javax.swing.JDialog
 		});
 	}
 
-	private void start ()
+	/**
+	 * Shows the given change of a control line.
+	 * @param line The line which has changed.
+	 * @param on The new state of the line.
+	 */
+	void showLine (ControlLineMonitor.Line line, boolean on)
 	{
-		updater = new Thread (new Runnable ()
+		if ( line == null )
 		{
-			private boolean prevRTS = false;
-			private boolean currRTS = false;
-
-			private boolean prevDTR = false;
-			private boolean currDTR = false;
-
-			private boolean prevDCD = false;
-			private boolean currDCD = false;
-
-			private boolean prevRI  = false;
-			private boolean currRI  = false;
+			return;
+		}
+		switch (line)
+		{
+			case RTS:
+				setSignal (rtsBut, on);
+				break;
+			case DTR:
+				setSignal (dtrBut, on);
+				break;
+			case CD:
+				setSignal (dcdLabel, on);
+				break;
+			case RI:
+				setSignal (riLabel, on);
+				break;
+			case CTS:
+				setSignal (ctsLabel, on);
+				break;
+			case DSR:
+				setSignal (dsrLabel, on);
+				break;
+			default:
+				// the errors are not displayed
+				break;
+		}
+	}
 
-			private boolean prevCTS = false;
-			private boolean currCTS = false;
+	private void start ()
+	{
+		final ControlLineMonitor lines = dtr.getControlLines ();
+		// the Thread waits for this instead of checking the port periodically
+		final Semaphore dataArrived = new Semaphore (0);
+		lineListener = new ControlLineMonitor.Listener ()
+		{
+			@Override
+			public void lineChanged (ControlLineMonitor.Line line, boolean state)
+			{
+				showLine (line, state);
+			}
 
-			private boolean prevDSR = false;
-			private boolean currDSR = false;
+			@Override
+			public void dataAvailable ()
+			{
+				dataArrived.release ();
+			}
 
-			private int availBytes = 0;
+			@Override
+			public String toString ()
+			{
+				return "RawCommunicator.start.Listener";	// NOI18N
+			}
+		};
+		lines.addListener (lineListener);
+		ControlLineMonitor.Line[] all = ControlLineMonitor.Line.values ();
+		for ( int i = 0; i < all.length; i++ )
+		{
+			if ( lines.isSet (all[i]) )
+			{
+				showLine (all[i], true);
+			}
+		}
 
+		updater = new Thread (new Runnable ()
+		{
 			@Override
 			public void run ()
 			{
-				while (! Thread.interrupted ())
+				// data could have come before the listener was added
+				dataArrived.release ();
+				// the interrupt may be swallowed by a GUI update
+				while (! stopUpdater.get () && ! Thread.interrupted ())
 				{
-					synchronized (sync)
-					{
-						currRTS = dtr.isRTS ();
-						currDTR = dtr.isDTR ();
-						currDCD = dtr.isCD  ();
-						currRI  = dtr.isRI  ();
-						currCTS = dtr.isCTS ();
-						currDSR = dtr.isDSR ();
-						availBytes = dtr.getAvailableBytes();
-					}
-
-					if ( currRTS != prevRTS )
-					{
-						setSignal (rtsBut, currRTS);
-						prevRTS = currRTS;
-					}
-					if ( currDTR != prevDTR )
-					{
-						setSignal (dtrBut, currDTR);
-						prevDTR = currDTR;
-					}
-					if ( currDCD != prevDCD )
+					try
 					{
-						setSignal (dcdLabel, currDCD);
-						prevDCD = currDCD;
+						dataArrived.acquire ();
 					}
-					if ( currRI != prevRI )
+					catch (InterruptedException intex)
 					{
-						setSignal (riLabel, currRI);
-						prevRI = currRI;
+						break;
 					}
-					if ( currCTS != prevCTS )
+					dataArrived.drainPermits ();
+					int availBytes;
+					scheduler.acquire (CommandScheduler.Priority.BACKGROUND);
+					try
 					{
-						setSignal (ctsLabel, currCTS);
-						prevCTS = currCTS;
+						availBytes = dtr.getAvailableBytes();
 					}
-					if ( currDSR != prevDSR )
+					finally
 					{
-						setSignal (dsrLabel, currDSR);
-						prevDSR = currDSR;
+						scheduler.release ();
 					}
 					if ( availBytes != 0 )
 					{
@@ -846,14 +910,6 @@ public class RawCommunicator extends javax.swing.JDialog
 							}
 						}
 					}
-					try
-					{
-						Thread.sleep (REFRESH_TIME);
-					}
-					catch (InterruptedException intex)
-					{
-						break;
-					}
 				}
 			}
 
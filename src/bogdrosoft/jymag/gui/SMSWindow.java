@@ -21,7 +21,6 @@
 package bogdrosoft.jymag.gui;
 
 import bogdrosoft.jymag.PhoneMessage;
-import bogdrosoft.jymag.Utils;
 import bogdrosoft.jymag.comm.TransferParameters;
 import bogdrosoft.jymag.comm.TransferUtils;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -37,6 +36,8 @@ public class SMSWindow extends javax.swing.JDialog
 	private static final long serialVersionUID = 80L;
 	private final transient TransferParameters tp;
 	private final AtomicBoolean isFinished = new AtomicBoolean(true);
+	/** TRUE if the window should be closed when sending is finished. */
+	private final AtomicBoolean closeRequested = new AtomicBoolean(false);
 
 	// ------------ i18n stuff
 	/*
@@ -272,6 +273,10 @@ public class SMSWindow extends javax.swing.JDialog
 				closeBut.setEnabled (true);
 				isFinished.set (true);
 				mw.setReadyStatus ();
+				if ( closeRequested.get () )
+				{
+					dispose ();
+				}
 			}
 
 			@Override
@@ -297,9 +302,12 @@ public class SMSWindow extends javax.swing.JDialog
 
 	private void exit ()
 	{
-		while ( ! isFinished.get () )
+		// the end of sending is reported on the event thread, so it
+		// can't be waited for here - the window is closed at the end
+		if ( ! isFinished.get () )
 		{
-			Utils.sleepIgnoreException(10);
+			closeRequested.set (true);
+			return;
 		}
 		mw.setReadyStatus ();
 		dispose ();
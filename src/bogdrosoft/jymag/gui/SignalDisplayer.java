@@ -21,6 +21,7 @@
 package bogdrosoft.jymag.gui;
 
 import bogdrosoft.jymag.Utils;
+import bogdrosoft.jymag.comm.CommandScheduler;
 import bogdrosoft.jymag.comm.DataTransporter;
 import java.awt.Color;
 import java.awt.event.ItemEvent;
@@ -39,8 +40,8 @@ public class SignalDisplayer extends javax.swing.JFrame
 
 	/** The DataTransporter used for retrieveing the signal power level. */
 	private final transient DataTransporter dt;
-	/** The synchronization field. */
-	private final transient Object sync;
+	/** The scheduler of the commands sent to the port. */
+	private final transient CommandScheduler scheduler;
 
 	/** The Thread that updates the power level display. */
 	private transient Thread updater = null;
@@ -61,7 +62,7 @@ public class SignalDisplayer extends javax.swing.JFrame
 		Object synchro, float fontSize)
 	{
 		dt = dtr;
-		sync = synchro;
+		scheduler = (dtr != null)? dtr.getScheduler () : null;
 		mw = parent;
 		if ( dtr == null || synchro == null )
 		{
@@ -292,11 +293,16 @@ public class SignalDisplayer extends javax.swing.JFrame
 		runUpdater = false;
 		if ( updater != null )
 		{
-			while ( updater.isAlive () )
+			// wakes the thread up from sleeping and from waiting
+			// for a GUI update, which would wait for this thread
+			updater.interrupt ();
+			try
 			{
-				// only hurts: when the thread is interrupted, the window won't close
-				//updater.interrupt ();
-				Utils.sleepIgnoreException(10);
+				updater.join ();
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread ().interrupt ();
 			}
 		}
 		dt.close ();
@@ -354,10 +360,15 @@ public class SignalDisplayer extends javax.swing.JFrame
 			{
 				while (runUpdater && ! Thread.interrupted ())
 				{
-					synchronized (sync)
+					scheduler.acquire (CommandScheduler.Priority.BACKGROUND);
+					try
 					{
 						currLevel = dt.getSignalPower ();
 					}
+					finally
+					{
+						scheduler.release ();
+					}
 					if ( ! runUpdater )
 					{
 						break;
@@ -17,8 +17,9 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
-package bogdrosoft.jymag;
+package bogdrosoft.jymag.gui;
 
+import bogdrosoft.jymag.ProgramStatus;
 import java.awt.Color;
 import javax.swing.JLabel;
 
@@ -20,7 +20,10 @@
 
 package bogdrosoft.jymag.gui;
 
+import bogdrosoft.jymag.PhoneElement;
 import bogdrosoft.jymag.Utils;
+import bogdrosoft.jymag.comm.TransferParameters;
+import bogdrosoft.jymag.comm.TransferUtils;
 import java.awt.Component;
 import java.awt.Container;
 import java.awt.Dimension;
@@ -34,8 +37,14 @@ import java.awt.Window;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -274,6 +283,47 @@ public class UiUtils {
 		}
 	}
 
+	/**
+	 * Creates a new instance of TransferParameters from the given
+	 * GUI components. Must be called on the EDT.
+	 * @param portCombo Port ID combo box.
+	 * @param speedCombo Port transfer speed (bit rate) combo box.
+	 * @param dataBitsCombo Number of port data bits' combo box.
+	 * @param stopBitsCombo Number of port stop bits' combo box.
+	 * @param parityCombo Port parity setting combo box.
+	 * @param flowSoft Hardware port data flow control setting checkbox.
+	 * @param flowHard Software port data flow control setting checkbox.
+	 * @param dSync Transmission synchronisation object.
+	 * @return the parameters set in the given components.
+	 */
+	@SuppressWarnings("rawtypes")
+	public static TransferParameters createTransferParameters(
+		final JComboBox portCombo,
+		final JComboBox speedCombo,
+		final JComboBox dataBitsCombo,
+		final JComboBox stopBitsCombo,
+		final JComboBox parityCombo,
+		final JCheckBox flowSoft,
+		final JCheckBox flowHard,
+		final Object dSync)
+	{
+		Object id = null;
+		Object selectedPort = portCombo.getSelectedItem ();
+		if ( selectedPort != null )
+		{
+			id = TransferUtils.getIdentifierForPort (selectedPort.toString ());
+		}
+		// NOTE that the port can be NULL if there aren't any
+		// ports detected at all. We need to manage that gracefully.
+		return new TransferParameters (id,
+			Integer.parseInt (speedCombo.getSelectedItem ().toString ()),
+			Integer.parseInt (dataBitsCombo.getSelectedItem ().toString ()),
+			Double.parseDouble (stopBitsCombo.getSelectedItem ().toString ()),
+			parityCombo.getSelectedIndex (),
+			(flowSoft.isSelected ()? 1 : 0) + (flowHard.isSelected ()? 2 : 0),
+			dSync);
+	}
+
 	/**
 	 * Creates a table model with the given number of rows and columns
 	 * (taken from the given model or the parameters) and editability.
@@ -339,6 +389,105 @@ public class UiUtils {
 		return dtm;
 	}
 
+	/**
+	 * Updates the given table of phone elements to show the new list.
+	 * The elements are matched by their IDs and only the rows which
+	 * differ are inserted, changed or removed, so the table keeps its
+	 * selection and scroll position. If the table doesn't show the old
+	 * list, it is filled again.
+	 * @param dtm The table to update, with one row per element.
+	 * @param oldElems The elements currently shown in the table, in order.
+	 *	Can be null.
+	 * @param newElems The elements to show, in order.
+	 */
+	public static void updateListTable(DefaultTableModel dtm,
+		List<PhoneElement> oldElems, List<PhoneElement> newElems)
+	{
+		if ( dtm == null )
+		{
+			return;
+		}
+		if ( newElems == null )
+		{
+			newElems = new ArrayList<PhoneElement> (0);
+		}
+		if ( oldElems == null || dtm.getRowCount () != oldElems.size () )
+		{
+			dtm.setRowCount (0);
+			for ( int i = 0; i < newElems.size (); i++ )
+			{
+				dtm.addRow (getListRow (newElems.get (i)));
+			}
+			return;
+		}
+		Set<String> newIds = new HashSet<String> (newElems.size ());
+		for ( int i = 0; i < newElems.size (); i++ )
+		{
+			newIds.add (newElems.get (i).getID ());
+		}
+		// the elements shown in the table, kept in the table's order
+		List<PhoneElement> shown = new ArrayList<PhoneElement> (oldElems);
+		Set<String> shownIds = new HashSet<String> (shown.size ());
+		for ( int i = shown.size () - 1; i >= 0; i-- )
+		{
+			String id = shown.get (i).getID ();
+			if ( newIds.contains (id) )
+			{
+				shownIds.add (id);
+			}
+			else
+			{
+				shown.remove (i);
+				dtm.removeRow (i);
+			}
+		}
+		for ( int i = 0; i < newElems.size (); i++ )
+		{
+			PhoneElement el = newElems.get (i);
+			if ( i < shown.size () && isSameId (shown.get (i), el) )
+			{
+				if ( ! shown.get (i).equals (el) )
+				{
+					shown.set (i, el);
+					dtm.setValueAt (getListRow (el)[0], i, 0);
+				}
+				continue;
+			}
+			if ( shownIds.contains (el.getID ()) )
+			{
+				// the element has moved - take its row from the old place
+				for ( int j = i + 1; j < shown.size (); j++ )
+				{
+					if ( isSameId (shown.get (j), el) )
+					{
+						shown.remove (j);
+						dtm.removeRow (j);
+						break;
+					}
+				}
+			}
+			shown.add (i, el);
+			dtm.insertRow (i, getListRow (el));
+		}
+		// only possible with repeated IDs
+		while ( shown.size () > newElems.size () )
+		{
+			shown.remove (shown.size () - 1);
+			dtm.removeRow (shown.size ());
+		}
+	}
+
+	private static boolean isSameId (PhoneElement a, PhoneElement b)
+	{
+		String id = a.getID ();
+		return (id == null)? b.getID () == null : id.equals (b.getID ());
+	}
+
+	private static String[] getListRow (PhoneElement el)
+	{
+		return new String[] {el.getFilename () + Utils.DOT + el.getExt ()};
+	}
+
 	/**
 	 * Shows a messagebox with the given error message.
 	 * @param c The parent Component of the box. Can be <b>null</b>.
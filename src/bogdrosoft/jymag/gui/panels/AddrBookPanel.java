@@ -273,6 +273,18 @@ public class AddrBookPanel extends javax.swing.JPanel implements JYMAGTab
 		// not needed
 	}
 
+	@Override
+	public void showCachedData ()
+	{
+		if ( currentAddrElements == null )
+		{
+			currentAddrElements = new Vector<PhoneElement> (1);
+		}
+		PanelUtils.revalidateList (mw, "VCARDS",	// NOI18N
+			(DefaultTableModel) addrTable.getModel (),
+			currentAddrElements);
+	}
+
         // Variables declaration - do not modify//GEN-BEGIN:variables
         private javax.swing.JTable addrTable;
         private javax.swing.JButton deleteAddrBut;
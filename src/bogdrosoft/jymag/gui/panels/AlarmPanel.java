@@ -29,8 +29,10 @@ import bogdrosoft.jymag.gui.UiUtils;
 import java.util.ResourceBundle;
 import java.util.Vector;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import javax.swing.JOptionPane;
 import javax.swing.JSpinner;
+import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableModel;
 
 /**
@@ -247,7 +249,15 @@ public class AlarmPanel extends javax.swing.JPanel implements JYMAGTab
 				{
 					return "AlarmPanel.getAlarmListButActionPerformed.Runnable";	// NOI18N
 				}
-			}, this, false, false, false, alarmTable, currentAlarmElements);
+			}, this, false, false, false, currentAlarmElements,
+			new BiConsumer<Vector<PhoneAlarm>, Integer> ()
+			{
+				@Override
+				public void accept (Vector<PhoneAlarm> alarms, Integer number)
+				{
+					showAlarms (alarms, number.intValue ());
+				}
+			});
 		}
 		catch (Exception ex)
 		{
@@ -392,6 +402,87 @@ public class AlarmPanel extends javax.swing.JPanel implements JYMAGTab
 		}
 	}//GEN-LAST:event_deleteAlarmButdeleteButActionPerformed
 
+	/**
+	 * Puts the given alarms in the alarm table.
+	 * @param ret The alarms to show.
+	 * @param alNumber The number of alarms the phone can hold.
+	 */
+	private void showAlarms (Vector<PhoneAlarm> ret, int alNumber)
+	{
+		TableModel model = alarmTable.getModel ();
+		DefaultTableModel dtm =
+			UiUtils.createTableModel(
+				alarmTable.getModel (),
+				(alNumber > 0)? alNumber : 1,
+				4,
+				true
+			);
+		if ( model == null )
+		{
+			dtm.setColumnIdentifiers (new String[]
+			{
+				MSGS.getString("Alarm_number"),		// NOI18N
+				MSGS.getString("Alarm_date"),		// NOI18N
+				MSGS.getString("Alarm_time"),		// NOI18N
+				MSGS.getString("Alarm_days")		// NOI18N
+			});
+		}
+		dtm.setRowCount (0);
+		for ( int i=0; i < ret.size (); i++ )
+		{
+			PhoneAlarm al = ret.get (i);
+			if ( al == null )
+			{
+				continue;
+			}
+			String date = null;
+			if ( al.isOneTimeAlarm () )
+			{
+				date = al.getDateString ();
+			}
+			if ( date == null )
+			{
+				date = Utils.EMPTY_STR;
+			}
+			String time = al.getTimeString ();
+			if ( time == null )
+			{
+				time = Utils.QUESTION_MARK;
+			}
+			String days = al.getDaysString ();
+			if ( days == null )
+			{
+				days = Utils.ZERO;
+			}
+			if ( days.isEmpty () )
+			{
+				days = Utils.ZERO;
+			}
+			int num = al.getNumber ();
+			if ( num <= 0 )
+			{
+				num = 1;
+			}
+			dtm.insertRow (num-1, new Object[]
+				{
+					num, date, time, days
+				}
+			);
+		}
+		for ( int i = ret.size (); i < alNumber; i++ )
+		{
+			dtm.addRow (new String[]
+				{
+					String.valueOf (i),
+					Utils.EMPTY_STR,
+					Utils.EMPTY_STR,
+					Utils.EMPTY_STR
+				}
+			);
+		}
+		alarmTable.setModel (dtm);
+	}
+
 	@Override
 	public void setDestDir (String destDir)
 	{
@@ -273,6 +273,18 @@ public class EventsPanel extends javax.swing.JPanel implements JYMAGTab
 		// not needed
 	}
 
+	@Override
+	public void showCachedData ()
+	{
+		if ( currentEventElements == null )
+		{
+			currentEventElements = new Vector<PhoneElement> (1);
+		}
+		PanelUtils.revalidateList (mw, "VEVENT",	// NOI18N
+			(DefaultTableModel) eventTable.getModel (),
+			currentEventElements);
+	}
+
 
         // Variables declaration - do not modify//GEN-BEGIN:variables
         private javax.swing.JButton deleteEventBut;
@@ -47,4 +47,23 @@ public interface JYMAGTab
 	 * @param fontSizeSpinner The font size spinner.
 	 */
 	void setFontSizeSpin (JSpinner fontSizeSpinner);
+
+	/**
+	 * Shows the cached data of the current phone, if the tab has any,
+	 * and gets the data from the phone in the background if the cached
+	 * data is old. Called when the tab is shown or the phone changes.
+	 */
+	default void showCachedData ()
+	{
+		// most tabs have nothing cached
+	}
+
+	/**
+	 * Stops watching the phone for changes, if the tab does it, and lets
+	 * the phone's port be closed. Called when the phone changes.
+	 */
+	default void stopWatching ()
+	{
+		// most tabs don't watch the phone
+	}
 }
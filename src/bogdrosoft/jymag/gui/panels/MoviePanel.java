@@ -272,6 +272,18 @@ public class MoviePanel extends javax.swing.JPanel implements JYMAGTab
 		// not needed
 	}
 
+	@Override
+	public void showCachedData ()
+	{
+		if ( currentAnimElements == null )
+		{
+			currentAnimElements = new Vector<PhoneElement> (1);
+		}
+		PanelUtils.revalidateList (mw, "ANIMATIONS",	// NOI18N
+			(DefaultTableModel) animTable.getModel (),
+			currentAnimElements);
+	}
+
         // Variables declaration - do not modify//GEN-BEGIN:variables
         private javax.swing.JTable animTable;
         private javax.swing.JButton deleteAnimBut;
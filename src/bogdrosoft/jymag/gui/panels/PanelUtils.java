@@ -21,15 +21,20 @@ package bogdrosoft.jymag.gui.panels;
 
 import bogdrosoft.jymag.PhoneElement;
 import bogdrosoft.jymag.Utils;
+import bogdrosoft.jymag.comm.CatalogCache;
 import bogdrosoft.jymag.comm.TransferParameters;
 import bogdrosoft.jymag.comm.TransferUtils;
 import bogdrosoft.jymag.gui.MainWindow;
 import bogdrosoft.jymag.gui.UiUtils;
 import java.awt.HeadlessException;
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.table.DefaultTableModel;
@@ -45,12 +50,20 @@ public class PanelUtils
 		// non-instantiable
 	}
 
+	/** The age of a cached list which makes it checked again, in milliseconds. */
+	static final long REVALIDATE_TIME = 60000;
+	/** The types of the lists being checked in the background. */
+	private static final Set<String> REVALIDATING =
+		Collections.newSetFromMap (new ConcurrentHashMap<String, Boolean> (8));
+
 	/**
-	 * Puts the list of the given elements in the given table.
+	 * Puts the list of the given elements in the given table. Only the rows
+	 * which have changed since the previous list are updated.
 	 * @param mw The MainWindow to refer to.
 	 * @param ofWhat Tells which elements should be downloaded.
 	 * @param dtm The table to put the data in.
-	 * @param placeForData The place for the downloaded elements.
+	 * @param placeForData The place for the downloaded elements, holding
+	 *	the elements currently shown in the table.
 	 */
 	public static void putListInTable (final MainWindow mw,
 		final String ofWhat,
@@ -63,12 +76,91 @@ public class PanelUtils
 			UiUtils.showErrorMessage(mw, MainWindow.NO_PORT_MSG);
 			return;
 		}
+		// show the cached list at once, the phone's list will update it
+		showCachedList (mw, ofWhat, dtm, placeForData);
+		downloadListToTable (mw, tp, ofWhat, dtm, placeForData, false);
+	}
+
+	/**
+	 * Puts the cached list of the given elements of the current phone
+	 * in the given table and, if a port is selected and the list is
+	 * older than REVALIDATE_TIME or not cached, downloads the list from
+	 * the phone in the background, without any messages. The table and
+	 * the cache are updated when the list is received.
+	 * @param mw The MainWindow to refer to.
+	 * @param ofWhat Tells which elements should be shown.
+	 * @param dtm The table to put the data in.
+	 * @param placeForData The place for the elements, holding the
+	 *	elements currently shown in the table.
+	 * @return TRUE if the list is being downloaded.
+	 */
+	public static boolean revalidateList (MainWindow mw,
+		String ofWhat,
+		DefaultTableModel dtm,
+		Vector<PhoneElement> placeForData)
+	{
+		if ( mw == null || ofWhat == null || placeForData == null )
+		{
+			return false;
+		}
+		showCachedList (mw, ofWhat, dtm, placeForData);
+		TransferParameters tp = mw.getTransferParameters ();
+		if ( tp == null || tp.getId () == null )
+		{
+			return false;
+		}
+		CatalogCache cache = mw.getCatalogCache ();
+		if ( cache != null )
+		{
+			CatalogCache.Entry e = cache.get (mw.getLastPhoneIMEI (), ofWhat);
+			if ( e != null && System.currentTimeMillis () - e.getFetchTime ()
+				< REVALIDATE_TIME )
+			{
+				return false;
+			}
+		}
+		if ( ! REVALIDATING.add (ofWhat) )
+		{
+			// already being checked
+			return false;
+		}
+		downloadListToTable (mw, tp, ofWhat, dtm, placeForData, true);
+		return true;
+	}
+
+	/**
+	 * Downloads the list of the given elements and puts it in the given
+	 * table and in the cache of the phone found by scanning.
+	 * @param mw The MainWindow to refer to.
+	 * @param tp The port parameters to use.
+	 * @param ofWhat Tells which elements should be downloaded.
+	 * @param dtm The table to put the data in.
+	 * @param placeForData The place for the downloaded elements, holding
+	 *	the elements currently shown in the table.
+	 * @param background TRUE if the download wasn't asked for by the
+	 *	user, so it doesn't show any messages or change the status.
+	 */
+	private static void downloadListToTable (final MainWindow mw,
+		TransferParameters tp,
+		final String ofWhat,
+		final DefaultTableModel dtm,
+		final Vector<PhoneElement> placeForData,
+		final boolean background)
+	{
+		final CatalogCache cache = mw.getCatalogCache ();
+		// only a phone found by scanning, with its firmware, so that
+		// another phone on the port can't replace the lists of the old one
+		final String imei = mw.getPhoneIMEI ();
+		final String firmware = mw.getPhoneFirmware ();
 		try
 		{
-			mw.setReceivingStatus ();
-			mw.setProgressCurrentValue (0);
-			mw.setProgressMinimumValue (0);
-			mw.setProgressMaximumValue (1);
+			if ( ! background )
+			{
+				mw.setReceivingStatus ();
+				mw.setProgressCurrentValue (0);
+				mw.setProgressMinimumValue (0);
+				mw.setProgressMaximumValue (1);
+			}
 
 			TransferUtils.downloadList (ofWhat, tp,
 				new Runnable ()
@@ -76,6 +168,11 @@ public class PanelUtils
 					@Override
 					public synchronized void run ()
 					{
+						if ( background )
+						{
+							REVALIDATING.remove (ofWhat);
+							return;
+						}
 						mw.setProgressCurrentValue (1);
 						mw.setReadyStatus ();
 					}
@@ -83,15 +180,76 @@ public class PanelUtils
 					@Override
 					public String toString ()
 					{
-						return "PanelUtils.putListInTable.Runnable";	// NOI18N
+						return "PanelUtils.downloadListToTable.Runnable";	// NOI18N
 					}
-				}, mw, false, false, false, dtm, placeForData);
+				}, mw, background, background, false, placeForData,
+				new Consumer<Vector<PhoneElement>> ()
+				{
+					@Override
+					public void accept (Vector<PhoneElement> elems)
+					{
+						// the old list tells which rows have changed
+						UiUtils.updateListTable (dtm, placeForData, elems);
+						if ( cache != null && imei != null )
+						{
+							cache.put (imei, firmware, ofWhat, elems);
+						}
+					}
+
+					@Override
+					public String toString ()
+					{
+						return "PanelUtils.downloadListToTable.Consumer";	// NOI18N
+					}
+				});
 		}
 		catch (Exception ex)
 		{
-			mw.setReadyStatus ();
-			Utils.handleException (ex, "PanelUtils.putListInTable");	// NOI18N
+			if ( background )
+			{
+				REVALIDATING.remove (ofWhat);
+			}
+			else
+			{
+				mw.setReadyStatus ();
+			}
+			Utils.handleException (ex, "PanelUtils.downloadListToTable");	// NOI18N
+		}
+	}
+
+	/**
+	 * Puts the cached list of the given elements of the current phone
+	 * in the given table, without asking the phone.
+	 * @param mw The MainWindow to refer to.
+	 * @param ofWhat Tells which elements should be shown.
+	 * @param dtm The table to put the data in.
+	 * @param placeForData The place for the elements, holding the
+	 *	elements currently shown in the table.
+	 * @return TRUE if a cached list has been found.
+	 */
+	public static boolean showCachedList (MainWindow mw,
+		String ofWhat,
+		DefaultTableModel dtm,
+		Vector<PhoneElement> placeForData)
+	{
+		if ( mw == null || placeForData == null )
+		{
+			return false;
+		}
+		CatalogCache cache = mw.getCatalogCache ();
+		if ( cache == null )
+		{
+			return false;
+		}
+		CatalogCache.Entry e = cache.get (mw.getLastPhoneIMEI (), ofWhat);
+		if ( e == null )
+		{
+			return false;
 		}
+		UiUtils.updateListTable (dtm, placeForData, e.getElements ());
+		placeForData.removeAllElements ();
+		placeForData.addAll (e.getElements ());
+		return true;
 	}
 
 	/**
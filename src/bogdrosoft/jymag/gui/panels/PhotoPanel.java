@@ -273,6 +273,18 @@ public class PhotoPanel extends javax.swing.JPanel implements JYMAGTab
 		// not needed
 	}
 
+	@Override
+	public void showCachedData ()
+	{
+		if ( currentPhotoElements == null )
+		{
+			currentPhotoElements = new Vector<PhoneElement> (1);
+		}
+		PanelUtils.revalidateList (mw, "PICTURES",	// NOI18N
+			(DefaultTableModel) photoTable.getModel (),
+			currentPhotoElements);
+	}
+
         // Variables declaration - do not modify//GEN-BEGIN:variables
         private javax.swing.JButton deletePhotoBut;
         private javax.swing.JButton downloadPhotoBut;
@@ -273,6 +273,18 @@ public class RingtonePanel extends javax.swing.JPanel implements JYMAGTab
 		// not needed
 	}
 
+	@Override
+	public void showCachedData ()
+	{
+		if ( currentRingElements == null )
+		{
+			currentRingElements = new Vector<PhoneElement> (1);
+		}
+		PanelUtils.revalidateList (mw, "RINGTONES",	// NOI18N
+			(DefaultTableModel) ringTable.getModel (),
+			currentRingElements);
+	}
+
         // Variables declaration - do not modify//GEN-BEGIN:variables
         private javax.swing.JButton deleteRingBut;
         private javax.swing.JButton downloadRingBut;
@@ -22,6 +22,7 @@ package bogdrosoft.jymag.gui.panels;
 
 import bogdrosoft.jymag.PhoneMessage;
 import bogdrosoft.jymag.Utils;
+import bogdrosoft.jymag.comm.MessageWatcher;
 import bogdrosoft.jymag.comm.TransferParameters;
 import bogdrosoft.jymag.comm.TransferUtils;
 import bogdrosoft.jymag.gui.MainWindow;
@@ -29,9 +30,15 @@ import bogdrosoft.jymag.gui.SMSWindow;
 import bogdrosoft.jymag.gui.UiUtils;
 import java.util.ResourceBundle;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import javax.swing.JOptionPane;
 import javax.swing.JSpinner;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
 
 /**
  * This class is the SMS' panel in the JYMAG program.
@@ -55,6 +62,13 @@ public class SMSPanel extends javax.swing.JPanel implements JYMAGTab
 
 	private Vector<PhoneMessage> currentMessageElements;
 
+	/** Puts the new messages in the table, once the list is downloaded. */
+	private transient MessageWatcher watcher;
+	/** The port watched for new messages. */
+	private transient Object watchedPort;
+	/** The maximum time to wait for the watching to stop, in milliseconds. */
+	private static final long STOP_TIMEOUT = 2000;
+
 	/** Creates new form SMSPanel */
 	public SMSPanel()
 	{
@@ -207,7 +221,7 @@ public class SMSPanel extends javax.swing.JPanel implements JYMAGTab
 	private void getSmsListButActionPerformed (java.awt.event.ActionEvent evt)//GEN-FIRST:event_getSmsListButActionPerformed
 	{//GEN-HEADEREND:event_getSmsListButActionPerformed
 
-		TransferParameters tp = mw.getTransferParameters ();
+		final TransferParameters tp = mw.getTransferParameters ();
 		if ( tp == null || tp.getId () == null )
 		{
 			UiUtils.showErrorMessage(mw, MainWindow.NO_PORT_MSG);
@@ -232,6 +246,7 @@ public class SMSPanel extends javax.swing.JPanel implements JYMAGTab
 				{
 					mw.setProgressCurrentValue (1);
 					mw.setReadyStatus ();
+					watchMessages (tp);
 				}
 
 				@Override
@@ -239,7 +254,15 @@ public class SMSPanel extends javax.swing.JPanel implements JYMAGTab
 				{
 					return "SMSPanel.getSmsListButActionPerformed.Runnable";	// NOI18N
 				}
-			}, this, false, false, false, smsTable, currentMessageElements);
+			}, this, false, false, false, currentMessageElements,
+			new Consumer<Vector<PhoneMessage>> ()
+			{
+				@Override
+				public void accept (Vector<PhoneMessage> msgs)
+				{
+					showMessages (msgs);
+				}
+			});
 		}
 		catch (Exception ex)
 		{
@@ -363,6 +386,224 @@ public class SMSPanel extends javax.swing.JPanel implements JYMAGTab
 		}
 	}//GEN-LAST:event_deleteSmsButdeleteButActionPerformed
 
+	/**
+	 * Starts putting the new messages arriving at the given port
+	 * in the table, if not started yet.
+	 * @param tp The port parameters to use.
+	 */
+	synchronized void watchMessages (TransferParameters tp)
+	{
+		if ( tp == null || tp.getId () == null )
+		{
+			return;
+		}
+		if ( watcher != null )
+		{
+			if ( watchedPort.equals (tp.getId ()) )
+			{
+				return;
+			}
+			stopWatching ();
+		}
+		watchedPort = tp.getId ();
+		watcher = new MessageWatcher (tp, new MessageWatcher.Listener ()
+		{
+			@Override
+			public void messageReceived (final PhoneMessage msg)
+			{
+				SwingUtilities.invokeLater (new Runnable ()
+				{
+					@Override
+					public void run ()
+					{
+						addMessage (msg);
+					}
+
+					@Override
+					public String toString ()
+					{
+						return "SMSPanel.watchMessages.Runnable";	// NOI18N
+					}
+				});
+			}
+		});
+		watcher.start ();
+	}
+
+	/**
+	 * Gets the watcher of the new messages.
+	 * @return the watcher or null if not watching.
+	 */
+	synchronized MessageWatcher getWatcher ()
+	{
+		return watcher;
+	}
+
+	@Override
+	public void stopWatching ()
+	{
+		stopWatcher ();
+	}
+
+	/**
+	 * Stops the watcher, if started. The phone stops sending the
+	 * notifications and the port is released.
+	 * @return the future result of stopping or null if not watching.
+	 */
+	private synchronized CompletableFuture<Integer> stopWatcher ()
+	{
+		if ( watcher == null )
+		{
+			return null;
+		}
+		CompletableFuture<Integer> res = watcher.stop ();
+		watcher = null;
+		watchedPort = null;
+		return res;
+	}
+
+	@Override
+	public void removeNotify ()
+	{
+		super.removeNotify ();
+		CompletableFuture<Integer> res = stopWatcher ();
+		if ( res == null )
+		{
+			return;
+		}
+		// the program may be closing, so give the phone a moment
+		// to stop sending the notifications before the ports are closed
+		try
+		{
+			res.get (STOP_TIMEOUT, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread ().interrupt ();
+		}
+		catch (Exception ex)
+		{
+			Utils.handleException (ex, "SMSPanel.removeNotify");	// NOI18N
+		}
+	}
+
+	/**
+	 * Adds the given new message to the list and the table, unless
+	 * a message with the same ID is already there.
+	 * Must be called on the Event Dispatching Thread.
+	 * @param msg The message to add.
+	 */
+	private void addMessage (PhoneMessage msg)
+	{
+		if ( msg == null || currentMessageElements == null )
+		{
+			return;
+		}
+		String id = msg.getID ();
+		if ( id == null )
+		{
+			return;
+		}
+		for ( int i = 0; i < currentMessageElements.size (); i++ )
+		{
+			PhoneMessage old = currentMessageElements.get (i);
+			if ( old != null && id.equals (old.getID ()) )
+			{
+				return;
+			}
+		}
+		TableModel model = smsTable.getModel ();
+		if ( ! (model instanceof DefaultTableModel)
+			|| model.getRowCount () != currentMessageElements.size () )
+		{
+			// the rows wouldn't match the list
+			return;
+		}
+		currentMessageElements.add (msg);
+		((DefaultTableModel) model).addRow (new Object[]
+			{
+				Integer.valueOf (id),
+				getOrEmpty (msg.getStatus ()),
+				getOrEmpty (msg.getRecipientNum ()),
+				getOrEmpty (msg.getDateTime ()),
+				getOrEmpty (msg.getMessage ())
+			}
+		);
+	}
+
+	private static String getOrEmpty (String s)
+	{
+		return (s != null)? s : Utils.EMPTY_STR;
+	}
+
+	/**
+	 * Puts the given messages in the message table.
+	 * @param ret The messages to show.
+	 */
+	private void showMessages (Vector<PhoneMessage> ret)
+	{
+		TableModel model = smsTable.getModel ();
+		DefaultTableModel dtm =
+			UiUtils.createTableModel(
+				smsTable.getModel (),
+				ret.size (),
+				5,
+				false
+			);
+		if ( model == null )
+		{
+			dtm.setColumnIdentifiers (new String[]
+			{
+				MSGS.getString("smsTable_ID"),		// NOI18N
+				MSGS.getString("smsTable_Status"),	// NOI18N
+				MSGS.getString("smsTable_PhoneNum"),	// NOI18N
+				MSGS.getString("smsTable_DateTime"),	// NOI18N
+				MSGS.getString("smsTable_message")	// NOI18N
+			});
+		}
+		dtm.setRowCount (0);
+		for ( int i=0; i < ret.size (); i++ )
+		{
+			PhoneMessage msg = ret.get (i);
+			if ( msg == null )
+			{
+				continue;
+			}
+			String id = msg.getID ();
+			if ( id == null )
+			{
+				id = Utils.EMPTY_STR;
+			}
+			String status = msg.getStatus ();
+			if ( status == null )
+			{
+				status = Utils.EMPTY_STR;
+			}
+			String phoneNum = msg.getRecipientNum ();
+			if ( phoneNum == null )
+			{
+				phoneNum = Utils.EMPTY_STR;
+			}
+			String datetime = msg.getDateTime ();
+			if ( datetime == null )
+			{
+				datetime = Utils.EMPTY_STR;
+			}
+			String msgBody = msg.getMessage ();
+			if ( msgBody == null )
+			{
+				msgBody = Utils.EMPTY_STR;
+			}
+			dtm.addRow (new Object[]
+				{
+					Integer.valueOf (id),
+					status, phoneNum, datetime, msgBody
+				}
+			);
+		}
+		smsTable.setModel (dtm);
+	}
+
 	@Override
 	public void setDestDir (String destDir)
 	{
@@ -273,6 +273,18 @@ public class TasksPanel extends javax.swing.JPanel implements JYMAGTab
 		// not needed
 	}
 
+	@Override
+	public void showCachedData ()
+	{
+		if ( currentTodoElements == null )
+		{
+			currentTodoElements = new Vector<PhoneElement> (1);
+		}
+		PanelUtils.revalidateList (mw, "VTODO",	// NOI18N
+			(DefaultTableModel) todoTable.getModel (),
+			currentTodoElements);
+	}
+
 
         // Variables declaration - do not modify//GEN-BEGIN:variables
         private javax.swing.JButton deleteTodoBut;
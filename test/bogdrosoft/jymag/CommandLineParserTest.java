@@ -20,6 +20,23 @@
 
 package bogdrosoft.jymag;
 
+import bogdrosoft.jymag.comm.SessionPool;
+import bogdrosoft.jymag.comm.TransferParameters;
+import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
+import bogdrosoft.jymag.comm.fake.FakeSerialPort;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -30,6 +47,53 @@ import static org.junit.Assert.*;
 public class CommandLineParserTest
 {
 	private static final Object SYNC = new Object();
+	private static final String PORT1 = "COMfaked";
+	private static final String PORT2 = "COMphone2";
+	private static final String IMEI1 = "353512345678901";
+	private static final String IMEI2 = "490154203237518";
+
+	private FakeCommPortIdentifier port2;
+	private File dir;
+
+	@Before
+	public void setUp ()
+	{
+		CommandLineParser.mock = true;
+		System.setProperty ("mock", "138b7ce0632d70dd9d6fc7b571fd9199");
+		port2 = new FakeCommPortIdentifier (PORT2, new PhonePort (IMEI2));
+		FakeCommPortIdentifier.addPort (port2);
+	}
+
+	@After
+	public void tearDown ()
+	{
+		SessionPool.closeAll ();
+		FakeCommPortIdentifier.removePort (port2);
+		// parse() keeps the given value, so this resets the port
+		CommandLineParser.parse (new String[] {"--port", null}, SYNC);
+		if ( dir != null )
+		{
+			delete (dir);
+		}
+	}
+
+	private static String getName (TransferParameters tp)
+	{
+		return ((FakeCommPortIdentifier) tp.getId ()).getName ();
+	}
+
+	private static void delete (File f)
+	{
+		File[] files = f.listFiles ();
+		if ( files != null )
+		{
+			for ( File c : files )
+			{
+				delete (c);
+			}
+		}
+		f.delete ();
+	}
 
 	/**
 	 * Test of getDstDirName method, of class CommandLineParser.
@@ -149,4 +213,199 @@ public class CommandLineParserTest
 		assertNull(CommandLineParser.getDstDirName());
 		assertNull(CommandLineParser.getPortName());
 	}
+
+	/**
+	 * Test of runOnPorts method, of class CommandLineParser.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testRunOnPorts () throws Exception
+	{
+		System.out.println ("runOnPorts");
+		CommandLineParser.parse (new String[] {"--port", PORT1 + "," + PORT2}, SYNC);
+		final Vector<String> ports = new Vector<String> (2);
+		int result = CommandLineParser.runOnPorts (new CommandLineParser.PortAction ()
+		{
+			@Override
+			public int run (TransferParameters tp, String dir, String prefix)
+			{
+				ports.add (getName (tp));
+				// the second port fails
+				return PORT2.equals (getName (tp))? 2 : 0;
+			}
+		}, false, null, SYNC);
+		// the number of failed ports
+		assertEquals (1, result);
+		assertEquals (2, ports.size ());
+		assertTrue (ports.contains (PORT1));
+		assertTrue (ports.contains (PORT2));
+	}
+
+	/**
+	 * Test of runOnPorts method, of class CommandLineParser.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testRunOnPortsFailureFirst () throws Exception
+	{
+		System.out.println ("runOnPortsFailureFirst");
+		CommandLineParser.parse (new String[] {"--port", PORT1 + "," + PORT2}, SYNC);
+		final CountDownLatch reported = new CountDownLatch (1);
+		PrintStream out = System.out;
+		System.setOut (new PrintStream (new ByteArrayOutputStream ())
+		{
+			@Override
+			public void println (String x)
+			{
+				if ( x != null && x.startsWith (PORT2) )
+				{
+					reported.countDown ();
+				}
+			}
+		});
+		int result;
+		try
+		{
+			result = CommandLineParser.runOnPorts (new CommandLineParser.PortAction ()
+			{
+				@Override
+				public int run (TransferParameters tp, String dir, String prefix)
+					throws Exception
+				{
+					if ( PORT2.equals (getName (tp)) )
+					{
+						return -1;
+					}
+					// like watching for messages: runs until the
+					// failure of the other port is reported
+					return reported.await (10, TimeUnit.SECONDS)? 0 : -1;
+				}
+			}, false, null, SYNC);
+		}
+		finally
+		{
+			System.setOut (out);
+		}
+		assertEquals (1, result);
+	}
+
+	/**
+	 * Test of getDeviceDir method, of class CommandLineParser.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetDeviceDir () throws Exception
+	{
+		System.out.println ("getDeviceDir");
+		dir = Files.createTempDirectory ("jymag").toFile ();	// NOI18N
+		CommandLineParser.parse (new String[] {"--port", PORT1 + "," + PORT2}, SYNC);
+		final Map<String, String> dirs = new HashMap<String, String> (2);
+		int result = CommandLineParser.runOnPorts (new CommandLineParser.PortAction ()
+		{
+			@Override
+			public int run (TransferParameters tp, String dir, String prefix)
+			{
+				synchronized (dirs)
+				{
+					dirs.put (getName (tp), dir);
+				}
+				return 0;
+			}
+		}, true, dir.getAbsolutePath (), SYNC);
+		assertEquals (0, result);
+		// each phone gets a directory named after its IMEI
+		assertEquals (new File (dir, IMEI1).getPath (), dirs.get (PORT1));
+		assertEquals (new File (dir, IMEI2).getPath (), dirs.get (PORT2));
+		assertTrue (new File (dir, IMEI1).isDirectory ());
+		assertTrue (new File (dir, IMEI2).isDirectory ());
+	}
+
+	/**
+	 * A port with a phone which replies to the serial number command with
+	 * the given IMEI and accepts all the other commands.
+	 */
+	private static class PhonePort extends FakeSerialPort
+	{
+		private final String imei;
+		private final StringBuilder cmd = new StringBuilder ();
+		private final StringBuilder replies = new StringBuilder ();
+
+		PhonePort (String phoneIMEI)
+		{
+			imei = phoneIMEI;
+		}
+
+		private synchronized void received (int b)
+		{
+			cmd.append ((char) b);
+			if ( b != '\r' )
+			{
+				return;
+			}
+			if ( cmd.toString ().startsWith ("AT+CGSN") )
+			{
+				replies.append ("\r\n" + imei + "\r\n");
+			}
+			replies.append ("\r\nOK\r\n");
+			cmd.setLength (0);
+		}
+
+		private synchronized int available ()
+		{
+			return replies.length ();
+		}
+
+		private synchronized int read (byte[] b, int off, int len)
+		{
+			int n = Math.min (len, replies.length ());
+			for ( int i = 0; i < n; i++ )
+			{
+				b[off + i] = (byte) replies.charAt (i);
+			}
+			replies.delete (0, n);
+			return n;
+		}
+
+		@Override
+		public InputStream getInputStream ()
+		{
+			return new InputStream ()
+			{
+				@Override
+				public int available ()
+				{
+					return PhonePort.this.available ();
+				}
+
+				@Override
+				public int read ()
+				{
+					byte[] b = new byte[1];
+					return (read (b, 0, 1) > 0)? (b[0] & 0xFF) : -1;
+				}
+
+				@Override
+				public int read (byte[] b, int off, int len)
+				{
+					return PhonePort.this.read (b, off, len);
+				}
+			};
+		}
+
+		@Override
+		public OutputStream getOutputStream ()
+		{
+			return new OutputStream ()
+			{
+				@Override
+				public void write (int b)
+				{
+					received (b);
+				}
+			};
+		}
+	}
 }
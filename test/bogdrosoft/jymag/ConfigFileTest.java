@@ -62,6 +62,8 @@ public class ConfigFileTest
 		instance.setIsMaximized(false);
 		instance.setFontSizeValue(123);
 		instance.setSelectedTab(2);
+		instance.setSessionIdle(45);
+		instance.setScanTimeout(1500);
 		instance.write();
 		instance = new ConfigFile(f);
 		instance.read();
@@ -79,6 +81,8 @@ public class ConfigFileTest
 		assertFalse(instance.getIsMax ());
 		assertEquals(123, instance.getFontSizeValue());
 		assertEquals(2, instance.getSelectedTab());
+		assertEquals(45, instance.getSessionIdle());
+		assertEquals(1500, instance.getScanTimeout());
 	}
 
 	/**
@@ -104,6 +108,8 @@ public class ConfigFileTest
 		instance.setIsMaximized(true);
 		instance.setFontSizeValue(-123);
 		instance.setSelectedTab(-2);
+		instance.setSessionIdle(-5);
+		instance.setScanTimeout(-5);
 		instance.write();
 		instance = new ConfigFile(f);
 		instance.read();
@@ -121,6 +127,8 @@ public class ConfigFileTest
 		assertTrue(instance.getIsMax());
 		assertEquals(12, instance.getFontSizeValue());
 		assertEquals(0, instance.getSelectedTab());
+		assertEquals(30, instance.getSessionIdle());
+		assertEquals(2000, instance.getScanTimeout());
 	}
 
 	/**
@@ -496,6 +504,32 @@ public class ConfigFileTest
 		assertEquals (expResult, result);
 	}
 
+	/**
+	 * Test of setSessionIdle method, of class ConfigFile.
+	 */
+	@Test
+	public void testSetSessionIdle ()
+	{
+		System.out.println ("setSessionIdle");
+		int v = 60;
+		ConfigFile instance = new ConfigFile (f);
+		instance.setSessionIdle (v);
+		assertEquals (v, instance.getSessionIdle ());
+	}
+
+	/**
+	 * Test of setScanTimeout method, of class ConfigFile.
+	 */
+	@Test
+	public void testSetScanTimeout ()
+	{
+		System.out.println ("setScanTimeout");
+		int v = 500;
+		ConfigFile instance = new ConfigFile (f);
+		instance.setScanTimeout (v);
+		assertEquals (v, instance.getScanTimeout ());
+	}
+
 	/**
 	 * Test of getSelectedTab method, of class ConfigFile.
 	 * @throws Exception
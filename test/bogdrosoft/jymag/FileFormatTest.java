@@ -0,0 +1,86 @@
+/*
+ * FileFormatTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag;
+
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * FileFormatTest - a test for the FileFormat class.
+ * @author Bogdan Drozdowski
+ */
+public class FileFormatTest
+{
+	/**
+	 * Test of getExtension method, of class FileFormat.
+	 */
+	@Test
+	public void testGetExtension ()
+	{
+		System.out.println ("getExtension");
+		assertEquals ("", FileFormat.getExtension (null));
+		assertEquals ("gif", FileFormat.getExtension ("FGIF"));
+		assertEquals ("3gp", FileFormat.getExtension ("3GPP"));
+		assertEquals ("3gp", FileFormat.getExtension ("3GP2"));
+		assertEquals ("png", FileFormat.getExtension ("PNG"));
+	}
+
+	/**
+	 * Test of getUploadIDs method, of class FileFormat.
+	 */
+	@Test
+	public void testGetUploadIDs ()
+	{
+		System.out.println ("getUploadIDs");
+		Map<String, Integer> result = FileFormat.getUploadIDs (
+			FileFormat.Category.ANIMATION);
+		assertEquals (Integer.valueOf (105), result.get ("gif"));
+		assertEquals (Integer.valueOf (233), result.get ("3g2"));
+		assertFalse (result.containsKey ("jpg"));
+		result = FileFormat.getUploadIDs (null);
+		assertEquals (Integer.valueOf (104), result.get ("jpg"));
+		assertEquals (Integer.valueOf (1003), result.get ("jam"));
+		assertFalse (result.containsKey ("aif"));
+	}
+
+	/**
+	 * Test of the order of the signatures, of class FileFormat.
+	 */
+	@Test
+	public void testSignatureOrder ()
+	{
+		System.out.println ("signatureOrder");
+		assertTrue (FileFormat.CGM.ordinal () < FileFormat.BMP.ordinal ());
+		FileFormat[] values = FileFormat.values ();
+		int lastWithSignature = -1;
+		for ( int i = 0; i < values.length; i++ )
+		{
+			if ( values[i].getSignatureCount () > 0 )
+			{
+				lastWithSignature = i;
+			}
+		}
+		assertEquals (FileFormat.WBMP.ordinal (), lastWithSignature);
+		assertEquals (4, FileFormat.WBMP.getDataOffset ());
+		assertEquals (-4, FileFormat.MPEG.getDataOffset ());
+	}
+}
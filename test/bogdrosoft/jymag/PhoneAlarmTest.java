@@ -20,6 +20,8 @@
 
 package bogdrosoft.jymag;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.Calendar;
 import java.util.Set;
 import java.util.HashSet;
@@ -40,6 +42,7 @@ public class PhoneAlarmTest
 	{
 		System.out.println ("getTime");
 		Calendar c = Calendar.getInstance ();
+		c.set (Calendar.MILLISECOND, 0);
 		PhoneAlarm instance = new PhoneAlarm (c, false, true, (int[]) null, 1);
 		Calendar result = instance.getTime ();
 		assertEquals (c, result);
@@ -134,21 +137,64 @@ public class PhoneAlarmTest
 	}
 
 	/**
-	 * Test of setTime method, of class PhoneAlarm.
+	 * Test of getLocalDate and getLocalTime methods, of class PhoneAlarm.
+	 */
+	@Test
+	public void testGetLocalDateTime ()
+	{
+		System.out.println ("getLocalDateTime");
+		PhoneAlarm instance = new PhoneAlarm (1, "01/02/03", "11:22:33", null);
+		assertEquals (LocalDate.of (2003, 2, 1), instance.getLocalDate ());
+		assertEquals (LocalTime.of (11, 22, 33), instance.getLocalTime ());
+	}
+
+	/**
+	 * Test of toBuilder method, of class PhoneAlarm.
+	 */
+	@Test
+	public void testToBuilder ()
+	{
+		System.out.println ("toBuilder");
+		PhoneAlarm instance = new PhoneAlarm (1, "01/02/03", "11:22:33", "3,4");
+		PhoneAlarm copy = instance.toBuilder ().build ();
+		assertEquals (instance, copy);
+		assertEquals (instance.hashCode (), copy.hashCode ());
+		assertEquals (instance.toString (), copy.toString ());
+		PhoneAlarm changed = instance.toBuilder ().setNumber (2).build ();
+		assertNotEquals (instance, changed);
+		assertEquals (1, instance.getNumber ());
+		assertEquals (2, changed.getNumber ());
+	}
+
+	/**
+	 * Test of getDays method, of class PhoneAlarm.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testGetDaysUnmodifiable ()
+	{
+		System.out.println ("getDaysUnmodifiable");
+		PhoneAlarm instance = new PhoneAlarm (1, "01/02/03", "11:22:33", "3,4");
+		instance.getDays ().add (5);
+	}
+
+	/**
+	 * Test of setTime method, of class PhoneAlarm.Builder.
 	 */
 	@Test
 	public void testSetTime ()
 	{
 		System.out.println ("setTime");
 		Calendar c = Calendar.getInstance ();
-		PhoneAlarm instance = new PhoneAlarm (c, false, true, (int[]) null, 1);
-		instance.setTime (c);
+		c.set (Calendar.MILLISECOND, 0);
+		PhoneAlarm instance = new PhoneAlarm.Builder ().setTime (c).build ();
 		Calendar c2 = instance.getTime ();
 		assertEquals (c, c2);
+		instance = instance.toBuilder ().setTime (LocalTime.of (1, 2, 3)).build ();
+		assertEquals ("01:02:03", instance.getTimeString ());
 	}
 
 	/**
-	 * Test of setTime method, of class PhoneAlarm.
+	 * Test of setTime method, of class PhoneAlarm.Builder.
 	 */
 	@Test(expected = IllegalArgumentException.class)
 	public void testSetTimeWithNull()
@@ -156,26 +202,28 @@ public class PhoneAlarmTest
 		System.out.println ("testSetTimeWithNull");
 		Calendar c = Calendar.getInstance();
 		PhoneAlarm alarm = new PhoneAlarm (c, false, true, (int[]) null, 1);
-		alarm.setTime(null);
+		alarm.toBuilder ().setTime((LocalTime) null).build ();
 	}
 
 	/**
-	 * Test of setOneTimeAlarm method, of class PhoneAlarm.
+	 * Test of setOneTimeAlarm method, of class PhoneAlarm.Builder.
 	 */
 	@Test
 	public void testSetOneTimeAlarm ()
 	{
 		System.out.println ("setOneTimeAlarm");
 		Calendar c = Calendar.getInstance ();
-		boolean isOneTime = false;
+		boolean isOneTime = true;
 		PhoneAlarm instance = new PhoneAlarm (c, false, true, (int[]) null, 1);
-		instance.setOneTimeAlarm (isOneTime);
-		boolean isOneTime2 = instance.isOneTimeAlarm ();
-		assertEquals (isOneTime, isOneTime2);
+		PhoneAlarm changed = instance.toBuilder ().setOneTimeAlarm (isOneTime).build ();
+		assertEquals (isOneTime, changed.isOneTimeAlarm ());
+		assertNotNull (changed.getDateString ());
+		assertFalse (instance.isOneTimeAlarm ());
+		assertNull (instance.getDateString ());
 	}
 
 	/**
-	 * Test of setForAllDays method, of class PhoneAlarm.
+	 * Test of setForAllDays method, of class PhoneAlarm.Builder.
 	 */
 	@Test
 	public void testSetForAllDays ()
@@ -183,14 +231,14 @@ public class PhoneAlarmTest
 		System.out.println ("setForAllDays");
 		Calendar c = Calendar.getInstance ();
 		boolean isForAllDays = false;
-		PhoneAlarm instance = new PhoneAlarm (c, false, true, (int[]) null, 1);
-		instance.setForAllDays (isForAllDays);
+		PhoneAlarm instance = new PhoneAlarm (c, true, true, (int[]) null, 1);
+		instance = instance.toBuilder ().setForAllDays (isForAllDays).build ();
 		boolean isForAllDays2 = instance.isForAllDays ();
 		assertEquals (isForAllDays, isForAllDays2);
 	}
 
 	/**
-	 * Test of setDays method, of class PhoneAlarm.
+	 * Test of setDays method, of class PhoneAlarm.Builder.
 	 */
 	@Test
 	public void testSetDaysWithIntArray()
@@ -199,7 +247,7 @@ public class PhoneAlarmTest
 		Calendar c = Calendar.getInstance();
 		int[] alarmDays = new int[] {1, 0};
 		PhoneAlarm instance = new PhoneAlarm(c, false, true, (int[]) null, 1);
-		instance.setDays(alarmDays);
+		instance = instance.toBuilder().setDays(alarmDays).build();
 		Set<Integer> d = instance.getDays();
 		Set<Integer> d2 = new HashSet<Integer>(alarmDays.length);
 		for (int a : alarmDays)
@@ -210,7 +258,7 @@ public class PhoneAlarmTest
 	}
 
 	/**
-	 * Test of setDays method, of class PhoneAlarm.
+	 * Test of setDays method, of class PhoneAlarm.Builder.
 	 */
 	@Test(expected = IllegalArgumentException.class)
 	public void testSetDaysWithIntArrayInvalidInput()
@@ -218,11 +266,11 @@ public class PhoneAlarmTest
 		System.out.println ("testSetDaysWithIntArrayInvalidInput");
 		Calendar c = Calendar.getInstance();
 		PhoneAlarm instance = new PhoneAlarm(c, false, false, new int[]{1}, 1);
-		instance.setDays((int[])null);
+		instance.toBuilder().setDays((int[])null).build();
 	}
 
 	/**
-	 * Test of setDays method, of class PhoneAlarm.
+	 * Test of setDays method, of class PhoneAlarm.Builder.
 	 */
 	@Test
 	public void testSetDaysWithSet ()
@@ -231,13 +279,13 @@ public class PhoneAlarmTest
 		Calendar c = Calendar.getInstance ();
 		Set<? extends Integer> alarmDays = null;
 		PhoneAlarm instance = new PhoneAlarm (c, false, true, (int[]) null, 1);
-		instance.setDays (alarmDays);
+		instance = instance.toBuilder ().setDays (alarmDays).build ();
 		Set<? extends Integer> alarmDays2 = instance.getDays ();
 		assertEquals (alarmDays, alarmDays2);
 	}
 
 	/**
-	 * Test of setDays method, of class PhoneAlarm.
+	 * Test of setDays method, of class PhoneAlarm.Builder.
 	 */
 	@Test(expected = IllegalArgumentException.class)
 	public void testSetDaysWithSetInvalidInput()
@@ -245,11 +293,11 @@ public class PhoneAlarmTest
 		System.out.println ("testSetDaysWithSetInvalidInput");
 		Calendar c = Calendar.getInstance();
 		PhoneAlarm instance = new PhoneAlarm(c, false, false, new int[]{1}, 1);
-		instance.setDays((Set<Integer>)null);
+		instance.toBuilder().setDays((Set<Integer>)null).build();
 	}
 
 	/**
-	 * Test of setNumber method, of class PhoneAlarm.
+	 * Test of setNumber method, of class PhoneAlarm.Builder.
 	 */
 	@Test
 	public void testSetNumber ()
@@ -258,7 +306,7 @@ public class PhoneAlarmTest
 		Calendar c = Calendar.getInstance ();
 		int alarmNumber = 0;
 		PhoneAlarm instance = new PhoneAlarm (c, false, true, (int[]) null, 1);
-		instance.setNumber (alarmNumber);
+		instance = instance.toBuilder ().setNumber (alarmNumber).build ();
 		int alarmNumber2 = instance.getNumber ();
 		assertEquals (alarmNumber, alarmNumber2);
 	}
@@ -369,14 +417,14 @@ public class PhoneAlarmTest
 
 		Set<Integer> d = new HashSet<Integer> (1);
 		d.add (1);
-		instance.setDays (d);
+		instance = instance.toBuilder ().setDays (d).build ();
 		expResult = "1";
 		result = instance.getDaysString ();
 		assertEquals (expResult, result);
 
 		d.clear ();
 		d.add (0);
-		instance.setDays (d);
+		instance = instance.toBuilder ().setDays (d).build ();
 		expResult = "0";
 		result = instance.getDaysString ();
 		assertEquals (expResult, result);
@@ -385,7 +433,7 @@ public class PhoneAlarmTest
 		d.add (0);
 		d.add (1);
 		d.add (2);
-		instance.setDays (d);
+		instance = instance.toBuilder ().setDays (d).build ();
 		expResult = "0";
 		result = instance.getDaysString ();
 		assertEquals (expResult, result);
@@ -394,13 +442,13 @@ public class PhoneAlarmTest
 		d.add (1);
 		d.add (2);
 		d.add (3);
-		instance.setDays (d);
+		instance = instance.toBuilder ().setDays (d).build ();
 		expResult = "1,2,3";
 		result = instance.getDaysString ();
 		assertEquals (expResult, result);
 
 		d.clear ();
-		instance.setDays (d);
+		instance = instance.toBuilder ().setDays (d).build ();
 		expResult = "0";
 		result = instance.getDaysString ();
 		assertEquals (expResult, result);
@@ -756,14 +804,14 @@ public class PhoneAlarmTest
 
 		Set<Integer> d = new HashSet<Integer> (1);
 		d.add (1);
-		instance.setDays (d);
+		instance = instance.toBuilder ().setDays (d).build ();
 		expResult = "PhoneAlarm[ID=1," + time + ",1]";
 		result = instance.toString ();
 		assertEquals (expResult, result);
 
 		d.clear ();
 		d.add (0);
-		instance.setDays (d);
+		instance = instance.toBuilder ().setDays (d).build ();
 		expResult = "PhoneAlarm[ID=1," + time + ",0]";
 		result = instance.toString ();
 		assertEquals (expResult, result);
@@ -772,7 +820,7 @@ public class PhoneAlarmTest
 		d.add (0);
 		d.add (1);
 		d.add (2);
-		instance.setDays (d);
+		instance = instance.toBuilder ().setDays (d).build ();
 		expResult = "PhoneAlarm[ID=1," + time + ",0]";
 		result = instance.toString ();
 		assertEquals (expResult, result);
@@ -781,13 +829,13 @@ public class PhoneAlarmTest
 		d.add (1);
 		d.add (2);
 		d.add (3);
-		instance.setDays (d);
+		instance = instance.toBuilder ().setDays (d).build ();
 		expResult = "PhoneAlarm[ID=1," + time + ",1,2,3]";
 		result = instance.toString ();
 		assertEquals (expResult, result);
 
 		d.clear ();
-		instance.setDays (d);
+		instance = instance.toBuilder ().setDays (d).build ();
 		expResult = "PhoneAlarm[ID=1," + time + ",0]";
 		result = instance.toString ();
 		assertEquals (expResult, result);
@@ -241,6 +241,50 @@ public class PhoneMessageTest
 		assertEquals("1", result.getStatus());
 	}
 
+	/**
+	 * Test of parseReponse method, of class PhoneMessage.
+	 */
+	@Test
+	public void testParseReponseNoHeader()
+	{
+		System.out.println("testParseReponseNoHeader");
+
+		String response = "2,\"REC READ\",\"Info\",\"26/10/18,12:00:00-04\",,5\r\n"
+			+ "Hi, call me!\r\nBye.\r\n";
+		PhoneMessage result = PhoneMessage.parseReponse(response);
+		assertNotNull(result);
+		assertEquals("2", result.getID());
+		assertEquals("REC READ", result.getStatus());
+		assertEquals("Info", result.getRecipientNum());
+		assertEquals("26/10/18,12:00:00-04", result.getDateTime());
+		assertEquals("Hi, call me!\r\nBye.", result.getMessage());
+		result = PhoneMessage.parseReponse("\"1\",\nbody\n");
+		assertNotNull(result);
+		assertNull(result.getID());
+		assertEquals("body", result.getMessage());
+	}
+
+	/**
+	 * Test of parseReponse method, of class PhoneMessage.
+	 */
+	@Test
+	public void testParseReponseInvalid()
+	{
+		System.out.println("testParseReponseInvalid");
+		assertNull(PhoneMessage.parseReponse(""));
+		assertNull(PhoneMessage.parseReponse("+CMGL: 1,\"1\""));
+		assertNull(PhoneMessage.parseReponse("+CMGL: 1,\"1\",\n\n"));
+		assertNull(PhoneMessage.parseReponse("+CMGL: x,\"1\",\nbody\n"));
+		assertNull(PhoneMessage.parseReponse("+CMGL: 1,\"1\",\"2\",\"01/09/03\",,3\nbody\n"));
+		// a long body with no line break after the header
+		StringBuilder sb = new StringBuilder("+CMGR: \"1\",");
+		for (int i = 0; i < 100000; i++)
+		{
+			sb.append("a ");
+		}
+		assertNull(PhoneMessage.parseReponse(sb.toString()));
+	}
+
 	/**
 	 * Test of parseReponse method, of class PhoneMessage.
 	 */
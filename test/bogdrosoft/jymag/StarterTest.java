@@ -0,0 +1,135 @@
+/*
+ * StarterTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.Vector;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * StarterTest - a test for the Starter class.
+ * @author Bogdan Drozdowski
+ */
+public class StarterTest
+{
+	/**
+	 * The system property with the maximum time of the command line run,
+	 * in milliseconds. Can be given to Maven with "-D".
+	 */
+	private static final String START_TIME_LIMIT_PROP = "jymag.startTimeLimit";	// NOI18N
+	private static final long DEFAULT_START_TIME_LIMIT = 30000;
+
+	private File dir;
+
+	/**
+	 * Removes the home directory of the child JVM.
+	 */
+	@After
+	public void tearDown ()
+	{
+		if ( dir != null )
+		{
+			delete (dir);
+		}
+	}
+
+	private static void delete (File f)
+	{
+		File[] files = f.listFiles ();
+		if ( files != null )
+		{
+			for ( File c : files )
+			{
+				delete (c);
+			}
+		}
+		f.delete ();
+	}
+
+	/**
+	 * Test of main method, of class Starter. Runs a command line action
+	 * in a new JVM and checks that no GUI classes are loaded. The time
+	 * of the whole run is printed and must not exceed the limit from
+	 * the jymag.startTimeLimit system property (30 seconds by default),
+	 * to catch start-up time regressions.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testMainHeadless () throws Exception
+	{
+		System.out.println ("mainHeadless");
+		dir = Files.createTempDirectory ("jymag").toFile ();	// NOI18N
+		ProcessBuilder pb = new ProcessBuilder (
+			System.getProperty ("java.home") + File.separator	// NOI18N
+				+ "bin" + File.separator + "java",	// NOI18N
+			"-verbose:class",	// NOI18N
+			"-Djava.awt.headless=true",	// NOI18N
+			"-Dmock=138b7ce0632d70dd9d6fc7b571fd9199",	// NOI18N
+			"-Duser.home=" + dir.getAbsolutePath (),	// NOI18N
+			"-cp", System.getProperty ("java.class.path"),	// NOI18N
+			"bogdrosoft.jymag.Starter",	// NOI18N
+			"--mock", "--port", "COMfaked", "--list-elements");	// NOI18N
+		pb.directory (dir);
+		pb.redirectErrorStream (true);
+		long start = System.nanoTime ();
+		Process p = pb.start ();
+		Vector<String> guiClasses = new Vector<String> ();
+		boolean listed = false;
+		BufferedReader r = new BufferedReader (
+			new InputStreamReader (p.getInputStream ()));
+		try
+		{
+			String line;
+			while ( (line = r.readLine ()) != null )
+			{
+				if ( line.contains (" javax.swing.")	// NOI18N
+					|| line.contains (" java.awt.") )	// NOI18N
+				{
+					guiClasses.add (line);
+				}
+				if ( line.contains ("TestPicture") )	// NOI18N
+				{
+					listed = true;
+				}
+			}
+		}
+		finally
+		{
+			r.close ();
+		}
+		int ret = p.waitFor ();
+		long time = (System.nanoTime () - start) / 1000000;
+		System.out.println ("Command line run time: " + time + " ms");	// NOI18N
+		assertEquals (0, ret);
+		assertTrue (listed);
+		assertEquals (new Vector<String> (), guiClasses);
+		long limit = Long.getLong (START_TIME_LIMIT_PROP,
+			DEFAULT_START_TIME_LIMIT);
+		assertTrue ("Command line run time: " + time + " ms > "	// NOI18N
+			+ limit + " ms", time <= limit);	// NOI18N
+	}
+}
@@ -0,0 +1,297 @@
+/*
+ * AsyncDataTransporterTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.PhoneElement;
+import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
+import java.util.Vector;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * AsyncDataTransporterTest - a test for the AsyncDataTransporter class.
+ * @author Bogdan Drozdowski
+ */
+public class AsyncDataTransporterTest
+{
+	private static final FakeCommPortIdentifier PORT_ID
+		= new FakeCommPortIdentifier();
+	private static final Object SYNC = new Object();
+
+	/**
+	 * Test of getList method, of class AsyncDataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetList () throws Exception
+	{
+		System.out.println ("getList");
+		AsyncDataTransporter instance = new AsyncDataTransporter (getTransferParameters ());
+		Vector<PhoneElement> result = instance.getList ("PICTURES")
+			.get (30, TimeUnit.SECONDS);
+		assertNotNull (result);
+		assertEquals (1, result.size ());
+	}
+
+	/**
+	 * Test of test method, of class AsyncDataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testChaining () throws Exception
+	{
+		System.out.println ("chaining");
+		final AsyncDataTransporter instance = new AsyncDataTransporter (getTransferParameters ());
+		int result = instance.test ().thenCompose (
+			new Function<Integer, CompletableFuture<Integer>> ()
+		{
+			@Override
+			public CompletableFuture<Integer> apply (Integer res)
+			{
+				assertEquals (0, res.intValue ());
+				return instance.getVolume ();
+			}
+		}).get (30, TimeUnit.SECONDS);
+		assertTrue (result >= 0);
+	}
+
+	/**
+	 * Test of submit method, of class AsyncDataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testSubmitOrder () throws Exception
+	{
+		System.out.println ("submitOrder");
+		AsyncDataTransporter instance = new AsyncDataTransporter (getTransferParameters ());
+		AsyncDataTransporter.Command<String> cmd = new AsyncDataTransporter.Command<String> ()
+		{
+			@Override
+			public String run (DataTransporter dt)
+			{
+				return Thread.currentThread ().getName ();
+			}
+		};
+		CompletableFuture<String> first = instance.submit (cmd);
+		CompletableFuture<String> second =
+			new AsyncDataTransporter (getTransferParameters ()).submit (cmd);
+		// the same port - the same I/O thread
+		assertEquals (first.get (30, TimeUnit.SECONDS),
+			second.get (30, TimeUnit.SECONDS));
+	}
+
+	private static AsyncDataTransporter.Command<Integer> getRecorder (
+		final BlockingQueue<String> order, final String name)
+	{
+		return new AsyncDataTransporter.Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt)
+			{
+				order.add (name);
+				return 0;
+			}
+		};
+	}
+
+	/**
+	 * Test of submit method, of class AsyncDataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testSubmitPriority () throws Exception
+	{
+		System.out.println ("submitPriority");
+		AsyncDataTransporter instance = new AsyncDataTransporter (getTransferParameters ());
+		final CountDownLatch started = new CountDownLatch (1);
+		final CountDownLatch go = new CountDownLatch (1);
+		// keep the I/O thread busy while the next commands are queued
+		CompletableFuture<Integer> busy = instance.submit (
+			new AsyncDataTransporter.Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt) throws Exception
+			{
+				started.countDown ();
+				go.await ();
+				return 0;
+			}
+		});
+		assertTrue (started.await (30, TimeUnit.SECONDS));
+		BlockingQueue<String> order = new LinkedBlockingQueue<String> ();
+		CompletableFuture<Integer> poll = instance.submit (
+			CommandScheduler.Priority.BACKGROUND,
+			getRecorder (order, "background"));	// NOI18N
+		CompletableFuture<Integer> dial = instance.submit (
+			CommandScheduler.Priority.INTERACTIVE,
+			getRecorder (order, "interactive"));	// NOI18N
+		go.countDown ();
+		busy.get (30, TimeUnit.SECONDS);
+		poll.get (30, TimeUnit.SECONDS);
+		dial.get (30, TimeUnit.SECONDS);
+		// queued later, but more urgent
+		assertEquals ("interactive", order.poll ());	// NOI18N
+		assertEquals ("background", order.poll ());	// NOI18N
+	}
+
+	/**
+	 * Test of submit method, of class AsyncDataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testSubmitException () throws Exception
+	{
+		System.out.println ("submitException");
+		AsyncDataTransporter instance = new AsyncDataTransporter (getTransferParameters ());
+		CompletableFuture<Integer> result = instance.submit (
+			new AsyncDataTransporter.Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt) throws Exception
+			{
+				throw new IllegalStateException ("test");
+			}
+		});
+		try
+		{
+			result.get (30, TimeUnit.SECONDS);
+			fail ("An exception was expected");
+		}
+		catch (ExecutionException ex)
+		{
+			assertTrue (ex.getCause () instanceof IllegalStateException);
+		}
+	}
+
+	/**
+	 * Test of submit method, of class AsyncDataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testSubmitDependentAfterRelease () throws Exception
+	{
+		System.out.println ("submitDependentAfterRelease");
+		AsyncDataTransporter instance = new AsyncDataTransporter (getTransferParameters ());
+		final CommandScheduler scheduler = CommandScheduler.forPort (PORT_ID.getName ());
+		final CountDownLatch started = new CountDownLatch (1);
+		final CountDownLatch go = new CountDownLatch (1);
+		CompletableFuture<Integer> busy = instance.submit (
+			new AsyncDataTransporter.Command<Integer> ()
+		{
+			@Override
+			public Integer run (DataTransporter dt) throws Exception
+			{
+				started.countDown ();
+				go.await ();
+				return 0;
+			}
+		});
+		assertTrue (started.await (30, TimeUnit.SECONDS));
+		// added before the completion, so runs on the I/O thread
+		CompletableFuture<Boolean> free = busy.thenApply (
+			new Function<Integer, Boolean> ()
+		{
+			@Override
+			public Boolean apply (Integer res)
+			{
+				final AtomicBoolean acquired = new AtomicBoolean ();
+				Thread t = new Thread (new Runnable ()
+				{
+					@Override
+					public void run ()
+					{
+						scheduler.acquire (CommandScheduler.Priority.INTERACTIVE);
+						acquired.set (true);
+						scheduler.release ();
+					}
+				});
+				t.start ();
+				try
+				{
+					t.join (5000);
+				}
+				catch (InterruptedException ex)
+				{
+					Thread.currentThread ().interrupt ();
+				}
+				return acquired.get ()
+					&& ! scheduler.isHeldByCurrentThread ();
+			}
+		});
+		go.countDown ();
+		// the port isn't held while the dependent stage runs
+		assertTrue (free.get (30, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Test of submit method, of class AsyncDataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testSubmitAsyncDependentJoin () throws Exception
+	{
+		System.out.println ("submitAsyncDependentJoin");
+		final AsyncDataTransporter instance = new AsyncDataTransporter (getTransferParameters ());
+		// a dependent waiting for another command of the same port
+		// must not run on the port's I/O thread
+		int result = instance.test ().thenApplyAsync (
+			new Function<Integer, Integer> ()
+		{
+			@Override
+			public Integer apply (Integer res)
+			{
+				return res.intValue () + instance.test ().join ().intValue ();
+			}
+		}).get (30, TimeUnit.SECONDS);
+		assertEquals (0, result);
+	}
+
+	/**
+	 * Test of the constructor, of class AsyncDataTransporter.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	@SuppressWarnings("unused")
+	public void testNullParameters ()
+	{
+		System.out.println ("nullParameters");
+		new AsyncDataTransporter (null);
+	}
+
+	private TransferParameters getTransferParameters ()
+	{
+		return new TransferParameters (PORT_ID, 115200, 8, 1, 0, 0, SYNC);
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * AtResponseReaderTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * AtResponseReaderTest - a test for the AtResponseReader class.
+ * @author Bogdan Drozdowski
+ */
+public class AtResponseReaderTest
+{
+	/**
+	 * Test of nextLine method, of class AtResponseReader.
+	 */
+	@Test
+	public void testNextLine ()
+	{
+		System.out.println ("nextLine");
+		AtResponseReader instance = new AtResponseReader (
+			"AT+CALA?\r\r\n  +CALA: 1 \r\n\r\nOK\r\n".getBytes ());	// NOI18N
+		assertTrue (instance.nextLine ());
+		assertEquals ("AT+CALA?", instance.getLine ());	// NOI18N
+		assertTrue (instance.nextLine ());
+		assertEquals ("+CALA: 1", instance.getLine ());	// NOI18N
+		assertTrue (instance.lineStartsWith ("+CALA:".getBytes ()));	// NOI18N
+		assertFalse (instance.lineStartsWith ("+CALA: 12".getBytes ()));	// NOI18N
+		assertTrue (instance.nextLine ());
+		assertTrue (instance.lineEquals ("OK".getBytes ()));	// NOI18N
+		assertFalse (instance.nextLine ());
+		instance.reset (null, 0, 0);
+		assertFalse (instance.nextLine ());
+	}
+
+	/**
+	 * Test of nextField method, of class AtResponseReader.
+	 */
+	@Test
+	public void testNextField ()
+	{
+		System.out.println ("nextField");
+		AtResponseReader instance = new AtResponseReader (
+			"+KPSL: \"53FF\", 0 ,2016,\"A,B\",,\"\"".getBytes ());	// NOI18N
+		assertTrue (instance.nextLine ());
+		instance.startFields (6);
+		assertTrue (instance.nextField ());
+		assertTrue (instance.isFieldQuoted ());
+		assertTrue (instance.isFieldHex ());
+		assertFalse (instance.isFieldDigits ());
+		assertEquals ("53FF", instance.getField ());	// NOI18N
+		assertTrue (instance.nextField ());
+		assertFalse (instance.isFieldQuoted ());
+		assertEquals (0, instance.getFieldInt (-1));
+		assertTrue (instance.nextField ());
+		assertEquals (2016, instance.getFieldInt (-1));
+		assertTrue (instance.nextField ());
+		assertTrue (instance.fieldEquals ("A,B".getBytes ()));	// NOI18N
+		assertTrue (instance.nextField ());
+		assertEquals (0, instance.getFieldLength ());
+		assertEquals (-1, instance.getFieldInt (-1));
+		assertTrue (instance.nextField ());
+		assertTrue (instance.isFieldQuoted ());
+		assertEquals (0, instance.getFieldLength ());
+		assertFalse (instance.nextField ());
+	}
+
+	/**
+	 * Test of isBlank method, of class AtResponseReader.
+	 */
+	@Test
+	public void testIsBlank ()
+	{
+		System.out.println ("isBlank");
+		assertTrue (AtResponseReader.isBlank (null, 0, 0));
+		assertTrue (AtResponseReader.isBlank (" \r\n\t".getBytes (), 0, 4));	// NOI18N
+		assertFalse (AtResponseReader.isBlank ("\r\nOK".getBytes (), 0, 4));	// NOI18N
+		assertTrue (AtResponseReader.isBlank ("\r\nOK".getBytes (), 0, 2));	// NOI18N
+	}
+}
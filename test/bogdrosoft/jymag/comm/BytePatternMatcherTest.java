@@ -0,0 +1,109 @@
+/*
+ * BytePatternMatcherTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import java.util.Vector;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * BytePatternMatcherTest - a test for the BytePatternMatcher class.
+ * @author Bogdan Drozdowski
+ */
+public class BytePatternMatcherTest
+{
+	/**
+	 * Scans the data and returns the matches as "pattern@end" strings.
+	 * @param m The matcher to use.
+	 * @param data The data to scan.
+	 * @return the matches found.
+	 */
+	private static Vector<String> scan (BytePatternMatcher m, byte[] data)
+	{
+		Vector<String> res = new Vector<String> ();
+		int state = BytePatternMatcher.START_STATE;
+		for ( int i = 0; i < data.length; i++ )
+		{
+			state = m.next (state, data[i]);
+			int[] found = m.getMatches (state);
+			for ( int j = 0; j < found.length; j++ )
+			{
+				res.add (found[j] + "@" + (i + 1));
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Test of next and getMatches methods, of class BytePatternMatcher.
+	 */
+	@Test
+	public void testMatches ()
+	{
+		System.out.println ("matches");
+		BytePatternMatcher instance = new BytePatternMatcher (
+			"he".getBytes (), "she".getBytes (),
+			"his".getBytes (), "hers".getBytes ());
+		assertEquals (4, instance.getPatternCount ());
+		assertEquals (3, instance.getPatternLength (1));
+		Vector<String> res = scan (instance, "ushers".getBytes ());
+		assertEquals (3, res.size ());
+		assertTrue (res.contains ("1@4"));
+		assertTrue (res.contains ("0@4"));
+		assertTrue (res.contains ("3@6"));
+	}
+
+	/**
+	 * Test of next method, of class BytePatternMatcher, with
+	 * the data split into chunks.
+	 */
+	@Test
+	public void testChunks ()
+	{
+		System.out.println ("chunks");
+		BytePatternMatcher instance = new BytePatternMatcher (
+			"\r\nNO CARRIER".getBytes ());
+		byte[] data = "abc\r\nNO CARRIER".getBytes ();
+		int state = BytePatternMatcher.START_STATE;
+		for ( int i = 0; i < 8; i++ )
+		{
+			state = instance.next (state, data[i]);
+		}
+		assertEquals (0, instance.getMatches (state).length);
+		assertEquals (5, instance.getDepth (state));
+		for ( int i = 8; i < data.length; i++ )
+		{
+			state = instance.next (state, data[i]);
+		}
+		assertEquals (1, instance.getMatches (state).length);
+		assertEquals (0, instance.getMatches (state)[0]);
+	}
+
+	/**
+	 * Test of the constructor, of class BytePatternMatcher.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyPattern ()
+	{
+		System.out.println ("emptyPattern");
+		new BytePatternMatcher (new byte[0]);
+	}
+}
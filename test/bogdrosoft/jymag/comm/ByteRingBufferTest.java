@@ -0,0 +1,134 @@
+/*
+ * ByteRingBufferTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * ByteRingBufferTest - a test for the ByteRingBuffer class.
+ * @author Bogdan Drozdowski
+ */
+public class ByteRingBufferTest
+{
+	/**
+	 * Test of write and read methods, of class ByteRingBuffer.
+	 */
+	@Test
+	public void testWriteRead ()
+	{
+		System.out.println ("writeRead");
+		ByteRingBuffer instance = new ByteRingBuffer (4);
+		instance.write (new byte[] {1, 2, 3}, 0, 3);
+		assertEquals (3, instance.available ());
+		assertArrayEquals (new byte[] {1, 2}, instance.read (2));
+		// wraps around the end of the internal array
+		instance.write (new byte[] {4, 5, 6}, 0, 3);
+		assertEquals (4, instance.available ());
+		assertEquals (3, instance.get (0));
+		assertEquals (6, instance.get (3));
+		assertArrayEquals (new byte[] {3, 4, 5, 6}, instance.read (10));
+		assertEquals (0, instance.available ());
+	}
+
+	/**
+	 * Test of write method, of class ByteRingBuffer.
+	 */
+	@Test
+	public void testGrow ()
+	{
+		System.out.println ("grow");
+		ByteRingBuffer instance = new ByteRingBuffer (2);
+		instance.write (new byte[] {1, 2}, 0, 2);
+		instance.skip (1);
+		byte[] big = new byte[100];
+		for ( int i = 0; i < big.length; i++ )
+		{
+			big[i] = (byte) i;
+		}
+		instance.write (big, 0, big.length);
+		assertEquals (101, instance.available ());
+		byte[] res = instance.read (101);
+		assertEquals (2, res[0]);
+		assertEquals (99, res[100]);
+	}
+
+	/**
+	 * Test of peek method, of class ByteRingBuffer.
+	 */
+	@Test
+	public void testPeek ()
+	{
+		System.out.println ("peek");
+		ByteRingBuffer instance = new ByteRingBuffer (8);
+		instance.write (new byte[] {1, 2, 3, 4}, 0, 4);
+		byte[] dst = new byte[3];
+		assertEquals (2, instance.peek (2, dst, 0, 3));
+		assertEquals (3, dst[0]);
+		assertEquals (4, dst[1]);
+		assertEquals (4, instance.available ());
+		assertEquals (0, instance.peek (4, dst, 0, 3));
+	}
+
+	/**
+	 * Test of scan method, of class ByteRingBuffer.
+	 */
+	@Test
+	public void testScan ()
+	{
+		System.out.println ("scan");
+		BytePatternMatcher m = new BytePatternMatcher ("\r\nOK".getBytes ());
+		ByteRingBuffer instance = new ByteRingBuffer (8);
+		instance.write ("AT\r\nO".getBytes (), 0, 5);
+		int state = instance.scan (0, 5, m, BytePatternMatcher.START_STATE);
+		assertTrue (state >= 0);
+		// the terminator is split between the two chunks
+		instance.write ("K\r\n".getBytes (), 0, 3);
+		assertEquals (-1, instance.scan (5, 8, m, state));
+		assertEquals (8, instance.available ());
+	}
+
+	/**
+	 * Test of awaitMoreThan method, of class ByteRingBuffer.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testAwaitMoreThan () throws Exception
+	{
+		System.out.println ("awaitMoreThan");
+		final ByteRingBuffer instance = new ByteRingBuffer (8);
+		assertFalse (instance.awaitMoreThan (0, 10));
+		Thread t = new Thread (new Runnable ()
+		{
+			@Override
+			public void run ()
+			{
+				instance.write (new byte[] {1}, 0, 1);
+			}
+		});
+		t.start ();
+		assertTrue (instance.awaitMoreThan (0, 5000));
+		t.join ();
+		instance.clear ();
+		assertEquals (0, instance.available ());
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * CatalogCacheTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.PhoneElement;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Vector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * CatalogCacheTest - a test for the CatalogCache class.
+ * @author Bogdan Drozdowski
+ */
+public class CatalogCacheTest
+{
+	private static final String IMEI = "353056005020024";	// NOI18N
+	private static final String PICTURES = "PICTURES";	// NOI18N
+
+	private File dir;
+
+	/**
+	 * Creates the directory for the catalogs.
+	 *
+	 * @throws Exception
+	 */
+	@Before
+	public void setUp () throws Exception
+	{
+		dir = Files.createTempDirectory ("jymagcat").toFile ();	// NOI18N
+	}
+
+	/**
+	 * Removes the directory for the catalogs.
+	 */
+	@After
+	public void tearDown ()
+	{
+		File[] files = dir.listFiles ();
+		if ( files != null )
+		{
+			for ( File f : files )
+			{
+				f.delete ();
+			}
+		}
+		dir.delete ();
+	}
+
+	private static Vector<PhoneElement> getElements ()
+	{
+		Vector<PhoneElement> elems = new Vector<PhoneElement> (2);
+		elems.add (new PhoneElement ("5303650005022001FFFF", "FGIF", "Zzz"));	// NOI18N
+		elems.add (new PhoneElement ("53036500050220030045", "JPEG", null));	// NOI18N
+		return elems;
+	}
+
+	/**
+	 * Test of put and get methods, of class CatalogCache.
+	 */
+	@Test
+	public void testPutGet ()
+	{
+		System.out.println ("putGet");
+		CatalogCache instance = new CatalogCache (dir);
+		assertNull (instance.get (IMEI, PICTURES));
+		long before = System.currentTimeMillis ();
+		instance.put (IMEI, "2.04", PICTURES, getElements ());	// NOI18N
+		CatalogCache.Entry e = instance.get (IMEI, PICTURES);
+		assertNotNull (e);
+		assertEquals (getElements (), e.getElements ());
+		assertTrue (e.getFetchTime () >= before);
+		assertNull (instance.get (IMEI, "RINGTONES"));	// NOI18N
+		assertNull (instance.get (null, PICTURES));
+
+		// read back from the disk
+		CatalogCache other = new CatalogCache (dir);
+		CatalogCache.Entry e2 = other.get (IMEI, PICTURES);
+		assertNotNull (e2);
+		assertEquals (getElements (), e2.getElements ());
+		assertNull (e2.getElements ().get (1).getName ());
+		assertEquals (e.getFetchTime (), e2.getFetchTime ());
+	}
+
+	/**
+	 * Test of setDevice method, of class CatalogCache.
+	 */
+	@Test
+	public void testFirmwareChange ()
+	{
+		System.out.println ("firmwareChange");
+		CatalogCache instance = new CatalogCache (dir);
+		instance.put (IMEI, "2.04", PICTURES, getElements ());	// NOI18N
+		// unknown firmware doesn't change anything
+		instance.setDevice ("COM1", IMEI, null);	// NOI18N
+		assertNotNull (instance.get (IMEI, PICTURES));
+		instance.setDevice ("COM1", IMEI, "2.04");	// NOI18N
+		assertNotNull (instance.get (IMEI, PICTURES));
+		instance.setDevice ("COM1", IMEI, "2.05");	// NOI18N
+		assertNull (instance.get (IMEI, PICTURES));
+		assertNull (new CatalogCache (dir).get (IMEI, PICTURES));
+	}
+
+	/**
+	 * Test of getLastDevice method, of class CatalogCache.
+	 */
+	@Test
+	public void testGetLastDevice ()
+	{
+		System.out.println ("getLastDevice");
+		CatalogCache instance = new CatalogCache (dir);
+		assertNull (instance.getLastDevice ("COM1"));	// NOI18N
+		instance.setDevice ("COM1", IMEI, "2.04");	// NOI18N
+		assertEquals (IMEI, instance.getLastDevice ("COM1"));	// NOI18N
+		assertEquals (IMEI, new CatalogCache (dir).getLastDevice ("COM1"));	// NOI18N
+		assertNull (instance.getLastDevice (null));
+	}
+
+	/**
+	 * Test of invalidate method, of class CatalogCache.
+	 */
+	@Test
+	public void testInvalidate ()
+	{
+		System.out.println ("invalidate");
+		CatalogCache instance = new CatalogCache (dir);
+		instance.put (IMEI, "2.04", PICTURES, getElements ());	// NOI18N
+		instance.invalidate (IMEI);
+		assertNull (instance.get (IMEI, PICTURES));
+		assertNull (new CatalogCache (dir).get (IMEI, PICTURES));
+	}
+
+	/**
+	 * Test of get method, of class CatalogCache.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetCorrupted () throws Exception
+	{
+		System.out.println ("getCorrupted");
+		FileOutputStream out = new FileOutputStream (new File (dir, IMEI + ".cat"));	// NOI18N
+		try
+		{
+			out.write (new byte[] {0x4A, 0x59, 0x43, 0x43, 0, 0, 0, 1, 1});
+		}
+		finally
+		{
+			out.close ();
+		}
+		CatalogCache instance = new CatalogCache (dir);
+		assertNull (instance.get (IMEI, PICTURES));
+		instance.put (IMEI, "2.04", PICTURES, getElements ());	// NOI18N
+		assertNotNull (new CatalogCache (dir).get (IMEI, PICTURES));
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * CircuitBreakerTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * CircuitBreakerTest - a test for the CircuitBreaker class.
+ * @author Bogdan Drozdowski
+ */
+public class CircuitBreakerTest
+{
+	/**
+	 * Test of forPort method, of class CircuitBreaker.
+	 */
+	@Test
+	public void testForPort ()
+	{
+		System.out.println ("forPort");
+		CircuitBreaker b1 = CircuitBreaker.forPort ("COMbreaker1");
+		assertSame (b1, CircuitBreaker.forPort ("COMbreaker1"));
+		assertNotSame (b1, CircuitBreaker.forPort ("COMbreaker2"));
+		assertNotNull (CircuitBreaker.forPort (null));
+	}
+
+	/**
+	 * Test of recordFailure and recordSuccess methods, of class CircuitBreaker.
+	 */
+	@Test
+	public void testOpen ()
+	{
+		System.out.println ("open");
+		CircuitBreaker instance = new CircuitBreaker (3, 1000000);
+		instance.recordFailure ();
+		instance.recordFailure ();
+		instance.recordSuccess ();
+		instance.recordFailure ();
+		instance.recordFailure ();
+		// the failures must be in a row
+		assertEquals (CircuitBreaker.State.CLOSED, instance.getState ());
+		assertTrue (instance.allowRequest ());
+		instance.recordFailure ();
+		assertEquals (CircuitBreaker.State.OPEN, instance.getState ());
+		assertFalse (instance.allowRequest ());
+		instance.reset ();
+		assertTrue (instance.allowRequest ());
+	}
+
+	/**
+	 * Test of allowRequest method, of class CircuitBreaker.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testHalfOpen () throws Exception
+	{
+		System.out.println ("halfOpen");
+		CircuitBreaker instance = new CircuitBreaker (1, 100);
+		instance.recordFailure ();
+		assertFalse (instance.allowRequest ());
+		Thread.sleep (150);
+		// only one request checks the device
+		assertTrue (instance.allowRequest ());
+		assertEquals (CircuitBreaker.State.HALF_OPEN, instance.getState ());
+		assertFalse (instance.allowRequest ());
+		instance.recordFailure ();
+		assertEquals (CircuitBreaker.State.OPEN, instance.getState ());
+		Thread.sleep (150);
+		assertTrue (instance.allowRequest ());
+		instance.recordSuccess ();
+		assertEquals (CircuitBreaker.State.CLOSED, instance.getState ());
+		assertTrue (instance.allowRequest ());
+	}
+}
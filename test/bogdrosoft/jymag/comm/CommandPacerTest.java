@@ -0,0 +1,88 @@
+/*
+ * CommandPacerTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * CommandPacerTest - a test for the CommandPacer class.
+ * @author Bogdan Drozdowski
+ */
+public class CommandPacerTest
+{
+	/**
+	 * Test of forPort method, of class CommandPacer.
+	 */
+	@Test
+	public void testForPort ()
+	{
+		System.out.println ("forPort");
+		CommandPacer p1 = CommandPacer.forPort ("COMpacer1");
+		assertSame (p1, CommandPacer.forPort ("COMpacer1"));
+		assertNotSame (p1, CommandPacer.forPort ("COMpacer2"));
+		assertNotNull (CommandPacer.forPort (null));
+	}
+
+	/**
+	 * Test of replyFailed and replyReceived methods, of class CommandPacer.
+	 */
+	@Test
+	public void testBackoff ()
+	{
+		System.out.println ("backoff");
+		CommandPacer instance = new CommandPacer ();
+		assertEquals (0, instance.getGap ());
+		instance.replyFailed ();
+		assertEquals (CommandPacer.BACKOFF_START, instance.getGap ());
+		instance.replyFailed ();
+		assertEquals (2 * CommandPacer.BACKOFF_START, instance.getGap ());
+		for ( int i = 0; i < 20; i++ )
+		{
+			instance.replyFailed ();
+		}
+		assertEquals (CommandPacer.MAX_GAP, instance.getGap ());
+		long before = instance.getGap ();
+		instance.replyReceived ();
+		assertTrue (instance.getGap () < before);
+		for ( int i = 0; i < 200; i++ )
+		{
+			instance.replyReceived ();
+		}
+		assertEquals (0, instance.getGap ());
+	}
+
+	/**
+	 * Test of beforeCommand method, of class CommandPacer.
+	 */
+	@Test
+	public void testBeforeCommand ()
+	{
+		System.out.println ("beforeCommand");
+		CommandPacer instance = new CommandPacer ();
+		long start = System.currentTimeMillis ();
+		instance.beforeCommand ();
+		assertTrue (System.currentTimeMillis () - start < CommandPacer.BACKOFF_START);
+		instance.replyFailed ();
+		instance.beforeCommand ();
+		assertTrue (System.currentTimeMillis () - start >= CommandPacer.BACKOFF_START - 5);
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * CommandSchedulerTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import java.util.Vector;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * CommandSchedulerTest - a test for the CommandScheduler class.
+ * @author Bogdan Drozdowski
+ */
+public class CommandSchedulerTest
+{
+	/**
+	 * Starts a thread which gets the port with the given priority,
+	 * records its name and frees the port. Waits until the thread is queued.
+	 */
+	private static Thread startWaiter (final CommandScheduler instance,
+		final CommandScheduler.Priority p, final String name,
+		final Vector<String> order) throws Exception
+	{
+		int waiting = instance.getWaitingCount ();
+		Thread t = new Thread (new Runnable ()
+		{
+			@Override
+			public void run ()
+			{
+				instance.acquire (p);
+				order.add (name);
+				instance.release ();
+			}
+		});
+		t.start ();
+		for ( int i = 0; i < 500 && instance.getWaitingCount () <= waiting; i++ )
+		{
+			Thread.sleep (10);
+		}
+		assertEquals (waiting + 1, instance.getWaitingCount ());
+		return t;
+	}
+
+	/**
+	 * Test of forPort method, of class CommandScheduler.
+	 */
+	@Test
+	public void testForPort ()
+	{
+		System.out.println ("forPort");
+		assertSame (CommandScheduler.forPort ("COMtest1"),
+			CommandScheduler.forPort ("COMtest1"));
+		assertNotSame (CommandScheduler.forPort ("COMtest1"),
+			CommandScheduler.forPort ("COMtest2"));
+		assertNotNull (CommandScheduler.forPort (null));
+	}
+
+	/**
+	 * Test of acquire and release methods, of class CommandScheduler.
+	 */
+	@Test
+	public void testReentrant ()
+	{
+		System.out.println ("reentrant");
+		CommandScheduler instance = new CommandScheduler ();
+		assertFalse (instance.isHeldByCurrentThread ());
+		instance.acquire (CommandScheduler.Priority.TRANSFER);
+		instance.acquire (CommandScheduler.Priority.INTERACTIVE);
+		assertTrue (instance.isHeldByCurrentThread ());
+		instance.release ();
+		assertTrue (instance.isHeldByCurrentThread ());
+		instance.release ();
+		assertFalse (instance.isHeldByCurrentThread ());
+	}
+
+	/**
+	 * Test of release method, of class CommandScheduler.
+	 */
+	@Test(expected = IllegalMonitorStateException.class)
+	public void testReleaseNotOwner ()
+	{
+		System.out.println ("releaseNotOwner");
+		new CommandScheduler ().release ();
+	}
+
+	/**
+	 * Test of acquire method, of class CommandScheduler.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPriorityOrder () throws Exception
+	{
+		System.out.println ("priorityOrder");
+		CommandScheduler instance = new CommandScheduler ();
+		Vector<String> order = new Vector<String> (4);
+		instance.acquire (CommandScheduler.Priority.TRANSFER);
+		Thread b1 = startWaiter (instance,
+			CommandScheduler.Priority.BACKGROUND, "b1", order);	// NOI18N
+		Thread b2 = startWaiter (instance,
+			CommandScheduler.Priority.BACKGROUND, "b2", order);	// NOI18N
+		Thread i1 = startWaiter (instance,
+			CommandScheduler.Priority.INTERACTIVE, "i1", order);	// NOI18N
+		instance.release ();
+		b1.join ();
+		b2.join ();
+		i1.join ();
+		assertEquals (3, order.size ());
+		assertEquals ("i1", order.get (0));	// NOI18N
+		// equal priorities in the order of asking
+		assertEquals ("b1", order.get (1));	// NOI18N
+		assertEquals ("b2", order.get (2));	// NOI18N
+	}
+
+	/**
+	 * Test of giveWay method, of class CommandScheduler.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGiveWay () throws Exception
+	{
+		System.out.println ("giveWay");
+		CommandScheduler instance = new CommandScheduler ();
+		Vector<String> order = new Vector<String> (4);
+		instance.acquire (CommandScheduler.Priority.TRANSFER);
+		instance.acquire (CommandScheduler.Priority.TRANSFER);
+		assertFalse (instance.giveWay ());
+		Thread i1 = startWaiter (instance,
+			CommandScheduler.Priority.INTERACTIVE, "i1", order);	// NOI18N
+		assertTrue (instance.giveWay ());
+		i1.join ();
+		assertEquals (1, order.size ());
+		// the port is back, with the same number of holds
+		assertTrue (instance.isHeldByCurrentThread ());
+		instance.release ();
+		assertTrue (instance.isHeldByCurrentThread ());
+		instance.release ();
+		assertFalse (instance.isHeldByCurrentThread ());
+	}
+}
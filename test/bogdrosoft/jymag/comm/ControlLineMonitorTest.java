@@ -0,0 +1,81 @@
+/*
+ * ControlLineMonitorTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import java.util.Vector;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * ControlLineMonitorTest - a test for the ControlLineMonitor class.
+ * @author Bogdan Drozdowski
+ */
+public class ControlLineMonitorTest
+{
+	/**
+	 * Test of update method, of class ControlLineMonitor.
+	 */
+	@Test
+	public void testUpdate ()
+	{
+		System.out.println ("update");
+		final Vector<String> changes = new Vector<String> (4);
+		ControlLineMonitor instance = new ControlLineMonitor ();
+		ControlLineMonitor.Listener l = new ControlLineMonitor.Listener ()
+		{
+			@Override
+			public void lineChanged (ControlLineMonitor.Line line, boolean state)
+			{
+				changes.add (line + "=" + state);	// NOI18N
+			}
+
+			@Override
+			public void dataAvailable ()
+			{
+				changes.add ("data");	// NOI18N
+			}
+		};
+		instance.addListener (l);
+		instance.update (ControlLineMonitor.Line.CTS, true);
+		// no change, not reported
+		instance.update (ControlLineMonitor.Line.CTS, true);
+		instance.update (ControlLineMonitor.Line.DSR, false);
+		// errors are reported each time
+		instance.update (ControlLineMonitor.Line.FE, false);
+		instance.update (ControlLineMonitor.Line.FE, false);
+		instance.dataReceived ();
+		assertEquals (4, changes.size ());
+		assertEquals ("CTS=true", changes.get (0));	// NOI18N
+		assertEquals ("FE=true", changes.get (1));	// NOI18N
+		assertEquals ("FE=true", changes.get (2));	// NOI18N
+		assertEquals ("data", changes.get (3));	// NOI18N
+		assertTrue (instance.isSet (ControlLineMonitor.Line.CTS));
+		assertFalse (instance.isSet (ControlLineMonitor.Line.DSR));
+		assertFalse (instance.isSet (ControlLineMonitor.Line.FE));
+		assertEquals (2, instance.getErrorCount (ControlLineMonitor.Line.FE));
+		assertEquals (0, instance.getErrorCount (ControlLineMonitor.Line.CTS));
+
+		instance.removeListener (l);
+		instance.update (ControlLineMonitor.Line.CTS, false);
+		assertEquals (4, changes.size ());
+		assertFalse (instance.isSet (ControlLineMonitor.Line.CTS));
+	}
+}
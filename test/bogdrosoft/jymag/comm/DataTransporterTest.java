@@ -30,10 +30,18 @@ import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
 import bogdrosoft.jymag.comm.fake.FakeSerialPort;
 import gnu.io.CommPortIdentifier;
 import gnu.io.SerialPort;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -89,6 +97,32 @@ public class DataTransporterTest
 		return dt;
 	}
 
+	private static DataTransporter prepareDTWithReply(final byte[] reply)
+		throws Exception
+	{
+		CommPortIdentifier id = mock(CommPortIdentifier.class);
+		when(id.getName()).thenReturn("COMreply");
+		when(id.open(anyString(), anyInt())).thenReturn(new FakeSerialPort()
+		{
+			private final InputStream in = new ByteArrayInputStream(reply);
+
+			@Override
+			public InputStream getInputStream()
+			{
+				return in;
+			}
+
+			@Override
+			public OutputStream getOutputStream()
+			{
+				return new ByteArrayOutputStream();
+			}
+		});
+		DataTransporter dt = new DataTransporter(id);
+		dt.open(115200, 8, 1, 0, 0);
+		return dt;
+	}
+
 	/**
 	 * Test of open method, of class DataTransporter.
 	 *
@@ -184,6 +218,56 @@ public class DataTransporterTest
 		assertArrayEquals(expResult, result);
 	}
 
+	/**
+	 * Test of recv method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testRecvTerminators () throws Exception
+	{
+		System.out.println ("recvTerminators");
+		DataTransporter dt = prepareDTWithReply("AT+CMGS=1\r\r\n> ".getBytes());
+		long start = System.currentTimeMillis();
+		byte[] result = dt.recv (new Object[] {">"});
+		assertArrayEquals("AT+CMGS=1\r\r\n> ".getBytes(), result);
+		// no waiting for the timeout
+		assertTrue(System.currentTimeMillis() - start < 2000);
+
+		dt = prepareDTWithReply("+CME ERROR: 3\r\nERROR\r\n".getBytes());
+		result = dt.recv (null);
+		assertArrayEquals("+CME ERROR: 3\r\nERROR\r\n".getBytes(), result);
+	}
+
+	/**
+	 * Test of recv method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testRecvTerminatorsInText () throws Exception
+	{
+		System.out.println ("recvTerminatorsInText");
+		String textReply = "+CMGL: 1,\"REC READ\",\"+123456789\"\r\n"
+			+ "OKAY, see you\r\nNO ERRORS\r\n";
+		byte[] text = textReply.getBytes();
+		DataTransporter dt = prepareDTWithReply(text);
+		dt.setRecvTimeout(500);
+		long start = System.currentTimeMillis();
+		byte[] result = dt.recv (null);
+		// the words in the text are not terminators, so the rest of the reply is awaited
+		assertTrue(System.currentTimeMillis() - start >= 400);
+		assertArrayEquals(text, result);
+
+		byte[] reply = (textReply + "\r\nOK\r\n").getBytes();
+		dt = prepareDTWithReply(reply);
+		dt.setRecvTimeout(10000);
+		start = System.currentTimeMillis();
+		result = dt.recv (null);
+		assertTrue(System.currentTimeMillis() - start < 2000);
+		assertArrayEquals(reply, result);
+	}
+
 	/**
 	 * Test of send method, of class DataTransporter.
 	 *
@@ -374,6 +458,356 @@ public class DataTransporterTest
 		assertEquals(0, result);
 	}
 
+	/**
+	 * Test of putFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPutFileData() throws Exception
+	{
+		System.out.println("testPutFileData");
+		DataTransporter dt = prepareDT();
+		byte[] data = new byte[25000];
+		int result = dt.putFileData(Channels.newChannel(
+			new ByteArrayInputStream(data)), data.length, "mid", "test");
+		assertEquals(0, result);
+	}
+
+	/**
+	 * Test of putFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPutFileDataInvalid() throws Exception
+	{
+		System.out.println("testPutFileDataInvalid");
+		DataTransporter dt = prepareDT();
+		byte[] data = new byte[] {1, 2, 3};
+		assertTrue(dt.putFileData(null, 0, "mid", "test") < 0);
+		assertTrue(dt.putFileData(Channels.newChannel(
+			new ByteArrayInputStream(data)), data.length, null, "test") < 0);
+		assertTrue(dt.putFileData(Channels.newChannel(
+			new ByteArrayInputStream(data)), data.length, "mid", null) < 0);
+		assertEquals(-9, dt.putFileData(Channels.newChannel(
+			new ByteArrayInputStream(data)), data.length, "test", "test"));
+	}
+
+	private static int upload(UploadPort port, int length) throws Exception
+	{
+		CommPortIdentifier id = mock(CommPortIdentifier.class);
+		when(id.getName()).thenReturn("COMupload");
+		when(id.open(anyString(), anyInt())).thenReturn(port);
+		DataTransporter dt = new DataTransporter(id);
+		dt.open(115200, 8, 1, 0, 0);
+		dt.setRecvTimeout(500);
+		File f = File.createTempFile("jymag", ".jpg");
+		f.deleteOnExit();
+		FileOutputStream fos = new FileOutputStream(f);
+		fos.write(new byte[length]);
+		fos.close();
+		FileInputStream fis = new FileInputStream(f);
+		try
+		{
+			return dt.putFileData(fis.getChannel(), length, "jpg", "test");
+		}
+		finally
+		{
+			fis.close();
+			dt.close();
+			f.delete();
+		}
+	}
+
+	/**
+	 * Test of putFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPutFileDataRetry() throws Exception
+	{
+		System.out.println("testPutFileDataRetry");
+		final int length = 25000;
+		UploadPort port = new UploadPort(length, false);
+		assertEquals(0, upload(port, length));
+		// the acknowledged parts don't count, all the data is sent again
+		assertEquals(2 * length, port.getDataBytes());
+		// the phone had to be put in the data mode again
+		assertEquals(2, port.getInitCount());
+	}
+
+	/**
+	 * Test of putFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPutFileDataRejected() throws Exception
+	{
+		System.out.println("testPutFileDataRejected");
+		final int length = 25000;
+		UploadPort port = new UploadPort(length, true);
+		assertEquals(0, upload(port, length));
+		// nothing was sent after the error
+		assertEquals(DataTransporter.SEND_BUFFER_SIZE + length,
+			port.getDataBytes());
+		assertEquals(2, port.getInitCount());
+	}
+
+	/**
+	 * Test of putFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPutFileDataBreaker() throws Exception
+	{
+		System.out.println("testPutFileDataBreaker");
+		CircuitBreaker breaker = CircuitBreaker.forPort("COMupload");
+		breaker.reset();
+		for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD - 1; i++)
+		{
+			breaker.recordFailure();
+		}
+		final int length = 1000;
+		assertEquals(0, upload(new UploadPort(length, false), length));
+		// the successful upload has cleared the failures
+		breaker.recordFailure();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		breaker.reset();
+	}
+
+	/**
+	 * Test of putFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPutFileDataGiveWay() throws Exception
+	{
+		System.out.println("testPutFileDataGiveWay");
+		final CommandScheduler scheduler = CommandScheduler.forPort("COMupload");
+		final int length = 25000;
+		final AtomicBoolean uploadDone = new AtomicBoolean(false);
+		final AtomicBoolean holding = new AtomicBoolean(false);
+		final AtomicBoolean goOn = new AtomicBoolean(false);
+		final AtomicInteger uploadResult = new AtomicInteger(1);
+		final AtomicBoolean gotBeforeEnd = new AtomicBoolean(false);
+		Thread uploader = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				scheduler.acquire(CommandScheduler.Priority.TRANSFER);
+				holding.set(true);
+				try
+				{
+					while ( ! goOn.get() )
+					{
+						Thread.sleep(10);
+					}
+					uploadResult.set(upload(new UploadPort(length, false),
+						length));
+				}
+				catch (Exception ex)
+				{
+					uploadResult.set(-100);
+				}
+				finally
+				{
+					uploadDone.set(true);
+					scheduler.release();
+				}
+			}
+		});
+		uploader.start();
+		while ( ! holding.get() )
+		{
+			Thread.sleep(10);
+		}
+		Thread dialer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				scheduler.acquire(CommandScheduler.Priority.INTERACTIVE);
+				gotBeforeEnd.set(! uploadDone.get());
+				scheduler.release();
+			}
+		});
+		dialer.start();
+		while ( scheduler.getWaitingCount() == 0 )
+		{
+			Thread.sleep(10);
+		}
+		goOn.set(true);
+		dialer.join(10000);
+		uploader.join(30000);
+		assertEquals(0, uploadResult.get());
+		// the hangup didn't wait for the whole upload
+		assertTrue(gotBeforeEnd.get());
+	}
+
+	/**
+	 * A port with a phone which acknowledges each part of the uploaded
+	 * data, but either loses the reply to the last part or rejects the
+	 * first part, once. Counts the commands setting the character set, too.
+	 */
+	private static class UploadPort extends FakeSerialPort
+	{
+		private final int length;
+		private final ByteRingBuffer replies = new ByteRingBuffer(64);
+		private final StringBuilder cmd = new StringBuilder();
+		private final boolean reject;
+		private boolean inData;
+		private boolean failed;
+		private int current;
+		private int dataBytes;
+		private int initCount;
+		private int charsetCount;
+
+		UploadPort(int len, boolean rejectFirst)
+		{
+			length = len;
+			reject = rejectFirst;
+		}
+
+		synchronized int getDataBytes()
+		{
+			return dataBytes;
+		}
+
+		synchronized int getInitCount()
+		{
+			return initCount;
+		}
+
+		synchronized int getCharsetCount()
+		{
+			return charsetCount;
+		}
+
+		private synchronized void received(byte[] b, int off, int len)
+		{
+			if ( inData )
+			{
+				dataBytes += len;
+				current += len;
+				if ( reject && ! failed )
+				{
+					failed = true;
+					inData = false;
+					reply("ERROR\r");
+				}
+				else if ( current < length )
+				{
+					reply("OK\r");
+				}
+				else
+				{
+					inData = false;
+					if ( reject || failed )
+					{
+						reply("OK\r");
+					}
+					else
+					{
+						// the reply is lost
+						failed = true;
+					}
+				}
+				return;
+			}
+			for ( int i = off; i < off + len; i++ )
+			{
+				cmd.append((char) b[i]);
+				if ( b[i] != '\r' )
+				{
+					continue;
+				}
+				String c = cmd.toString();
+				cmd.setLength(0);
+				if ( c.equals("AT+KDOBJ=1,1\r") )
+				{
+					initCount++;
+					reply("OK\r");
+				}
+				else if ( c.startsWith("AT+CSCS=") )
+				{
+					charsetCount++;
+					reply("OK\r");
+				}
+				else if ( c.startsWith("AT+KDOBJ=2,1,3,0,") )
+				{
+					reply("CONNECT\r");
+				}
+				else if ( c.startsWith("AT+KDOBJ=2,1,0,") )
+				{
+					inData = true;
+					current = 0;
+					reply("CONNECT\r");
+				}
+				else
+				{
+					reply("OK\r");
+				}
+			}
+		}
+
+		private void reply(String r)
+		{
+			byte[] b = r.getBytes();
+			replies.write(b, 0, b.length);
+		}
+
+		@Override
+		public InputStream getInputStream()
+		{
+			return new InputStream()
+			{
+				@Override
+				public int available()
+				{
+					return replies.available();
+				}
+
+				@Override
+				public int read()
+				{
+					byte[] b = new byte[1];
+					return (read(b, 0, 1) > 0)? (b[0] & 0xFF) : -1;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len)
+				{
+					return replies.read(b, off, len);
+				}
+			};
+		}
+
+		@Override
+		public OutputStream getOutputStream()
+		{
+			return new OutputStream()
+			{
+				@Override
+				public void write(int b)
+				{
+					write(new byte[] {(byte) b}, 0, 1);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len)
+				{
+					received(b, off, len);
+				}
+			};
+		}
+	}
+
 	/**
 	 * Test of getFile method, of class DataTransporter.
 	 *
@@ -421,6 +855,147 @@ public class DataTransporterTest
 		assertTrue(result < 0);
 	}
 
+	/**
+	 * Test of getFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetFileData() throws Exception
+	{
+		System.out.println("testGetFileData");
+		DataTransporter dt = prepareDT();
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		PhoneElement el = new PhoneElement("1", "jpg", FILENAME);
+		int result = dt.getFileData(Channels.newChannel(baos), el);
+		assertEquals(0, result);
+		assertArrayEquals("A".getBytes(), baos.toByteArray());
+	}
+
+	/**
+	 * Test of getFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetFileDataIncomplete() throws Exception
+	{
+		System.out.println("testGetFileDataIncomplete");
+		byte[] reply = "AT+KPSR=\"1\"\r+KPSR: 5000\rCONNECT\r\nGIF89a"
+			.getBytes();
+		CircuitBreaker breaker = CircuitBreaker.forPort("COMreply");
+		breaker.reset();
+		try
+		{
+			for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++)
+			{
+				DataTransporter dt = prepareDTWithReply(reply);
+				dt.setRecvTimeout(100);
+				ByteArrayOutputStream baos = new ByteArrayOutputStream();
+				PhoneElement el = new PhoneElement("1", "FGIF", FILENAME);
+				assertTrue(dt.getFileData(Channels.newChannel(baos), el) < 0);
+				dt.close();
+			}
+			// the incomplete transfers are failures
+			assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		}
+		finally
+		{
+			breaker.reset();
+		}
+	}
+
+	/**
+	 * Test of getFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetFileDataLarge() throws Exception
+	{
+		System.out.println("testGetFileDataLarge");
+		byte[] data = new byte[50000];
+		data[0] = (byte) 0xff;
+		data[1] = (byte) 0xd8;
+		data[2] = (byte) 0xff;
+		for (int i = 3; i < data.length; i++)
+		{
+			data[i] = (byte) (i % 200);
+		}
+		ByteArrayOutputStream reply = new ByteArrayOutputStream();
+		reply.write("AT+KPSR=\"1\"\r+KPSR: 50000\rCONNECT\r\n".getBytes());
+		reply.write(data);
+		reply.write("\r\nNO CARRIER\r".getBytes());
+		DataTransporter dt = prepareDTWithReply(reply.toByteArray());
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		PhoneElement el = new PhoneElement("1", "JPEG", FILENAME);
+		int result = dt.getFileData(Channels.newChannel(baos), el);
+		assertEquals(0, result);
+		assertArrayEquals(data, baos.toByteArray());
+	}
+
+	/**
+	 * Test of getFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetFileDataSignaturePriority() throws Exception
+	{
+		System.out.println("testGetFileDataSignaturePriority");
+		// "BM" (BMP) comes first, but the CGM header has priority
+		byte[] data = "BEGMF \"pic\"; BM BEGPIC; ENDMF;".getBytes();
+		ByteArrayOutputStream reply = new ByteArrayOutputStream();
+		reply.write("+KPSR: 1\rCONNECT\r\nxBM".getBytes());
+		reply.write(data);
+		reply.write("\r\nNO CARRIER\r".getBytes());
+		DataTransporter dt = prepareDTWithReply(reply.toByteArray());
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		PhoneElement el = new PhoneElement("1", "CGM", FILENAME);
+		int result = dt.getFileData(Channels.newChannel(baos), el);
+		assertEquals(0, result);
+		assertArrayEquals(data, baos.toByteArray());
+	}
+
+	/**
+	 * Test of getFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetFileDataMpeg() throws Exception
+	{
+		System.out.println("testGetFileDataMpeg");
+		// the data starts 4 bytes before "ftyp"
+		byte[] data = new byte[] {0, 0, 0, 0x14, 'f', 't', 'y', 'p',
+			'i', 's', 'o', 'm', 0, 0, 2, 0};
+		ByteArrayOutputStream reply = new ByteArrayOutputStream();
+		reply.write("+KPSR: 1\rCONNECT\r\nzz".getBytes());
+		reply.write(data);
+		reply.write("\r\nNO CARRIER\r".getBytes());
+		DataTransporter dt = prepareDTWithReply(reply.toByteArray());
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		PhoneElement el = new PhoneElement("1", "MPEG", FILENAME);
+		int result = dt.getFileData(Channels.newChannel(baos), el);
+		assertEquals(0, result);
+		assertArrayEquals(data, baos.toByteArray());
+	}
+
+	/**
+	 * Test of getFileData method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetFileDataNullChannel() throws Exception
+	{
+		System.out.println("testGetFileDataNullChannel");
+		DataTransporter dt = prepareDT();
+		PhoneElement el = new PhoneElement("1", "jpg", FILENAME);
+		int result = dt.getFileData(null, el);
+		assertTrue(result < 0);
+	}
+
 	/**
 	 * Test of getList method, of class DataTransporter.
 	 *
@@ -448,9 +1023,51 @@ public class DataTransporterTest
 	{
 		System.out.println ("testGetListNullType");
 		DataTransporter dt = prepareDT();
-		Vector<PhoneElement> expResult = new Vector<PhoneElement>(1);
-		Vector<PhoneElement> result = dt.getList(null);
-		assertEquals (expResult, result);
+		assertNull (dt.getList(null));
+	}
+
+	/**
+	 * Test of getList method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetListFailed() throws Exception
+	{
+		System.out.println ("testGetListFailed");
+		DataTransporter dt = prepareDT();
+		dt.close ();
+		// not an empty list
+		assertNull (dt.getList ("PICTURES"));
+	}
+
+	/**
+	 * Test of getList method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetListCharset() throws Exception
+	{
+		System.out.println ("testGetListCharset");
+		UploadPort port = new UploadPort(0, false);
+		CommPortIdentifier id = mock(CommPortIdentifier.class);
+		when(id.getName()).thenReturn("COMcharset");
+		when(id.open(anyString(), anyInt())).thenReturn(port);
+		DataTransporter dt = new DataTransporter(id);
+		dt.open(115200, 8, 1, 0, 0);
+		assertNotNull (dt.getList ("PICTURES"));
+		assertNotNull (dt.getList ("RINGTONES"));
+		assertEquals (1, port.getCharsetCount());
+		// the phone may have been reset
+		dt.reopen ();
+		assertNotNull (dt.getList ("PICTURES"));
+		assertEquals (2, port.getCharsetCount());
+		dt.close ();
+		dt.open(115200, 8, 1, 0, 0);
+		assertNotNull (dt.getList ("PICTURES"));
+		assertEquals (3, port.getCharsetCount());
+		dt.close ();
 	}
 
 	/**
@@ -783,9 +1400,8 @@ public class DataTransporterTest
 		System.out.println ("getAlarms");
 		DataTransporter dt = prepareDT();
 		Vector<PhoneAlarm> expResult = new Vector<PhoneAlarm>(1);
-		PhoneAlarm alarm = new PhoneAlarm(0, "08/08/02", "06:30:00", null);
-		alarm.setOneTimeAlarm(true);
-		alarm.setForAllDays(false);
+		PhoneAlarm alarm = new PhoneAlarm(0, "08/08/02", "06:30:00", null)
+			.toBuilder().setOneTimeAlarm(true).setForAllDays(false).build();
 		expResult.add(alarm);
 		Vector<PhoneAlarm> result = dt.getAlarms ();
 		assertEquals (expResult, result);
@@ -961,6 +1577,23 @@ public class DataTransporterTest
 		assertEquals (expResult, result);
 	}
 
+	/**
+	 * Test of getControlLines method, of class DataTransporter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetControlLines () throws Exception
+	{
+		System.out.println ("getControlLines");
+		DataTransporter dt = prepareDT();
+		ControlLineMonitor lines = dt.getControlLines ();
+		dt.setRTS (true);
+		assertTrue (lines.isSet (ControlLineMonitor.Line.RTS));
+		dt.setRTS (false);
+		assertFalse (lines.isSet (ControlLineMonitor.Line.RTS));
+	}
+
 	/**
 	 * Test of isCD method, of class DataTransporter.
 	 *
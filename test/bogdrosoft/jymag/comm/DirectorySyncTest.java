@@ -0,0 +1,216 @@
+/*
+ * DirectorySyncTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.PhoneElement;
+import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Vector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * DirectorySyncTest - a test for the DirectorySync class.
+ * @author Bogdan Drozdowski
+ */
+public class DirectorySyncTest
+{
+	private static final String PICTURES = "PICTURES";	// NOI18N
+	private static final String ID = "5303650005022001FFFF";	// NOI18N
+	private static final String NAME = "TestPicture";	// NOI18N
+	private static final String FILENAME = NAME + ".gif";	// NOI18N
+
+	private File dir;
+
+	/**
+	 * Creates the directory to synchronize.
+	 *
+	 * @throws Exception
+	 */
+	@Before
+	public void setUp () throws Exception
+	{
+		dir = Files.createTempDirectory ("jymagsync").toFile ();	// NOI18N
+	}
+
+	/**
+	 * Removes the directory to synchronize.
+	 */
+	@After
+	public void tearDown ()
+	{
+		File[] files = dir.listFiles ();
+		if ( files != null )
+		{
+			for ( File f : files )
+			{
+				f.delete ();
+			}
+		}
+		dir.delete ();
+	}
+
+	private File getFile (String name, String contents) throws Exception
+	{
+		File f = new File (dir, name);
+		Files.write (f.toPath (), contents.getBytes ("UTF-8"));	// NOI18N
+		return f;
+	}
+
+	private static List<PhoneElement> getList (long length)
+	{
+		List<PhoneElement> res = new Vector<PhoneElement> (1);
+		res.add (new PhoneElement (ID, "FGIF", NAME, length));	// NOI18N
+		return res;
+	}
+
+	/**
+	 * Test of plan method, of class DirectorySync.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPlanNew () throws Exception
+	{
+		System.out.println ("planNew");
+		File local = getFile ("holiday.jpg", "abc");	// NOI18N
+		getFile ("notes.txt", "abc");	// NOI18N
+		DirectorySync instance = new DirectorySync (dir, PICTURES);
+		List<DirectorySync.Step> steps = instance.plan (getList (1));
+		assertEquals (2, steps.size ());
+		assertEquals (DirectorySync.Action.DOWNLOAD, steps.get (0).getAction ());
+		assertEquals (new File (dir, FILENAME), steps.get (0).getFile ());
+		assertEquals (ID, steps.get (0).getElement ().getID ());
+		assertEquals (DirectorySync.Action.UPLOAD, steps.get (1).getAction ());
+		assertEquals (local, steps.get (1).getFile ());
+		assertNull (steps.get (1).getElement ());
+	}
+
+	/**
+	 * Test of plan method, of class DirectorySync.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPlanAlreadyDownloaded () throws Exception
+	{
+		System.out.println ("planAlreadyDownloaded");
+		getFile (FILENAME, "abc");	// NOI18N
+		DirectorySync instance = new DirectorySync (dir, PICTURES);
+		assertTrue (instance.plan (getList (3)).isEmpty ());
+		List<DirectorySync.Step> steps = instance.plan (getList (4));
+		assertEquals (1, steps.size ());
+		assertEquals (DirectorySync.Action.CONFLICT, steps.get (0).getAction ());
+	}
+
+	/**
+	 * Test of sync and plan methods, of class DirectorySync.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testSync () throws Exception
+	{
+		System.out.println ("sync");
+		DataTransporter dt = new DataTransporter (new FakeCommPortIdentifier ());
+		dt.open (115200, 8, 1, 0, 0);
+		try
+		{
+			DirectorySync instance = new DirectorySync (dir, PICTURES);
+			assertEquals (0, instance.sync (dt));
+			assertEquals (1, instance.getDownloaded ());
+			assertEquals (0, instance.getUploaded ());
+			assertTrue (new File (dir, FILENAME).exists ());
+			// nothing has changed - nothing to transfer
+			assertEquals (0, instance.sync (dt));
+			assertEquals (0, instance.getDownloaded ());
+			// the state is kept between the runs
+			instance = new DirectorySync (dir, PICTURES);
+			assertTrue (instance.plan (getList (1)).isEmpty ());
+		}
+		finally
+		{
+			dt.close ();
+		}
+	}
+
+	/**
+	 * Test of sync method, of class DirectorySync.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testSyncListFailed () throws Exception
+	{
+		System.out.println ("syncListFailed");
+		getFile ("holiday.jpg", "abc");	// NOI18N
+		DataTransporter dt = new DataTransporter (new FakeCommPortIdentifier ());
+		dt.open (115200, 8, 1, 0, 0);
+		// the list can't be read
+		dt.close ();
+		DirectorySync instance = new DirectorySync (dir, PICTURES);
+		assertEquals (-1, instance.sync (dt));
+		// not taken for an empty phone
+		assertEquals (0, instance.getUploaded ());
+	}
+
+	/**
+	 * Test of plan method, of class DirectorySync.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPlanChanged () throws Exception
+	{
+		System.out.println ("planChanged");
+		DataTransporter dt = new DataTransporter (new FakeCommPortIdentifier ());
+		dt.open (115200, 8, 1, 0, 0);
+		try
+		{
+			assertEquals (0, new DirectorySync (dir, PICTURES).sync (dt));
+		}
+		finally
+		{
+			dt.close ();
+		}
+		DirectorySync instance = new DirectorySync (dir, PICTURES);
+		// changed in the phone
+		List<DirectorySync.Step> steps = instance.plan (getList (2));
+		assertEquals (1, steps.size ());
+		assertEquals (DirectorySync.Action.DOWNLOAD, steps.get (0).getAction ());
+		// changed locally
+		File local = getFile (FILENAME, "changed");	// NOI18N
+		steps = instance.plan (getList (1));
+		assertEquals (1, steps.size ());
+		assertEquals (DirectorySync.Action.UPLOAD, steps.get (0).getAction ());
+		assertEquals (local, steps.get (0).getFile ());
+		// the old object is replaced
+		assertEquals (ID, steps.get (0).getElement ().getID ());
+		// changed on both sides
+		steps = instance.plan (getList (2));
+		assertEquals (1, steps.size ());
+		assertEquals (DirectorySync.Action.CONFLICT, steps.get (0).getAction ());
+	}
+}
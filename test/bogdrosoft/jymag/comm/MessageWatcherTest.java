@@ -0,0 +1,96 @@
+/*
+ * MessageWatcherTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.PhoneMessage;
+import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * MessageWatcherTest - a test for the MessageWatcher class.
+ * @author Bogdan Drozdowski
+ */
+public class MessageWatcherTest
+{
+	private static final FakeCommPortIdentifier PORT_ID
+		= new FakeCommPortIdentifier();
+	private static final Object SYNC = new Object();
+
+	/**
+	 * Test of getMessageNumber method, of class MessageWatcher.
+	 */
+	@Test
+	public void testGetMessageNumber ()
+	{
+		System.out.println ("getMessageNumber");
+		assertEquals (3, MessageWatcher.getMessageNumber ("\"SM\",3"));	// NOI18N
+		assertEquals (12, MessageWatcher.getMessageNumber ("\"ME\", 12"));	// NOI18N
+		assertEquals (-1, MessageWatcher.getMessageNumber ("\"SM\","));	// NOI18N
+		assertEquals (-1, MessageWatcher.getMessageNumber (null));
+	}
+
+	/**
+	 * Test of start, urcReceived and stop methods, of class MessageWatcher.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testWatch () throws Exception
+	{
+		System.out.println ("watch");
+		final BlockingQueue<PhoneMessage> received =
+			new LinkedBlockingQueue<PhoneMessage> ();
+		MessageWatcher instance = new MessageWatcher (
+			new TransferParameters (PORT_ID, 115200, 8, 1, 0, 0, SYNC),
+			new MessageWatcher.Listener ()
+		{
+			@Override
+			public void messageReceived (PhoneMessage msg)
+			{
+				received.add (msg);
+			}
+		});
+		try
+		{
+			assertEquals (0, instance.start ().get (30, TimeUnit.SECONDS).intValue ());
+			assertTrue (instance.isWatching ());
+			// the port is kept open
+			assertEquals (1, SessionPool.getSessionCount ());
+			instance.urcReceived (PORT_ID.getName (), "+CLIP", "\"123\",145");	// NOI18N
+			instance.urcReceived (PORT_ID.getName (), "+CMTI", "\"SM\",1");	// NOI18N
+			PhoneMessage msg = received.poll (30, TimeUnit.SECONDS);
+			assertNotNull (msg);
+			assertEquals ("1", msg.getID ());	// NOI18N
+			assertNull (received.poll ());
+		}
+		finally
+		{
+			assertEquals (0, instance.stop ().get (30, TimeUnit.SECONDS).intValue ());
+		}
+		assertFalse (instance.isWatching ());
+		SessionPool.closeAll ();
+		assertEquals (0, SessionPool.getSessionCount ());
+	}
+}
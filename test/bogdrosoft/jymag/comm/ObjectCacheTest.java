@@ -0,0 +1,255 @@
+/*
+ * ObjectCacheTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.PhoneElement;
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * ObjectCacheTest - a test for the ObjectCache class.
+ * @author Bogdan Drozdowski
+ */
+public class ObjectCacheTest
+{
+	private static final String GIF = "FGIF";	// NOI18N
+	private static final String IMEI = "353056005020024";	// NOI18N
+
+	private File dir;
+	private File cacheDir;
+
+	/**
+	 * Creates the directory for the objects.
+	 *
+	 * @throws Exception
+	 */
+	@Before
+	public void setUp () throws Exception
+	{
+		dir = Files.createTempDirectory ("jymagobj").toFile ();	// NOI18N
+		cacheDir = new File (dir, "objects");	// NOI18N
+	}
+
+	/**
+	 * Removes the directory for the objects.
+	 */
+	@After
+	public void tearDown ()
+	{
+		delete (dir);
+	}
+
+	private static void delete (File f)
+	{
+		File[] files = f.listFiles ();
+		if ( files != null )
+		{
+			for ( File c : files )
+			{
+				delete (c);
+			}
+		}
+		f.delete ();
+	}
+
+	private File getFile (String name, String contents) throws Exception
+	{
+		File f = new File (dir, name);
+		Files.write (f.toPath (), contents.getBytes ("UTF-8"));	// NOI18N
+		return f;
+	}
+
+	private static String read (File f) throws Exception
+	{
+		return new String (Files.readAllBytes (f.toPath ()), "UTF-8");	// NOI18N
+	}
+
+	private static int countContents (File d)
+	{
+		int n = 0;
+		File[] files = d.listFiles ();
+		if ( files != null )
+		{
+			for ( File f : files )
+			{
+				if ( f.getName ().length () == 64 )
+				{
+					n++;
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Test of get and put methods, of class ObjectCache.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetPut () throws Exception
+	{
+		System.out.println ("getPut");
+		ObjectCache instance = new ObjectCache (cacheDir, 1000);
+		PhoneElement el = new PhoneElement ("5303650005022001FFFF", GIF, "Zzz", 5);	// NOI18N
+		File dest = new File (dir, "dest");	// NOI18N
+		assertFalse (instance.get (IMEI, el, dest));
+		assertFalse (dest.exists ());
+		instance.put (IMEI, el, getFile ("src", "abcde"));	// NOI18N
+		assertEquals (5, instance.getSize ());
+		assertTrue (instance.get (IMEI, el, dest));
+		assertEquals ("abcde", read (dest));	// NOI18N
+		// a changed object isn't found
+		assertFalse (instance.get (IMEI, new PhoneElement ("5303650005022001FFFF",	// NOI18N
+			GIF, "Zzz", 6), dest));	// NOI18N
+		assertFalse (instance.get (IMEI, new PhoneElement ("5303650005022001FFFF",	// NOI18N
+			GIF, "Yyy", 5), dest));	// NOI18N
+	}
+
+	/**
+	 * Test of get and put methods, of class ObjectCache.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testOtherPhone () throws Exception
+	{
+		System.out.println ("otherPhone");
+		ObjectCache instance = new ObjectCache (cacheDir, 1000);
+		PhoneElement el = new PhoneElement ("1", GIF, "Picture", 5);	// NOI18N
+		File dest = new File (dir, "dest");	// NOI18N
+		instance.put (IMEI, el, getFile ("src", "abcde"));	// NOI18N
+		// the same ID, name and length in another phone
+		assertFalse (instance.get ("353056005020025", el, dest));	// NOI18N
+		assertFalse (instance.get (null, el, dest));
+		assertFalse (dest.exists ());
+		// an unknown phone isn't stored
+		instance.put (null, el, getFile ("src2", "fghij"));	// NOI18N
+		assertEquals (5, instance.getSize ());
+	}
+
+	/**
+	 * Test of put method, of class ObjectCache.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPutUnknownLength () throws Exception
+	{
+		System.out.println ("putUnknownLength");
+		ObjectCache instance = new ObjectCache (cacheDir, 1000);
+		PhoneElement el = new PhoneElement ("5303650005022001FFFF", GIF, "Zzz");	// NOI18N
+		instance.put (IMEI, el, getFile ("src", "abcde"));	// NOI18N
+		assertEquals (0, instance.getSize ());
+		assertFalse (instance.get (IMEI, el, new File (dir, "dest")));	// NOI18N
+	}
+
+	/**
+	 * Test of put method, of class ObjectCache.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPutSameContents () throws Exception
+	{
+		System.out.println ("putSameContents");
+		ObjectCache instance = new ObjectCache (cacheDir, 1000);
+		PhoneElement el1 = new PhoneElement ("5303650005022001FFFF", GIF, "A", 5);	// NOI18N
+		PhoneElement el2 = new PhoneElement ("5303650005022002FFFF", GIF, "B", 5);	// NOI18N
+		File src = getFile ("src", "abcde");	// NOI18N
+		instance.put (IMEI, el1, src);
+		instance.put (IMEI, el2, src);
+		// stored once
+		assertEquals (5, instance.getSize ());
+		assertEquals (1, countContents (cacheDir));
+		// replacing one object keeps the content of the other
+		instance.put (IMEI, el1, getFile ("src2", "fghij"));	// NOI18N
+		assertEquals (10, instance.getSize ());
+		assertEquals (2, countContents (cacheDir));
+		File dest = new File (dir, "dest");	// NOI18N
+		assertTrue (instance.get (IMEI, el2, dest));
+		assertEquals ("abcde", read (dest));	// NOI18N
+		assertTrue (instance.get (IMEI, el1, dest));
+		assertEquals ("fghij", read (dest));	// NOI18N
+	}
+
+	/**
+	 * Test of put method, of class ObjectCache.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testEviction () throws Exception
+	{
+		System.out.println ("eviction");
+		ObjectCache instance = new ObjectCache (cacheDir, 10);
+		PhoneElement el1 = new PhoneElement ("5303650005022001FFFF", GIF, "A", 4);	// NOI18N
+		PhoneElement el2 = new PhoneElement ("5303650005022002FFFF", GIF, "B", 4);	// NOI18N
+		PhoneElement el3 = new PhoneElement ("5303650005022003FFFF", GIF, "C", 4);	// NOI18N
+		File dest = new File (dir, "dest");	// NOI18N
+		instance.put (IMEI, el1, getFile ("src1", "aaaa"));	// NOI18N
+		instance.put (IMEI, el2, getFile ("src2", "bbbb"));	// NOI18N
+		// el1 is now used more recently than el2
+		assertTrue (instance.get (IMEI, el1, dest));
+		instance.put (IMEI, el3, getFile ("src3", "cccc"));	// NOI18N
+		assertEquals (8, instance.getSize ());
+		assertEquals (2, countContents (cacheDir));
+		assertTrue (instance.get (IMEI, el1, dest));
+		assertFalse (instance.get (IMEI, el2, dest));
+		assertTrue (instance.get (IMEI, el3, dest));
+		// too big to be stored at all
+		instance.put (IMEI, new PhoneElement ("5303650005022004FFFF", GIF, "D", 11),	// NOI18N
+			getFile ("src4", "ddddddddddd"));	// NOI18N
+		assertEquals (8, instance.getSize ());
+	}
+
+	/**
+	 * Test of flush method, of class ObjectCache.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testReload () throws Exception
+	{
+		System.out.println ("reload");
+		ObjectCache instance = new ObjectCache (cacheDir, 10);
+		PhoneElement el1 = new PhoneElement ("5303650005022001FFFF", GIF, "A", 4);	// NOI18N
+		PhoneElement el2 = new PhoneElement ("5303650005022002FFFF", GIF, "B", 4);	// NOI18N
+		File dest = new File (dir, "dest");	// NOI18N
+		instance.put (IMEI, el1, getFile ("src1", "aaaa"));	// NOI18N
+		instance.put (IMEI, el2, getFile ("src2", "bbbb"));	// NOI18N
+		assertTrue (instance.get (IMEI, el1, dest));
+		instance.flush ();
+
+		ObjectCache reloaded = new ObjectCache (cacheDir, 10);
+		assertEquals (8, reloaded.getSize ());
+		// the order of use is kept, so el2 goes first
+		reloaded.put (IMEI, new PhoneElement ("5303650005022003FFFF", GIF, "C", 4),	// NOI18N
+			getFile ("src3", "cccc"));	// NOI18N
+		assertTrue (reloaded.get (IMEI, el1, dest));
+		assertEquals ("aaaa", read (dest));	// NOI18N
+		assertFalse (reloaded.get (IMEI, el2, dest));
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * OperationExecutorTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * OperationExecutorTest - a test for the OperationExecutor class.
+ * @author Bogdan Drozdowski
+ */
+public class OperationExecutorTest
+{
+	private static TransferOperation<Object> getOperation (final Object result,
+		Runnable onDone, boolean waitFor,
+		final AtomicReference<Object> processed)
+	{
+		return new TransferOperation<Object> ("test", "",	// NOI18N
+			onDone, waitFor, true, true, null)
+		{
+			@Override
+			public Object perform () throws Exception
+			{
+				if ( result instanceof Exception )
+				{
+					throw (Exception) result;
+				}
+				return result;
+			}
+
+			@Override
+			public void processData (Object t)
+			{
+				processed.set (t);
+			}
+		};
+	}
+
+	/**
+	 * Test of run method, of class OperationExecutor.
+	 */
+	@Test
+	public void testRunWaitFor ()
+	{
+		System.out.println ("runWaitFor");
+		final AtomicBoolean done = new AtomicBoolean (false);
+		AtomicReference<Object> processed = new AtomicReference<Object> ();
+		Runnable onDone = new Runnable ()
+		{
+			@Override
+			public void run ()
+			{
+				done.set (true);
+			}
+		};
+		assertEquals (5, OperationExecutor.run (getOperation (
+			Integer.valueOf (5), onDone, true, processed)));
+		// completed before returning
+		assertTrue (done.get ());
+		assertNull (processed.get ());
+
+		done.set (false);
+		assertEquals (0, OperationExecutor.run (getOperation (
+			"data", onDone, true, processed)));	// NOI18N
+		assertTrue (done.get ());
+		assertEquals ("data", processed.get ());	// NOI18N
+
+		done.set (false);
+		assertEquals (-1, OperationExecutor.run (getOperation (
+			null, onDone, true, processed)));
+		assertTrue (done.get ());
+	}
+
+	/**
+	 * Test of run method, of class OperationExecutor.
+	 */
+	@Test
+	public void testRunException ()
+	{
+		System.out.println ("runException");
+		final AtomicBoolean done = new AtomicBoolean (false);
+		assertEquals (OperationExecutor.RESULT_EXCEPTION,
+			OperationExecutor.run (getOperation (
+				new Exception ("test"), new Runnable ()	// NOI18N
+			{
+				@Override
+				public void run ()
+				{
+					done.set (true);
+				}
+			}, true, new AtomicReference<Object> ())));
+		assertTrue (done.get ());
+	}
+
+	/**
+	 * Test of run method, of class OperationExecutor.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testRunNoWait () throws Exception
+	{
+		System.out.println ("runNoWait");
+		final CountDownLatch done = new CountDownLatch (1);
+		final AtomicReference<Object> processed = new AtomicReference<Object> ();
+		assertEquals (0, OperationExecutor.run (getOperation (
+			"data", new Runnable ()	// NOI18N
+		{
+			@Override
+			public void run ()
+			{
+				done.countDown ();
+			}
+		}, false, processed)));
+		assertTrue (done.await (30, TimeUnit.SECONDS));
+		assertEquals ("data", processed.get ());	// NOI18N
+	}
+
+	/**
+	 * Test of setExecutor and setCallbackExecutor methods, of class OperationExecutor.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testSetExecutor () throws Exception
+	{
+		System.out.println ("setExecutor");
+		final AtomicInteger callbacks = new AtomicInteger (0);
+		final CountDownLatch done = new CountDownLatch (1);
+		ExecutorService exec = Executors.newSingleThreadExecutor ();
+		OperationExecutor.setExecutor (exec);
+		OperationExecutor.setCallbackExecutor (new Executor ()
+		{
+			@Override
+			public void execute (Runnable r)
+			{
+				callbacks.incrementAndGet ();
+				r.run ();
+			}
+		});
+		try
+		{
+			assertSame (exec, OperationExecutor.getExecutor ());
+			assertEquals (0, OperationExecutor.run (getOperation (
+				Integer.valueOf (0), new Runnable ()
+			{
+				@Override
+				public void run ()
+				{
+					done.countDown ();
+				}
+			}, false, new AtomicReference<Object> ())));
+			assertTrue (done.await (30, TimeUnit.SECONDS));
+			assertEquals (1, callbacks.get ());
+			// the waiting caller completes the operation itself
+			assertEquals (3, OperationExecutor.run (getOperation (
+				Integer.valueOf (3), null, true,
+				new AtomicReference<Object> ())));
+			assertEquals (1, callbacks.get ());
+		}
+		finally
+		{
+			OperationExecutor.setExecutor (null);
+			OperationExecutor.setCallbackExecutor (null);
+			exec.shutdown ();
+		}
+		assertNotSame (exec, OperationExecutor.getExecutor ());
+	}
+}
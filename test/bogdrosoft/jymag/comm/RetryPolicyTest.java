@@ -0,0 +1,80 @@
+/*
+ * RetryPolicyTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * RetryPolicyTest - a test for the RetryPolicy class.
+ * @author Bogdan Drozdowski
+ */
+public class RetryPolicyTest
+{
+	/**
+	 * Test of getDelay method, of class RetryPolicy.
+	 */
+	@Test
+	public void testGetDelay ()
+	{
+		System.out.println ("getDelay");
+		RetryPolicy instance = new RetryPolicy (10, 100, 1000, 0);
+		assertEquals (0, instance.getDelay (0));
+		for ( int i = 0; i < 20; i++ )
+		{
+			long d = instance.getDelay (1);
+			assertTrue (d >= 50 && d <= 100);
+			d = instance.getDelay (3);
+			assertTrue (d >= 200 && d <= 400);
+			d = instance.getDelay (100);
+			assertTrue (d >= 500 && d <= 1000);
+		}
+		assertEquals (0, RetryPolicy.NO_RETRIES.getDelay (1));
+	}
+
+	/**
+	 * Test of canRetry method, of class RetryPolicy.
+	 */
+	@Test
+	public void testCanRetry ()
+	{
+		System.out.println ("canRetry");
+		long now = System.currentTimeMillis ();
+		RetryPolicy instance = new RetryPolicy (3, 10, 100, 0);
+		assertTrue (instance.canRetry (0, now));
+		assertTrue (instance.canRetry (2, now - 1000000));
+		assertFalse (instance.canRetry (3, now));
+		instance = new RetryPolicy (3, 10, 100, 1000);
+		assertTrue (instance.canRetry (1, now));
+		assertFalse (instance.canRetry (1, now - 2000));
+		assertFalse (RetryPolicy.NO_RETRIES.canRetry (1, now));
+	}
+
+	/**
+	 * Test of the constructor, of class RetryPolicy.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalid ()
+	{
+		System.out.println ("invalid");
+		new RetryPolicy (0, 10, 100, 0);
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * SessionPoolTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * SessionPoolTest - a test for the SessionPool class.
+ * @author Bogdan Drozdowski
+ */
+public class SessionPoolTest
+{
+	private static final FakeCommPortIdentifier PORT_ID
+		= new FakeCommPortIdentifier();
+	private static final Object SYNC = new Object();
+
+	@Before
+	public void setUp ()
+	{
+		SessionPool.setMaxIdleTime (SessionPool.DEFAULT_MAX_IDLE_TIME);
+		SessionPool.closeAll ();
+	}
+
+	@After
+	public void tearDown ()
+	{
+		SessionPool.setMaxIdleTime (SessionPool.DEFAULT_MAX_IDLE_TIME);
+		SessionPool.closeAll ();
+	}
+
+	/**
+	 * Test of acquire and release methods, of class SessionPool.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testAcquireReuse () throws Exception
+	{
+		System.out.println ("acquireReuse");
+		TransferParameters tp = getTransferParameters (115200);
+		DataTransporter dt1 = SessionPool.acquire (tp);
+		SessionPool.release (dt1, true);
+		assertEquals (1, SessionPool.getSessionCount ());
+		DataTransporter dt2 = SessionPool.acquire (tp);
+		assertSame (dt1, dt2);
+		SessionPool.release (dt2, true);
+		assertEquals (1, SessionPool.getSessionCount ());
+		SessionPool.closeAll ();
+		assertEquals (0, SessionPool.getSessionCount ());
+	}
+
+	/**
+	 * Test of acquire method, of class SessionPool.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testAcquireInUse () throws Exception
+	{
+		System.out.println ("acquireInUse");
+		TransferParameters tp = getTransferParameters (115200);
+		DataTransporter dt1 = SessionPool.acquire (tp);
+		DataTransporter dt2 = SessionPool.acquire (tp);
+		assertNotSame (dt1, dt2);
+		SessionPool.release (dt2, true);
+		SessionPool.release (dt1, true);
+		assertEquals (1, SessionPool.getSessionCount ());
+		assertSame (dt1, SessionPool.acquire (tp));
+		SessionPool.release (dt1, true);
+	}
+
+	/**
+	 * Test of acquire method, of class SessionPool.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testAcquireOtherParameters () throws Exception
+	{
+		System.out.println ("acquireOtherParameters");
+		DataTransporter dt1 = SessionPool.acquire (getTransferParameters (115200));
+		SessionPool.release (dt1, true);
+		DataTransporter dt2 = SessionPool.acquire (getTransferParameters (9600));
+		assertNotSame (dt1, dt2);
+		SessionPool.release (dt2, true);
+		assertEquals (1, SessionPool.getSessionCount ());
+	}
+
+	/**
+	 * Test of release method, of class SessionPool.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testReleaseFailed () throws Exception
+	{
+		System.out.println ("releaseFailed");
+		DataTransporter dt = SessionPool.acquire (getTransferParameters (115200));
+		SessionPool.release (dt, false);
+		assertEquals (0, SessionPool.getSessionCount ());
+	}
+
+	/**
+	 * Test of evictIdle method, of class SessionPool.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testEvictIdle () throws Exception
+	{
+		System.out.println ("evictIdle");
+		DataTransporter dt = SessionPool.acquire (getTransferParameters (115200));
+		assertEquals (0, SessionPool.evictIdle ());
+		SessionPool.release (dt, true);
+		SessionPool.setMaxIdleTime (1);
+		Thread.sleep (10);
+		assertEquals (1, SessionPool.evictIdle ());
+		assertEquals (0, SessionPool.getSessionCount ());
+	}
+
+	/**
+	 * Test of setMaxIdleTime method, of class SessionPool.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testNoPooling () throws Exception
+	{
+		System.out.println ("noPooling");
+		SessionPool.setMaxIdleTime (0);
+		assertEquals (0, SessionPool.getMaxIdleTime ());
+		DataTransporter dt = SessionPool.acquire (getTransferParameters (115200));
+		SessionPool.release (dt, true);
+		assertEquals (0, SessionPool.getSessionCount ());
+	}
+
+	/**
+	 * Test of closeIdle method, of class SessionPool.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testDirectOpen () throws Exception
+	{
+		System.out.println ("directOpen");
+		DataTransporter dt = SessionPool.acquire (getTransferParameters (115200));
+		SessionPool.release (dt, true);
+		DataTransporter other = new DataTransporter (PORT_ID);
+		other.open (115200, 8, 1, 0, 0);
+		assertEquals (0, SessionPool.getSessionCount ());
+		other.close ();
+	}
+
+	private TransferParameters getTransferParameters (int speed)
+	{
+		return new TransferParameters (PORT_ID, speed, 8, 1, 0, 0, SYNC);
+	}
+}
@@ -21,11 +21,6 @@ package bogdrosoft.jymag.comm;
 
 import bogdrosoft.jymag.CommandLineParser;
 import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
-import java.util.Vector;
-import javax.swing.ComboBoxModel;
-import javax.swing.DefaultComboBoxModel;
-import javax.swing.JCheckBox;
-import javax.swing.JComboBox;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.junit.BeforeClass;
@@ -81,61 +76,6 @@ public class TransferParametersTest
 		verifyParameters(tp);
 	}
 
-	@Test
-	public void testConstructorWithGuiParameters()
-	{
-		JComboBox<String> portCombo = new JComboBox<String>();
-		Vector<String> portList = new Vector<String>(1);
-		portList.add(PORT_ID.getName());
-		ComboBoxModel<String> portModel
-			= new DefaultComboBoxModel<String>(portList);
-		portModel.setSelectedItem(PORT_ID.getName());
-		portCombo.setModel(portModel);
-
-		JComboBox<String> speedCombo = new JComboBox<String>();
-		Vector<String> speedList = new Vector<String>(1);
-		speedList.add(String.valueOf(SPEED));
-		ComboBoxModel<String> speedModel
-			= new DefaultComboBoxModel<String>(speedList);
-		portModel.setSelectedItem(String.valueOf(SPEED));
-		speedCombo.setModel(speedModel);
-
-		JComboBox<String> dataBitsCombo = new JComboBox<String>();
-		Vector<String> dataBitsList = new Vector<String>(1);
-		speedList.add(String.valueOf(DATA_BITS));
-		ComboBoxModel<String> dataBitsModel
-			= new DefaultComboBoxModel<String>(dataBitsList);
-		dataBitsModel.setSelectedItem(String.valueOf(DATA_BITS));
-		dataBitsCombo.setModel(dataBitsModel);
-
-		JComboBox<String> stopBitsCombo = new JComboBox<String>();
-		Vector<String> stopBitsList = new Vector<String>(1);
-		stopBitsList.add(String.valueOf(STOP_BITS));
-		ComboBoxModel<String> stopBitsModel
-			= new DefaultComboBoxModel<String>(stopBitsList);
-		stopBitsModel.setSelectedItem(String.valueOf(STOP_BITS));
-		stopBitsCombo.setModel(stopBitsModel);
-
-		JComboBox<String> parityCombo = new JComboBox<String>();
-		Vector<String> parityList = new Vector<String>(1);
-		parityList.add(String.valueOf(PARITY));
-		ComboBoxModel<String> parityModel
-			= new DefaultComboBoxModel<String>(parityList);
-		parityModel.setSelectedItem(String.valueOf(PARITY));
-		parityCombo.setModel(parityModel);
-
-		JCheckBox flowSoft = new JCheckBox();
-		flowSoft.setSelected(false);
-
-		JCheckBox flowHard = new JCheckBox();
-		flowHard.setSelected(true);
-
-		TransferParameters tp = new TransferParameters(
-			portCombo, speedCombo, dataBitsCombo,
-			stopBitsCombo, parityCombo, flowSoft, flowHard, SYNC);
-		verifyParameters(tp);
-	}
-
 	private void verifyParameters(TransferParameters tp)
 	{
 		assertTrue(tp.getId() instanceof FakeCommPortIdentifier);
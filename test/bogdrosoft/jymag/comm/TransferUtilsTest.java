@@ -24,15 +24,19 @@ import bogdrosoft.jymag.PhoneAlarm;
 import bogdrosoft.jymag.PhoneElement;
 import bogdrosoft.jymag.PhoneMessage;
 import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
+import bogdrosoft.jymag.comm.fake.FakeSerialPort;
 import java.awt.Component;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Vector;
-import javax.swing.JTable;
-import javax.swing.table.DefaultTableModel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -74,12 +78,24 @@ public class TransferUtilsTest
 
 	/**
 	 * Test of uploadFile method, of class TransferUtils.
+	 *
+	 * @throws Exception
 	 */
 	@Test
-	public void testUploadFile()
+	public void testUploadFile() throws Exception
 	{
 		System.out.println("uploadFile");
 		File f = new File(FILENAME);
+		// the phone doesn't reply to empty data
+		FileOutputStream fos = new FileOutputStream(f);
+		try
+		{
+			fos.write("GIF89a".getBytes());
+		}
+		finally
+		{
+			fos.close();
+		}
 		TransferParameters tp = getTransferParameters();
 		Runnable onDone = null;
 		Component parent = null;
@@ -459,6 +475,23 @@ public class TransferUtilsTest
 		assertTrue(result < 0);
 	}
 
+	/**
+	 * Test of syncDirectory method, of class TransferUtils.
+	 */
+	@Test
+	public void testSyncDirectoryInvalidParameters()
+	{
+		System.out.println("testSyncDirectoryInvalidParameters");
+		TransferParameters tp = getTransferParameters();
+		File dir = new File(".");
+		assertTrue(TransferUtils.syncDirectory("INVALID", tp, null,
+			null, true, true, true, dir) < 0);
+		assertTrue(TransferUtils.syncDirectory("PICTURES", null, null,
+			null, true, true, true, dir) < 0);
+		assertTrue(TransferUtils.syncDirectory("PICTURES", tp, null,
+			null, true, true, true, null) < 0);
+	}
+
 	/**
 	 * Test of downloadList method, of class TransferUtils.
 	 */
@@ -473,12 +506,25 @@ public class TransferUtilsTest
 		boolean quiet = true;
 		boolean quietGUI = true;
 		boolean waitFor = true;
-		DefaultTableModel dtm = null;
-		Vector<PhoneElement> placeForData = new Vector<PhoneElement>(1);
+		final Vector<PhoneElement> placeForData = new Vector<PhoneElement>(2);
+		placeForData.add(PICTURE_ELEMENT);
+		placeForData.add(PICTURE_ELEMENT);
+		final AtomicInteger previous = new AtomicInteger(0);
+		Consumer<Vector<PhoneElement>> onList = new Consumer<Vector<PhoneElement>>()
+		{
+			@Override
+			public void accept(Vector<PhoneElement> elems)
+			{
+				// the previous elements are still there
+				previous.set(placeForData.size());
+			}
+		};
 		int expResult = 0;
 		int result = TransferUtils.downloadList(ofWhat, tp, onDone,
-			parent, quiet, quietGUI, waitFor, dtm, placeForData);
+			parent, quiet, quietGUI, waitFor, placeForData, onList);
 		assertEquals(expResult, result);
+		assertEquals(2, previous.get());
+		assertEquals(1, placeForData.size());
 	}
 
 	/**
@@ -491,7 +537,7 @@ public class TransferUtilsTest
 		String type = "INVALID";
 		TransferParameters tp = getTransferParameters();
 		int result = TransferUtils.downloadList(type, tp, null,
-			null, true, true, true, null, null);
+			null, true, true, true, null);
 		assertTrue(result < 0);
 	}
 
@@ -504,7 +550,7 @@ public class TransferUtilsTest
 		System.out.println("testDownloadListNoParameters");
 		String type = "PICTURES";
 		int result = TransferUtils.downloadList(type, null, null,
-			null, true, true, true, null, null);
+			null, true, true, true, null);
 		assertTrue(result < 0);
 	}
 
@@ -521,11 +567,10 @@ public class TransferUtilsTest
 		boolean quiet = true;
 		boolean quietGUI = true;
 		boolean waitFor = true;
-		JTable alarms = null;
 		Vector<PhoneAlarm> placeForData = new Vector<PhoneAlarm>(1);
 		int expResult = 0;
 		int result = TransferUtils.downloadAlarmList(tp, onDone, parent,
-			quiet, quietGUI, waitFor, alarms, placeForData);
+			quiet, quietGUI, waitFor, placeForData);
 		assertEquals(expResult, result);
 	}
 
@@ -541,10 +586,9 @@ public class TransferUtilsTest
 		boolean quiet = true;
 		boolean quietGUI = true;
 		boolean waitFor = true;
-		JTable alarms = null;
 		Vector<PhoneAlarm> placeForData = new Vector<PhoneAlarm>(1);
 		int result = TransferUtils.downloadAlarmList(null, onDone, parent,
-			quiet, quietGUI, waitFor, alarms, placeForData);
+			quiet, quietGUI, waitFor, placeForData);
 		assertTrue(result < 0);
 	}
 
@@ -561,11 +605,10 @@ public class TransferUtilsTest
 		boolean quiet = true;
 		boolean quietGUI = true;
 		boolean waitFor = true;
-		JTable messages = null;
 		Vector<PhoneMessage> placeForData = new Vector<PhoneMessage>(1);
 		int expResult = 0;
 		int result = TransferUtils.downloadMessageList(tp, onDone,
-			parent, quiet, quietGUI, waitFor, messages, placeForData);
+			parent, quiet, quietGUI, waitFor, placeForData);
 		assertEquals(expResult, result);
 	}
 
@@ -581,10 +624,9 @@ public class TransferUtilsTest
 		boolean quiet = true;
 		boolean quietGUI = true;
 		boolean waitFor = true;
-		JTable messages = null;
 		Vector<PhoneMessage> placeForData = new Vector<PhoneMessage>(1);
 		int result = TransferUtils.downloadMessageList(null, onDone,
-			parent, quiet, quietGUI, waitFor, messages, placeForData);
+			parent, quiet, quietGUI, waitFor, placeForData);
 		assertTrue(result < 0);
 	}
 
@@ -720,7 +762,8 @@ public class TransferUtilsTest
 		boolean quiet = true;
 		boolean quietGUI = true;
 		boolean waitFor = true;
-		int expResult = 0;
+		// the fake phone always replies NO CARRIER
+		int expResult = -3;
 		int result = TransferUtils.dialNumber(number, isVoice, dialMode,
 			tp, onDone, parent, quiet, quietGUI, waitFor);
 		assertEquals(expResult, result);
@@ -1036,6 +1079,161 @@ public class TransferUtilsTest
 		assertEquals(expResult, result);
 	}
 
+	/**
+	 * Test of scanPorts method, of class TransferUtils.
+	 */
+	@Test
+	public void testScanPortsParallel()
+	{
+		System.out.println("scanPortsParallel");
+		FakeCommPortIdentifier[] extra =
+		{
+			new FakeCommPortIdentifier("COMfake2", new FakeSerialPort()),
+			new FakeCommPortIdentifier("COMsilent1", new SilentPort()),
+			new FakeCommPortIdentifier("COMsilent2", new SilentPort()),
+			new FakeCommPortIdentifier("COMsilent3", new SilentPort())
+		};
+		Map<String, String> firmwares = new HashMap<String, String>();
+		Map<String, String> phoneTypes = new HashMap<String, String>();
+		Map<String, String> phoneIMEIs = new HashMap<String, String>();
+		Map<String, String> phoneSubsNums = new HashMap<String, String>();
+		Vector<String> replied = new Vector<String>(2);
+		final AtomicInteger scanned = new AtomicInteger(0);
+		Runnable afterPort = new Runnable(){
+			@Override
+			public void run() { scanned.incrementAndGet(); }
+		};
+		long probeTime = 1000;
+		TransferUtils.setScanProbeTimeout(probeTime);
+		for (FakeCommPortIdentifier id : extra)
+		{
+			FakeCommPortIdentifier.addPort(id);
+		}
+		long time = 0;
+		int result = -1;
+		try
+		{
+			long start = System.currentTimeMillis();
+			result = TransferUtils.scanPorts(true, getTransferParameters(),
+				firmwares, phoneTypes, phoneIMEIs, phoneSubsNums,
+				replied, afterPort);
+			time = System.currentTimeMillis() - start;
+		}
+		finally
+		{
+			for (FakeCommPortIdentifier id : extra)
+			{
+				FakeCommPortIdentifier.removePort(id);
+			}
+			TransferUtils.setScanProbeTimeout(0);
+		}
+		assertEquals(0, result);
+		// the silent ports are cut off at the probe deadline, at the
+		// same time. One after another, they would take probeTime each.
+		assertTrue("time=" + time, time >= probeTime);
+		assertTrue("time=" + time, time < 2 * probeTime);
+		assertEquals(5, scanned.get());
+		assertEquals(2, replied.size());
+		assertTrue(replied.contains(PORT_ID.getName()));
+		assertTrue(replied.contains("COMfake2"));
+		assertEquals(2, firmwares.size());
+		assertEquals(2, phoneTypes.size());
+		assertEquals(2, phoneIMEIs.size());
+		assertEquals(2, phoneSubsNums.size());
+		assertTrue(firmwares.containsKey("COMfake2"));
+		assertFalse(firmwares.containsKey("COMsilent1"));
+		assertNotNull(phoneIMEIs.get("COMfake2"));
+	}
+
+	/**
+	 * A port with nothing connected: everything sent is lost.
+	 */
+	private static class SilentPort extends FakeSerialPort
+	{
+		@Override
+		public OutputStream getOutputStream()
+		{
+			return new OutputStream()
+			{
+				@Override
+				public void write(int b) { /* lost */ }
+			};
+		}
+	}
+
+	/**
+	 * Test of getPortNames method, of class TransferUtils.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetPortNames() throws Exception
+	{
+		System.out.println("getPortNames");
+		assertTrue(TransferUtils.getPortNames(null).isEmpty());
+		Vector<String> result = TransferUtils.getPortNames("COM1, COM2,COM1,");
+		assertEquals(2, result.size());
+		assertEquals("COM1", result.get(0));
+		assertEquals("COM2", result.get(1));
+		// matched against the (fake) serial ports
+		result = TransferUtils.getPortNames("COMf?ke*");
+		assertEquals(1, result.size());
+		assertEquals("COMfaked", result.get(0));
+		assertTrue(TransferUtils.getPortNames("XYZ*").isEmpty());
+		// matched against the files
+		File dir = Files.createTempDirectory("jymagports").toFile();
+		File usb0 = new File(dir, "ttyUSB0");
+		File usb1 = new File(dir, "ttyUSB1");
+		File other = new File(dir, "ttyS0");
+		try
+		{
+			usb1.createNewFile();
+			usb0.createNewFile();
+			other.createNewFile();
+			result = TransferUtils.getPortNames(
+				dir.getPath() + File.separator + "ttyUSB*,COMfaked");
+			assertEquals(3, result.size());
+			assertEquals(usb0.getPath(), result.get(0));
+			assertEquals(usb1.getPath(), result.get(1));
+			assertEquals("COMfaked", result.get(2));
+		}
+		finally
+		{
+			usb0.delete();
+			usb1.delete();
+			other.delete();
+			dir.delete();
+		}
+	}
+
+	/**
+	 * Test of isPortList method, of class TransferUtils.
+	 */
+	@Test
+	public void testIsPortList()
+	{
+		System.out.println("isPortList");
+		assertFalse(TransferUtils.isPortList(null));
+		assertFalse(TransferUtils.isPortList("/dev/ttyUSB0"));
+		assertTrue(TransferUtils.isPortList("/dev/ttyUSB0,/dev/ttyUSB1"));
+		assertTrue(TransferUtils.isPortList("/dev/ttyUSB*"));
+		assertTrue(TransferUtils.isPortList("COM?"));
+	}
+
+	/**
+	 * Test of setScanProbeTimeout method, of class TransferUtils.
+	 */
+	@Test
+	public void testSetScanProbeTimeout()
+	{
+		System.out.println("setScanProbeTimeout");
+		TransferUtils.setScanProbeTimeout(500);
+		assertEquals(500, TransferUtils.getScanProbeTimeout());
+		TransferUtils.setScanProbeTimeout(0);
+		assertEquals(TransferUtils.DEFAULT_SCAN_PROBE_TIMEOUT,
+			TransferUtils.getScanProbeTimeout());
+	}
+
 	/**
 	 * Test of getSerialPortNames method, of class TransferUtils.
 	 */
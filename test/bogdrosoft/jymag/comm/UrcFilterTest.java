@@ -0,0 +1,152 @@
+/*
+ * UrcFilterTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.comm;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * UrcFilterTest - a test for the UrcFilter class.
+ * @author Bogdan Drozdowski
+ */
+public class UrcFilterTest
+{
+	private static final String RECEIVED = "\r\n+CMTI: \"SM\",3\r\n";	// NOI18N
+
+	private final BlockingQueue<String> codes = new LinkedBlockingQueue<String> ();
+
+	private UrcDispatcher getDispatcher ()
+	{
+		UrcDispatcher d = new UrcDispatcher ("COMtest");	// NOI18N
+		d.addListener (new UrcDispatcher.Listener ()
+		{
+			@Override
+			public void urcReceived (String portName, String code, String data)
+			{
+				codes.add (code + "|" + data);	// NOI18N
+			}
+		});
+		return d;
+	}
+
+	private static String readAll (ByteRingBuffer b)
+	{
+		return new String (b.read (b.available ()));
+	}
+
+	/**
+	 * Test of write method, of class UrcFilter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testWriteReply () throws Exception
+	{
+		System.out.println ("writeReply");
+		UrcFilter instance = new UrcFilter (getDispatcher ());
+		ByteRingBuffer out = new ByteRingBuffer (64);
+		byte[] data = ("AT+CSQ\r\r\n+CSQ: 15,99\r\nRING\r\n"	// NOI18N
+			+ "+CMGL: 1\r\nOK\r\n").getBytes ();	// NOI18N
+		instance.write (data, 0, data.length, out, true);
+		// +CSQ is a reply here
+		assertEquals ("AT+CSQ\r\r\n+CSQ: 15,99\r\n+CMGL: 1\r\nOK\r\n",	// NOI18N
+			readAll (out));
+		assertEquals ("RING|", codes.poll (5, TimeUnit.SECONDS));	// NOI18N
+		assertNull (codes.poll ());
+	}
+
+	/**
+	 * Test of write method, of class UrcFilter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testWriteSplit () throws Exception
+	{
+		System.out.println ("writeSplit");
+		UrcFilter instance = new UrcFilter (getDispatcher ());
+		ByteRingBuffer out = new ByteRingBuffer (64);
+		byte[] data = RECEIVED.getBytes ();
+		// one byte at a time
+		for ( int i = 0; i < data.length; i++ )
+		{
+			instance.write (data, i, 1, out, false);
+		}
+		assertEquals ("\r\n", readAll (out));	// NOI18N
+		assertEquals ("+CMTI|\"SM\",3", codes.poll (5, TimeUnit.SECONDS));	// NOI18N
+		data = "\r\n+CSQ: 20,99\r\n".getBytes ();	// NOI18N
+		instance.write (data, 0, data.length, out, false);
+		assertEquals ("+CSQ|20,99", codes.poll (5, TimeUnit.SECONDS));	// NOI18N
+	}
+
+	/**
+	 * Test of write method, of class UrcFilter.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testWriteTwoLines () throws Exception
+	{
+		System.out.println ("writeTwoLines");
+		UrcFilter instance = new UrcFilter (getDispatcher ());
+		ByteRingBuffer out = new ByteRingBuffer (64);
+		byte[] data = "+CMT: \"+48123\",,\"26/10/18\"\r\nHello\r\nOK\r\n".getBytes ();	// NOI18N
+		instance.write (data, 0, data.length, out, false);
+		assertEquals ("OK\r\n", readAll (out));	// NOI18N
+		assertEquals ("+CMT|\"+48123\",,\"26/10/18\"\r\nHello",	// NOI18N
+			codes.poll (5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Test of setEnabled method, of class UrcFilter.
+	 */
+	@Test
+	public void testSetEnabled ()
+	{
+		System.out.println ("setEnabled");
+		UrcFilter instance = new UrcFilter (getDispatcher ());
+		ByteRingBuffer out = new ByteRingBuffer (64);
+		byte[] data = RECEIVED.getBytes ();
+		// the held back part must come out before the new data
+		instance.write (data, 0, 6, out, false);
+		instance.setEnabled (false);
+		instance.write (data, 6, data.length - 6, out, false);
+		assertEquals (RECEIVED, readAll (out));
+		assertNull (codes.poll ());
+	}
+
+	/**
+	 * Test of write method, of class UrcFilter.
+	 */
+	@Test
+	public void testWriteNoListeners ()
+	{
+		System.out.println ("writeNoListeners");
+		UrcFilter instance = new UrcFilter (new UrcDispatcher ("COMtest"));	// NOI18N
+		ByteRingBuffer out = new ByteRingBuffer (64);
+		byte[] data = RECEIVED.getBytes ();
+		instance.write (data, 0, data.length, out, false);
+		assertEquals (RECEIVED, readAll (out));
+	}
+}
@@ -19,7 +19,11 @@
  */
 package bogdrosoft.jymag.gui;
 
+import java.awt.Component;
+import java.awt.Container;
 import java.awt.GraphicsEnvironment;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import static org.junit.Assume.assumeFalse;
@@ -30,6 +34,32 @@ import static org.junit.Assume.assumeFalse;
  */
 public class MainWindowTest
 {
+	private static JTabbedPane findTabs(Component c)
+	{
+		if (c instanceof JTabbedPane)
+		{
+			return (JTabbedPane) c;
+		}
+		if (c instanceof Container)
+		{
+			for (Component sub : ((Container) c).getComponents())
+			{
+				JTabbedPane t = findTabs(sub);
+				if (t != null)
+				{
+					return t;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static boolean isTabCreated(JTabbedPane tabs, int index)
+	{
+		return ((JScrollPane) tabs.getComponentAt(index))
+			.getViewport().getView() != null;
+	}
+
 	/**
 	 * Test of constructing the MainWindow class.
 	 */
@@ -200,4 +230,22 @@ public class MainWindowTest
 		mw.setPorts();
 		assertNotNull(mw.getTransferParameters());
 	}
+
+	/**
+	 * Test of creating the tabs' panels when first shown, of class MainWindow.
+	 */
+	@Test
+	public void testLazyTabs()
+	{
+		assumeFalse(GraphicsEnvironment.isHeadless());
+		MainWindow mw = new MainWindow();
+		JTabbedPane tabs = findTabs(mw);
+		assertNotNull(tabs);
+		int selected = tabs.getSelectedIndex();
+		int other = (selected == 0) ? 1 : 0;
+		assertTrue(isTabCreated(tabs, selected));
+		assertFalse(isTabCreated(tabs, other));
+		tabs.setSelectedIndex(other);
+		assertTrue(isTabCreated(tabs, other));
+	}
 }
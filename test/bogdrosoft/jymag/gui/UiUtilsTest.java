@@ -19,15 +19,26 @@
  */
 package bogdrosoft.jymag.gui;
 
+import bogdrosoft.jymag.CommandLineParser;
+import bogdrosoft.jymag.PhoneElement;
+import bogdrosoft.jymag.comm.TransferParameters;
+import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
 import java.awt.Component;
 import java.awt.Window;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Vector;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JSpinner;
 import javax.swing.filechooser.FileFilter;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import javax.swing.table.DefaultTableModel;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -192,4 +203,108 @@ public class UiUtilsTest
 			}
 		}
 	}
+
+	/**
+	 * Test of updateListTable method, of class UiUtils.
+	 */
+	@Test
+	public void testUpdateListTable ()
+	{
+		System.out.println ("updateListTable");
+		DefaultTableModel dtm = new DefaultTableModel (0, 1);
+		List<PhoneElement> oldElems = new ArrayList<PhoneElement> (4);
+		oldElems.add (new PhoneElement ("1", "jpg", "a"));
+		oldElems.add (new PhoneElement ("2", "jpg", "b"));
+		oldElems.add (new PhoneElement ("3", "jpg", "c"));
+		oldElems.add (new PhoneElement ("4", "jpg", "d"));
+		UiUtils.updateListTable (dtm, null, oldElems);
+		assertEquals (4, dtm.getRowCount ());
+		assertEquals ("c.jpg", dtm.getValueAt (2, 0));
+
+		final List<Integer> events = new ArrayList<Integer> ();
+		dtm.addTableModelListener (new TableModelListener ()
+		{
+			@Override
+			public void tableChanged (TableModelEvent e)
+			{
+				events.add (e.getType ());
+			}
+		});
+		List<PhoneElement> newElems = new ArrayList<PhoneElement> (4);
+		newElems.add (new PhoneElement ("1", "jpg", "a"));
+		newElems.add (new PhoneElement ("5", "gif", "e"));
+		newElems.add (new PhoneElement ("3", "png", "c"));
+		newElems.add (new PhoneElement ("4", "jpg", "d"));
+		UiUtils.updateListTable (dtm, oldElems, newElems);
+		assertEquals (4, dtm.getRowCount ());
+		assertEquals ("a.jpg", dtm.getValueAt (0, 0));
+		assertEquals ("e.gif", dtm.getValueAt (1, 0));
+		assertEquals ("c.png", dtm.getValueAt (2, 0));
+		assertEquals ("d.jpg", dtm.getValueAt (3, 0));
+		// one delete, one insert and one update, no full refresh
+		assertEquals (3, events.size ());
+		assertTrue (events.contains (TableModelEvent.DELETE));
+		assertTrue (events.contains (TableModelEvent.INSERT));
+		assertTrue (events.contains (TableModelEvent.UPDATE));
+
+		events.clear ();
+		UiUtils.updateListTable (dtm, newElems, newElems);
+		assertTrue (events.isEmpty ());
+
+		// moved elements
+		List<PhoneElement> moved = new ArrayList<PhoneElement> (newElems);
+		moved.add (0, moved.remove (3));
+		UiUtils.updateListTable (dtm, newElems, moved);
+		assertEquals (4, dtm.getRowCount ());
+		assertEquals ("d.jpg", dtm.getValueAt (0, 0));
+		assertEquals ("a.jpg", dtm.getValueAt (1, 0));
+		assertEquals ("c.png", dtm.getValueAt (3, 0));
+
+		UiUtils.updateListTable (dtm, moved, null);
+		assertEquals (0, dtm.getRowCount ());
+	}
+
+	private static JComboBox<String> getCombo (String value)
+	{
+		Vector<String> list = new Vector<String> (1);
+		list.add (value);
+		JComboBox<String> combo = new JComboBox<String> (list);
+		combo.setSelectedItem (value);
+		return combo;
+	}
+
+	/**
+	 * Test of createTransferParameters method, of class UiUtils.
+	 */
+	@Test
+	public void testCreateTransferParameters ()
+	{
+		System.out.println ("createTransferParameters");
+		CommandLineParser.mock = true;
+		System.setProperty ("mock", "138b7ce0632d70dd9d6fc7b571fd9199");
+		Object sync = new Object ();
+		FakeCommPortIdentifier portId = new FakeCommPortIdentifier ();
+		JCheckBox flowSoft = new JCheckBox ();
+		flowSoft.setSelected (false);
+		JCheckBox flowHard = new JCheckBox ();
+		flowHard.setSelected (true);
+		TransferParameters tp = UiUtils.createTransferParameters (
+			getCombo (portId.getName ()), getCombo ("115200"),
+			getCombo ("8"), getCombo ("1"), getCombo ("0"),
+			flowSoft, flowHard, sync);
+		assertTrue (tp.getId () instanceof FakeCommPortIdentifier);
+		assertEquals (115200, tp.getSpeed ());
+		assertEquals (8, tp.getDataBits ());
+		assertTrue (Math.abs (1 - tp.getStopBits ()) < 0.1);
+		assertEquals (0, tp.getParity ());
+		assertEquals (2, tp.getFlow ());
+		assertEquals (sync, tp.getSync ());
+
+		// no ports detected
+		tp = UiUtils.createTransferParameters (
+			new JComboBox<String> (), getCombo ("115200"),
+			getCombo ("8"), getCombo ("1"), getCombo ("0"),
+			flowSoft, flowHard, sync);
+		assertNull (tp.getId ());
+	}
 }
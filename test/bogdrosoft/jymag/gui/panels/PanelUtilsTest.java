@@ -21,10 +21,12 @@ package bogdrosoft.jymag.gui.panels;
 
 import bogdrosoft.jymag.PhoneElement;
 import bogdrosoft.jymag.Utils;
+import bogdrosoft.jymag.comm.CatalogCache;
 import bogdrosoft.jymag.comm.TransferParameters;
 import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
 import bogdrosoft.jymag.gui.MainWindow;
 import java.io.File;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
@@ -64,6 +66,105 @@ public class PanelUtilsTest
 		assertEquals(count, placeForData.size());
 	}
 
+	/**
+	 * Test of putListInTable method, of class PanelUtils.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPutListInTableLastPhone() throws Exception
+	{
+		System.out.println("putListInTableLastPhone");
+		File dir = Files.createTempDirectory("jymag").toFile();
+		try
+		{
+			CatalogCache cache = new CatalogCache(dir);
+			cache.put("1234", null, "PICTURES", new Vector<PhoneElement>(1));
+			MainWindow mw = createMainWindow();
+			when(mw.getCatalogCache()).thenReturn(cache);
+			// the port wasn't scanned, another phone may be there now
+			when(mw.getLastPhoneIMEI()).thenReturn("1234");
+			DefaultTableModel dtm = new DefaultTableModel(1, 1);
+			Vector<PhoneElement> placeForData = new Vector<PhoneElement>(1);
+			PanelUtils.putListInTable(mw, "PICTURES", dtm, placeForData);
+			Utils.sleepIgnoreException(5000);
+			assertEquals(1, placeForData.size());
+			// the old phone's list is kept
+			assertTrue(cache.get("1234", "PICTURES").getElements().isEmpty());
+		}
+		finally
+		{
+			File[] files = dir.listFiles();
+			if (files != null)
+			{
+				for (File f : files)
+				{
+					f.delete();
+				}
+			}
+			dir.delete();
+		}
+	}
+
+	/**
+	 * Test of revalidateList method, of class PanelUtils.
+	 */
+	@Test
+	public void testRevalidateList()
+	{
+		System.out.println("revalidateList");
+		MainWindow mw = createMainWindow();
+		DefaultTableModel dtm = new DefaultTableModel(1, 1);
+		Vector<PhoneElement> placeForData = new Vector<PhoneElement>(1);
+		// nothing cached, so the phone is asked
+		assertTrue(PanelUtils.revalidateList(mw, "RINGTONES", dtm, placeForData));
+		Utils.sleepIgnoreException(5000);
+		assertEquals(1, placeForData.size());
+		// no messages or status changes in the background
+		verify(mw, never()).setReceivingStatus();
+	}
+
+	/**
+	 * Test of revalidateList method, of class PanelUtils.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testRevalidateListFresh() throws Exception
+	{
+		System.out.println("revalidateListFresh");
+		File dir = Files.createTempDirectory("jymag").toFile();
+		try
+		{
+			CatalogCache cache = new CatalogCache(dir);
+			cache.put("1234", null, "PICTURES", new Vector<PhoneElement>(1));
+			MainWindow mw = createMainWindow();
+			when(mw.getCatalogCache()).thenReturn(cache);
+			when(mw.getLastPhoneIMEI()).thenReturn("1234");
+			DefaultTableModel dtm = new DefaultTableModel(1, 1);
+			Vector<PhoneElement> placeForData = new Vector<PhoneElement>(1);
+			placeForData.add(new PhoneElement("1", FILE_FORMAT, FILENAME));
+			// the cached list has just been received
+			assertFalse(PanelUtils.revalidateList(mw, "PICTURES", dtm, placeForData));
+			assertTrue(placeForData.isEmpty());
+			// the list without a port isn't downloaded
+			when(mw.getTransferParameters()).thenReturn(null);
+			assertFalse(PanelUtils.revalidateList(mw, "VTODO", dtm, placeForData));
+		}
+		finally
+		{
+			File[] files = dir.listFiles();
+			if (files != null)
+			{
+				for (File f : files)
+				{
+					f.delete();
+				}
+			}
+			dir.delete();
+		}
+	}
+
 	/**
 	 * Test of download method, of class PanelUtils.
 	 */
@@ -0,0 +1,114 @@
+/*
+ * SMSPanelTest.java, part of the JYMAG package.
+ *
+ * Copyright (C) 2026 Bogdan Drozdowski, bogdro (at) users . sourceforge . net
+ * License: GNU General Public License, v3+
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bogdrosoft.jymag.gui.panels;
+
+import bogdrosoft.jymag.Utils;
+import bogdrosoft.jymag.comm.MessageWatcher;
+import bogdrosoft.jymag.comm.SessionPool;
+import bogdrosoft.jymag.comm.TransferParameters;
+import bogdrosoft.jymag.comm.fake.FakeCommPortIdentifier;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * SMSPanelTest - a test for the SMSPanel class.
+ * @author Bogdan Drozdowski
+ */
+public class SMSPanelTest
+{
+	private static final FakeCommPortIdentifier PORT_ID
+		= new FakeCommPortIdentifier();
+	private static final Object SYNC = new Object();
+
+	@After
+	public void tearDown()
+	{
+		SessionPool.closeAll();
+	}
+
+	private static TransferParameters getTransferParameters()
+	{
+		return new TransferParameters(PORT_ID, 115200, 8, 1, 0, 0, SYNC);
+	}
+
+	private static MessageWatcher startWatching(SMSPanel panel)
+	{
+		panel.watchMessages(getTransferParameters());
+		MessageWatcher watcher = panel.getWatcher();
+		assertNotNull(watcher);
+		for (int i = 0; i < 300 && ! watcher.isWatching(); i++)
+		{
+			Utils.sleepIgnoreException(100);
+		}
+		assertTrue(watcher.isWatching());
+		return watcher;
+	}
+
+	/**
+	 * Test of watchMessages method, of class SMSPanel.
+	 */
+	@Test
+	public void testWatchMessagesSamePort()
+	{
+		System.out.println("watchMessagesSamePort");
+		SMSPanel panel = new SMSPanel();
+		MessageWatcher watcher = startWatching(panel);
+		// new parameters for the same port don't start another watcher
+		panel.watchMessages(getTransferParameters());
+		assertSame(watcher, panel.getWatcher());
+		panel.stopWatching();
+	}
+
+	/**
+	 * Test of stopWatching method, of class SMSPanel.
+	 */
+	@Test
+	public void testStopWatching()
+	{
+		System.out.println("stopWatching");
+		SMSPanel panel = new SMSPanel();
+		MessageWatcher watcher = startWatching(panel);
+		panel.stopWatching();
+		assertNull(panel.getWatcher());
+		for (int i = 0; i < 300 && watcher.isWatching(); i++)
+		{
+			Utils.sleepIgnoreException(100);
+		}
+		// the port isn't kept open anymore
+		assertFalse(watcher.isWatching());
+	}
+
+	/**
+	 * Test of removeNotify method, of class SMSPanel.
+	 */
+	@Test
+	public void testRemoveNotify()
+	{
+		System.out.println("removeNotify");
+		SMSPanel panel = new SMSPanel();
+		MessageWatcher watcher = startWatching(panel);
+		panel.removeNotify();
+		assertNull(panel.getWatcher());
+		// waits for the watching to stop
+		assertFalse(watcher.isWatching());
+	}
+}